@@ -42,6 +42,49 @@ public class ParserOptions {
 	private Set<String> myDontStripVersionsFromReferencesAtPaths = Collections.emptySet();
 	private boolean myOverrideResourceIdWithBundleEntryFullUrl = true;
 	private boolean myAutoContainReferenceTargetsWithNoId = true;
+	private boolean myUseStreamingJsonParser = false;
+
+	/**
+	 * If set to {@literal true} (default is {@literal false}), the JSON parser will drive its parse
+	 * directly from the JSON token stream instead of first reading the entire document into an
+	 * intermediate JSON tree and then walking that tree. This avoids holding a tree of the whole
+	 * document in memory while parsing large resources such as Bundles; how much allocation it saves
+	 * depends on the shape of the content.
+	 * <p>
+	 * Primitive values and their <code>_element</code> counterparts are still buffered per JSON
+	 * object, and any resource object that does not declare <code>resourceType</code> as its first
+	 * property is buffered as a tree before being parsed. Underscore-prefixed properties that accompany
+	 * a complex (non-primitive) element are reported to the parser error handler as unknown elements
+	 * in this mode.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isUseStreamingJsonParser() {
+		return myUseStreamingJsonParser;
+	}
+
+	/**
+	 * If set to {@literal true} (default is {@literal false}), the JSON parser will drive its parse
+	 * directly from the JSON token stream instead of first reading the entire document into an
+	 * intermediate JSON tree and then walking that tree. This avoids holding a tree of the whole
+	 * document in memory while parsing large resources such as Bundles; how much allocation it saves
+	 * depends on the shape of the content.
+	 * <p>
+	 * Primitive values and their <code>_element</code> counterparts are still buffered per JSON
+	 * object, and any resource object that does not declare <code>resourceType</code> as its first
+	 * property is buffered as a tree before being parsed. Underscore-prefixed properties that accompany
+	 * a complex (non-primitive) element are reported to the parser error handler as unknown elements
+	 * in this mode.
+	 * </p>
+	 *
+	 * @return Returns a reference to <code>this</code> parser so that method calls can be chained together
+	 * @since 7.0.0
+	 */
+	public ParserOptions setUseStreamingJsonParser(boolean theUseStreamingJsonParser) {
+		myUseStreamingJsonParser = theUseStreamingJsonParser;
+		return this;
+	}
 
 	/**
 	 * If set to {@literal true} (which is the default), contained resources may be specified by
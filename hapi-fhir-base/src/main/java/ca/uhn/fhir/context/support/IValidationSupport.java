@@ -401,6 +401,18 @@ public interface IValidationSupport {
 		// nothing
 	}
 
+	/**
+	 * Returns a number which increases every time {@link #invalidateCaches()} is called on this
+	 * module, or on any module it delegates to. Callers which cache results derived from this
+	 * module can compare it to tell whether those results may be stale. Modules which don't
+	 * track invalidation return <code>0</code>.
+	 *
+	 * @since 7.0.0
+	 */
+	default long getCacheGeneration() {
+		return 0;
+	}
+
 	/**
 	 * Attempt to translate the given concept from one code system to another
 	 */
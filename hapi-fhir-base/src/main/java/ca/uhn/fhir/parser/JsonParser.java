@@ -55,6 +55,9 @@ import ca.uhn.fhir.parser.json.JsonLikeStructure;
 import ca.uhn.fhir.parser.json.jackson.JacksonStructure;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.util.ElementUtil;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.text.WordUtils;
@@ -77,9 +80,11 @@ import java.io.Writer;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum.ID_DATATYPE;
 import static ca.uhn.fhir.context.BaseRuntimeElementDefinition.ChildTypeEnum.PRIMITIVE_DATATYPE;
@@ -237,6 +242,10 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 
 	@Override
 	public <T extends IBaseResource> T doParseResource(Class<T> theResourceType, Reader theReader) {
+		if (getContext().getParserOptions().isUseStreamingJsonParser()) {
+			return doParseResourceStreaming(theResourceType, theReader);
+		}
+
 		JsonLikeStructure jsonStructure = new JacksonStructure();
 		jsonStructure.load(theReader);
 
@@ -271,6 +280,234 @@ public class JsonParser extends BaseParser implements IJsonLikeParser {
 		return retVal;
 	}
 
+	/**
+	 * Parses a resource directly from the JSON token stream instead of loading a full
+	 * {@link JacksonStructure} tree first.
+	 *
+	 * @see ca.uhn.fhir.context.ParserOptions#setUseStreamingJsonParser(boolean)
+	 */
+	private <T extends IBaseResource> T doParseResourceStreaming(Class<T> theResourceType, Reader theReader) {
+		try (com.fasterxml.jackson.core.JsonParser jsonParser = JacksonStructure.createStreamingParser(theReader)) {
+			JsonToken token = jsonParser.nextToken();
+			if (token == null) {
+				throw new DataFormatException(Msg.code(2437) + "Did not find any content to parse");
+			}
+			if (token != JsonToken.START_OBJECT) {
+				throw new DataFormatException(
+						Msg.code(2438) + "Content must be a valid JSON Object. It must start with '{'.");
+			}
+
+			ParserState<? extends IBaseResource> state =
+					ParserState.getPreResourceInstance(this, theResourceType, getContext(), true, getErrorHandler());
+			streamResource(jsonParser, state, true);
+			state.endingElement();
+
+			if (jsonParser.nextToken() != null) {
+				throw new DataFormatException(
+						Msg.code(2439)
+								+ "Failed to parse JSON encoded FHIR content: Unexpected content found after the end of the resource");
+			}
+
+			@SuppressWarnings("unchecked")
+			T retVal = (T) state.getObject();
+
+			return retVal;
+		} catch (IOException e) {
+			throw new DataFormatException(
+					Msg.code(2440) + "Failed to parse JSON encoded FHIR content: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Parses a resource object from the token stream. The stream must be positioned on the
+	 * <code>START_OBJECT</code> token of the resource, and the parser state must be expecting
+	 * a resource.
+	 */
+	private void streamResource(
+			com.fasterxml.jackson.core.JsonParser theJsonParser, ParserState<?> theState, boolean theTopLevel)
+			throws IOException {
+		JsonToken token = theJsonParser.nextToken();
+		if (token == JsonToken.FIELD_NAME && "resourceType".equals(theJsonParser.getCurrentName())) {
+			String resourceType = null;
+			if (theJsonParser.nextToken() == JsonToken.VALUE_STRING) {
+				resourceType = theJsonParser.getText();
+			}
+			if (isBlank(resourceType)) {
+				throw newMissingResourceTypeException(theTopLevel);
+			}
+			theState.enteringNewElement(null, resourceType);
+			streamChildren(theJsonParser, theState);
+			theState.endingElement();
+			return;
+		}
+
+		/*
+		 * The resourceType isn't the first property of this object, so we can't tell which
+		 * resource to create until we have seen the whole object. Buffer it as a tree and
+		 * parse it the same way the non-streaming parser does.
+		 */
+		ObjectNode buffered = JacksonStructure.newNativeObject();
+		while (token == JsonToken.FIELD_NAME) {
+			String name = theJsonParser.getCurrentName();
+			theJsonParser.nextToken();
+			buffered.set(name, JacksonStructure.readNativeValue(theJsonParser));
+			token = theJsonParser.nextToken();
+		}
+
+		BaseJsonLikeObject object = JacksonStructure.wrapNativeValue(buffered).getAsObject();
+		BaseJsonLikeValue resourceTypeObj = object.get("resourceType");
+		if (resourceTypeObj == null || !resourceTypeObj.isString() || isBlank(resourceTypeObj.getAsString())) {
+			throw newMissingResourceTypeException(theTopLevel);
+		}
+		theState.enteringNewElement(null, resourceTypeObj.getAsString());
+		parseChildren(object, theState);
+		theState.endingElement();
+	}
+
+	private DataFormatException newMissingResourceTypeException(boolean theTopLevel) {
+		if (theTopLevel) {
+			return new DataFormatException(
+					Msg.code(2441) + "Invalid JSON content detected, missing required element: 'resourceType'");
+		}
+		return new DataFormatException(
+				Msg.code(2442) + "Missing required element 'resourceType' from JSON resource object, unable to parse");
+	}
+
+	/**
+	 * Parses the properties of a JSON object from the token stream, up to and including
+	 * its <code>END_OBJECT</code> token.
+	 * <p>
+	 * Complex elements (objects and arrays of objects) are passed to the parser state as
+	 * soon as they are read. Primitives, extensions and any other properties that may need
+	 * to be matched against a sibling property are buffered until the end of the object and
+	 * then parsed in one go, since FHIR JSON allows <code>_element</code> properties to appear
+	 * before or after the element they belong to. This means the leaf values of the document
+	 * are still read into small JSON nodes, and only the tree of complex elements above them
+	 * is avoided.
+	 * </p>
+	 */
+	private void streamChildren(com.fasterxml.jackson.core.JsonParser theJsonParser, ParserState<?> theState)
+			throws IOException {
+		ObjectNode deferred = null;
+		Set<String> streamedNames = null;
+
+		for (JsonToken token = theJsonParser.nextToken();
+				token == JsonToken.FIELD_NAME;
+				token = theJsonParser.nextToken()) {
+			String name = theJsonParser.getCurrentName();
+			JsonToken valueToken = theJsonParser.nextToken();
+
+			if (isStreamableChildName(name)) {
+				if (valueToken == JsonToken.START_OBJECT) {
+					streamChildObject(theJsonParser, theState, name, false);
+					streamedNames = addStreamedName(streamedNames, name);
+					continue;
+				}
+				if (valueToken == JsonToken.START_ARRAY) {
+					if (theJsonParser.nextToken() == JsonToken.START_OBJECT) {
+						streamChildArray(theJsonParser, theState, name);
+						streamedNames = addStreamedName(streamedNames, name);
+					} else {
+						if (deferred == null) {
+							deferred = JacksonStructure.newNativeObject();
+						}
+						ArrayNode array = deferred.putArray(name);
+						while (theJsonParser.getCurrentToken() != JsonToken.END_ARRAY) {
+							array.add(JacksonStructure.readNativeValue(theJsonParser));
+							theJsonParser.nextToken();
+						}
+					}
+					continue;
+				}
+			}
+
+			if (deferred == null) {
+				deferred = JacksonStructure.newNativeObject();
+			}
+			deferred.set(name, JacksonStructure.readNativeValue(theJsonParser));
+		}
+
+		if (deferred != null) {
+			if (streamedNames != null) {
+				for (String nextName : streamedNames) {
+					String alternateName = '_' + nextName;
+					if (deferred.remove(alternateName) != null) {
+						getErrorHandler().unknownElement(null, alternateName);
+					}
+				}
+			}
+			parseChildren(JacksonStructure.wrapNativeValue(deferred).getAsObject(), theState);
+		}
+	}
+
+	private static Set<String> addStreamedName(Set<String> theStreamedNames, String theName) {
+		Set<String> retVal = theStreamedNames;
+		if (retVal == null) {
+			retVal = new HashSet<>();
+		}
+		retVal.add(theName);
+		return retVal;
+	}
+
+	private static boolean isStreamableChildName(String theName) {
+		if (theName.startsWith("_")) {
+			return false;
+		}
+		switch (theName) {
+			case "id":
+			case "resourceType":
+			case "extension":
+			case "modifierExtension":
+			case "fhir_comments":
+				return false;
+			default:
+				return true;
+		}
+	}
+
+	/**
+	 * Parses an array whose first element is an object. The stream must be positioned on
+	 * the <code>START_OBJECT</code> token of the first element.
+	 */
+	private void streamChildArray(
+			com.fasterxml.jackson.core.JsonParser theJsonParser, ParserState<?> theState, String theName)
+			throws IOException {
+		for (JsonToken token = theJsonParser.getCurrentToken();
+				token != JsonToken.END_ARRAY;
+				token = theJsonParser.nextToken()) {
+			if (token == JsonToken.START_OBJECT) {
+				streamChildObject(theJsonParser, theState, theName, true);
+			} else {
+				BaseJsonLikeValue value =
+						JacksonStructure.wrapNativeValue(JacksonStructure.readNativeValue(theJsonParser));
+				parseChildren(theState, theName, value, null, '_' + theName, true);
+			}
+		}
+	}
+
+	/**
+	 * Parses a complex element. The stream must be positioned on the <code>START_OBJECT</code>
+	 * token of the element.
+	 */
+	private void streamChildObject(
+			com.fasterxml.jackson.core.JsonParser theJsonParser,
+			ParserState<?> theState,
+			String theName,
+			boolean theInArray)
+			throws IOException {
+		if (!theInArray && theState.elementIsRepeating(theName)) {
+			getErrorHandler().incorrectJsonType(null, theName, ValueType.ARRAY, null, ValueType.OBJECT, null);
+		}
+
+		theState.enteringNewElement(null, theName);
+		if (theState.isPreResource()) {
+			streamResource(theJsonParser, theState, false);
+		} else {
+			streamChildren(theJsonParser, theState);
+		}
+		theState.endingElement();
+	}
+
 	private void encodeChildElementToStreamWriter(
 			RuntimeResourceDefinition theResDef,
 			IBaseResource theResource,
@@ -32,6 +32,7 @@ import com.fasterxml.jackson.core.StreamReadConstraints;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.DecimalNode;
@@ -52,6 +53,8 @@ import java.util.Map;
 public class JacksonStructure implements JsonLikeStructure {
 
 	private static final ObjectMapper OBJECT_MAPPER = createObjectMapper();
+	private static final ObjectReader NESTED_VALUE_READER =
+			OBJECT_MAPPER.readerFor(JsonNode.class).without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
 	private JacksonWriter jacksonWriter;
 	private ROOT_TYPE rootType = null;
 	private JsonNode nativeRoot = null;
@@ -155,6 +158,36 @@ public class JacksonStructure implements JsonLikeStructure {
 		throw new DataFormatException(Msg.code(1862) + "Content must be a valid JSON Object. It must start with '{'.");
 	}
 
+	/**
+	 * Creates a Jackson token stream over the given reader, using the same
+	 * parser configuration as {@link #load(Reader)}.
+	 */
+	public static JsonParser createStreamingParser(Reader theReader) throws IOException {
+		return OBJECT_MAPPER.getFactory().createParser(theReader);
+	}
+
+	/**
+	 * Reads the value the given token stream is currently positioned on (and any children it has)
+	 * into a tree, leaving the stream positioned on the last token of that value.
+	 */
+	public static JsonNode readNativeValue(JsonParser theParser) throws IOException {
+		return NESTED_VALUE_READER.readTree(theParser);
+	}
+
+	/**
+	 * Creates a new, empty native object node using the node factory of this structure
+	 */
+	public static ObjectNode newNativeObject() {
+		return OBJECT_MAPPER.createObjectNode();
+	}
+
+	/**
+	 * Wraps an already parsed native node
+	 */
+	public static BaseJsonLikeValue wrapNativeValue(JsonNode theNode) {
+		return new JacksonJsonValue(theNode);
+	}
+
 	private enum ROOT_TYPE {
 		OBJECT,
 		ARRAY
@@ -148,6 +148,7 @@ public class Constants {
 	public static final String HEADER_PREFER_RETURN_REPRESENTATION = "representation";
 	public static final String HEADER_PREFER_RETURN_OPERATION_OUTCOME = "OperationOutcome";
 	public static final String HEADER_SUFFIX_CT_UTF_8 = "; charset=UTF-8";
+	public static final String HEADER_VARY = "Vary";
 	public static final String HEADERVALUE_CORS_ALLOW_METHODS_ALL = "GET, POST, PUT, DELETE, OPTIONS";
 	public static final String HEADER_REWRITE_HISTORY = "X-Rewrite-History";
 	public static final String HEADER_RETRY_ON_VERSION_CONFLICT = "X-Retry-On-Version-Conflict";
@@ -205,6 +206,13 @@ public class Constants {
 	public static final String PARAM_REVINCLUDE_RECURSE = PARAM_REVINCLUDE + PARAM_INCLUDE_QUALIFIER_RECURSE;
 	public static final String PARAM_REVINCLUDE_ITERATE = PARAM_REVINCLUDE + PARAM_INCLUDE_QUALIFIER_ITERATE;
 	public static final String PARAM_SEARCH = "_search";
+	/**
+	 * Opaque token identifying the last result of the previous page for keyset (aka seek) paged searches
+	 *
+	 * @since 7.0.0
+	 */
+	public static final String PARAM_SEARCH_AFTER = "_searchAfter";
+
 	public static final String PARAM_SECURITY = "_security";
 	public static final String PARAM_SINCE = "_since";
 	public static final String PARAM_SORT = "_sort";
@@ -0,0 +1,71 @@
+/*-
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.client.api;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Passed to {@link ca.uhn.fhir.interceptor.api.Pointcut#CLIENT_RESPONSE} hooks, and allows
+ * a hook to replace the HTTP response which is processed by the client. Hooks which are
+ * invoked after a replacement receive the original response as their
+ * {@link IHttpResponse} parameter, but see the replacement here.
+ *
+ * @since 7.0.0
+ */
+public class ClientResponseContext {
+
+	private final IHttpRequest myHttpRequest;
+	private final IRestfulClient myRestfulClient;
+	private IHttpResponse myHttpResponse;
+
+	/**
+	 * Constructor
+	 */
+	public ClientResponseContext(
+			IHttpRequest theHttpRequest, IHttpResponse theHttpResponse, IRestfulClient theRestfulClient) {
+		myHttpRequest = theHttpRequest;
+		myHttpResponse = theHttpResponse;
+		myRestfulClient = theRestfulClient;
+	}
+
+	public IHttpRequest getHttpRequest() {
+		return myHttpRequest;
+	}
+
+	/**
+	 * Returns the response which will be processed by the client
+	 */
+	public IHttpResponse getHttpResponse() {
+		return myHttpResponse;
+	}
+
+	/**
+	 * Replaces the response which will be processed by the client. The client still
+	 * closes the original response once processing is complete.
+	 */
+	public void setHttpResponse(IHttpResponse theHttpResponse) {
+		Validate.notNull(theHttpResponse, "theHttpResponse must not be null");
+		myHttpResponse = theHttpResponse;
+	}
+
+	public IRestfulClient getRestfulClient() {
+		return myRestfulClient;
+	}
+}
@@ -22,6 +22,9 @@ package ca.uhn.fhir.rest.client.api;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Http Request. Allows addition of headers and execution of the request.
@@ -43,6 +46,32 @@ public interface IHttpRequest {
 	 */
 	IHttpResponse execute() throws IOException;
 
+	/**
+	 * Execute the request without blocking the calling thread. The returned future
+	 * completes with the response once it has been received, or exceptionally with
+	 * the {@link IOException} that caused the request to fail.
+	 * <p>
+	 * The default implementation simply runs {@link #execute()} on the given executor,
+	 * so it still ties up one thread per request. Implementations backed by an HTTP
+	 * transport with native asynchronous support should override this method.
+	 * </p>
+	 *
+	 * @param theExecutor The executor used to run {@link #execute()} by implementations
+	 *                    which do not support asynchronous execution natively
+	 * @since 7.0.0
+	 */
+	default CompletableFuture<IHttpResponse> executeAsync(Executor theExecutor) {
+		return CompletableFuture.supplyAsync(
+				() -> {
+					try {
+						return execute();
+					} catch (IOException e) {
+						throw new CompletionException(e);
+					}
+				},
+				theExecutor);
+	}
+
 	/**
 	 * @return all request headers in lower case. Note that this method
 	 * returns an <b>immutable</b> Map
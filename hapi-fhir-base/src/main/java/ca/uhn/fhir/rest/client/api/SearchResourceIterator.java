@@ -0,0 +1,149 @@
+/*-
+ * #%L
+ * HAPI FHIR - Core Library
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.client.api;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.util.BundleUtil;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Iterates over the resources in every page of a search result, following the
+ * <code>next</code> link of each page Bundle. The next page is requested using
+ * {@link ca.uhn.fhir.rest.gclient.IClientExecutable#executeAsync()} as soon as the
+ * current page arrives, so it is fetched and parsed while the caller is still
+ * processing the current page.
+ * <p>
+ * All resources in each page are returned, including any resources added by
+ * <code>_include</code> or <code>_revinclude</code>. Iterators which are abandoned
+ * before reaching the last page should be {@link #close() closed} so that any
+ * outstanding page request is cancelled.
+ * </p>
+ * <pre>
+ * Bundle firstPage = client.search().forResource(Patient.class).returnBundle(Bundle.class).execute();
+ * try (Stream&lt;IBaseResource&gt; resources = SearchResourceIterator.stream(client, firstPage)) {
+ *    resources.forEach(r -&gt; process(r));
+ * }
+ * </pre>
+ *
+ * @since 7.0.0
+ */
+public class SearchResourceIterator implements Iterator<IBaseResource>, AutoCloseable {
+
+	private final IGenericClient myClient;
+	private final FhirContext myFhirContext;
+	private Iterator<IBaseResource> myCurrentPageResources;
+	private CompletableFuture<IBaseBundle> myNextPage;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theClient    The client used to load subsequent pages
+	 * @param theFirstPage The first page of the search result, as returned by the search itself
+	 */
+	public SearchResourceIterator(IGenericClient theClient, IBaseBundle theFirstPage) {
+		Validate.notNull(theClient, "theClient must not be null");
+		Validate.notNull(theFirstPage, "theFirstPage must not be null");
+		myClient = theClient;
+		myFhirContext = theClient.getFhirContext();
+		setCurrentPage(theFirstPage);
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!myCurrentPageResources.hasNext()) {
+			if (myNextPage == null) {
+				return false;
+			}
+			setCurrentPage(awaitNextPage());
+		}
+		return true;
+	}
+
+	@Override
+	public IBaseResource next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException(Msg.code(2457) + "No more resources in search result");
+		}
+		return myCurrentPageResources.next();
+	}
+
+	/**
+	 * Cancels any outstanding page request, aborting the underlying HTTP call. The
+	 * iterator returns no further pages after it has been closed.
+	 */
+	@Override
+	public void close() {
+		if (myNextPage != null) {
+			myNextPage.cancel(true);
+			myNextPage = null;
+		}
+	}
+
+	private void setCurrentPage(IBaseBundle thePage) {
+		myCurrentPageResources =
+				BundleUtil.toListOfResources(myFhirContext, thePage).iterator();
+		String nextUrl = BundleUtil.getLinkUrlOfType(myFhirContext, thePage, IBaseBundle.LINK_NEXT);
+		if (isNotBlank(nextUrl)) {
+			myNextPage = myClient.loadPage().next(thePage).executeAsync();
+		} else {
+			myNextPage = null;
+		}
+	}
+
+	private IBaseBundle awaitNextPage() {
+		try {
+			return myNextPage.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new InternalErrorException(Msg.code(2458) + e.getCause(), e.getCause());
+		}
+	}
+
+	/**
+	 * Returns a sequential stream over the resources in every page of the given search
+	 * result. Closing the stream cancels any outstanding page request.
+	 *
+	 * @param theClient    The client used to load subsequent pages
+	 * @param theFirstPage The first page of the search result, as returned by the search itself
+	 */
+	public static Stream<IBaseResource> stream(IGenericClient theClient, IBaseBundle theFirstPage) {
+		SearchResourceIterator iterator = new SearchResourceIterator(theClient, theFirstPage);
+		return StreamSupport.stream(
+						Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(iterator::close);
+	}
+}
@@ -26,6 +26,7 @@ import ca.uhn.fhir.rest.api.SummaryEnum;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface IClientExecutable<T extends IClientExecutable<?, Y>, Y> {
 
@@ -106,6 +107,23 @@ public interface IClientExecutable<T extends IClientExecutable<?, Y>, Y> {
 	 */
 	Y execute();
 
+	/**
+	 * Execute the client operation without blocking the calling thread. The returned future
+	 * completes with the same value that {@link #execute()} would have returned, or
+	 * exceptionally with the exception it would have thrown.
+	 * <p>
+	 * The generic client sends the request using the non-blocking support of the underlying
+	 * HTTP client where available (e.g. OkHttp), and parses the response on the client's
+	 * async executor. The default implementation simply invokes {@link #execute()} on the
+	 * common fork-join pool.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	default CompletableFuture<Y> executeAsync() {
+		return CompletableFuture.supplyAsync(this::execute);
+	}
+
 	/**
 	 * Explicitly specify a custom structure type to attempt to use when parsing the response. This
 	 * is useful for invocations where the response is a Bundle/Parameters containing nested resources,
@@ -26,10 +26,12 @@ import ca.uhn.fhir.context.FhirVersionEnum;
 import ca.uhn.fhir.context.RuntimeResourceDefinition;
 import org.hl7.fhir.instance.model.api.IBase;
 import org.hl7.fhir.instance.model.api.IBaseBinary;
+import org.hl7.fhir.instance.model.api.IBaseHasExtensions;
 import org.hl7.fhir.instance.model.api.IBaseReference;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
 import java.util.List;
+import javax.annotation.Nullable;
 
 public class BinaryUtil {
 
@@ -70,6 +72,25 @@ public class BinaryUtil {
 		return retVal;
 	}
 
+	/**
+	 * Returns the content encoding of the Binary data, as recorded in the
+	 * {@link HapiExtensions#EXT_BINARY_CONTENT_ENCODING} extension, or <code>null</code>
+	 * if the data is not encoded
+	 *
+	 * @since 7.0.0
+	 */
+	@Nullable
+	public static String getContentEncoding(IBaseBinary theBinary) {
+		if (theBinary.getMeta() instanceof IBaseHasExtensions) {
+			List<String> values = ExtensionUtil.getExtensionPrimitiveValues(
+					(IBaseHasExtensions) theBinary.getMeta(), HapiExtensions.EXT_BINARY_CONTENT_ENCODING);
+			if (!values.isEmpty()) {
+				return values.get(0);
+			}
+		}
+		return null;
+	}
+
 	public static IBaseBinary newBinary(FhirContext theCtx) {
 		return (IBaseBinary) theCtx.getResourceDefinition("Binary").newInstance();
 	}
@@ -81,6 +81,19 @@ public class HapiExtensions {
 	public static final String EXT_EXTERNALIZED_BINARY_ID =
 			"http://hapifhir.io/fhir/StructureDefinition/externalized-binary-id";
 
+	/**
+	 * <p>
+	 * The HTTP content encoding (e.g. <code>gzip</code>) of the data in a Binary resource. This
+	 * extension should be of type <code>string</code> and should be placed on the <code>Binary.meta</code>
+	 * element. When the Binary contents are returned directly, its value is returned in the
+	 * <code>Content-Encoding</code> header.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public static final String EXT_BINARY_CONTENT_ENCODING =
+			"http://hapifhir.io/fhir/StructureDefinition/binary-content-encoding";
+
 	/**
 	 * For subscription, deliver a bundle containing a search result instead of just a single resource
 	 */
@@ -0,0 +1,61 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.ComboSearchParamType;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nonnull;
+
+/**
+ * Serves the search parameters which are built into the FHIR structures. Unlike its parent
+ * this registry can be used for indexing, since it reports that there are no combo search
+ * parameters instead of refusing to answer.
+ */
+public class BuiltInSearchParamRegistry extends FhirContextSearchParamRegistry {
+
+	/**
+	 * Constructor
+	 */
+	public BuiltInSearchParamRegistry(@Nonnull FhirContext theFhirContext) {
+		super(theFhirContext);
+	}
+
+	@Override
+	public List<RuntimeSearchParam> getActiveComboSearchParams(String theResourceName) {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public List<RuntimeSearchParam> getActiveComboSearchParams(String theResourceName, Set<String> theParamNames) {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public List<RuntimeSearchParam> getActiveComboSearchParams(
+			String theResourceName, ComboSearchParamType theParamType) {
+		return Collections.emptyList();
+	}
+}
@@ -0,0 +1,168 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.api.IInterceptorService;
+import ca.uhn.fhir.interceptor.executor.InterceptorService;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.searchparam.extractor.ResourceIndexedSearchParams;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorR4;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorService;
+import ca.uhn.fhir.jpa.searchparam.matcher.CompiledMatchCriteria;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
+import ca.uhn.fhir.jpa.searchparam.matcher.IndexedSearchParamExtractor;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import org.hl7.fhir.r4.model.Observation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link InMemoryResourceMatcher}, which is used to evaluate subscription criteria
+ * against every stored resource. The matcher is wired with the real R4 search parameters
+ * and extractor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryResourceMatcherBenchmark {
+
+	@Param({
+		"Observation?code=http://loinc.org|8867-4",
+		"Observation?status=final&category=vital-signs&date=ge2023-01-01&subject=Patient/P1",
+		"Observation?value-quantity=gt50|http://unitsofmeasure.org|/min"
+	})
+	public String myCriteria;
+
+	private AnnotationConfigApplicationContext myAppCtx;
+	private InMemoryResourceMatcher myMatcher;
+	private CompiledMatchCriteria myCompiledCriteria;
+	private Observation myObservation;
+	private ResourceIndexedSearchParams myIndexedSearchParams;
+
+	@Setup
+	public void setup() {
+		myAppCtx = new AnnotationConfigApplicationContext(MatcherConfig.class);
+		myMatcher = myAppCtx.getBean(InMemoryResourceMatcher.class);
+		myCompiledCriteria = myMatcher.compile(myCriteria);
+
+		myObservation = new SyntheticDataGenerator(1).newObservation(1, "Patient/P1");
+		myIndexedSearchParams = myAppCtx.getBean(IndexedSearchParamExtractor.class)
+				.extractIndexedSearchParams(myObservation, new SystemRequestDetails());
+	}
+
+	@TearDown
+	public void tearDown() {
+		myAppCtx.close();
+	}
+
+	/**
+	 * Parses the criteria and indexes the resource on every call
+	 */
+	@Benchmark
+	public InMemoryMatchResult match() {
+		return myMatcher.match(myCriteria, myObservation, null, new SystemRequestDetails());
+	}
+
+	/**
+	 * Uses precompiled criteria and the indexes which were extracted when the resource was stored
+	 */
+	@Benchmark
+	public InMemoryMatchResult matchCompiledWithIndexes() {
+		return myMatcher.matchCompiled(
+				myCompiledCriteria, myObservation, myIndexedSearchParams, new SystemRequestDetails());
+	}
+
+	@Configuration
+	public static class MatcherConfig {
+
+		@Bean
+		public FhirContext fhirContext() {
+			return FhirContext.forR4Cached();
+		}
+
+		@Bean
+		public StorageSettings storageSettings() {
+			return new StorageSettings();
+		}
+
+		@Bean
+		public PartitionSettings partitionSettings() {
+			return new PartitionSettings();
+		}
+
+		@Bean
+		public ISearchParamRegistry searchParamRegistry(FhirContext theFhirContext) {
+			return new BuiltInSearchParamRegistry(theFhirContext);
+		}
+
+		@Bean
+		public IInterceptorService interceptorService() {
+			return new InterceptorService();
+		}
+
+		@Bean
+		public SearchParamExtractorR4 searchParamExtractor() {
+			return new SearchParamExtractorR4();
+		}
+
+		@Bean
+		public SearchParamExtractorService searchParamExtractorService() {
+			return new SearchParamExtractorService();
+		}
+
+		@Bean
+		public IndexedSearchParamExtractor indexedSearchParamExtractor() {
+			return new IndexedSearchParamExtractor();
+		}
+
+		@Bean
+		public MatchUrlService matchUrlService() {
+			return new MatchUrlService();
+		}
+
+		@Bean
+		public InMemoryResourceMatcher inMemoryResourceMatcher() {
+			return new InMemoryResourceMatcher();
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.ParserOptions;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ca.uhn.fhir.parser.JsonParser} and {@link ca.uhn.fhir.parser.XmlParser}
+ * parsing and encoding of single resources and of large Bundles.
+ * <p>
+ * JSON parsing is measured both with the default tree based parser and with the
+ * streaming parser (see {@link ParserOptions#setUseStreamingJsonParser(boolean)}). Run
+ * with <code>-prof gc</code> to compare the allocation rate of the two, e.g.
+ * <code>java -jar benchmarks.jar ParserBenchmark.parse -p myEncoding=JSON -prof gc</code>
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+	@Param({"JSON", "XML"})
+	public EncodingEnum myEncoding;
+
+	@Param({"PATIENT", "OBSERVATION", "BUNDLE"})
+	public SampleResource myResource;
+
+	/**
+	 * Only affects JSON parsing
+	 */
+	@Param({"false", "true"})
+	public boolean myStreamingJsonParser;
+
+	private FhirContext myFhirContext;
+	private IBaseResource myParsed;
+	private String myEncoded;
+
+	@Setup
+	public void setup() {
+		// Not the cached context, since the parser options are changed
+		myFhirContext = FhirContext.forR4();
+		myFhirContext.getParserOptions().setUseStreamingJsonParser(myStreamingJsonParser);
+		myParsed = myResource.create(new SyntheticDataGenerator(1));
+		myEncoded = newParser().encodeResourceToString(myParsed);
+	}
+
+	@Benchmark
+	public IBaseResource parse() {
+		return newParser().parseResource(myEncoded);
+	}
+
+	@Benchmark
+	public String encode() {
+		return newParser().encodeResourceToString(myParsed);
+	}
+
+	private IParser newParser() {
+		return myEncoding.newParser(myFhirContext);
+	}
+}
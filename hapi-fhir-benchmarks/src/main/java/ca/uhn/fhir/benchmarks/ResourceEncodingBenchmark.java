@@ -0,0 +1,111 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.dao.GZipUtil;
+import ca.uhn.fhir.jpa.dao.Lz4Util;
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link ResourceEncodingEnum#JSON}, {@link ResourceEncodingEnum#JSONC} (GZip) and
+ * {@link ResourceEncodingEnum#JSONL} (LZ4) storage encodings for resource bodies: the time to turn a
+ * resource into the stored bytes and back. The stored size of each sample is logged during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResourceEncodingBenchmark {
+	private static final Logger ourLog = LoggerFactory.getLogger(ResourceEncodingBenchmark.class);
+
+	@Param({"JSON", "JSONC", "JSONL"})
+	public ResourceEncodingEnum myResourceEncoding;
+
+	@Param({"PATIENT", "OBSERVATION", "BUNDLE"})
+	public SampleResource myResource;
+
+	private FhirContext myFhirContext;
+	private IBaseResource myParsed;
+	private byte[] myStored;
+
+	@Setup
+	public void setup() {
+		myFhirContext = FhirContext.forR4Cached();
+		myParsed = myResource.create(new SyntheticDataGenerator(1));
+		myStored = encode(myParsed);
+		ourLog.info("{} stored as {} is {} bytes", myResource, myResourceEncoding, myStored.length);
+	}
+
+	@Benchmark
+	public byte[] write() {
+		return encode(myParsed);
+	}
+
+	@Benchmark
+	public IBaseResource read() {
+		String text;
+		switch (myResourceEncoding) {
+			case JSONC:
+				text = GZipUtil.decompress(myStored);
+				break;
+			case JSONL:
+				text = Lz4Util.decompress(myStored);
+				break;
+			case JSON:
+			default:
+				text = new String(myStored, StandardCharsets.UTF_8);
+				break;
+		}
+		return myResourceEncoding.newParser(myFhirContext).parseResource(text);
+	}
+
+	private byte[] encode(IBaseResource theResource) {
+		String encoded = myResourceEncoding.newParser(myFhirContext).encodeResourceToString(theResource);
+		switch (myResourceEncoding) {
+			case JSONC:
+				return GZipUtil.compress(encoded);
+			case JSONL:
+				return Lz4Util.compress(encoded);
+			case JSON:
+			default:
+				return encoded.getBytes(StandardCharsets.UTF_8);
+		}
+	}
+}
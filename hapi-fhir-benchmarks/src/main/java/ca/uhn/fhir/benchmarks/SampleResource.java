@@ -0,0 +1,55 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import org.hl7.fhir.r4.model.Resource;
+
+/**
+ * The kinds of sample payload that benchmarks can be parameterized with
+ */
+public enum SampleResource {
+	PATIENT {
+		@Override
+		public Resource create(SyntheticDataGenerator theGenerator) {
+			return theGenerator.newPatient(1);
+		}
+	},
+
+	OBSERVATION {
+		@Override
+		public Resource create(SyntheticDataGenerator theGenerator) {
+			return theGenerator.newObservation(1, "Patient/P1");
+		}
+	},
+
+	/**
+	 * A searchset Bundle with {@link #BUNDLE_ENTRY_COUNT} entries
+	 */
+	BUNDLE {
+		@Override
+		public Resource create(SyntheticDataGenerator theGenerator) {
+			return theGenerator.newSearchsetBundle(BUNDLE_ENTRY_COUNT);
+		}
+	};
+
+	public static final int BUNDLE_ENTRY_COUNT = 500;
+
+	public abstract Resource create(SyntheticDataGenerator theGenerator);
+}
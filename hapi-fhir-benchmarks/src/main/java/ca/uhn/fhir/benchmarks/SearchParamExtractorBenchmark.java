@@ -0,0 +1,93 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.searchparam.extractor.BaseSearchParamExtractor;
+import ca.uhn.fhir.jpa.searchparam.extractor.ISearchParamExtractor;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorR4;
+import org.hl7.fhir.r4.model.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link BaseSearchParamExtractor} index extraction for the built-in R4 search parameters,
+ * both for a single parameter type and for all types within one extraction pass, which is what
+ * happens when a resource is stored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchParamExtractorBenchmark {
+
+	@Param({"PATIENT", "OBSERVATION"})
+	public SampleResource myResource;
+
+	private BaseSearchParamExtractor myExtractor;
+	private Resource myParsed;
+
+	@Setup
+	public void setup() {
+		FhirContext fhirContext = FhirContext.forR4Cached();
+		myExtractor = new SearchParamExtractorR4(
+				new StorageSettings(),
+				new PartitionSettings(),
+				fhirContext,
+				new BuiltInSearchParamRegistry(fhirContext));
+		myParsed = myResource.create(new SyntheticDataGenerator(1));
+	}
+
+	@Benchmark
+	public void extractTokens(Blackhole theBlackhole) {
+		theBlackhole.consume(myExtractor.extractSearchParamTokens(myParsed));
+	}
+
+	@Benchmark
+	public void extractAll(Blackhole theBlackhole) {
+		try (ISearchParamExtractor.IExtractionPass pass = myExtractor.startExtractionPass(myParsed)) {
+			theBlackhole.consume(myExtractor.extractSearchParamStrings(myParsed));
+			theBlackhole.consume(myExtractor.extractSearchParamTokens(myParsed));
+			theBlackhole.consume(myExtractor.extractSearchParamDates(myParsed));
+			theBlackhole.consume(myExtractor.extractSearchParamNumber(myParsed));
+			theBlackhole.consume(myExtractor.extractSearchParamQuantity(myParsed));
+			theBlackhole.consume(myExtractor.extractSearchParamUri(myParsed));
+			theBlackhole.consume(myExtractor.extractSearchParamSpecial(myParsed, ISearchParamExtractor.ALL_PARAMS));
+			theBlackhole.consume(myExtractor.extractSearchParamComposites(myParsed, ISearchParamExtractor.ALL_PARAMS));
+			theBlackhole.consume(myExtractor.extractResourceLinks(myParsed, false));
+		}
+	}
+}
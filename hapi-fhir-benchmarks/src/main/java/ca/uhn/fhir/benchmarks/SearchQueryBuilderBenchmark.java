@@ -0,0 +1,415 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.config.HibernatePropertiesProvider;
+import ca.uhn.fhir.jpa.migrate.DriverTypeEnum;
+import ca.uhn.fhir.jpa.migrate.HapiMigrator;
+import ca.uhn.fhir.jpa.migrate.SchemaMigrator;
+import ca.uhn.fhir.jpa.migrate.tasks.HapiFhirJpaMigrationTasks;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.dialect.HapiFhirH2Dialect;
+import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamDate;
+import ca.uhn.fhir.jpa.model.entity.ResourceIndexedSearchParamString;
+import ca.uhn.fhir.jpa.search.builder.QueryStack;
+import ca.uhn.fhir.jpa.search.builder.predicate.DatePredicateBuilder;
+import ca.uhn.fhir.jpa.search.builder.predicate.ResourceTablePredicateBuilder;
+import ca.uhn.fhir.jpa.search.builder.predicate.StringPredicateBuilder;
+import ca.uhn.fhir.jpa.search.builder.sql.GeneratedSql;
+import ca.uhn.fhir.jpa.search.builder.sql.SearchQueryBuilder;
+import ca.uhn.fhir.jpa.search.builder.sql.SqlObjectFactory;
+import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.searchparam.extractor.SearchParamExtractorR4;
+import ca.uhn.fhir.rest.api.SearchContainedModeEnum;
+import ca.uhn.fhir.rest.api.SortOrderEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.util.VersionEnum;
+import com.healthmarketscience.sqlbuilder.Condition;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.hl7.fhir.r4.model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes {@link SearchQueryBuilder} and {@link QueryStack} to turn a search into
+ * SQL, and how long that SQL then takes to run against an in-memory H2 database holding synthetic
+ * patients. The database schema is created by the real {@link HapiFhirJpaMigrationTasks}, so no
+ * external database is needed.
+ * <p>
+ * Only string, date and <code>_lastUpdated</code> parameters are used, since token parameters
+ * need the terminology services to be wired in.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchQueryBuilderBenchmark {
+	private static final Logger ourLog = LoggerFactory.getLogger(SearchQueryBuilderBenchmark.class);
+	private static final String RESOURCE_TYPE = "Patient";
+	private static final int PAGE_SIZE = 50;
+
+	@Param({
+		"family=smi&_sort=-_lastUpdated",
+		"name=mar&birthdate=ge1970-01-01&_sort=birthdate",
+		"family=jo,ga&birthdate=lt1990&_lastUpdated=ge2023-06-01&_sort=family"
+	})
+	public String myQuery;
+
+	@Param({"10000"})
+	public int myPatientCount;
+
+	private AnnotationConfigApplicationContext myAppCtx;
+	private FhirContext myFhirContext;
+	private JpaStorageSettings myStorageSettings;
+	private PartitionSettings myPartitionSettings;
+	private ISearchParamRegistry mySearchParamRegistry;
+	private SqlObjectFactory mySqlObjectFactory;
+	private HibernatePropertiesProvider myDialectProvider;
+	private SearchParameterMap mySearchParameterMap;
+	private BasicDataSource myDataSource;
+
+	@Setup
+	public void setup() throws SQLException {
+		myAppCtx = new AnnotationConfigApplicationContext(SqlBuilderConfig.class);
+		myFhirContext = myAppCtx.getBean(FhirContext.class);
+		myStorageSettings = myAppCtx.getBean(JpaStorageSettings.class);
+		myPartitionSettings = myAppCtx.getBean(PartitionSettings.class);
+		mySearchParamRegistry = myAppCtx.getBean(ISearchParamRegistry.class);
+		mySqlObjectFactory = myAppCtx.getBean(SqlObjectFactory.class);
+		myDialectProvider = new HibernatePropertiesProvider();
+		myDialectProvider.setDialectForUnitTest(new HapiFhirH2Dialect());
+
+		RuntimeResourceDefinition resourceDef = myFhirContext.getResourceDefinition(RESOURCE_TYPE);
+		mySearchParameterMap = myAppCtx.getBean(MatchUrlService.class)
+				.translateMatchUrl(RESOURCE_TYPE + "?" + myQuery, resourceDef);
+
+		myDataSource = new BasicDataSource();
+		myDataSource.setUrl("jdbc:h2:mem:benchmark-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+		myDataSource.setUsername("SA");
+		myDataSource.setPassword("SA");
+		myDataSource.setDriverClassName(DriverTypeEnum.H2_EMBEDDED.getDriverClassName());
+
+		long start = System.currentTimeMillis();
+		HapiMigrator migrator =
+				new HapiMigrator(SchemaMigrator.HAPI_FHIR_MIGRATION_TABLENAME, myDataSource, DriverTypeEnum.H2_EMBEDDED);
+		migrator.createMigrationTableIfRequired();
+		migrator.addTasks(new HapiFhirJpaMigrationTasks(Collections.emptySet()).getAllTasks(VersionEnum.values()));
+		migrator.migrate();
+		ourLog.info("Created schema in {}ms", System.currentTimeMillis() - start);
+
+		start = System.currentTimeMillis();
+		populate();
+		ourLog.info("Stored {} patients in {}ms", myPatientCount, System.currentTimeMillis() - start);
+	}
+
+	@TearDown
+	public void tearDown() throws SQLException {
+		myDataSource.close();
+		myAppCtx.close();
+	}
+
+	/**
+	 * Builds the SQL for one page of results
+	 */
+	@Benchmark
+	public GeneratedSql generateSql() {
+		return buildQuery().generate(null, PAGE_SIZE);
+	}
+
+	/**
+	 * Builds the SQL for one page of results, runs it, and reads the resource IDs
+	 */
+	@Benchmark
+	public int generateAndExecuteSql() throws SQLException {
+		GeneratedSql sql = buildQuery().generate(null, PAGE_SIZE);
+		try (Connection connection = myDataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement(sql.getSql())) {
+			List<Object> bindVariables = sql.getBindVariables();
+			for (int i = 0; i < bindVariables.size(); i++) {
+				Object next = bindVariables.get(i);
+				if (next instanceof Date) {
+					next = new Timestamp(((Date) next).getTime());
+				}
+				statement.setObject(i + 1, next);
+			}
+			int count = 0;
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					resultSet.getLong(1);
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * This follows what {@link ca.uhn.fhir.jpa.search.builder.SearchBuilder} does for a plain search
+	 */
+	private SearchQueryBuilder buildQuery() {
+		SearchQueryBuilder sqlBuilder = new SearchQueryBuilder(
+				myFhirContext,
+				myStorageSettings,
+				myPartitionSettings,
+				RequestPartitionId.allPartitions(),
+				RESOURCE_TYPE,
+				mySqlObjectFactory,
+				myDialectProvider,
+				false);
+		QueryStack queryStack = new QueryStack(
+				mySearchParameterMap,
+				myStorageSettings,
+				myFhirContext,
+				sqlBuilder,
+				mySearchParamRegistry,
+				myPartitionSettings);
+
+		for (String nextParamName : mySearchParameterMap.keySet()) {
+			Condition predicate = queryStack.searchForIdsWithAndOr(
+					null,
+					RESOURCE_TYPE,
+					nextParamName,
+					mySearchParameterMap.get(nextParamName),
+					new SystemRequestDetails(),
+					RequestPartitionId.allPartitions(),
+					SearchContainedModeEnum.FALSE);
+			if (predicate != null) {
+				sqlBuilder.addPredicate(predicate);
+			}
+		}
+
+		if (mySearchParameterMap.getLastUpdated() != null) {
+			sqlBuilder.addPredicate(sqlBuilder.addPredicateLastUpdated(mySearchParameterMap.getLastUpdated()));
+		}
+
+		SortSpec sort = mySearchParameterMap.getSort();
+		if (sort != null) {
+			boolean ascending = sort.getOrder() != SortOrderEnum.DESC;
+			if ("_lastUpdated".equals(sort.getParamName())) {
+				queryStack.addSortOnLastUpdated(ascending);
+			} else {
+				RuntimeSearchParam param = mySearchParamRegistry.getActiveSearchParam(RESOURCE_TYPE, sort.getParamName());
+				switch (param.getParamType()) {
+					case DATE:
+						queryStack.addSortOnDate(RESOURCE_TYPE, sort.getParamName(), ascending);
+						break;
+					case STRING:
+					default:
+						queryStack.addSortOnString(RESOURCE_TYPE, sort.getParamName(), ascending);
+						break;
+				}
+			}
+		}
+
+		return sqlBuilder;
+	}
+
+	/**
+	 * Stores the synthetic patients along with their string and date indexes
+	 */
+	private void populate() throws SQLException {
+		SearchParamExtractorR4 extractor = new SearchParamExtractorR4(
+				myStorageSettings, myPartitionSettings, myFhirContext, mySearchParamRegistry);
+		SyntheticDataGenerator generator = new SyntheticDataGenerator(1);
+		RequestPartitionId partitionId = RequestPartitionId.allPartitions();
+		long nextIndexId = 1;
+
+		try (Connection connection = myDataSource.getConnection();
+				PreparedStatement resourceInsert = connection.prepareStatement("INSERT INTO HFJ_RESOURCE "
+						+ "(RES_ID, RES_TYPE, FHIR_ID, RES_VER, RES_VERSION, RES_PUBLISHED, RES_UPDATED, HAS_TAGS, "
+						+ "SP_HAS_LINKS, SP_COORDS_PRESENT, SP_DATE_PRESENT, SP_NUMBER_PRESENT, SP_QUANTITY_PRESENT, "
+						+ "SP_QUANTITY_NRML_PRESENT, SP_STRING_PRESENT, SP_TOKEN_PRESENT, SP_URI_PRESENT, "
+						+ "SP_CMPSTR_UNIQ_PRESENT, SP_CMPTOKS_PRESENT, SP_INDEX_STATUS) "
+						+ "VALUES (?, ?, ?, 1, 'R4', ?, ?, FALSE, FALSE, FALSE, TRUE, FALSE, FALSE, FALSE, TRUE, "
+						+ "FALSE, FALSE, FALSE, FALSE, 1)");
+				PreparedStatement stringInsert = connection.prepareStatement("INSERT INTO HFJ_SPIDX_STRING "
+						+ "(SP_ID, RES_ID, RES_TYPE, SP_NAME, SP_MISSING, SP_UPDATED, SP_VALUE_EXACT, "
+						+ "SP_VALUE_NORMALIZED, HASH_IDENTITY, HASH_EXACT, HASH_NORM_PREFIX) "
+						+ "VALUES (?, ?, ?, ?, FALSE, ?, ?, ?, ?, ?, ?)");
+				PreparedStatement dateInsert = connection.prepareStatement("INSERT INTO HFJ_SPIDX_DATE "
+						+ "(SP_ID, RES_ID, RES_TYPE, SP_NAME, SP_MISSING, SP_UPDATED, SP_VALUE_LOW, SP_VALUE_HIGH, "
+						+ "SP_VALUE_LOW_DATE_ORDINAL, SP_VALUE_HIGH_DATE_ORDINAL, HASH_IDENTITY) "
+						+ "VALUES (?, ?, ?, ?, FALSE, ?, ?, ?, ?, ?, ?)")) {
+			connection.setAutoCommit(false);
+
+			for (int i = 0; i < myPatientCount; i++) {
+				Patient patient = generator.newPatient(i);
+				long pid = i + 1;
+				Timestamp updated =
+						new Timestamp(patient.getMeta().getLastUpdated().getTime());
+
+				resourceInsert.setLong(1, pid);
+				resourceInsert.setString(2, RESOURCE_TYPE);
+				resourceInsert.setString(3, Long.toString(pid));
+				resourceInsert.setTimestamp(4, updated);
+				resourceInsert.setTimestamp(5, updated);
+				resourceInsert.addBatch();
+
+				for (ResourceIndexedSearchParamString next : extractor.extractSearchParamStrings(patient)) {
+					String paramName = next.getParamName();
+					stringInsert.setLong(1, nextIndexId++);
+					stringInsert.setLong(2, pid);
+					stringInsert.setString(3, RESOURCE_TYPE);
+					stringInsert.setString(4, paramName);
+					stringInsert.setTimestamp(5, updated);
+					stringInsert.setString(6, next.getValueExact());
+					stringInsert.setString(7, next.getValueNormalized());
+					stringInsert.setLong(
+							8,
+							BaseResourceIndexedSearchParam.calculateHashIdentity(
+									myPartitionSettings, partitionId, RESOURCE_TYPE, paramName));
+					stringInsert.setLong(
+							9,
+							ResourceIndexedSearchParamString.calculateHashExact(
+									myPartitionSettings, partitionId, RESOURCE_TYPE, paramName, next.getValueExact()));
+					stringInsert.setLong(
+							10,
+							ResourceIndexedSearchParamString.calculateHashNormalized(
+									myPartitionSettings,
+									partitionId,
+									myStorageSettings,
+									RESOURCE_TYPE,
+									paramName,
+									next.getValueNormalized()));
+					stringInsert.addBatch();
+				}
+
+				for (ResourceIndexedSearchParamDate next : extractor.extractSearchParamDates(patient)) {
+					String paramName = next.getParamName();
+					dateInsert.setLong(1, nextIndexId++);
+					dateInsert.setLong(2, pid);
+					dateInsert.setString(3, RESOURCE_TYPE);
+					dateInsert.setString(4, paramName);
+					dateInsert.setTimestamp(5, updated);
+					dateInsert.setTimestamp(6, new Timestamp(next.getValueLow().getTime()));
+					dateInsert.setTimestamp(7, new Timestamp(next.getValueHigh().getTime()));
+					dateInsert.setObject(8, next.getValueLowDateOrdinal());
+					dateInsert.setObject(9, next.getValueHighDateOrdinal());
+					dateInsert.setLong(
+							10,
+							BaseResourceIndexedSearchParam.calculateHashIdentity(
+									myPartitionSettings, partitionId, RESOURCE_TYPE, paramName));
+					dateInsert.addBatch();
+				}
+
+				if (i % 1000 == 999) {
+					executeBatches(resourceInsert, stringInsert, dateInsert);
+				}
+			}
+			executeBatches(resourceInsert, stringInsert, dateInsert);
+			connection.commit();
+		}
+	}
+
+	private static void executeBatches(PreparedStatement... theStatements) throws SQLException {
+		for (PreparedStatement next : theStatements) {
+			next.executeBatch();
+		}
+	}
+
+	@Configuration
+	public static class SqlBuilderConfig {
+
+		@Bean
+		public FhirContext fhirContext() {
+			return FhirContext.forR4Cached();
+		}
+
+		@Bean
+		public JpaStorageSettings storageSettings() {
+			return new JpaStorageSettings();
+		}
+
+		@Bean
+		public PartitionSettings partitionSettings() {
+			return new PartitionSettings();
+		}
+
+		@Bean
+		public ISearchParamRegistry searchParamRegistry(FhirContext theFhirContext) {
+			return new BuiltInSearchParamRegistry(theFhirContext);
+		}
+
+		@Bean
+		public MatchUrlService matchUrlService() {
+			return new MatchUrlService();
+		}
+
+		@Bean
+		public SqlObjectFactory sqlObjectFactory() {
+			return new SqlObjectFactory();
+		}
+
+		@Bean
+		@org.springframework.context.annotation.Scope("prototype")
+		public ResourceTablePredicateBuilder resourceTablePredicateBuilder(SearchQueryBuilder theSearchQueryBuilder) {
+			return new ResourceTablePredicateBuilder(theSearchQueryBuilder);
+		}
+
+		@Bean
+		@org.springframework.context.annotation.Scope("prototype")
+		public StringPredicateBuilder stringPredicateBuilder(SearchQueryBuilder theSearchQueryBuilder) {
+			return new StringPredicateBuilder(theSearchQueryBuilder);
+		}
+
+		@Bean
+		@org.springframework.context.annotation.Scope("prototype")
+		public DatePredicateBuilder datePredicateBuilder(SearchQueryBuilder theSearchQueryBuilder) {
+			return new DatePredicateBuilder(theSearchQueryBuilder);
+		}
+	}
+}
@@ -0,0 +1,256 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import org.hl7.fhir.r4.model.Address;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.CodeableConcept;
+import org.hl7.fhir.r4.model.Coding;
+import org.hl7.fhir.r4.model.ContactPoint;
+import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.Enumerations;
+import org.hl7.fhir.r4.model.HumanName;
+import org.hl7.fhir.r4.model.Identifier;
+import org.hl7.fhir.r4.model.InstantType;
+import org.hl7.fhir.r4.model.Narrative;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.Resource;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.UUID;
+
+/**
+ * Creates R4 resources that are shaped like real clinical data (several names, identifiers,
+ * addresses and telecoms per patient, coded vital signs and labs with components, narrative)
+ * so that benchmark results reflect the cost of realistic payloads rather than of empty shells.
+ * <p>
+ * The output is deterministic for a given seed, so results from different runs are comparable.
+ * </p>
+ */
+public class SyntheticDataGenerator {
+
+	public static final String SYSTEM_MRN = "http://example.org/fhir/mrn";
+	public static final String SYSTEM_LOINC = "http://loinc.org";
+	public static final String SYSTEM_UCUM = "http://unitsofmeasure.org";
+	public static final String SYSTEM_OBS_CATEGORY = "http://terminology.hl7.org/CodeSystem/observation-category";
+
+	private static final String[] FAMILY_NAMES = {
+		"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+		"Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin"
+	};
+	private static final String[] GIVEN_NAMES = {
+		"James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+		"William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen"
+	};
+	private static final String[] CITIES = {"Toronto", "Montreal", "Vancouver", "Calgary", "Ottawa", "Halifax"};
+	private static final String[][] VITAL_SIGNS = {
+		// LOINC code, display, UCUM unit, low, high
+		{"8867-4", "Heart rate", "/min", "50", "120"},
+		{"8310-5", "Body temperature", "Cel", "35", "40"},
+		{"9279-1", "Respiratory rate", "/min", "10", "30"},
+		{"29463-7", "Body weight", "kg", "40", "140"},
+		{"8302-2", "Body height", "cm", "140", "200"},
+		{"2339-0", "Glucose [Mass/volume] in Blood", "mg/dL", "60", "200"},
+		{"2093-3", "Cholesterol [Mass/volume] in Serum or Plasma", "mg/dL", "120", "300"}
+	};
+
+	private final Random myRandom;
+	private final long myBaseTime;
+
+	/**
+	 * Constructor
+	 */
+	public SyntheticDataGenerator(long theSeed) {
+		myRandom = new Random(theSeed);
+		Calendar cal = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+		cal.clear();
+		cal.set(2023, Calendar.JANUARY, 1);
+		myBaseTime = cal.getTimeInMillis();
+	}
+
+	public Patient newPatient(int theIndex) {
+		Patient patient = new Patient();
+		patient.setId("Patient/P" + theIndex);
+		patient.getMeta().setVersionId("1");
+		patient.getMeta().setLastUpdatedElement(new InstantType(newRecentDate()));
+		patient.getMeta().addProfile("http://hl7.org/fhir/StructureDefinition/Patient");
+		patient.getText().setStatus(Narrative.NarrativeStatus.GENERATED);
+
+		patient.addIdentifier()
+				.setUse(Identifier.IdentifierUse.OFFICIAL)
+				.setSystem(SYSTEM_MRN)
+				.setValue("MRN" + (100000 + theIndex));
+		patient.addIdentifier()
+				.setSystem("http://example.org/fhir/health-card")
+				.setValue(Long.toString(1000000000L + myRandom.nextInt(900000000)));
+
+		String family = pick(FAMILY_NAMES);
+		HumanName official = patient.addName().setUse(HumanName.NameUse.OFFICIAL).setFamily(family);
+		official.addGiven(pick(GIVEN_NAMES));
+		official.addGiven(pick(GIVEN_NAMES));
+		patient.addName().setUse(HumanName.NameUse.NICKNAME).addGiven(pick(GIVEN_NAMES));
+		patient.getText()
+				.setDivAsString("<div xmlns=\"http://www.w3.org/1999/xhtml\">" + official.getNameAsSingleString()
+						+ "</div>");
+
+		patient.setGender(myRandom.nextBoolean() ? Enumerations.AdministrativeGender.MALE : Enumerations.AdministrativeGender.FEMALE);
+		Calendar birthDate = new GregorianCalendar(1930 + myRandom.nextInt(90), myRandom.nextInt(12), 1 + myRandom.nextInt(28));
+		patient.setBirthDate(birthDate.getTime());
+		patient.setActive(true);
+
+		patient.addTelecom()
+				.setSystem(ContactPoint.ContactPointSystem.PHONE)
+				.setUse(ContactPoint.ContactPointUse.HOME)
+				.setValue("555-" + (1000 + myRandom.nextInt(9000)));
+		patient.addTelecom()
+				.setSystem(ContactPoint.ContactPointSystem.EMAIL)
+				.setValue(family.toLowerCase(Locale.ROOT) + theIndex + "@example.org");
+
+		Address address = patient.addAddress().setUse(Address.AddressUse.HOME);
+		address.addLine((1 + myRandom.nextInt(999)) + " Main Street");
+		address.setCity(pick(CITIES)).setState("ON").setPostalCode("M5G 1X5").setCountry("CA");
+
+		return patient;
+	}
+
+	public Observation newObservation(int theIndex, String thePatientId) {
+		String[] vitalSign = VITAL_SIGNS[myRandom.nextInt(VITAL_SIGNS.length)];
+
+		Observation observation = new Observation();
+		observation.setId("Observation/O" + theIndex);
+		observation.getMeta().setVersionId("1");
+		observation.getMeta().setLastUpdatedElement(new InstantType(newRecentDate()));
+		observation.setStatus(Observation.ObservationStatus.FINAL);
+		observation.addIdentifier().setSystem("http://example.org/fhir/lab-result").setValue("LR" + theIndex);
+		observation
+				.addCategory()
+				.addCoding()
+				.setSystem(SYSTEM_OBS_CATEGORY)
+				.setCode("vital-signs")
+				.setDisplay("Vital Signs");
+		observation.setCode(new CodeableConcept()
+				.setText(vitalSign[1])
+				.addCoding(new Coding(SYSTEM_LOINC, vitalSign[0], vitalSign[1])));
+		observation.setSubject(new Reference(thePatientId).setDisplay(pick(GIVEN_NAMES) + " " + pick(FAMILY_NAMES)));
+		observation.setEffective(new DateTimeType(newRecentDate()));
+		observation.setIssuedElement(new InstantType(newRecentDate()));
+		observation.addPerformer(new Reference("Practitioner/PR" + myRandom.nextInt(50)));
+
+		double low = Double.parseDouble(vitalSign[3]);
+		double high = Double.parseDouble(vitalSign[4]);
+		observation.setValue(newQuantity(low + (high - low) * myRandom.nextDouble(), vitalSign[2]));
+		observation
+				.addReferenceRange()
+				.setLow(newQuantity(low, vitalSign[2]))
+				.setHigh(newQuantity(high, vitalSign[2]));
+		observation
+				.addInterpretation()
+				.addCoding()
+				.setSystem("http://terminology.hl7.org/CodeSystem/v3-ObservationInterpretation")
+				.setCode("N");
+
+		if (myRandom.nextInt(4) == 0) {
+			// Blood pressure style panel with components
+			observation
+					.addComponent()
+					.setCode(new CodeableConcept().addCoding(new Coding(SYSTEM_LOINC, "8480-6", "Systolic blood pressure")))
+					.setValue(newQuantity(90 + myRandom.nextInt(60), "mm[Hg]"));
+			observation
+					.addComponent()
+					.setCode(new CodeableConcept().addCoding(new Coding(SYSTEM_LOINC, "8462-4", "Diastolic blood pressure")))
+					.setValue(newQuantity(60 + myRandom.nextInt(40), "mm[Hg]"));
+		}
+
+		observation.addNote().setText("Recorded during routine visit " + theIndex);
+		return observation;
+	}
+
+	/**
+	 * Creates a searchset Bundle holding the given number of patients, each followed by
+	 * a few of their observations
+	 */
+	public Bundle newSearchsetBundle(int theEntryCount) {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.SEARCHSET);
+		bundle.setTotal(theEntryCount);
+		bundle.addLink().setRelation("self").setUrl("http://example.org/fhir/Observation?_count=" + theEntryCount);
+		for (int i = 0; i < theEntryCount; i++) {
+			Resource resource = newResourceForEntry(i);
+			bundle.addEntry()
+					.setFullUrl("http://example.org/fhir/" + resource.getIdElement().getValue())
+					.setResource(resource)
+					.getSearch()
+					.setMode(Bundle.SearchEntryMode.MATCH);
+		}
+		return bundle;
+	}
+
+	/**
+	 * Creates a transaction Bundle which creates the given number of patients and observations
+	 */
+	public Bundle newTransactionBundle(int theEntryCount) {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+		for (int i = 0; i < theEntryCount; i++) {
+			Resource resource = newResourceForEntry(i);
+			String resourceType = resource.fhirType();
+			bundle.addEntry()
+					.setFullUrl("urn:uuid:" + new UUID(myRandom.nextLong(), myRandom.nextLong()))
+					.setResource(resource)
+					.getRequest()
+					.setMethod(Bundle.HTTPVerb.PUT)
+					.setUrl(resource.getIdElement().getValue())
+					.setIfNoneExist(resourceType + "?identifier=" + resource.getIdElement().getIdPart());
+		}
+		return bundle;
+	}
+
+	private Resource newResourceForEntry(int theIndex) {
+		// One patient for every five entries, followed by that patient's observations
+		if (theIndex % 5 == 0) {
+			return newPatient(theIndex / 5);
+		}
+		return newObservation(theIndex, "Patient/P" + (theIndex / 5));
+	}
+
+	private Quantity newQuantity(double theValue, String theUnit) {
+		Quantity quantity = new Quantity();
+		quantity.setValue(Math.round(theValue * 10) / 10.0);
+		quantity.setUnit(theUnit).setSystem(SYSTEM_UCUM).setCode(theUnit);
+		return quantity;
+	}
+
+	private Date newRecentDate() {
+		// Somewhere within the year following the base time
+		return new Date(myBaseTime + (long) (myRandom.nextDouble() * 365L * 24 * 60 * 60 * 1000));
+	}
+
+	private String pick(String[] theValues) {
+		return theValues[myRandom.nextInt(theValues.length)];
+	}
+}
@@ -0,0 +1,111 @@
+/*-
+ * #%L
+ * HAPI FHIR - Benchmarks
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.util.FhirTerser;
+import org.hl7.fhir.instance.model.api.IBaseReference;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link FhirTerser} operations which are used heavily while storing resources:
+ * path navigation, finding all references in a Bundle, and full tree visits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TerserBenchmark {
+
+	private FhirTerser myTerser;
+	private Patient myPatient;
+	private Observation myObservation;
+	private Bundle myBundle;
+
+	@Setup
+	public void setup() {
+		FhirContext fhirContext = FhirContext.forR4Cached();
+		myTerser = fhirContext.newTerser();
+
+		SyntheticDataGenerator generator = new SyntheticDataGenerator(1);
+		myPatient = generator.newPatient(1);
+		myObservation = generator.newObservation(1, "Patient/P1");
+		myBundle = generator.newTransactionBundle(SampleResource.BUNDLE_ENTRY_COUNT);
+	}
+
+	@Benchmark
+	public void getValuesPatient(Blackhole theBlackhole) {
+		theBlackhole.consume(myTerser.getValues(myPatient, "Patient.name.given"));
+		theBlackhole.consume(myTerser.getValues(myPatient, "Patient.identifier.value"));
+		theBlackhole.consume(myTerser.getValues(myPatient, "Patient.address.city"));
+	}
+
+	@Benchmark
+	public void getValuesObservation(Blackhole theBlackhole) {
+		theBlackhole.consume(myTerser.getValues(myObservation, "Observation.code.coding.code"));
+		theBlackhole.consume(myTerser.getValues(myObservation, "Observation.component.value"));
+		theBlackhole.consume(myTerser.getSinglePrimitiveValueOrNull(myObservation, "Observation.subject.reference"));
+	}
+
+	/**
+	 * This is what transaction processing does to find the references it needs to resolve
+	 */
+	@Benchmark
+	public int getAllReferencesInBundleEntries() {
+		int count = 0;
+		for (Bundle.BundleEntryComponent next : myBundle.getEntry()) {
+			count += myTerser.getAllPopulatedChildElementsOfType(next.getResource(), IBaseReference.class)
+					.size();
+		}
+		return count;
+	}
+
+	@Benchmark
+	public Collection<IBaseResource> getAllEmbeddedResourcesInBundle() {
+		return myTerser.getAllEmbeddedResources(myBundle, true);
+	}
+
+	@Benchmark
+	public int visitBundle() {
+		int[] count = new int[1];
+		myTerser.visit(myBundle, (theResource, theElement, thePath, theChildDefinition, theDefinition) -> count[0]++);
+		return count[0];
+	}
+}
@@ -0,0 +1,126 @@
+package ca.uhn.fhir.benchmarks;
+
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
+import ca.uhn.fhir.jpa.search.builder.sql.GeneratedSql;
+import ca.uhn.fhir.rest.api.EncodingEnum;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs each benchmark method once outside of JMH, so that a broken benchmark shows up
+ * in the normal build instead of the next time somebody runs the benchmarks
+ */
+public class BenchmarkSmokeTest {
+
+	private static final Blackhole BLACKHOLE = new Blackhole(
+			"Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.");
+
+	@Test
+	public void testSyntheticDataIsDeterministic() {
+		Patient patient1 = new SyntheticDataGenerator(1).newPatient(1);
+		Patient patient2 = new SyntheticDataGenerator(1).newPatient(1);
+		assertTrue(patient1.equalsDeep(patient2));
+
+		Bundle bundle = new SyntheticDataGenerator(1).newSearchsetBundle(SampleResource.BUNDLE_ENTRY_COUNT);
+		assertEquals(SampleResource.BUNDLE_ENTRY_COUNT, bundle.getEntry().size());
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = EncodingEnum.class, names = {"JSON", "XML"})
+	public void testParserBenchmark(EncodingEnum theEncoding) {
+		ParserBenchmark benchmark = new ParserBenchmark();
+		benchmark.myEncoding = theEncoding;
+		benchmark.myResource = SampleResource.BUNDLE;
+		benchmark.setup();
+
+		Bundle parsed = (Bundle) benchmark.parse();
+		assertEquals(SampleResource.BUNDLE_ENTRY_COUNT, parsed.getEntry().size());
+		assertThat(benchmark.encode(), containsString("Observation"));
+	}
+
+	@Test
+	public void testParserBenchmarkStreamingJson() {
+		ParserBenchmark benchmark = new ParserBenchmark();
+		benchmark.myEncoding = EncodingEnum.JSON;
+		benchmark.myResource = SampleResource.BUNDLE;
+		benchmark.myStreamingJsonParser = true;
+		benchmark.setup();
+
+		Bundle parsed = (Bundle) benchmark.parse();
+		assertEquals(SampleResource.BUNDLE_ENTRY_COUNT, parsed.getEntry().size());
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = ResourceEncodingEnum.class, names = {"JSON", "JSONC", "JSONL"})
+	public void testResourceEncodingBenchmark(ResourceEncodingEnum theEncoding) {
+		ResourceEncodingBenchmark benchmark = new ResourceEncodingBenchmark();
+		benchmark.myResourceEncoding = theEncoding;
+		benchmark.myResource = SampleResource.PATIENT;
+		benchmark.setup();
+
+		assertThat(benchmark.write().length, greaterThan(0));
+		assertEquals("Patient", benchmark.read().fhirType());
+	}
+
+	@Test
+	public void testTerserBenchmark() {
+		TerserBenchmark benchmark = new TerserBenchmark();
+		benchmark.setup();
+
+		benchmark.getValuesPatient(BLACKHOLE);
+		benchmark.getValuesObservation(BLACKHOLE);
+		assertThat(benchmark.getAllReferencesInBundleEntries(), greaterThan(SampleResource.BUNDLE_ENTRY_COUNT));
+		assertEquals(SampleResource.BUNDLE_ENTRY_COUNT, benchmark.getAllEmbeddedResourcesInBundle().size());
+		assertThat(benchmark.visitBundle(), greaterThan(SampleResource.BUNDLE_ENTRY_COUNT));
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = SampleResource.class, names = {"PATIENT", "OBSERVATION"})
+	public void testSearchParamExtractorBenchmark(SampleResource theResource) {
+		SearchParamExtractorBenchmark benchmark = new SearchParamExtractorBenchmark();
+		benchmark.myResource = theResource;
+		benchmark.setup();
+
+		benchmark.extractTokens(BLACKHOLE);
+		benchmark.extractAll(BLACKHOLE);
+	}
+
+	@Test
+	public void testInMemoryResourceMatcherBenchmark() {
+		InMemoryResourceMatcherBenchmark benchmark = new InMemoryResourceMatcherBenchmark();
+		benchmark.myCriteria = "Observation?status=final&category=vital-signs&date=ge2023-01-01&subject=Patient/P1";
+		benchmark.setup();
+		try {
+			assertTrue(benchmark.match().matched(), benchmark.match().getUnsupportedReason());
+			assertTrue(benchmark.matchCompiledWithIndexes().matched());
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+
+	@Test
+	public void testSearchQueryBuilderBenchmark() throws Exception {
+		SearchQueryBuilderBenchmark benchmark = new SearchQueryBuilderBenchmark();
+		benchmark.myQuery = "family=jo,ga&birthdate=lt1990&_lastUpdated=ge2023-06-01&_sort=family";
+		benchmark.myPatientCount = 200;
+		benchmark.setup();
+		try {
+			GeneratedSql sql = benchmark.generateSql();
+			assertThat(sql.getSql(), containsString("HFJ_SPIDX_STRING"));
+			assertThat(sql.getSql(), containsString("HFJ_SPIDX_DATE"));
+			assertThat(benchmark.generateAndExecuteSql(), greaterThan(0));
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+}
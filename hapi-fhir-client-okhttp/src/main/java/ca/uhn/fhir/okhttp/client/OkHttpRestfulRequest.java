@@ -26,13 +26,17 @@ import ca.uhn.fhir.rest.client.api.IHttpResponse;
 import ca.uhn.fhir.util.StopWatch;
 import okhttp3.Call;
 import okhttp3.Call.Factory;
+import okhttp3.Callback;
 import okhttp3.Request;
 import okhttp3.RequestBody;
+import okhttp3.Response;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Adapter for building an OkHttp-specific request.
@@ -74,6 +78,40 @@ public class OkHttpRestfulRequest extends BaseHttpRequest implements IHttpReques
 		return new OkHttpRestfulResponse(call.execute(), responseStopWatch);
 	}
 
+	/**
+	 * Enqueues the call on the OkHttp dispatcher, so no thread is blocked while waiting
+	 * for the response. The executor is not used. Cancelling the returned future cancels
+	 * the call.
+	 */
+	@Override
+	public CompletableFuture<IHttpResponse> executeAsync(Executor theExecutor) {
+		StopWatch responseStopWatch = new StopWatch();
+		myRequestBuilder.method(getHttpVerbName(), myRequestBody);
+		Call call = myClient.newCall(myRequestBuilder.build());
+
+		CompletableFuture<IHttpResponse> retVal = new CompletableFuture<>();
+		call.enqueue(new Callback() {
+			@Override
+			public void onFailure(Call theCall, IOException theException) {
+				retVal.completeExceptionally(theException);
+			}
+
+			@Override
+			public void onResponse(Call theCall, Response theResponse) {
+				OkHttpRestfulResponse response = new OkHttpRestfulResponse(theResponse, responseStopWatch);
+				if (!retVal.complete(response)) {
+					response.close();
+				}
+			}
+		});
+		retVal.whenComplete((response, failure) -> {
+			if (retVal.isCancelled()) {
+				call.cancel();
+			}
+		});
+		return retVal;
+	}
+
 	@Override
 	public Map<String, List<String>> getAllHeaders() {
 		return Collections.unmodifiableMap(myRequestBuilder.build().headers().toMultimap());
@@ -29,16 +29,24 @@ import ca.uhn.fhir.rest.api.PreferReturnEnum;
 import ca.uhn.fhir.rest.api.SearchStyleEnum;
 import ca.uhn.fhir.rest.api.SummaryEnum;
 import ca.uhn.fhir.rest.client.api.Header;
+import ca.uhn.fhir.rest.client.api.IClientInterceptor;
 import ca.uhn.fhir.rest.client.api.IGenericClient;
+import ca.uhn.fhir.rest.client.api.IHttpRequest;
+import ca.uhn.fhir.rest.client.api.IHttpResponse;
 import ca.uhn.fhir.rest.client.api.ServerValidationModeEnum;
 import ca.uhn.fhir.rest.client.exceptions.InvalidResponseException;
+import ca.uhn.fhir.rest.client.impl.GenericClient;
 import ca.uhn.fhir.rest.client.impl.RestfulClientFactory;
 import ca.uhn.fhir.rest.client.interceptor.LoggingInterceptor;
 import ca.uhn.fhir.rest.param.DateRangeParam;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.test.utilities.JettyUtil;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
 import org.apache.commons.io.Charsets;
 import org.apache.commons.io.IOUtils;
 import org.eclipse.jetty.server.Request;
@@ -57,10 +65,17 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
@@ -68,10 +83,12 @@ import static org.hamcrest.Matchers.either;
 import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.equalToIgnoringCase;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class GenericOkHttpClientDstu2Test {
@@ -93,6 +110,7 @@ public class GenericOkHttpClientDstu2Test {
 	private static ArrayListMultimap<String, Header> ourRequestHeaders;
 	private static List<ArrayListMultimap<String, Header>> ourRequestHeadersAll;
 	private static Map<String, Header> ourRequestFirstHeaders;
+	private static CountDownLatch ourResponseLatch;
 
 	/**
 	 * This suite of tests can be reconfigured to test a different RestfulClientFactory implementation by
@@ -1114,6 +1132,135 @@ public class GenericOkHttpClientDstu2Test {
 		assertEquals("http://localhost:" + ourPort + "/fhir/prev", ourRequestUri);
 	}
 
+	@Test
+	public void testReadAsync() throws Exception {
+		Patient patient = new Patient();
+		patient.addName().addFamily("FAM");
+		ourResponseContentType = Constants.CT_FHIR_XML + "; charset=UTF-8";
+		ourResponseBody = ourCtx.newXmlParser().encodeResourceToString(patient);
+
+		GenericClient client = (GenericClient) ourCtx.newRestfulGenericClient("http://localhost:" + ourPort + "/fhir");
+		ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "async-parse"));
+		try {
+			client.setAsyncExecutor(executor);
+			List<String> parseThreadNames = new ArrayList<>();
+			client.registerInterceptor(new IClientInterceptor() {
+				@Override
+				public void interceptRequest(IHttpRequest theRequest) {
+					// nothing
+				}
+
+				@Override
+				public void interceptResponse(IHttpResponse theResponse) {
+					parseThreadNames.add(Thread.currentThread().getName());
+				}
+			});
+
+			List<CompletableFuture<Patient>> futures = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				futures.add(client.read().resource(Patient.class).withId("Patient/" + i).executeAsync());
+			}
+
+			for (CompletableFuture<Patient> next : futures) {
+				assertEquals("FAM", next.get(10, TimeUnit.SECONDS).getName().get(0).getFamily().get(0).getValue());
+			}
+			assertEquals(10, ourRequestUriAll.size());
+			assertThat(parseThreadNames, everyItem(equalTo("async-parse")));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testReadAsyncNotFound() {
+		ourResponseStatus = Constants.STATUS_HTTP_404_NOT_FOUND;
+		ourResponseContentType = Constants.CT_FHIR_XML + "; charset=UTF-8";
+		ourResponseBody = ourCtx.newXmlParser().encodeResourceToString(new OperationOutcome());
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://localhost:" + ourPort + "/fhir");
+		CompletableFuture<Patient> future = client.read().resource(Patient.class).withId("123").executeAsync();
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+		assertEquals(ResourceNotFoundException.class, e.getCause().getClass());
+		assertEquals("http://localhost:" + ourPort + "/fhir/Patient/123", ourRequestUri);
+	}
+
+	@Test
+	public void testReadAsyncCancelAbortsHttpCall() throws Exception {
+		ourResponseContentType = Constants.CT_FHIR_XML + "; charset=UTF-8";
+		ourResponseBody = ourCtx.newXmlParser().encodeResourceToString(new Patient());
+		ourResponseLatch = new CountDownLatch(1);
+
+		CountDownLatch canceledLatch = new CountDownLatch(1);
+		OkHttpClient okHttpClient = new OkHttpClient.Builder()
+			.eventListener(new EventListener() {
+				@Override
+				public void canceled(Call theCall) {
+					canceledLatch.countDown();
+				}
+			})
+			.build();
+		// Use a dedicated context so the listening OkHttpClient can't leak into the other tests
+		FhirContext ctx = FhirContext.forDstu2();
+		OkHttpRestfulClientFactory clientFactory = new OkHttpRestfulClientFactory(ctx);
+		clientFactory.setServerValidationMode(ServerValidationModeEnum.NEVER);
+		clientFactory.setHttpClient(okHttpClient);
+		ctx.setRestfulClientFactory(clientFactory);
+
+		try {
+			IGenericClient client = ctx.newRestfulGenericClient("http://localhost:" + ourPort + "/fhir");
+			CompletableFuture<Patient> future = client.read().resource(Patient.class).withId("123").executeAsync();
+
+			assertTrue(future.cancel(true));
+			assertTrue(canceledLatch.await(10, TimeUnit.SECONDS), "The OkHttp call was not cancelled");
+			assertTrue(future.isCancelled());
+		} finally {
+			ourResponseLatch.countDown();
+		}
+	}
+
+	@Test
+	public void testSearchAsync() throws Exception {
+		Bundle bundle = new Bundle();
+		bundle.addEntry().setResource(new Patient().setId("1"));
+		ourResponseContentType = Constants.CT_FHIR_JSON + "; charset=UTF-8";
+		ourResponseBody = ourCtx.newJsonParser().encodeResourceToString(bundle);
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://localhost:" + ourPort + "/fhir");
+
+		Bundle response = client.search()
+			.forResource("Patient")
+			.where(Patient.NAME.matches().value("james"))
+			.returnBundle(Bundle.class)
+			.executeAsync()
+			.get(10, TimeUnit.SECONDS);
+
+		assertEquals("http://localhost:" + ourPort + "/fhir/Patient?name=james", ourRequestUri);
+		assertEquals(Patient.class, response.getEntry().get(0).getResource().getClass());
+	}
+
+	@Test
+	public void testOperationAsyncWithBundleResponse() throws Exception {
+		Bundle bundle = new Bundle();
+		bundle.setId("8cef5f2a-0ba9-43a5-be26-c8dde9ff0e19");
+		ourResponseContentType = Constants.CT_FHIR_JSON;
+		ourResponseBody = ourCtx.newJsonParser().encodeResourceToString(bundle);
+
+		IGenericClient client = ourCtx.newRestfulGenericClient("http://localhost:" + ourPort + "/fhir");
+
+		Parameters outParams = client.operation()
+			.onInstance(new IdDt("Patient", "18066"))
+			.named("$everything")
+			.withNoParameters(Parameters.class)
+			.executeAsync()
+			.get(10, TimeUnit.SECONDS);
+
+		// As with execute(), a non-Parameters response is wrapped in a Parameters resource
+		Bundle responseBundle = (Bundle) outParams.getParameter().get(0).getResource();
+		assertEquals("8cef5f2a-0ba9-43a5-be26-c8dde9ff0e19", responseBundle.getId().getIdPart());
+		assertEquals("http://localhost:" + ourPort + "/fhir/Patient/18066/$everything", ourRequestUri);
+	}
+
 	@Test
 	public void testReadByUri() throws Exception {
 		Patient patient = new Patient();
@@ -1806,6 +1953,7 @@ public class GenericOkHttpClientDstu2Test {
 		ourRequestFirstHeaders = null;
 		ourRequestMethod = null;
 		ourRequestHeadersAll = Lists.newArrayList();
+		ourResponseLatch = null;
 	}
 
 	@BeforeAll
@@ -1840,6 +1988,14 @@ public class GenericOkHttpClientDstu2Test {
 					}
 				}
 
+				if (ourResponseLatch != null) {
+					try {
+						ourResponseLatch.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+
 				theResp.setStatus(ourResponseStatus);
 
 				if (ourResponseBody != null) {
@@ -41,6 +41,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * A Http Request based on Apache. This is an adapter around the class
@@ -70,6 +72,21 @@ public class ApacheHttpRequest extends BaseHttpRequest implements IHttpRequest {
 		return new ApacheHttpResponse(httpResponse, responseStopWatch);
 	}
 
+	/**
+	 * Sends the request on the given executor. Cancelling the returned future aborts the
+	 * request, which releases its connection even if the response has already arrived.
+	 */
+	@Override
+	public CompletableFuture<IHttpResponse> executeAsync(Executor theExecutor) {
+		CompletableFuture<IHttpResponse> retVal = super.executeAsync(theExecutor);
+		retVal.whenComplete((response, failure) -> {
+			if (retVal.isCancelled()) {
+				myRequest.abort();
+			}
+		});
+		return retVal;
+	}
+
 	@Override
 	public Map<String, List<String>> getAllHeaders() {
 		Map<String, List<String>> result = new HashMap<>();
@@ -36,6 +36,7 @@ import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.RequestFormatParamStyleEnum;
 import ca.uhn.fhir.rest.api.SummaryEnum;
+import ca.uhn.fhir.rest.client.api.ClientResponseContext;
 import ca.uhn.fhir.rest.client.api.IHttpClient;
 import ca.uhn.fhir.rest.client.api.IHttpRequest;
 import ca.uhn.fhir.rest.client.api.IHttpResponse;
@@ -78,6 +79,10 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -99,6 +104,7 @@ public abstract class BaseClient implements IRestfulClient {
 	private SummaryEnum mySummary;
 	private RequestFormatParamStyleEnum myRequestFormatParamStyle = RequestFormatParamStyleEnum.SHORT;
 	private IInterceptorService myInterceptorService;
+	private Executor myAsyncExecutor;
 
 	BaseClient(IHttpClient theClient, String theUrlBase, RestfulClientFactory theFactory) {
 		super();
@@ -230,6 +236,35 @@ public abstract class BaseClient implements IRestfulClient {
 		myRequestFormatParamStyle = theRequestFormatParamStyle;
 	}
 
+	/**
+	 * Returns the executor used to process and parse responses for asynchronous invocations
+	 * (e.g. {@link ca.uhn.fhir.rest.gclient.IClientExecutable#executeAsync()}). Defaults
+	 * to the bounded executor shared by all clients of the same
+	 * {@link RestfulClientFactory#getAsyncExecutor() client factory}.
+	 *
+	 * @since 7.0.0
+	 */
+	public Executor getAsyncExecutor() {
+		if (myAsyncExecutor == null) {
+			return myFactory.getAsyncExecutor();
+		}
+		return myAsyncExecutor;
+	}
+
+	/**
+	 * Sets the executor used to process and parse responses for asynchronous invocations
+	 * (e.g. {@link ca.uhn.fhir.rest.gclient.IClientExecutable#executeAsync()}). HTTP
+	 * clients without native asynchronous support also use this executor to send the
+	 * request itself. Defaults to the bounded executor shared by all clients of the same
+	 * {@link RestfulClientFactory#getAsyncExecutor() client factory}.
+	 *
+	 * @since 7.0.0
+	 */
+	public void setAsyncExecutor(@Nonnull Executor theAsyncExecutor) {
+		Validate.notNull(theAsyncExecutor, "theAsyncExecutor must not be null");
+		myAsyncExecutor = theAsyncExecutor;
+	}
+
 	protected <T> T invokeClient(
 			FhirContext theContext, IClientResponseHandler<T> binding, BaseHttpClientInvocation clientInvocation) {
 		return invokeClient(theContext, binding, clientInvocation, false);
@@ -276,204 +311,339 @@ public abstract class BaseClient implements IRestfulClient {
 		IHttpRequest httpRequest = null;
 		IHttpResponse response = null;
 		try {
-			Map<String, List<String>> params = createExtraParams(theCustomAcceptHeader);
-
-			if (clientInvocation instanceof HttpGetClientInvocation) {
-				if (myRequestFormatParamStyle == RequestFormatParamStyleEnum.SHORT && isBlank(theCustomAcceptHeader)) {
-					if (theEncoding == EncodingEnum.XML) {
-						params.put(Constants.PARAM_FORMAT, Collections.singletonList("xml"));
-					} else if (theEncoding == EncodingEnum.JSON) {
-						params.put(Constants.PARAM_FORMAT, Collections.singletonList("json"));
-					}
-				}
-			}
+			httpRequest = createHttpRequest(
+					clientInvocation,
+					theEncoding,
+					thePrettyPrint,
+					theLogRequestAndResponse,
+					theSummaryMode,
+					theSubsetElements,
+					theCacheControlDirective,
+					theCustomAcceptHeader,
+					theCustomHeaders);
 
-			if (theSummaryMode != null) {
-				params.put(Constants.PARAM_SUMMARY, Collections.singletonList(theSummaryMode.getCode()));
-			} else if (mySummary != null) {
-				params.put(Constants.PARAM_SUMMARY, Collections.singletonList(mySummary.getCode()));
-			}
+			response = httpRequest.execute();
 
-			if (thePrettyPrint == Boolean.TRUE) {
-				params.put(Constants.PARAM_PRETTY, Collections.singletonList(Constants.PARAM_PRETTY_VALUE_TRUE));
+			return handleResponse(theContext, binding, httpRequest, response, theLogRequestAndResponse);
+		} catch (Exception e) {
+			throw toClientException(e, httpRequest);
+		} finally {
+			if (response != null) {
+				response.close();
 			}
+		}
+	}
 
-			if (theSubsetElements != null && theSubsetElements.isEmpty() == false) {
-				params.put(
-						Constants.PARAM_ELEMENTS, Collections.singletonList(StringUtils.join(theSubsetElements, ',')));
-			}
+	/**
+	 * Asynchronous equivalent of {@link #invokeClient(FhirContext, IClientResponseHandler, BaseHttpClientInvocation, EncodingEnum, Boolean, boolean, SummaryEnum, Set, CacheControlDirective, String, Map)}.
+	 * The request is sent using {@link IHttpRequest#executeAsync(Executor)}, and the response is
+	 * processed and parsed on the {@link #setAsyncExecutor(Executor) async executor} so that
+	 * parsing never happens on the I/O thread of the underlying HTTP client. Any failure
+	 * completes the returned future exceptionally with the same exception that the
+	 * synchronous invocation would have thrown. Cancelling the returned future cancels the
+	 * underlying HTTP request.
+	 *
+	 * @since 7.0.0
+	 */
+	protected <T> CompletableFuture<T> invokeClientAsync(
+			FhirContext theContext,
+			IClientResponseHandler<T> binding,
+			BaseHttpClientInvocation clientInvocation,
+			EncodingEnum theEncoding,
+			Boolean thePrettyPrint,
+			boolean theLogRequestAndResponse,
+			SummaryEnum theSummaryMode,
+			Set<String> theSubsetElements,
+			CacheControlDirective theCacheControlDirective,
+			String theCustomAcceptHeader,
+			Map<String, List<String>> theCustomHeaders) {
 
-			EncodingEnum encoding = getEncoding();
-			if (theEncoding != null) {
-				encoding = theEncoding;
+		IHttpRequest httpRequest;
+		try {
+			if (!myDontValidateConformance) {
+				myFactory.validateServerBaseIfConfiguredToDoSo(myUrlBase, myClient, this);
 			}
 
-			httpRequest = clientInvocation.asHttpRequest(myUrlBase, params, encoding, thePrettyPrint);
+			httpRequest = createHttpRequest(
+					clientInvocation,
+					theEncoding,
+					thePrettyPrint,
+					theLogRequestAndResponse,
+					theSummaryMode,
+					theSubsetElements,
+					theCacheControlDirective,
+					theCustomAcceptHeader,
+					theCustomHeaders);
+		} catch (Exception e) {
+			return CompletableFuture.failedFuture(toClientException(e, null));
+		}
 
-			if (isNotBlank(theCustomAcceptHeader)) {
-				httpRequest.removeHeaders(Constants.HEADER_ACCEPT);
-				httpRequest.addHeader(Constants.HEADER_ACCEPT, theCustomAcceptHeader);
-			}
+		Executor executor = getAsyncExecutor();
+		CompletableFuture<IHttpResponse> requestFuture = httpRequest.executeAsync(executor);
+		CompletableFuture<T> retVal = requestFuture.handleAsync(
+				(response, failure) -> {
+					if (failure != null) {
+						Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+								? failure.getCause()
+								: failure;
+						if (cause instanceof Error) {
+							throw (Error) cause;
+						}
+						throw toClientException((Exception) cause, httpRequest);
+					}
+					try {
+						return handleResponse(theContext, binding, httpRequest, response, theLogRequestAndResponse);
+					} catch (Exception e) {
+						throw toClientException(e, httpRequest);
+					} finally {
+						response.close();
+					}
+				},
+				executor);
 
-			if (theCacheControlDirective != null) {
-				StringBuilder b = new StringBuilder();
-				addToCacheControlHeader(b, Constants.CACHE_CONTROL_NO_CACHE, theCacheControlDirective.isNoCache());
-				addToCacheControlHeader(b, Constants.CACHE_CONTROL_NO_STORE, theCacheControlDirective.isNoStore());
-				if (theCacheControlDirective.getMaxResults() != null) {
-					addToCacheControlHeader(
-							b,
-							Constants.CACHE_CONTROL_MAX_RESULTS + "="
-									+ theCacheControlDirective.getMaxResults().intValue(),
-							true);
-				}
-				if (b.length() > 0) {
-					httpRequest.addHeader(Constants.HEADER_CACHE_CONTROL, b.toString());
-				}
+		/*
+		 * If the response has already arrived when the returned future is cancelled, the handler
+		 * above will not run, so the response needs to be released here instead.
+		 */
+		return propagateCancellation(retVal, requestFuture, IHttpResponse::close);
+	}
+
+	/**
+	 * Cancelling a dependent stage of a {@link CompletableFuture} does not cancel the stage it
+	 * depends on. This method arranges for the source stage to be cancelled whenever the returned
+	 * dependent stage is cancelled, so that cancelling a future returned to the caller reaches the
+	 * underlying HTTP request.
+	 *
+	 * @since 7.0.0
+	 */
+	static <T, S> CompletableFuture<T> propagateCancellation(
+			CompletableFuture<T> theDependent, CompletableFuture<S> theSource) {
+		return propagateCancellation(theDependent, theSource, t -> {});
+	}
+
+	private static <T, S> CompletableFuture<T> propagateCancellation(
+			CompletableFuture<T> theDependent,
+			CompletableFuture<S> theSource,
+			Consumer<S> theCompletedSourceHandler) {
+		theDependent.whenComplete((result, failure) -> {
+			if (theDependent.isCancelled() && !theSource.cancel(true)) {
+				theSource.thenAccept(theCompletedSourceHandler);
 			}
+		});
+		return theDependent;
+	}
 
-			if (theLogRequestAndResponse) {
-				ourLog.info("Client invoking: {}", httpRequest);
-				String body = httpRequest.getRequestBodyFromStream();
-				if (body != null) {
-					ourLog.info("Client request body: {}", body);
+	private IHttpRequest createHttpRequest(
+			BaseHttpClientInvocation clientInvocation,
+			EncodingEnum theEncoding,
+			Boolean thePrettyPrint,
+			boolean theLogRequestAndResponse,
+			SummaryEnum theSummaryMode,
+			Set<String> theSubsetElements,
+			CacheControlDirective theCacheControlDirective,
+			String theCustomAcceptHeader,
+			Map<String, List<String>> theCustomHeaders)
+			throws IOException {
+		Map<String, List<String>> params = createExtraParams(theCustomAcceptHeader);
+
+		if (clientInvocation instanceof HttpGetClientInvocation) {
+			if (myRequestFormatParamStyle == RequestFormatParamStyleEnum.SHORT && isBlank(theCustomAcceptHeader)) {
+				if (theEncoding == EncodingEnum.XML) {
+					params.put(Constants.PARAM_FORMAT, Collections.singletonList("xml"));
+				} else if (theEncoding == EncodingEnum.JSON) {
+					params.put(Constants.PARAM_FORMAT, Collections.singletonList("json"));
 				}
 			}
+		}
 
-			if (theCustomHeaders != null) {
-				AdditionalRequestHeadersInterceptor interceptor =
-						new AdditionalRequestHeadersInterceptor(theCustomHeaders);
-				interceptor.interceptRequest(httpRequest);
-			}
+		if (theSummaryMode != null) {
+			params.put(Constants.PARAM_SUMMARY, Collections.singletonList(theSummaryMode.getCode()));
+		} else if (mySummary != null) {
+			params.put(Constants.PARAM_SUMMARY, Collections.singletonList(mySummary.getCode()));
+		}
 
-			HookParams requestParams = new HookParams();
-			requestParams.add(IHttpRequest.class, httpRequest);
-			requestParams.add(IRestfulClient.class, this);
-			getInterceptorService().callHooks(Pointcut.CLIENT_REQUEST, requestParams);
+		if (thePrettyPrint == Boolean.TRUE) {
+			params.put(Constants.PARAM_PRETTY, Collections.singletonList(Constants.PARAM_PRETTY_VALUE_TRUE));
+		}
 
-			response = httpRequest.execute();
+		if (theSubsetElements != null && theSubsetElements.isEmpty() == false) {
+			params.put(Constants.PARAM_ELEMENTS, Collections.singletonList(StringUtils.join(theSubsetElements, ',')));
+		}
+
+		EncodingEnum encoding = getEncoding();
+		if (theEncoding != null) {
+			encoding = theEncoding;
+		}
 
-			HookParams responseParams = new HookParams();
-			responseParams.add(IHttpRequest.class, httpRequest);
-			responseParams.add(IHttpResponse.class, response);
-			responseParams.add(IRestfulClient.class, this);
-			getInterceptorService().callHooks(Pointcut.CLIENT_RESPONSE, responseParams);
+		IHttpRequest httpRequest = clientInvocation.asHttpRequest(myUrlBase, params, encoding, thePrettyPrint);
 
-			String mimeType;
-			if (Constants.STATUS_HTTP_204_NO_CONTENT == response.getStatus()) {
-				mimeType = null;
-			} else {
-				mimeType = response.getMimeType();
+		if (isNotBlank(theCustomAcceptHeader)) {
+			httpRequest.removeHeaders(Constants.HEADER_ACCEPT);
+			httpRequest.addHeader(Constants.HEADER_ACCEPT, theCustomAcceptHeader);
+		}
+
+		if (theCacheControlDirective != null) {
+			StringBuilder b = new StringBuilder();
+			addToCacheControlHeader(b, Constants.CACHE_CONTROL_NO_CACHE, theCacheControlDirective.isNoCache());
+			addToCacheControlHeader(b, Constants.CACHE_CONTROL_NO_STORE, theCacheControlDirective.isNoStore());
+			if (theCacheControlDirective.getMaxResults() != null) {
+				addToCacheControlHeader(
+						b,
+						Constants.CACHE_CONTROL_MAX_RESULTS + "="
+								+ theCacheControlDirective.getMaxResults().intValue(),
+						true);
+			}
+			if (b.length() > 0) {
+				httpRequest.addHeader(Constants.HEADER_CACHE_CONTROL, b.toString());
 			}
+		}
 
-			Map<String, List<String>> headers = response.getAllHeaders();
+		if (theLogRequestAndResponse) {
+			ourLog.info("Client invoking: {}", httpRequest);
+			String body = httpRequest.getRequestBodyFromStream();
+			if (body != null) {
+				ourLog.info("Client request body: {}", body);
+			}
+		}
 
-			if (response.getStatus() < 200 || response.getStatus() > 299) {
-				String body = null;
-				try (Reader reader = response.createReader()) {
-					body = IOUtils.toString(reader);
-				} catch (Exception e) {
-					ourLog.debug("Failed to read input stream", e);
-				}
+		if (theCustomHeaders != null) {
+			AdditionalRequestHeadersInterceptor interceptor = new AdditionalRequestHeadersInterceptor(theCustomHeaders);
+			interceptor.interceptRequest(httpRequest);
+		}
 
-				String message = "HTTP " + response.getStatus() + " " + response.getStatusInfo();
-				IBaseOperationOutcome oo = null;
-				if (Constants.CT_TEXT.equals(mimeType)) {
-					message = message + ": " + body;
-				} else {
-					EncodingEnum enc = EncodingEnum.forContentType(mimeType);
-					if (enc != null) {
-						IParser p = enc.newParser(theContext);
-						try {
-							// TODO: handle if something other than OO comes back
-							oo = (IBaseOperationOutcome) p.parseResource(body);
-							String details = OperationOutcomeUtil.getFirstIssueDetails(getFhirContext(), oo);
-							if (isNotBlank(details)) {
-								message = message + ": " + details;
-							}
-						} catch (Exception e) {
-							ourLog.debug("Failed to process OperationOutcome response");
-						}
-					}
-				}
+		HookParams requestParams = new HookParams();
+		requestParams.add(IHttpRequest.class, httpRequest);
+		requestParams.add(IRestfulClient.class, this);
+		getInterceptorService().callHooks(Pointcut.CLIENT_REQUEST, requestParams);
 
-				keepResponseAndLogIt(theLogRequestAndResponse, response, body);
+		return httpRequest;
+	}
 
-				BaseServerResponseException exception =
-						BaseServerResponseException.newInstance(response.getStatus(), message);
-				exception.setOperationOutcome(oo);
+	private <T> T handleResponse(
+			FhirContext theContext,
+			IClientResponseHandler<T> binding,
+			IHttpRequest httpRequest,
+			IHttpResponse theResponse,
+			boolean theLogRequestAndResponse)
+			throws IOException {
+		ClientResponseContext responseContext = new ClientResponseContext(httpRequest, theResponse, this);
+		HookParams responseParams = new HookParams();
+		responseParams.add(IHttpRequest.class, httpRequest);
+		responseParams.add(IHttpResponse.class, theResponse);
+		responseParams.add(IRestfulClient.class, this);
+		responseParams.add(ClientResponseContext.class, responseContext);
+		getInterceptorService().callHooks(Pointcut.CLIENT_RESPONSE, responseParams);
+
+		// Hooks may have replaced the response
+		IHttpResponse response = responseContext.getHttpResponse();
+
+		String mimeType;
+		if (Constants.STATUS_HTTP_204_NO_CONTENT == response.getStatus()) {
+			mimeType = null;
+		} else {
+			mimeType = response.getMimeType();
+		}
 
-				if (body != null) {
-					exception.setResponseBody(body);
-				}
+		Map<String, List<String>> headers = response.getAllHeaders();
 
-				throw exception;
+		if (response.getStatus() < 200 || response.getStatus() > 299) {
+			String body = null;
+			try (Reader reader = response.createReader()) {
+				body = IOUtils.toString(reader);
+			} catch (Exception e) {
+				ourLog.debug("Failed to read input stream", e);
 			}
-			if (binding instanceof IClientResponseHandlerHandlesBinary) {
-				IClientResponseHandlerHandlesBinary<T> handlesBinary = (IClientResponseHandlerHandlesBinary<T>) binding;
-				if (handlesBinary.isBinary()) {
-					try (InputStream reader = response.readEntity()) {
-						return handlesBinary.invokeClientForBinary(mimeType, reader, response.getStatus(), headers);
+
+			String message = "HTTP " + response.getStatus() + " " + response.getStatusInfo();
+			IBaseOperationOutcome oo = null;
+			if (Constants.CT_TEXT.equals(mimeType)) {
+				message = message + ": " + body;
+			} else {
+				EncodingEnum enc = EncodingEnum.forContentType(mimeType);
+				if (enc != null) {
+					IParser p = enc.newParser(theContext);
+					try {
+						// TODO: handle if something other than OO comes back
+						oo = (IBaseOperationOutcome) p.parseResource(body);
+						String details = OperationOutcomeUtil.getFirstIssueDetails(getFhirContext(), oo);
+						if (isNotBlank(details)) {
+							message = message + ": " + details;
+						}
+					} catch (Exception e) {
+						ourLog.debug("Failed to process OperationOutcome response");
 					}
 				}
 			}
 
-			try (InputStream inputStream = response.readEntity()) {
-				InputStream inputStreamToReturn = inputStream;
+			keepResponseAndLogIt(theLogRequestAndResponse, response, body);
 
-				if (ourLog.isTraceEnabled() || myKeepResponses || theLogRequestAndResponse) {
-					if (inputStream != null) {
-						String responseString = IOUtils.toString(inputStream, Charsets.UTF_8);
-						keepResponseAndLogIt(theLogRequestAndResponse, response, responseString);
-						inputStreamToReturn = new ByteArrayInputStream(responseString.getBytes(Charsets.UTF_8));
-					}
-				}
+			BaseServerResponseException exception =
+					BaseServerResponseException.newInstance(response.getStatus(), message);
+			exception.setOperationOutcome(oo);
+
+			if (body != null) {
+				exception.setResponseBody(body);
+			}
 
-				if (inputStreamToReturn == null) {
-					inputStreamToReturn = new ByteArrayInputStream(new byte[] {});
+			throw exception;
+		}
+		if (binding instanceof IClientResponseHandlerHandlesBinary) {
+			IClientResponseHandlerHandlesBinary<T> handlesBinary = (IClientResponseHandlerHandlesBinary<T>) binding;
+			if (handlesBinary.isBinary()) {
+				try (InputStream reader = response.readEntity()) {
+					return handlesBinary.invokeClientForBinary(mimeType, reader, response.getStatus(), headers);
 				}
+			}
+		}
+
+		try (InputStream inputStream = response.readEntity()) {
+			InputStream inputStreamToReturn = inputStream;
 
-				return binding.invokeClient(mimeType, inputStreamToReturn, response.getStatus(), headers);
+			if (ourLog.isTraceEnabled() || myKeepResponses || theLogRequestAndResponse) {
+				if (inputStream != null) {
+					String responseString = IOUtils.toString(inputStream, Charsets.UTF_8);
+					keepResponseAndLogIt(theLogRequestAndResponse, response, responseString);
+					inputStreamToReturn = new ByteArrayInputStream(responseString.getBytes(Charsets.UTF_8));
+				}
 			}
 
-		} catch (DataFormatException e) {
-			String msg;
-			if (httpRequest != null) {
-				msg = getFhirContext()
-						.getLocalizer()
-						.getMessage(
-								BaseClient.class,
-								"failedToParseResponse",
-								httpRequest.getHttpVerbName(),
-								httpRequest.getUri(),
-								e.toString());
-			} else {
-				msg = getFhirContext()
-						.getLocalizer()
-						.getMessage(BaseClient.class, "failedToParseResponse", "UNKNOWN", "UNKNOWN", e.toString());
+			if (inputStreamToReturn == null) {
+				inputStreamToReturn = new ByteArrayInputStream(new byte[] {});
 			}
-			throw new FhirClientConnectionException(Msg.code(1359) + msg, e);
-		} catch (IllegalStateException e) {
-			throw new FhirClientConnectionException(Msg.code(1360) + e);
-		} catch (IOException e) {
-			String msg;
-			msg = getFhirContext()
+
+			return binding.invokeClient(mimeType, inputStreamToReturn, response.getStatus(), headers);
+		}
+	}
+
+	private RuntimeException toClientException(Exception theException, IHttpRequest httpRequest) {
+		if (theException instanceof DataFormatException) {
+			String msg = getFailedToParseResponseMessage(httpRequest, theException);
+			return new FhirClientConnectionException(Msg.code(1359) + msg, theException);
+		} else if (theException instanceof IllegalStateException) {
+			return new FhirClientConnectionException(Msg.code(1360) + theException);
+		} else if (theException instanceof IOException) {
+			String msg = getFailedToParseResponseMessage(httpRequest, theException);
+			return new FhirClientConnectionException(Msg.code(1361) + msg, theException);
+		} else if (theException instanceof RuntimeException) {
+			return (RuntimeException) theException;
+		}
+		return new FhirClientConnectionException(Msg.code(1362) + theException);
+	}
+
+	private String getFailedToParseResponseMessage(IHttpRequest httpRequest, Exception theException) {
+		if (httpRequest != null) {
+			return getFhirContext()
 					.getLocalizer()
 					.getMessage(
 							BaseClient.class,
 							"failedToParseResponse",
 							httpRequest.getHttpVerbName(),
 							httpRequest.getUri(),
-							e.toString());
-			throw new FhirClientConnectionException(Msg.code(1361) + msg, e);
-		} catch (RuntimeException e) {
-			throw e;
-		} catch (Exception e) {
-			throw new FhirClientConnectionException(Msg.code(1362) + e);
-		} finally {
-			if (response != null) {
-				response.close();
-			}
+							theException.toString());
 		}
+		return getFhirContext()
+				.getLocalizer()
+				.getMessage(BaseClient.class, "failedToParseResponse", "UNKNOWN", "UNKNOWN", theException.toString());
 	}
 
 	private void addToCacheControlHeader(StringBuilder theBuilder, String theDirective, boolean theActive) {
@@ -163,6 +163,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 import static org.apache.commons.lang3.StringUtils.defaultString;
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -220,33 +223,9 @@ public class GenericClient extends BaseClient implements IGenericClient {
 			String theCustomAcceptHeaderValue,
 			Map<String, List<String>> theCustomHeaders) {
 		String resName = toResourceName(theType);
-		IIdType id = theId;
-		if (!id.hasBaseUrl()) {
-			id = new IdDt(resName, id.getIdPart(), id.getVersionIdPart());
-		}
-
-		HttpGetClientInvocation invocation;
-		if (id.hasBaseUrl()) {
-			if (theVRead) {
-				invocation = ReadMethodBinding.createAbsoluteVReadInvocation(getFhirContext(), id);
-			} else {
-				invocation = ReadMethodBinding.createAbsoluteReadInvocation(getFhirContext(), id);
-			}
-		} else {
-			if (theVRead) {
-				invocation = ReadMethodBinding.createVReadInvocation(getFhirContext(), id, resName);
-			} else {
-				invocation = ReadMethodBinding.createReadInvocation(getFhirContext(), id, resName);
-			}
-		}
-		if (isKeepResponses()) {
-			myLastRequest = invocation.asHttpRequest(
-					getServerBase(), createExtraParams(theCustomAcceptHeaderValue), getEncoding(), isPrettyPrint());
-		}
-
-		if (theIfVersionMatches != null) {
-			invocation.addHeader(Constants.HEADER_IF_NONE_MATCH, '"' + theIfVersionMatches + '"');
-		}
+		IIdType id = toReadId(resName, theId);
+		HttpGetClientInvocation invocation =
+				createReadOrVReadInvocation(resName, id, theVRead, theIfVersionMatches, theCustomAcceptHeaderValue);
 
 		boolean allowHtmlResponse = SummaryEnum.TEXT.equals(theSummary);
 		ResourceResponseHandler<T> binding =
@@ -284,6 +263,94 @@ public class GenericClient extends BaseClient implements IGenericClient {
 		}
 	}
 
+	/**
+	 * Asynchronous equivalent of {@link #doReadOrVRead(Class, IIdType, boolean, ICallable, String, Boolean, SummaryEnum, EncodingEnum, Set, String, Map)}
+	 */
+	private <T extends IBaseResource> CompletableFuture<T> doReadOrVReadAsync(
+			final Class<T> theType,
+			IIdType theId,
+			boolean theVRead,
+			ICallable<T> theNotModifiedHandler,
+			String theIfVersionMatches,
+			Boolean thePrettyPrint,
+			SummaryEnum theSummary,
+			EncodingEnum theEncoding,
+			Set<String> theSubsetElements,
+			String theCustomAcceptHeaderValue,
+			Map<String, List<String>> theCustomHeaders) {
+		String resName = toResourceName(theType);
+		IIdType id = toReadId(resName, theId);
+		HttpGetClientInvocation invocation =
+				createReadOrVReadInvocation(resName, id, theVRead, theIfVersionMatches, theCustomAcceptHeaderValue);
+
+		boolean allowHtmlResponse = SummaryEnum.TEXT.equals(theSummary);
+		ResourceResponseHandler<T> binding =
+				new ResourceResponseHandler<>(theType, (Class<? extends IBaseResource>) null, id, allowHtmlResponse);
+
+		CompletableFuture<T> retVal = invokeClientAsync(
+				myContext,
+				binding,
+				invocation,
+				theEncoding,
+				thePrettyPrint,
+				myLogRequestAndResponse,
+				theSummary,
+				theSubsetElements,
+				null,
+				theCustomAcceptHeaderValue,
+				theCustomHeaders);
+		if (theNotModifiedHandler == null) {
+			return retVal;
+		}
+		return propagateCancellation(
+				retVal.exceptionally(t -> {
+					if (t instanceof CompletionException && t.getCause() instanceof NotModifiedException) {
+						return theNotModifiedHandler.call();
+					}
+					throw t instanceof CompletionException ? (CompletionException) t : new CompletionException(t);
+				}),
+				retVal);
+	}
+
+	private IIdType toReadId(String theResourceName, IIdType theId) {
+		if (!theId.hasBaseUrl()) {
+			return new IdDt(theResourceName, theId.getIdPart(), theId.getVersionIdPart());
+		}
+		return theId;
+	}
+
+	private HttpGetClientInvocation createReadOrVReadInvocation(
+			String theResourceName,
+			IIdType theId,
+			boolean theVRead,
+			String theIfVersionMatches,
+			String theCustomAcceptHeaderValue) {
+		HttpGetClientInvocation invocation;
+		if (theId.hasBaseUrl()) {
+			if (theVRead) {
+				invocation = ReadMethodBinding.createAbsoluteVReadInvocation(getFhirContext(), theId);
+			} else {
+				invocation = ReadMethodBinding.createAbsoluteReadInvocation(getFhirContext(), theId);
+			}
+		} else {
+			if (theVRead) {
+				invocation = ReadMethodBinding.createVReadInvocation(getFhirContext(), theId, theResourceName);
+			} else {
+				invocation = ReadMethodBinding.createReadInvocation(getFhirContext(), theId, theResourceName);
+			}
+		}
+		if (isKeepResponses()) {
+			myLastRequest = invocation.asHttpRequest(
+					getServerBase(), createExtraParams(theCustomAcceptHeaderValue), getEncoding(), isPrettyPrint());
+		}
+
+		if (theIfVersionMatches != null) {
+			invocation.addHeader(Constants.HEADER_IF_NONE_MATCH, '"' + theIfVersionMatches + '"');
+		}
+
+		return invocation;
+	}
+
 	@Override
 	public IFetchConformanceUntyped fetchConformance() {
 		return new FetchConformanceInternal();
@@ -483,6 +550,14 @@ public class GenericClient extends BaseClient implements IGenericClient {
 		private List<Class<? extends IBaseResource>> myPreferResponseTypes;
 		private boolean myQueryLogRequestAndResponse;
 		private Set<String> mySubsetElements;
+		/**
+		 * Set while {@link #executeAsync()} runs {@link #execute()} to build the request, so that
+		 * {@link #invoke(Map, IClientResponseHandler, BaseHttpClientInvocation)} sends it asynchronously
+		 * and stores the pending response in {@link #myAsyncResponse} instead of blocking
+		 */
+		private boolean myBuildingAsyncRequest;
+
+		private CompletableFuture<?> myAsyncResponse;
 
 		public String getCustomAcceptHeaderValue() {
 			return myCustomAcceptHeaderValue;
@@ -582,6 +657,22 @@ public class GenericClient extends BaseClient implements IGenericClient {
 				myLastRequest = theInvocation.asHttpRequest(getServerBase(), theParams, getEncoding(), myPrettyPrint);
 			}
 
+			if (myBuildingAsyncRequest) {
+				myAsyncResponse = invokeClientAsync(
+						myContext,
+						theHandler,
+						theInvocation,
+						myParamEncoding,
+						myPrettyPrint,
+						myQueryLogRequestAndResponse || myLogRequestAndResponse,
+						mySummaryMode,
+						mySubsetElements,
+						myCacheControlDirective,
+						myCustomAcceptHeaderValue,
+						myCustomHeaderValues);
+				return null;
+			}
+
 			Z resp = invokeClient(
 					myContext,
 					theHandler,
@@ -597,6 +688,42 @@ public class GenericClient extends BaseClient implements IGenericClient {
 			return resp;
 		}
 
+		/**
+		 * Like {@link #invoke(Map, IClientResponseHandler, BaseHttpClientInvocation)}, but applies
+		 * the given function to the response before returning it. Executables which post-process
+		 * the response should use this method so that {@link #executeAsync()} applies the same
+		 * processing once the response arrives.
+		 */
+		protected <Z> Object invoke(
+				Map<String, List<String>> theParams,
+				IClientResponseHandler<Z> theHandler,
+				BaseHttpClientInvocation theInvocation,
+				Function<Z, Object> theResponseProcessor) {
+			Z resp = invoke(theParams, theHandler, theInvocation);
+			if (myBuildingAsyncRequest) {
+				CompletableFuture<?> response = myAsyncResponse;
+				myAsyncResponse =
+						propagateCancellation(response.thenApply(t -> theResponseProcessor.apply((Z) t)), response);
+				return null;
+			}
+			return theResponseProcessor.apply(resp);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public CompletableFuture<Y> executeAsync() {
+			myBuildingAsyncRequest = true;
+			try {
+				execute();
+			} finally {
+				myBuildingAsyncRequest = false;
+			}
+			CompletableFuture<?> retVal = myAsyncResponse;
+			myAsyncResponse = null;
+			Validate.validState(retVal != null, "No request was sent");
+			return (CompletableFuture<Y>) retVal;
+		}
+
 		protected IBaseResource parseResourceBody(String theResourceBody) {
 			EncodingEnum encoding = EncodingEnum.detectEncodingNoDefault(theResourceBody);
 			if (encoding == null) {
@@ -1438,12 +1565,14 @@ public class GenericClient extends BaseClient implements IGenericClient {
 				handler = new MethodOutcomeResponseHandler(handler);
 			}
 
-			Object retVal = invoke(null, handler, invocation);
-
 			if (myReturnMethodOutcome) {
-				return retVal;
+				return invoke(null, handler, invocation);
 			}
 
+			return invoke(null, handler, invocation, this::wrapInParametersIfNeeded);
+		}
+
+		private Object wrapInParametersIfNeeded(Object retVal) {
 			if (myContext
 					.getResourceDefinition((IBaseResource) retVal)
 					.getName()
@@ -1875,6 +2004,22 @@ public class GenericClient extends BaseClient implements IGenericClient {
 					myCustomHeaderValues);
 		}
 
+		@Override
+		public CompletableFuture<Object> executeAsync() {
+			return doReadOrVReadAsync(
+					myType.getImplementingClass(),
+					myId,
+					myId.hasVersionIdPart(),
+					myNotModifiedHandler,
+					myIfVersionMatches,
+					myPrettyPrint,
+					mySummaryMode,
+					myParamEncoding,
+					getSubsetElements(),
+					getCustomAcceptHeaderValue(),
+					myCustomHeaderValues);
+		}
+
 		@Override
 		public IReadIfNoneMatch ifVersionMatches(String theVersion) {
 			myIfVersionMatches = theVersion;
@@ -36,6 +36,7 @@ import ca.uhn.fhir.rest.client.method.BaseMethodBinding;
 import ca.uhn.fhir.util.FhirTerser;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
@@ -47,6 +48,10 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Base class for a REST client factory implementation
@@ -66,6 +71,7 @@ public abstract class RestfulClientFactory implements IRestfulClientFactory {
 	private String myProxyPassword;
 	private int myPoolMaxTotal = DEFAULT_POOL_MAX;
 	private int myPoolMaxPerRoute = DEFAULT_POOL_MAX_PER_ROUTE;
+	private ThreadPoolExecutor myAsyncExecutor;
 
 	/**
 	 * Constructor
@@ -131,6 +137,33 @@ public abstract class RestfulClientFactory implements IRestfulClientFactory {
 		return myPoolMaxPerRoute;
 	}
 
+	/**
+	 * Returns the executor shared by the clients created by this factory for processing and parsing
+	 * the responses of asynchronous invocations, and for sending the request itself when the HTTP
+	 * client has no native asynchronous support. The executor uses at most {@link #getPoolMaxTotal()}
+	 * daemon threads (matching the connection pool, since each thread may block on a connection),
+	 * and idle threads are released after a minute.
+	 *
+	 * @since 7.0.0
+	 */
+	public synchronized Executor getAsyncExecutor() {
+		if (myAsyncExecutor == null) {
+			int poolSize = Math.max(1, myPoolMaxTotal);
+			myAsyncExecutor = new ThreadPoolExecutor(
+					poolSize,
+					poolSize,
+					60,
+					TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(),
+					new BasicThreadFactory.Builder()
+							.namingPattern("hapi-fhir-client-async-%d")
+							.daemon(true)
+							.build());
+			myAsyncExecutor.allowCoreThreadTimeOut(true);
+		}
+		return myAsyncExecutor;
+	}
+
 	@SuppressWarnings("unchecked")
 	private <T extends IRestfulClient> T instantiateProxy(
 			Class<T> theClientType, InvocationHandler theInvocationHandler) {
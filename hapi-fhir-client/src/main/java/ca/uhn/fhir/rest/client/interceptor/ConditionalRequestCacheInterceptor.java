@@ -0,0 +1,419 @@
+/*-
+ * #%L
+ * HAPI FHIR - Client Framework
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.client.interceptor;
+
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Interceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.RequestTypeEnum;
+import ca.uhn.fhir.rest.client.api.ClientResponseContext;
+import ca.uhn.fhir.rest.client.api.IHttpRequest;
+import ca.uhn.fhir.rest.client.api.IHttpResponse;
+import ca.uhn.fhir.rest.client.impl.BaseHttpResponse;
+import ca.uhn.fhir.util.StopWatch;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.Validate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Client interceptor which caches the bodies of <code>GET</code> responses carrying an
+ * <code>ETag</code> and/or <code>Last-Modified</code> header, keyed by request URL together with the
+ * <code>Accept</code>, <code>Authorization</code> and <code>Cookie</code> request headers, so that
+ * different representations and different users never share an entry. Subsequent matching
+ * <code>GET</code> requests are sent as conditional requests using
+ * <code>If-None-Match</code> / <code>If-Modified-Since</code>, and if the server responds with
+ * <code>304 Not Modified</code> the cached body is returned to the client as though the server
+ * had sent it again.
+ * <p>
+ * Every request is still revalidated with the server, so cached content is never stale. The
+ * cached body is parsed again on every hit, since the resources returned by the client are
+ * mutable and can not safely be shared between callers.
+ * </p>
+ * <p>
+ * The cache is bounded both by the number of entries and by the total size of the cached
+ * bodies, and evicts the least recently used entries first. Requests which already carry an
+ * <code>If-None-Match</code> or <code>If-Modified-Since</code> header (e.g. reads using
+ * <code>ifVersionMatches(..)</code>) are left alone, and responses marked as
+ * <code>Cache-Control: no-store</code> or <code>Vary: *</code> are never cached. When a response
+ * names other request headers in <code>Vary</code>, the cached entry is only used for requests
+ * which carry the same values for those headers.
+ * </p>
+ * <p>
+ * A single instance may be registered with any number of clients, and is thread safe.
+ * </p>
+ *
+ * @since 7.0.0
+ */
+@Interceptor
+public class ConditionalRequestCacheInterceptor {
+
+	public static final int DEFAULT_MAXIMUM_ENTRIES = 1000;
+	public static final long DEFAULT_MAXIMUM_TOTAL_BYTES = 50 * 1024 * 1024;
+
+	/**
+	 * Request headers which select the representation or identify the caller, and so are
+	 * always part of the cache key
+	 */
+	private static final List<String> KEY_HEADERS =
+			List.of(Constants.HEADER_ACCEPT, Constants.HEADER_AUTHORIZATION, Constants.HEADER_COOKIE);
+
+	private final LinkedHashMap<String, CacheEntry> myEntries = new LinkedHashMap<>(16, 0.75f, true);
+	private int myMaximumEntries = DEFAULT_MAXIMUM_ENTRIES;
+	private long myMaximumTotalBytes = DEFAULT_MAXIMUM_TOTAL_BYTES;
+	private long myTotalBytes;
+	private long myHitCount;
+
+	/**
+	 * Sets the maximum number of responses to cache. Defaults to {@link #DEFAULT_MAXIMUM_ENTRIES}.
+	 */
+	public synchronized void setMaximumEntries(int theMaximumEntries) {
+		Validate.isTrue(theMaximumEntries > 0, "theMaximumEntries must be greater than 0");
+		myMaximumEntries = theMaximumEntries;
+		evictIfNeeded();
+	}
+
+	/**
+	 * Sets the maximum total size, in bytes, of the cached response bodies. Responses
+	 * larger than this are not cached at all. Defaults to {@link #DEFAULT_MAXIMUM_TOTAL_BYTES}.
+	 */
+	public synchronized void setMaximumTotalBytes(long theMaximumTotalBytes) {
+		Validate.isTrue(theMaximumTotalBytes > 0, "theMaximumTotalBytes must be greater than 0");
+		myMaximumTotalBytes = theMaximumTotalBytes;
+		evictIfNeeded();
+	}
+
+	/**
+	 * Returns the number of responses currently cached
+	 */
+	public synchronized int size() {
+		return myEntries.size();
+	}
+
+	/**
+	 * Returns the number of <code>304 Not Modified</code> responses which have been
+	 * replaced by a cached response
+	 */
+	public synchronized long getHitCount() {
+		return myHitCount;
+	}
+
+	/**
+	 * Removes all cached responses
+	 */
+	public synchronized void clear() {
+		myEntries.clear();
+		myTotalBytes = 0;
+	}
+
+	@Hook(value = Pointcut.CLIENT_REQUEST, order = InterceptorOrders.CONDITIONAL_REQUEST_CACHE_INTERCEPTOR_REQUEST)
+	public void interceptRequest(IHttpRequest theRequest) {
+		if (!isCacheable(theRequest)) {
+			return;
+		}
+
+		CacheEntry entry = getEntry(theRequest);
+		if (entry != null) {
+			if (entry.myETag != null) {
+				theRequest.addHeader(Constants.HEADER_IF_NONE_MATCH, entry.myETag);
+			}
+			if (entry.myLastModified != null) {
+				theRequest.addHeader(Constants.HEADER_IF_MODIFIED_SINCE, entry.myLastModified);
+			}
+		}
+	}
+
+	@Hook(value = Pointcut.CLIENT_RESPONSE, order = InterceptorOrders.CONDITIONAL_REQUEST_CACHE_INTERCEPTOR_RESPONSE)
+	public void interceptResponse(
+			IHttpRequest theRequest, IHttpResponse theResponse, ClientResponseContext theResponseContext)
+			throws IOException {
+		if (!RequestTypeEnum.GET.name().equals(theRequest.getHttpVerbName())) {
+			return;
+		}
+
+		String key = toKey(theRequest);
+		int status = theResponse.getStatus();
+		if (status == Constants.STATUS_HTTP_304_NOT_MODIFIED) {
+			CacheEntry entry = getEntry(theRequest);
+			if (entry != null && entry.isValidatedBy(theRequest)) {
+				theResponseContext.setHttpResponse(new CachedHttpResponse(entry, theResponse.getRequestStopWatch()));
+				incrementHitCount();
+			}
+			return;
+		}
+
+		String eTag = getFirstHeader(theResponse, Constants.HEADER_ETAG);
+		String lastModified = getFirstHeader(theResponse, Constants.HEADER_LAST_MODIFIED);
+		String cacheControl = getFirstHeader(theResponse, Constants.HEADER_CACHE_CONTROL);
+		boolean noStore = cacheControl != null && cacheControl.contains(Constants.CACHE_CONTROL_NO_STORE);
+		List<String> vary = getVaryHeaderNames(theResponse);
+		if (status != Constants.STATUS_HTTP_200_OK
+				|| (eTag == null && lastModified == null)
+				|| noStore
+				|| vary.contains("*")) {
+			removeEntry(key);
+			return;
+		}
+
+		Map<String, List<String>> varyValues = new LinkedHashMap<>();
+		for (String next : vary) {
+			varyValues.put(next, new ArrayList<>(getHeaders(theRequest, next)));
+		}
+
+		theResponse.bufferEntity();
+		byte[] body;
+		try (InputStream inputStream = theResponse.readEntity()) {
+			body = inputStream != null ? IOUtils.toByteArray(inputStream) : new byte[0];
+		}
+
+		putEntry(
+				key,
+				new CacheEntry(
+						eTag, lastModified, varyValues, theResponse.getMimeType(), theResponse.getAllHeaders(), body));
+	}
+
+	private boolean isCacheable(IHttpRequest theRequest) {
+		if (!RequestTypeEnum.GET.name().equals(theRequest.getHttpVerbName())) {
+			return false;
+		}
+		return getHeaders(theRequest, Constants.HEADER_IF_NONE_MATCH).isEmpty()
+				&& getHeaders(theRequest, Constants.HEADER_IF_MODIFIED_SINCE).isEmpty();
+	}
+
+	/**
+	 * Returns the entry for the given request, or <code>null</code> if there is none or the
+	 * request does not match the <code>Vary</code> headers the entry was stored with
+	 */
+	private CacheEntry getEntry(IHttpRequest theRequest) {
+		CacheEntry retVal;
+		synchronized (this) {
+			retVal = myEntries.get(toKey(theRequest));
+		}
+		if (retVal == null || !retVal.isVariantOf(theRequest)) {
+			return null;
+		}
+		return retVal;
+	}
+
+	private synchronized void putEntry(String theKey, CacheEntry theEntry) {
+		removeEntry(theKey);
+		if (theEntry.myBody.length > myMaximumTotalBytes) {
+			return;
+		}
+		myEntries.put(theKey, theEntry);
+		myTotalBytes += theEntry.myBody.length;
+		evictIfNeeded();
+	}
+
+	private synchronized void removeEntry(String theKey) {
+		CacheEntry removed = myEntries.remove(theKey);
+		if (removed != null) {
+			myTotalBytes -= removed.myBody.length;
+		}
+	}
+
+	private synchronized void incrementHitCount() {
+		myHitCount++;
+	}
+
+	private synchronized void evictIfNeeded() {
+		Iterator<CacheEntry> iterator = myEntries.values().iterator();
+		while (iterator.hasNext() && (myEntries.size() > myMaximumEntries || myTotalBytes > myMaximumTotalBytes)) {
+			myTotalBytes -= iterator.next().myBody.length;
+			iterator.remove();
+		}
+	}
+
+	private static String toKey(IHttpRequest theRequest) {
+		StringBuilder retVal = new StringBuilder(theRequest.getUri());
+		for (String next : KEY_HEADERS) {
+			retVal.append('\n').append(next).append(": ");
+			retVal.append(String.join(", ", getHeaders(theRequest, next)));
+		}
+		return retVal.toString();
+	}
+
+	private static List<String> getVaryHeaderNames(IHttpResponse theResponse) {
+		List<String> values = theResponse.getHeaders(Constants.HEADER_VARY);
+		if (values == null) {
+			return Collections.emptyList();
+		}
+		List<String> retVal = new ArrayList<>();
+		for (String value : values) {
+			for (String next : value.split(",")) {
+				if (!isBlank(next)) {
+					retVal.add(next.trim().toLowerCase());
+				}
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Not all request implementations lower-case the header names returned
+	 * by {@link IHttpRequest#getAllHeaders()}, so match them case-insensitively
+	 */
+	private static List<String> getHeaders(IHttpRequest theRequest, String theName) {
+		for (Map.Entry<String, List<String>> next : theRequest.getAllHeaders().entrySet()) {
+			if (next.getKey().equalsIgnoreCase(theName)) {
+				return next.getValue();
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	private static String getFirstHeader(IHttpResponse theResponse, String theName) {
+		List<String> values = theResponse.getHeaders(theName);
+		if (values == null || values.isEmpty() || isBlank(values.get(0))) {
+			return null;
+		}
+		return values.get(0);
+	}
+
+	private static class CacheEntry {
+
+		private final String myETag;
+		private final String myLastModified;
+		private final Map<String, List<String>> myVaryValues;
+		private final String myMimeType;
+		private final Map<String, List<String>> myHeaders;
+		private final byte[] myBody;
+
+		private CacheEntry(
+				String theETag,
+				String theLastModified,
+				Map<String, List<String>> theVaryValues,
+				String theMimeType,
+				Map<String, List<String>> theHeaders,
+				byte[] theBody) {
+			myETag = theETag;
+			myLastModified = theLastModified;
+			myVaryValues = theVaryValues;
+			myMimeType = theMimeType;
+			myHeaders = Collections.unmodifiableMap(new LinkedHashMap<>(theHeaders));
+			myBody = theBody;
+		}
+
+		/**
+		 * Does the given request carry the same values as the request this entry was stored for,
+		 * for each of the headers named in the <code>Vary</code> header of the cached response?
+		 */
+		private boolean isVariantOf(IHttpRequest theRequest) {
+			for (Map.Entry<String, List<String>> next : myVaryValues.entrySet()) {
+				if (!next.getValue().equals(getHeaders(theRequest, next.getKey()))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Was the given request made conditional by this interceptor using this entry? If the
+		 * caller supplied their own conditional headers, a 304 response is theirs to handle.
+		 */
+		private boolean isValidatedBy(IHttpRequest theRequest) {
+			return (myETag != null
+							&& getHeaders(theRequest, Constants.HEADER_IF_NONE_MATCH)
+									.contains(myETag))
+					|| (myLastModified != null
+							&& getHeaders(theRequest, Constants.HEADER_IF_MODIFIED_SINCE)
+									.contains(myLastModified));
+		}
+	}
+
+	private static class CachedHttpResponse extends BaseHttpResponse {
+
+		private final CacheEntry myEntry;
+
+		private CachedHttpResponse(CacheEntry theEntry, StopWatch theRequestStopWatch) {
+			super(theRequestStopWatch);
+			myEntry = theEntry;
+		}
+
+		@Override
+		public void bufferEntity() {
+			// nothing - the body is already in memory
+		}
+
+		@Override
+		public void close() {
+			// nothing
+		}
+
+		@Override
+		public Reader createReader() {
+			return new InputStreamReader(readEntity(), StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public Map<String, List<String>> getAllHeaders() {
+			return myEntry.myHeaders;
+		}
+
+		@Override
+		public List<String> getHeaders(String theName) {
+			for (Map.Entry<String, List<String>> next : myEntry.myHeaders.entrySet()) {
+				if (next.getKey().equalsIgnoreCase(theName)) {
+					return next.getValue();
+				}
+			}
+			return Collections.emptyList();
+		}
+
+		@Override
+		public String getMimeType() {
+			return myEntry.myMimeType;
+		}
+
+		@Override
+		public Object getResponse() {
+			return null;
+		}
+
+		@Override
+		public int getStatus() {
+			return Constants.STATUS_HTTP_200_OK;
+		}
+
+		@Override
+		public String getStatusInfo() {
+			return "OK";
+		}
+
+		@Override
+		public InputStream readEntity() {
+			return new ByteArrayInputStream(myEntry.myBody);
+		}
+	}
+}
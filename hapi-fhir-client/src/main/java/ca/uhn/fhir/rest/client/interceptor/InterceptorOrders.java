@@ -23,8 +23,10 @@ public interface InterceptorOrders {
 
 	int LOGGING_INTERCEPTOR_REQUEST = -2;
 	int URL_TENANT_SELECTION_INTERCEPTOR_REQUEST = 100;
+	int CONDITIONAL_REQUEST_CACHE_INTERCEPTOR_REQUEST = 900;
 	int CAPTURING_INTERCEPTOR_REQUEST = 1000;
 
+	int CONDITIONAL_REQUEST_CACHE_INTERCEPTOR_RESPONSE = -10;
 	int CAPTURING_INTERCEPTOR_RESPONSE = -1;
 	int LOGGING_INTERCEPTOR_RESPONSE = 1001;
 }
@@ -54,6 +54,7 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -77,6 +78,9 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 public class JpaJobPersistenceImpl implements IJobPersistence {
 	private static final Logger ourLog = Logs.getBatchTroubleshootingLog();
 	public static final String CREATE_TIME = "myCreateTime";
+	private static final Set<WorkChunkStatusEnum> INCOMPLETE_CHUNK_STATUSES = Arrays.stream(WorkChunkStatusEnum.values())
+			.filter(WorkChunkStatusEnum::isIncomplete)
+			.collect(Collectors.toUnmodifiableSet());
 
 	private final IBatch2JobInstanceRepository myJobInstanceRepository;
 	private final IBatch2WorkChunkRepository myWorkChunkRepository;
@@ -101,6 +105,21 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 
 	@Override
 	public String onWorkChunkCreate(WorkChunkCreateEvent theBatchWorkChunk) {
+		Batch2WorkChunkEntity entity = toEntity(theBatchWorkChunk);
+		myWorkChunkRepository.save(entity);
+		return entity.getId();
+	}
+
+	@Override
+	public List<String> onWorkChunksCreate(List<WorkChunkCreateEvent> theBatchWorkChunks) {
+		// Entities have assigned IDs, so these inserts are sent in JDBC batches when the session flushes
+		List<Batch2WorkChunkEntity> entities =
+				theBatchWorkChunks.stream().map(this::toEntity).collect(Collectors.toList());
+		myWorkChunkRepository.saveAll(entities);
+		return entities.stream().map(Batch2WorkChunkEntity::getId).collect(Collectors.toList());
+	}
+
+	private Batch2WorkChunkEntity toEntity(WorkChunkCreateEvent theBatchWorkChunk) {
 		Batch2WorkChunkEntity entity = new Batch2WorkChunkEntity();
 		entity.setId(UUID.randomUUID().toString());
 		entity.setSequence(theBatchWorkChunk.sequence);
@@ -115,8 +134,7 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 		ourLog.debug("Create work chunk {}/{}/{}", entity.getInstanceId(), entity.getId(), entity.getTargetStepId());
 		ourLog.trace(
 				"Create work chunk data {}/{}: {}", entity.getInstanceId(), entity.getId(), entity.getSerializedData());
-		myWorkChunkRepository.save(entity);
-		return entity.getId();
+		return entity;
 	}
 
 	@Override
@@ -371,15 +389,16 @@ public class JpaJobPersistenceImpl implements IJobPersistence {
 		if (instance.get().getStatus().isEnded()) {
 			return false;
 		}
-		Set<WorkChunkStatusEnum> statusesForStep =
-				myWorkChunkRepository.getDistinctStatusesForStep(theInstanceId, theCurrentStepId);
+		// This is called every time a chunk of a gated step completes, so only look for a single incomplete chunk
+		List<String> incompleteChunkIds = myWorkChunkRepository.fetchChunkIdsForStepWithStatuses(
+				PageRequest.of(0, 1), theInstanceId, theCurrentStepId, INCOMPLETE_CHUNK_STATUSES);
 
 		ourLog.debug(
-				"Checking whether gated job can advanced to next step. [instanceId={}, currentStepId={}, statusesForStep={}]",
+				"Checking whether gated job can advanced to next step. [instanceId={}, currentStepId={}, incompleteChunkIds={}]",
 				theInstanceId,
 				theCurrentStepId,
-				statusesForStep);
-		return statusesForStep.isEmpty() || statusesForStep.equals(Set.of(WorkChunkStatusEnum.COMPLETED));
+				incompleteChunkIds);
+		return incompleteChunkIds.isEmpty();
 	}
 
 	private void fetchChunks(
@@ -0,0 +1,245 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.cache;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.model.api.IResource;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import ca.uhn.fhir.util.FhirTerser;
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.lang3.time.DateUtils;
+import org.hl7.fhir.instance.model.api.IBaseReference;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IDomainResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Holds recently parsed resources for the resource types configured in
+ * {@link JpaStorageSettings#setParsedResourceCacheResourceTypes(Set)}, so that
+ * hot resources do not need to be re-parsed from their stored text every time
+ * they are read or returned in a search result page.
+ * <p>
+ * Entries are keyed by the versioned resource ID, so current and <code>_history</code>
+ * reads of the same resource do not evict each other, and are only returned if the
+ * PID, version and last updated timestamp all match the row being loaded, so a
+ * stale entry can never be served even if the resource was changed on another
+ * server. Entries for versions which are no longer read are therefore never
+ * actively evicted, and are left to the size limit and expiry of the cache.
+ * Callers always receive a copy of the cached resource, since parsed resources
+ * are mutable.
+ * </p>
+ *
+ * @since 7.0.0
+ */
+public class ParsedResourceCacheSvc {
+	private static final Logger ourLog = LoggerFactory.getLogger(ParsedResourceCacheSvc.class);
+	private static final long EXPIRE_AFTER_WRITE = DateUtils.MILLIS_PER_HOUR;
+
+	private final AtomicLong myHitCount = new AtomicLong();
+	private final AtomicLong myMissCount = new AtomicLong();
+
+	@Autowired
+	private JpaStorageSettings myStorageSettings;
+
+	private Set<String> myResourceTypes = Collections.emptySet();
+	private Cache<String, CachedResource> myCache;
+
+	/**
+	 * Constructor
+	 */
+	public ParsedResourceCacheSvc() {
+		super();
+	}
+
+	@VisibleForTesting
+	public ParsedResourceCacheSvc(JpaStorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
+
+	@PostConstruct
+	public void start() {
+		Set<String> resourceTypes = myStorageSettings.getParsedResourceCacheResourceTypes();
+		if (resourceTypes.isEmpty()) {
+			return;
+		}
+
+		myCache = CacheFactory.build(EXPIRE_AFTER_WRITE, myStorageSettings.getParsedResourceCacheMaximumSize());
+		myResourceTypes = Collections.unmodifiableSet(new HashSet<>(resourceTypes));
+		ourLog.info("Parsed resource cache enabled for resource types: {}", myResourceTypes);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (myCache != null) {
+			myCache = null;
+			myResourceTypes = Collections.emptySet();
+		}
+	}
+
+	/**
+	 * Returns {@literal true} if resources of the given type should be cached
+	 */
+	public boolean isCacheable(String theResourceType) {
+		return myCache != null && myResourceTypes.contains(theResourceType);
+	}
+
+	/**
+	 * Returns a copy of the cached resource, or {@literal null} if no entry exists which
+	 * matches the given PID, version and last updated timestamp.
+	 *
+	 * @param theResourceId The unqualified versionless resource ID, e.g. <code>Practitioner/123</code>
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T extends IBaseResource> T get(
+			FhirContext theContext, String theResourceId, Long thePid, long theVersion, Date theUpdated) {
+		CachedResource cached = myCache.getIfPresent(toKey(theResourceId, theVersion));
+		if (cached != null && cached.matches(thePid, theVersion, theUpdated)) {
+			myHitCount.incrementAndGet();
+			return copy(theContext, (T) cached.getResource());
+		}
+		myMissCount.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Stores a copy of a freshly parsed resource. The resource must not have had any
+	 * metadata populated from the database row yet.
+	 *
+	 * @param theResourceId The unqualified versionless resource ID, e.g. <code>Practitioner/123</code>
+	 */
+	public void put(
+			FhirContext theContext,
+			String theResourceId,
+			Long thePid,
+			long theVersion,
+			Date theUpdated,
+			@Nonnull IBaseResource theResource) {
+		IBaseResource copy = copy(theContext, theResource);
+		myCache.put(toKey(theResourceId, theVersion), new CachedResource(thePid, theVersion, theUpdated, copy));
+	}
+
+	/**
+	 * Cloning a resource does not copy the links from local references to the contained
+	 * resources they point to (see {@link IBaseReference#getResource()}), which the parser
+	 * populates, so these are restored on the copy.
+	 */
+	private static <T extends IBaseResource> T copy(FhirContext theContext, T theResource) {
+		FhirTerser terser = theContext.newTerser();
+		T retVal = terser.clone(theResource);
+
+		Map<String, IBaseResource> containedResources = new HashMap<>();
+		for (IBaseResource next : getContainedResources(retVal)) {
+			String id = next.getIdElement().getValue();
+			if (isNotBlank(id)) {
+				containedResources.put(id.startsWith("#") ? id : "#" + id, next);
+			}
+		}
+		if (containedResources.isEmpty()) {
+			return retVal;
+		}
+
+		for (IBaseReference next : terser.getAllPopulatedChildElementsOfType(retVal, IBaseReference.class)) {
+			String reference = next.getReferenceElement().getValue();
+			if (next.getResource() == null && reference != null && reference.startsWith("#")) {
+				IBaseResource target = containedResources.get(reference);
+				if (target != null) {
+					next.setResource(target);
+				}
+			}
+		}
+		return retVal;
+	}
+
+	private static List<? extends IBaseResource> getContainedResources(IBaseResource theResource) {
+		if (theResource instanceof IResource) {
+			return ((IResource) theResource).getContained().getContainedResources();
+		} else if (theResource instanceof IDomainResource) {
+			return ((IDomainResource) theResource).getContained();
+		}
+		return Collections.emptyList();
+	}
+
+	private static String toKey(String theResourceId, long theVersion) {
+		return theResourceId + "/" + Constants.PARAM_HISTORY + "/" + theVersion;
+	}
+
+	public void invalidateAll() {
+		if (myCache != null) {
+			myCache.invalidateAll();
+		}
+	}
+
+	public long getHitCount() {
+		return myHitCount.get();
+	}
+
+	public long getMissCount() {
+		return myMissCount.get();
+	}
+
+	public long getEstimatedSize() {
+		return myCache != null ? myCache.estimatedSize() : 0;
+	}
+
+	private static class CachedResource {
+
+		private final Long myPid;
+		private final long myVersion;
+		private final long myUpdated;
+		private final IBaseResource myResource;
+
+		private CachedResource(Long thePid, long theVersion, Date theUpdated, IBaseResource theResource) {
+			myPid = thePid;
+			myVersion = theVersion;
+			myUpdated = theUpdated != null ? theUpdated.getTime() : Long.MIN_VALUE;
+			myResource = theResource;
+		}
+
+		private boolean matches(Long thePid, long theVersion, Date theUpdated) {
+			long updated = theUpdated != null ? theUpdated.getTime() : Long.MIN_VALUE;
+			return myVersion == theVersion && myUpdated == updated && myPid.equals(thePid);
+		}
+
+		private IBaseResource getResource() {
+			return myResource;
+		}
+	}
+}
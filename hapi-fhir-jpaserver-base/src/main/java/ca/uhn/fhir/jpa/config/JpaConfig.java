@@ -45,6 +45,7 @@ import ca.uhn.fhir.jpa.bulk.imprt.api.IBulkDataImportSvc;
 import ca.uhn.fhir.jpa.bulk.imprt.svc.BulkDataImportSvcImpl;
 import ca.uhn.fhir.jpa.bulk.mdm.MdmClearHelperSvcImpl;
 import ca.uhn.fhir.jpa.cache.IResourceVersionSvc;
+import ca.uhn.fhir.jpa.cache.ParsedResourceCacheSvc;
 import ca.uhn.fhir.jpa.cache.ResourceVersionSvcDaoImpl;
 import ca.uhn.fhir.jpa.dao.DaoSearchParamProvider;
 import ca.uhn.fhir.jpa.dao.HistoryBuilder;
@@ -313,6 +314,11 @@ public class JpaConfig {
 		return new JpaStorageResourceParser();
 	}
 
+	@Bean
+	public ParsedResourceCacheSvc parsedResourceCacheSvc() {
+		return new ParsedResourceCacheSvc();
+	}
+
 	@Bean
 	public TransactionProcessor transactionProcessor() {
 		return new TransactionProcessor();
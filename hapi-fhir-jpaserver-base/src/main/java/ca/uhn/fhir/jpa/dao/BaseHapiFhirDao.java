@@ -775,7 +775,7 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 	 * @return byte array of the resource
 	 */
 	@Nonnull
-	private byte[] getResourceBinary(ResourceEncodingEnum encoding, String encodedResource) {
+	static byte[] getResourceBinary(ResourceEncodingEnum encoding, String encodedResource) {
 		byte[] resourceBinary;
 		switch (encoding) {
 			case JSON:
@@ -784,6 +784,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			case JSONC:
 				resourceBinary = GZipUtil.compress(encodedResource);
 				break;
+			case JSONL:
+				resourceBinary = Lz4Util.compress(encodedResource);
+				break;
 			default:
 			case DEL:
 			case ESR:
@@ -1973,6 +1976,9 @@ public abstract class BaseHapiFhirDao<T extends IBaseResource> extends BaseStora
 			case JSONC:
 				resourceText = GZipUtil.decompress(theResourceBytes);
 				break;
+			case JSONL:
+				resourceText = Lz4Util.decompress(theResourceBytes);
+				break;
 			case DEL:
 			case ESR:
 				break;
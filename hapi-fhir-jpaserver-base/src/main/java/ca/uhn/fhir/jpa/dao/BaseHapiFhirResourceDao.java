@@ -65,6 +65,7 @@ import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
 import ca.uhn.fhir.jpa.search.PersistedJpaBundleProvider;
 import ca.uhn.fhir.jpa.search.PersistedJpaBundleProviderFactory;
 import ca.uhn.fhir.jpa.search.ResourceSearchUrlSvc;
+import ca.uhn.fhir.jpa.search.builder.SearchAfterToken;
 import ca.uhn.fhir.jpa.search.cache.SearchCacheStatusEnum;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
 import ca.uhn.fhir.jpa.searchparam.ResourceSearch;
@@ -117,7 +118,9 @@ import ca.uhn.fhir.validation.IValidatorModule;
 import ca.uhn.fhir.validation.ValidationOptions;
 import ca.uhn.fhir.validation.ValidationResult;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
 import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IAnyResource;
 import org.hl7.fhir.instance.model.api.IBaseCoding;
 import org.hl7.fhir.instance.model.api.IBaseMetaType;
 import org.hl7.fhir.instance.model.api.IBaseOperationOutcome;
@@ -1681,11 +1684,11 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 
 	private void reindexOptimizeStorageHistoryEntity(ResourceTable entity, ResourceHistoryTable historyEntity) {
 		boolean changed = false;
-		if (historyEntity.getEncoding() == ResourceEncodingEnum.JSONC
-				|| historyEntity.getEncoding() == ResourceEncodingEnum.JSON) {
+		if (isBinaryEncoding(historyEntity.getEncoding())) {
 			byte[] resourceBytes = historyEntity.getResource();
 			if (resourceBytes != null) {
 				String resourceText = decodeResource(resourceBytes, historyEntity.getEncoding());
+				ResourceEncodingEnum targetEncoding = myStorageSettings.getResourceEncoding();
 				if (myStorageSettings.getInlineResourceTextBelowSize() > 0
 						&& resourceText.length() < myStorageSettings.getInlineResourceTextBelowSize()) {
 					ourLog.debug(
@@ -1696,6 +1699,22 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 					historyEntity.setResource(null);
 					historyEntity.setEncoding(ResourceEncodingEnum.JSON);
 					changed = true;
+				} else if (isBinaryEncoding(targetEncoding) && historyEntity.getEncoding() != targetEncoding) {
+					ourLog.debug(
+							"Re-encoding resource {} version {} from {} to {}",
+							entity.getResourceId(),
+							historyEntity.getVersion(),
+							historyEntity.getEncoding(),
+							targetEncoding);
+					byte[] newResourceBytes = getResourceBinary(targetEncoding, resourceText);
+					historyEntity.setResource(newResourceBytes);
+					historyEntity.setEncoding(targetEncoding);
+					if (historyEntity.getVersion() == entity.getVersion()) {
+						// Keep the hash in line with the stored bytes so that unchanged updates are still detected
+						entity.setHashSha256(
+								Hashing.sha256().hashBytes(newResourceBytes).toString());
+					}
+					changed = true;
 				}
 			}
 		}
@@ -1711,6 +1730,12 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 		}
 	}
 
+	private static boolean isBinaryEncoding(ResourceEncodingEnum theEncoding) {
+		return theEncoding == ResourceEncodingEnum.JSON
+				|| theEncoding == ResourceEncodingEnum.JSONC
+				|| theEncoding == ResourceEncodingEnum.JSONL;
+	}
+
 	private BaseHasResource readEntity(
 			IIdType theId,
 			boolean theCheckForForcedId,
@@ -1934,6 +1959,7 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 		translateListSearchParams(theParams);
 
 		setOffsetAndCount(theParams, theRequest);
+		setKeysetPaging(theParams, theRequest);
 
 		CacheControlDirective cacheControlDirective = new CacheControlDirective();
 		if (theRequest != null) {
@@ -2026,6 +2052,50 @@ public abstract class BaseHapiFhirResourceDao<T extends IBaseResource> extends B
 		}
 	}
 
+	/**
+	 * Switches eligible client searches to keyset paging if it is enabled
+	 *
+	 * @see JpaStorageSettings#setKeysetPagingEnabled(boolean)
+	 */
+	protected void setKeysetPaging(SearchParameterMap theParams, RequestDetails theRequest) {
+		if (theRequest == null) {
+			return;
+		}
+
+		String searchAfter = null;
+		String[] searchAfterValues = theRequest.getParameters().get(Constants.PARAM_SEARCH_AFTER);
+		if (searchAfterValues != null && searchAfterValues.length > 0) {
+			searchAfter = searchAfterValues[0];
+		}
+
+		Integer count = theParams.getCount();
+		IPagingProvider pagingProvider =
+				theRequest.getServer() != null ? theRequest.getServer().getPagingProvider() : null;
+		if (count == null && pagingProvider != null) {
+			count = pagingProvider.getDefaultPageSize();
+		}
+
+		boolean keysetPaging = getStorageSettings().isKeysetPagingEnabled()
+				&& theRequest.getRestOperationType() == RestOperationTypeEnum.SEARCH_TYPE
+				&& !theRequest.isSubRequest()
+				&& theParams.getLoadSynchronousUpTo() == null
+				&& count != null
+				&& count > 0
+				&& SearchAfterToken.isKeysetPagingSupported(theParams);
+		if (!keysetPaging) {
+			if (isNotBlank(searchAfter)) {
+				throw new InvalidRequestException(Msg.code(2451) + "The " + Constants.PARAM_SEARCH_AFTER
+						+ " parameter can only be used with keyset paged searches sorted by "
+						+ Constants.PARAM_LASTUPDATED + " or " + IAnyResource.SP_RES_ID);
+			}
+			return;
+		}
+
+		theParams.setCount(count);
+		theParams.setKeysetPaging(true);
+		theParams.setSearchAfter(searchAfter);
+	}
+
 	@Override
 	public List<JpaPid> searchForIds(
 			SearchParameterMap theParams,
@@ -25,6 +25,7 @@ import ca.uhn.fhir.context.RuntimeResourceDefinition;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.dao.IDao;
+import ca.uhn.fhir.jpa.cache.ParsedResourceCacheSvc;
 import ca.uhn.fhir.jpa.dao.data.IResourceHistoryTableDao;
 import ca.uhn.fhir.jpa.entity.PartitionEntity;
 import ca.uhn.fhir.jpa.entity.ResourceSearchView;
@@ -102,6 +103,9 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 	@Autowired
 	IMetaTagSorter myMetaTagSorter;
 
+	@Autowired(required = false)
+	private ParsedResourceCacheSvc myParsedResourceCacheSvc;
+
 	@Override
 	public IBaseResource toResource(IBasePersistedResource theEntity, boolean theForHistoryOperation) {
 		RuntimeResourceDefinition type = myFhirContext.getResourceDefinition(theEntity.getResourceType());
@@ -122,6 +126,7 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 		ResourceEncodingEnum resourceEncoding;
 		@Nullable Collection<? extends BaseTag> tagList = Collections.emptyList();
 		long version;
+		Date updated;
 		String provenanceSourceUri = null;
 		String provenanceRequestId = null;
 
@@ -146,6 +151,7 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 					tagList = null;
 			}
 			version = history.getVersion();
+			updated = history.getUpdatedDate();
 			if (history.getProvenance() != null) {
 				provenanceRequestId = history.getProvenance().getRequestId();
 				provenanceSourceUri = history.getProvenance().getSourceUri();
@@ -186,6 +192,7 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 					break;
 			}
 			version = history.getVersion();
+			updated = history.getUpdatedDate();
 			if (history.getProvenance() != null) {
 				provenanceRequestId = history.getProvenance().getRequestId();
 				provenanceSourceUri = history.getProvenance().getSourceUri();
@@ -197,6 +204,7 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 			resourceText = view.getResourceTextVc();
 			resourceEncoding = view.getEncoding();
 			version = view.getVersion();
+			updated = view.getUpdatedDate();
 			provenanceRequestId = view.getProvenanceRequestId();
 			provenanceSourceUri = view.getProvenanceSourceUri();
 			switch (myStorageSettings.getTagStorageMode()) {
@@ -215,30 +223,61 @@ public class JpaStorageResourceParser implements IJpaStorageResourceParser {
 			return null;
 		}
 
-		// 2. get The text
-		String decodedResourceText = decodedResourceText(resourceBytes, resourceText, resourceEncoding);
-
-		// 3. Use the appropriate custom type if one is specified in the context
+		// 2. Use the appropriate custom type if one is specified in the context
 		Class<R> resourceType = determineTypeToParse(theResourceType, tagList);
 
-		// 4. parse the text to FHIR
-		R retVal = parseResource(theEntity, resourceEncoding, decodedResourceText, resourceType);
+		// 3. Try the parsed resource cache
+		FhirContext context = getContext(theEntity.getFhirVersion());
+		String cacheKey = null;
+		R retVal = null;
+		if (isParsedResourceCacheable(theEntity, resourceEncoding)) {
+			cacheKey = theEntity.getIdDt().toUnqualifiedVersionless().getValue();
+			retVal = myParsedResourceCacheSvc.get(context, cacheKey, theEntity.getResourceId(), version, updated);
+			if (retVal != null && !resourceType.isInstance(retVal)) {
+				retVal = null;
+			}
+		}
 
-		// 5. fill MetaData
+		if (retVal == null) {
+			// 4. get The text
+			String decodedResourceText = decodedResourceText(resourceBytes, resourceText, resourceEncoding);
+
+			// 5. parse the text to FHIR
+			retVal = parseResource(theEntity, resourceEncoding, decodedResourceText, resourceType);
+
+			if (cacheKey != null) {
+				myParsedResourceCacheSvc.put(context, cacheKey, theEntity.getResourceId(), version, updated, retVal);
+			}
+		}
+
+		// 6. fill MetaData
 		retVal = populateResourceMetadata(theEntity, theForHistoryOperation, tagList, version, retVal);
 
-		// 6. Handle source (provenance)
+		// 7. Handle source (provenance)
 		MetaUtil.populateResourceSource(myFhirContext, provenanceSourceUri, provenanceRequestId, retVal);
 
-		// 7. Add partition information
+		// 8. Add partition information
 		populateResourcePartitionInformation(theEntity, retVal);
 
-		// 8. sort tags, security labels and profiles
+		// 9. sort tags, security labels and profiles
 		myMetaTagSorter.sort(retVal.getMeta());
 
 		return retVal;
 	}
 
+	private boolean isParsedResourceCacheable(IBaseResourceEntity theEntity, ResourceEncodingEnum theEncoding) {
+		if (myParsedResourceCacheSvc == null || !myParsedResourceCacheSvc.isCacheable(theEntity.getResourceType())) {
+			return false;
+		}
+		// Inline tags live in the stored text, which can be rewritten without a new version
+		if (myStorageSettings.getTagStorageMode() == JpaStorageSettings.TagStorageModeEnum.INLINE) {
+			return false;
+		}
+		return theEncoding == ResourceEncodingEnum.JSON
+				|| theEncoding == ResourceEncodingEnum.JSONC
+				|| theEncoding == ResourceEncodingEnum.JSONL;
+	}
+
 	private <R extends IBaseResource> void populateResourcePartitionInformation(
 			IBaseResourceEntity theEntity, R retVal) {
 		if (myPartitionSettings.isPartitioningEnabled()) {
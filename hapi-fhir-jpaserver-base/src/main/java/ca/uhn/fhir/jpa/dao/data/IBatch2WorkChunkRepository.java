@@ -30,7 +30,6 @@ import org.springframework.data.repository.query.Param;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Stream;
 
 public interface IBatch2WorkChunkRepository
@@ -53,10 +52,17 @@ public interface IBatch2WorkChunkRepository
 			+ ") FROM Batch2WorkChunkEntity e WHERE e.myInstanceId = :instanceId ORDER BY e.mySequence ASC, e.myId ASC")
 	List<Batch2WorkChunkEntity> fetchChunksNoData(Pageable thePageRequest, @Param("instanceId") String theInstanceId);
 
+	/**
+	 * Uses the IDX_BT2WC_II_SI_S index, so with a page size of 1 this is a cheap existence check
+	 * regardless of the number of chunks in the step.
+	 */
 	@Query(
-			"SELECT DISTINCT e.myStatus from Batch2WorkChunkEntity e where e.myInstanceId = :instanceId AND e.myTargetStepId = :stepId")
-	Set<WorkChunkStatusEnum> getDistinctStatusesForStep(
-			@Param("instanceId") String theInstanceId, @Param("stepId") String theStepId);
+			"SELECT e.myId from Batch2WorkChunkEntity e where e.myInstanceId = :instanceId AND e.myTargetStepId = :stepId AND e.myStatus IN :statuses")
+	List<String> fetchChunkIdsForStepWithStatuses(
+			Pageable thePageRequest,
+			@Param("instanceId") String theInstanceId,
+			@Param("stepId") String theStepId,
+			@Param("statuses") Collection<WorkChunkStatusEnum> theStatuses);
 
 	@Query(
 			"SELECT e FROM Batch2WorkChunkEntity e WHERE e.myInstanceId = :instanceId AND e.myTargetStepId = :targetStepId ORDER BY e.mySequence ASC")
@@ -57,6 +57,11 @@ public class ForceOffsetSearchModeInterceptor {
 			return;
 		}
 
+		// Keyset paged searches don't write to the database either
+		if (theMap.isKeysetPaging()) {
+			return;
+		}
+
 		if (theMap.getOffset() == null) {
 			theMap.setOffset(0);
 		}
@@ -110,6 +110,13 @@ public class HapiFhirJpaMigrationTasks extends BaseMigrationTasks<VersionEnum> {
 				.addIndex("20230911.2", "IDX_EMPi_TGT_MR_SCore")
 				.unique(false)
 				.withColumns("TARGET_TYPE", "MATCH_RESULT", "SCORE");
+
+		// Used to check whether every work chunk of a gated step is complete without scanning the whole instance
+		version.onTable("BT2_WORK_CHUNK")
+				.addIndex("20231017.1", "IDX_BT2WC_II_SI_S")
+				.unique(false)
+				.online(true)
+				.withColumns("INSTANCE_ID", "TGT_STEP_ID", "STAT");
 	}
 
 	protected void init680() {
@@ -381,8 +381,12 @@ public class SearchCoordinatorSvcImpl implements ISearchCoordinatorSvc<JpaPid> {
 		// theParams, theRequestDetails);
 		//		return searchStrategy.get();
 
-		if (theParams.isLoadSynchronous() || loadSynchronousUpTo != null || isOffsetQuery) {
-			if (mySearchStrategyFactory.isSupportsHSearchDirect(theResourceType, theParams, theRequestDetails)) {
+		if (theParams.isLoadSynchronous()
+				|| loadSynchronousUpTo != null
+				|| isOffsetQuery
+				|| theParams.isKeysetPaging()) {
+			if (!theParams.isKeysetPaging()
+					&& mySearchStrategyFactory.isSupportsHSearchDirect(theResourceType, theParams, theRequestDetails)) {
 				ourLog.info("Search {} is using direct load strategy", searchUuid);
 				SearchStrategyFactory.ISearchStrategy direct = mySearchStrategyFactory.makeDirectStrategy(
 						searchUuid, theResourceType, theParams, theRequestDetails);
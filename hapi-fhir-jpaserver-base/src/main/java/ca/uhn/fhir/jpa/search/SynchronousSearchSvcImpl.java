@@ -27,6 +27,7 @@ import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IDao;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.dao.IResultIterator;
 import ca.uhn.fhir.jpa.dao.ISearchBuilder;
@@ -34,8 +35,10 @@ import ca.uhn.fhir.jpa.dao.SearchBuilderFactory;
 import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
 import ca.uhn.fhir.jpa.interceptor.JpaPreResourceAccessDetails;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
+import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.partition.IRequestPartitionHelperSvc;
+import ca.uhn.fhir.jpa.search.builder.SearchAfterToken;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.model.api.IQueryParameterType;
 import ca.uhn.fhir.rest.api.Constants;
@@ -52,9 +55,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import javax.annotation.Nullable;
 import javax.persistence.EntityManager;
 
 import static ca.uhn.fhir.jpa.util.SearchParameterMapCalculator.isWantCount;
@@ -156,12 +163,25 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 									&& pids.size() >= theParams.getLoadSynchronousUpTo()) {
 								break;
 							}
+							if (theParams.isKeysetPaging() && pids.size() > theParams.getCount()) {
+								break;
+							}
 						}
 					} catch (IOException e) {
 						ourLog.error("IO failure during database access", e);
 						throw new InternalErrorException(Msg.code(1164) + e);
 					}
 
+					/*
+					 * Keyset paged searches fetch one row more than the page size. If we got it,
+					 * there is a next page, which starts after the last row of this page.
+					 */
+					List<JpaPid> keysetPagePids = null;
+					if (theParams.isKeysetPaging() && pids.size() > theParams.getCount()) {
+						pids.remove(pids.size() - 1);
+						keysetPagePids = new ArrayList<>(pids);
+					}
+
 					JpaPreResourceAccessDetails accessDetails = new JpaPreResourceAccessDetails(pids, () -> theSb);
 					HookParams params = new HookParams()
 							.add(IPreResourceAccessDetails.class, accessDetails)
@@ -223,6 +243,8 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 
 					List<IBaseResource> resources = new ArrayList<>();
 					theSb.loadResourcesByPid(pids, includedPidsList, resources, false, theRequestDetails);
+					String nextPageSearchAfter =
+							keysetPagePids != null ? createSearchAfter(theParams, keysetPagePids, resources) : null;
 					// Hook: STORAGE_PRESHOW_RESOURCES
 					resources = ServerInterceptorUtil.fireStoragePreshowResource(
 							resources, theRequestDetails, myInterceptorBroadcaster);
@@ -233,8 +255,16 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 						bundleProvider.setCurrentPageSize(theParams.getCount());
 					}
 
+					if (theParams.isKeysetPaging()) {
+						bundleProvider.setKeysetPaging(true);
+						bundleProvider.setNextPageSearchAfter(nextPageSearchAfter);
+					}
+
 					if (wantCount) {
 						bundleProvider.setSize(count.intValue());
+					} else if (theParams.isKeysetPaging()) {
+						// The number of rows on the earlier pages isn't known
+						bundleProvider.setSize(null);
 					} else {
 						Integer queryCount = getQueryCount(theLoadSynchronousUpTo, theParams);
 						if (queryCount == null || queryCount > resources.size()) {
@@ -274,6 +304,64 @@ public class SynchronousSearchSvcImpl implements ISynchronousSearchSvc {
 				theRequestPartitionId);
 	}
 
+	/**
+	 * Creates the token for the page following the current one, which starts after the last row
+	 * of the page. The sort key is taken from the already loaded resource for that row, and only
+	 * read from the database if that resource isn't loaded (e.g. because an interceptor removed it
+	 * from the page) or if its ID could be either a forced ID or a PID. If the row has been
+	 * expunged in the meantime, the page continues after the last row which still exists, since
+	 * the rows in between won't be found by the next page either.
+	 *
+	 * @return The token, or <code>null</code> if no row of the page still exists
+	 */
+	@Nullable
+	private String createSearchAfter(
+			SearchParameterMap theParams, List<JpaPid> thePagePids, List<IBaseResource> theLoadedResources) {
+		Map<Long, IBaseResource> loadedResources = new HashMap<>();
+		for (IBaseResource next : theLoadedResources) {
+			Long pid = IDao.RESOURCE_PID.get(next);
+			if (pid != null) {
+				loadedResources.put(pid, next);
+			}
+		}
+
+		for (int i = thePagePids.size() - 1; i >= 0; i--) {
+			Long pid = thePagePids.get(i).getId();
+			SearchAfterToken retVal = createSearchAfterToken(theParams, pid, loadedResources.get(pid));
+			if (retVal != null) {
+				return retVal.encode();
+			}
+		}
+
+		ourLog.debug("None of the resources on the page exist any longer, not creating a next page link");
+		return null;
+	}
+
+	@Nullable
+	private SearchAfterToken createSearchAfterToken(
+			SearchParameterMap theParams, Long thePid, @Nullable IBaseResource theLoadedResource) {
+		if (theLoadedResource != null) {
+			String idPart = theLoadedResource.getIdElement().getIdPart();
+			boolean forcedId = !thePid.toString().equals(idPart);
+			Date lastUpdated = theLoadedResource.getMeta().getLastUpdated();
+			boolean idIsAmbiguous = !forcedId
+					&& myStorageSettings.getResourceClientIdStrategy() == JpaStorageSettings.ClientIdStrategyEnum.ANY;
+			if (!idIsAmbiguous && lastUpdated != null) {
+				return SearchAfterToken.forSort(theParams.getSort(), idPart, forcedId, lastUpdated);
+			}
+		}
+
+		ResourceTable entity = myEntityManager.find(ResourceTable.class, thePid);
+		if (entity == null) {
+			return null;
+		}
+		if (entity.getForcedId() != null) {
+			return SearchAfterToken.forSort(
+					theParams.getSort(), entity.getForcedId().getForcedId(), true, entity.getUpdatedDate());
+		}
+		return SearchAfterToken.forSort(theParams.getSort(), thePid.toString(), false, entity.getUpdatedDate());
+	}
+
 	@Autowired
 	public void setContext(FhirContext theContext) {
 		myContext = theContext;
@@ -112,6 +112,7 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
@@ -238,15 +239,36 @@ public class QueryStack {
 	}
 
 	public void addSortOnLastUpdated(boolean theAscending) {
-		ResourceTablePredicateBuilder resourceTablePredicateBuilder;
+		ResourceTablePredicateBuilder resourceTablePredicateBuilder = getOrCreateResourceTablePredicateBuilderForSort();
+		mySqlBuilder.addSortDate(resourceTablePredicateBuilder.getColumnLastUpdated(), theAscending, myUseAggregate);
+	}
+
+	/**
+	 * Adds a sort on the last updated timestamp and then the resource PID for keyset paging. If
+	 * a PID is supplied, only the rows sorting after the given timestamp and PID are matched.
+	 */
+	public void addKeysetSortOnLastUpdated(
+			boolean theAscending, @Nullable Date theAfterLastUpdated, @Nullable Long theAfterPid) {
+		ResourceTablePredicateBuilder resourceTablePredicateBuilder = getOrCreateResourceTablePredicateBuilderForSort();
+		if (theAfterPid != null) {
+			mySqlBuilder.addPredicate(mySqlBuilder.createSearchAfterPredicate(
+					resourceTablePredicateBuilder.getColumnLastUpdated(),
+					theAfterLastUpdated,
+					null,
+					resourceTablePredicateBuilder.getResourceIdColumn(),
+					theAfterPid,
+					theAscending));
+		}
+		mySqlBuilder.addSortDate(resourceTablePredicateBuilder.getColumnLastUpdated(), theAscending, myUseAggregate);
+		mySqlBuilder.addSortNumeric(resourceTablePredicateBuilder.getResourceIdColumn(), theAscending, myUseAggregate);
+	}
+
+	private ResourceTablePredicateBuilder getOrCreateResourceTablePredicateBuilderForSort() {
 		BaseJoiningPredicateBuilder firstPredicateBuilder = mySqlBuilder.getOrCreateFirstPredicateBuilder();
 		if (firstPredicateBuilder instanceof ResourceTablePredicateBuilder) {
-			resourceTablePredicateBuilder = (ResourceTablePredicateBuilder) firstPredicateBuilder;
-		} else {
-			resourceTablePredicateBuilder =
-					mySqlBuilder.addResourceTablePredicateBuilder(firstPredicateBuilder.getResourceIdColumn());
+			return (ResourceTablePredicateBuilder) firstPredicateBuilder;
 		}
-		mySqlBuilder.addSortDate(resourceTablePredicateBuilder.getColumnLastUpdated(), theAscending, myUseAggregate);
+		return mySqlBuilder.addResourceTablePredicateBuilder(firstPredicateBuilder.getResourceIdColumn());
 	}
 
 	public void addSortOnNumber(String theResourceName, String theParamName, boolean theAscending) {
@@ -275,15 +297,30 @@ public class QueryStack {
 	}
 
 	public void addSortOnResourceId(boolean theAscending) {
+		addKeysetSortOnResourceId(theAscending, null, null);
+	}
+
+	/**
+	 * Adds a sort on the resource ID (which is already followed by the resource PID) for keyset
+	 * paging. If a PID is supplied, only the rows sorting after the given forced ID (which may be
+	 * <code>null</code> for resources without one) and PID are matched.
+	 */
+	public void addKeysetSortOnResourceId(
+			boolean theAscending, @Nullable String theAfterForcedId, @Nullable Long theAfterPid) {
 		BaseJoiningPredicateBuilder firstPredicateBuilder = mySqlBuilder.getOrCreateFirstPredicateBuilder();
 		ForcedIdPredicateBuilder sortPredicateBuilder =
 				mySqlBuilder.addForcedIdPredicateBuilder(firstPredicateBuilder.getResourceIdColumn());
-		if (!theAscending) {
-			mySqlBuilder.addSortString(
-					sortPredicateBuilder.getColumnForcedId(), false, OrderObject.NullOrder.FIRST, myUseAggregate);
-		} else {
-			mySqlBuilder.addSortString(sortPredicateBuilder.getColumnForcedId(), true, myUseAggregate);
-		}
+		OrderObject.NullOrder nullOrder = theAscending ? OrderObject.NullOrder.LAST : OrderObject.NullOrder.FIRST;
+		if (theAfterPid != null) {
+			mySqlBuilder.addPredicate(mySqlBuilder.createSearchAfterPredicate(
+					sortPredicateBuilder.getColumnForcedId(),
+					theAfterForcedId,
+					nullOrder,
+					firstPredicateBuilder.getResourceIdColumn(),
+					theAfterPid,
+					theAscending));
+		}
+		mySqlBuilder.addSortString(sortPredicateBuilder.getColumnForcedId(), theAscending, nullOrder, myUseAggregate);
 		mySqlBuilder.addSortNumeric(firstPredicateBuilder.getResourceIdColumn(), theAscending, myUseAggregate);
 	}
 
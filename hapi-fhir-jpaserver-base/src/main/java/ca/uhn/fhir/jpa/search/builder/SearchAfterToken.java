@@ -0,0 +1,263 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.SortOrderEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import ca.uhn.fhir.util.UrlUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.hl7.fhir.instance.model.api.IAnyResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The position of the last row of a keyset (aka seek) paged search page, which is passed
+ * back to the server in the {@link Constants#PARAM_SEARCH_AFTER} parameter in order to
+ * fetch the following page. The token holds the sort key of the row (the last updated
+ * timestamp, if sorting by <code>_lastUpdated</code>) plus the public ID of the resource,
+ * which is resolved back to the PID that breaks ties between rows with the same sort key.
+ * Only the public ID is included so that the token does not expose the internal PID of
+ * resources with client assigned IDs.
+ *
+ * @see ca.uhn.fhir.jpa.api.config.JpaStorageSettings#setKeysetPagingEnabled(boolean)
+ * @since 7.0.0
+ */
+public class SearchAfterToken {
+
+	private static final char SORT_LAST_UPDATED = 'u';
+	private static final char SORT_RESOURCE_ID = 'i';
+	private static final char ASCENDING = '+';
+	private static final char DESCENDING = '-';
+	private static final String FORCED_ID = "f";
+	private static final String SERVER_ASSIGNED_ID = "p";
+
+	private final char mySort;
+	private final boolean myAscending;
+	private final String myResourceId;
+	private final boolean myForcedId;
+	private final Date myLastUpdated;
+
+	private SearchAfterToken(
+			char theSort, boolean theAscending, String theResourceId, boolean theForcedId, Date theLastUpdated) {
+		mySort = theSort;
+		myAscending = theAscending;
+		myResourceId = theResourceId;
+		myForcedId = theForcedId;
+		myLastUpdated = theLastUpdated;
+	}
+
+	/**
+	 * The public ID of the resource, which is its forced ID if it has one, or else its PID
+	 */
+	public String getResourceId() {
+		return myResourceId;
+	}
+
+	/**
+	 * Returns the PID of the resource if it has no forced ID, or <code>null</code> if the
+	 * PID needs to be resolved from the {@link #getForcedId() forced ID}
+	 */
+	@Nullable
+	public Long getPid() {
+		return myForcedId ? null : Long.parseLong(myResourceId);
+	}
+
+	/**
+	 * Only populated for searches sorted by <code>_lastUpdated</code>
+	 */
+	public Date getLastUpdated() {
+		return myLastUpdated;
+	}
+
+	/**
+	 * Only populated if the resource has a client assigned ID
+	 */
+	public String getForcedId() {
+		return myForcedId ? myResourceId : null;
+	}
+
+	/**
+	 * Returns the opaque string form of this token
+	 */
+	public String encode() {
+		StringBuilder b = new StringBuilder();
+		b.append(mySort);
+		b.append(myAscending ? ASCENDING : DESCENDING);
+		b.append('.');
+		b.append(myForcedId ? FORCED_ID : SERVER_ASSIGNED_ID);
+		b.append('.');
+		if (myLastUpdated != null) {
+			b.append(myLastUpdated.getTime());
+		}
+		b.append('.');
+		b.append(myResourceId);
+		return Base64.getUrlEncoder()
+				.withoutPadding()
+				.encodeToString(b.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public String toString() {
+		return encode();
+	}
+
+	/**
+	 * Returns <code>true</code> if the given search can be keyset paged, which requires it to be
+	 * sorted by a single <code>_lastUpdated</code> or <code>_id</code> sort and not to be an
+	 * offset, <code>$everything</code>, <code>$lastn</code> or fulltext search.
+	 */
+	public static boolean isKeysetPagingSupported(SearchParameterMap theParams) {
+		SortSpec sort = theParams.getSort();
+		if (sort == null || sort.getChain() != null) {
+			return false;
+		}
+		if (!Constants.PARAM_LASTUPDATED.equals(sort.getParamName())
+				&& !IAnyResource.SP_RES_ID.equals(sort.getParamName())) {
+			return false;
+		}
+		return theParams.getOffset() == null
+				&& theParams.getEverythingMode() == null
+				&& !theParams.isLastN()
+				&& theParams.getNearDistanceParam() == null
+				&& !theParams.containsKey(Constants.PARAM_CONTENT)
+				&& !theParams.containsKey(Constants.PARAM_TEXT);
+	}
+
+	/**
+	 * Creates a token for a row of a search sorted by <code>_lastUpdated</code>
+	 *
+	 * @param theResourceId The public ID of the resource
+	 * @param theForcedId   Whether the public ID is a forced (client assigned) ID rather than the PID
+	 */
+	public static SearchAfterToken forLastUpdated(
+			boolean theAscending, @Nonnull String theResourceId, boolean theForcedId, @Nonnull Date theLastUpdated) {
+		Validate.notNull(theLastUpdated, "theLastUpdated must not be null");
+		return newToken(SORT_LAST_UPDATED, theAscending, theResourceId, theForcedId, theLastUpdated);
+	}
+
+	/**
+	 * Creates a token for a row of a search sorted by <code>_id</code>
+	 *
+	 * @param theResourceId The public ID of the resource
+	 * @param theForcedId   Whether the public ID is a forced (client assigned) ID rather than the PID
+	 */
+	public static SearchAfterToken forResourceId(
+			boolean theAscending, @Nonnull String theResourceId, boolean theForcedId) {
+		return newToken(SORT_RESOURCE_ID, theAscending, theResourceId, theForcedId, null);
+	}
+
+	/**
+	 * Creates a token for a row of a search using the given sort
+	 *
+	 * @param theResourceId  The public ID of the resource
+	 * @param theForcedId    Whether the public ID is a forced (client assigned) ID rather than the PID
+	 * @param theLastUpdated The last updated timestamp of the row, only used for <code>_lastUpdated</code> sorts
+	 */
+	public static SearchAfterToken forSort(
+			SortSpec theSort, @Nonnull String theResourceId, boolean theForcedId, @Nullable Date theLastUpdated) {
+		boolean ascending = isAscending(theSort);
+		if (Constants.PARAM_LASTUPDATED.equals(theSort.getParamName())) {
+			return forLastUpdated(ascending, theResourceId, theForcedId, theLastUpdated);
+		}
+		return forResourceId(ascending, theResourceId, theForcedId);
+	}
+
+	private static SearchAfterToken newToken(
+			char theSort, boolean theAscending, String theResourceId, boolean theForcedId, Date theLastUpdated) {
+		Validate.notBlank(theResourceId, "theResourceId must not be blank");
+		if (!theForcedId) {
+			Validate.isTrue(StringUtils.isNumeric(theResourceId), "theResourceId must be a PID if it is not forced");
+		}
+		return new SearchAfterToken(theSort, theAscending, theResourceId, theForcedId, theLastUpdated);
+	}
+
+	/**
+	 * Parses a token which was produced by {@link #encode()}
+	 *
+	 * @param theToken The token
+	 * @param theSort  The sort of the search the token is being used with, which must be the same
+	 *                 as the sort of the search which produced the token
+	 * @throws InvalidRequestException If the token is malformed or was produced by a search with a different sort
+	 */
+	public static SearchAfterToken decode(String theToken, SortSpec theSort) {
+		String decoded;
+		try {
+			decoded = new String(Base64.getUrlDecoder().decode(theToken), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw newInvalidTokenException(theToken);
+		}
+
+		String[] parts = decoded.split("\\.", 4);
+		if (parts.length != 4 || parts[0].length() != 2 || parts[3].isEmpty()) {
+			throw newInvalidTokenException(theToken);
+		}
+
+		char sort = parts[0].charAt(0);
+		char direction = parts[0].charAt(1);
+		char expectedSort =
+				Constants.PARAM_LASTUPDATED.equals(theSort.getParamName()) ? SORT_LAST_UPDATED : SORT_RESOURCE_ID;
+		char expectedDirection = isAscending(theSort) ? ASCENDING : DESCENDING;
+		if (sort != expectedSort || direction != expectedDirection) {
+			throw new InvalidRequestException(Msg.code(2450) + "The " + Constants.PARAM_SEARCH_AFTER
+					+ " value was not produced by a search with the same " + Constants.PARAM_SORT + " value");
+		}
+
+		boolean forcedId = FORCED_ID.equals(parts[1]);
+		String resourceId = parts[3];
+		if (!forcedId && (!SERVER_ASSIGNED_ID.equals(parts[1]) || !StringUtils.isNumeric(resourceId))) {
+			throw newInvalidTokenException(theToken);
+		}
+
+		boolean ascending = expectedDirection == ASCENDING;
+		try {
+			if (!forcedId) {
+				// Make sure it fits in a long
+				Long.parseLong(resourceId);
+			}
+			if (sort == SORT_RESOURCE_ID) {
+				if (!parts[2].isEmpty()) {
+					throw newInvalidTokenException(theToken);
+				}
+				return forResourceId(ascending, resourceId, forcedId);
+			}
+			return forLastUpdated(ascending, resourceId, forcedId, new Date(Long.parseLong(parts[2])));
+		} catch (NumberFormatException e) {
+			throw newInvalidTokenException(theToken);
+		}
+	}
+
+	private static boolean isAscending(SortSpec theSort) {
+		return theSort.getOrder() == null || theSort.getOrder() == SortOrderEnum.ASC;
+	}
+
+	private static InvalidRequestException newInvalidTokenException(String theToken) {
+		return new InvalidRequestException(Msg.code(2449) + "Invalid " + Constants.PARAM_SEARCH_AFTER + " value: "
+				+ UrlUtil.sanitizeUrlPart(theToken));
+	}
+}
@@ -50,10 +50,12 @@ import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.dao.JpaPid;
 import ca.uhn.fhir.jpa.model.entity.BaseResourceIndexedSearchParam;
 import ca.uhn.fhir.jpa.model.entity.IBaseResourceEntity;
+import ca.uhn.fhir.jpa.model.entity.PartitionablePartitionId;
 import ca.uhn.fhir.jpa.model.entity.ResourceTag;
 import ca.uhn.fhir.jpa.model.search.SearchBuilderLoadIncludesParameters;
 import ca.uhn.fhir.jpa.model.search.SearchRuntimeDetails;
 import ca.uhn.fhir.jpa.model.search.StorageProcessingMessage;
+import ca.uhn.fhir.jpa.partition.IPartitionLookupSvc;
 import ca.uhn.fhir.jpa.search.SearchConstants;
 import ca.uhn.fhir.jpa.search.builder.models.ResolvedSearchQueryExecutor;
 import ca.uhn.fhir.jpa.search.builder.sql.GeneratedSql;
@@ -86,6 +88,7 @@ import ca.uhn.fhir.rest.param.ReferenceParam;
 import ca.uhn.fhir.rest.param.StringParam;
 import ca.uhn.fhir.rest.param.TokenParam;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
 import ca.uhn.fhir.rest.server.util.CompositeInterceptorBroadcaster;
@@ -111,6 +114,7 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -197,6 +201,12 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 	@Autowired
 	private IJpaStorageResourceParser myJpaStorageResourceParser;
 
+	@Autowired
+	private SearchResourceParseExecutor mySearchResourceParseExecutor;
+
+	@Autowired
+	private IPartitionLookupSvc myPartitionLookupSvc;
+
 	/**
 	 * Constructor
 	 */
@@ -741,7 +751,11 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		if (sort != null) {
 			assert !theCountOnlyFlag;
 
-			createSort(queryStack3, sort, theParams);
+			if (theParams.isKeysetPaging()) {
+				createKeysetSort(queryStack3, sort, theParams);
+			} else {
+				createSort(queryStack3, sort, theParams);
+			}
 		}
 
 		/*
@@ -829,6 +843,44 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		}
 	}
 
+	/**
+	 * Keyset paged searches are sorted by a single <code>_lastUpdated</code> or <code>_id</code>
+	 * sort followed by the resource PID, and if this isn't the first page, only match the rows
+	 * sorting after the last row of the previous page.
+	 */
+	private void createKeysetSort(QueryStack theQueryStack, SortSpec theSort, SearchParameterMap theParams) {
+		boolean ascending = (theSort.getOrder() == null) || (theSort.getOrder() == SortOrderEnum.ASC);
+
+		SearchAfterToken searchAfter = null;
+		Long afterPid = null;
+		if (isNotBlank(theParams.getSearchAfter())) {
+			searchAfter = SearchAfterToken.decode(theParams.getSearchAfter(), theSort);
+			afterPid = resolveSearchAfterPid(searchAfter);
+		}
+
+		if (IAnyResource.SP_RES_ID.equals(theSort.getParamName())) {
+			String afterForcedId = searchAfter != null ? searchAfter.getForcedId() : null;
+			theQueryStack.addKeysetSortOnResourceId(ascending, afterForcedId, afterPid);
+		} else {
+			Date afterLastUpdated = searchAfter != null ? searchAfter.getLastUpdated() : null;
+			theQueryStack.addKeysetSortOnLastUpdated(ascending, afterLastUpdated, afterPid);
+		}
+	}
+
+	private Long resolveSearchAfterPid(SearchAfterToken theSearchAfter) {
+		if (theSearchAfter.getForcedId() == null) {
+			return theSearchAfter.getPid();
+		}
+		try {
+			return myIdHelperService
+					.resolveResourcePersistentIds(myRequestPartitionId, myResourceName, theSearchAfter.getForcedId())
+					.getId();
+		} catch (ResourceNotFoundException e) {
+			throw new ResourceGoneException(Msg.code(2460) + "The last resource of the previous page no longer exists, "
+					+ "so the search can not be continued from the given " + Constants.PARAM_SEARCH_AFTER + " value");
+		}
+	}
+
 	private void createSort(QueryStack theQueryStack, SortSpec theSort, SearchParameterMap theParams) {
 		if (theSort == null || isBlank(theSort.getParamName())) {
 			return;
@@ -1066,14 +1118,13 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		// -- preload all tags with tag definition if any
 		Map<Long, Collection<ResourceTag>> tagMap = getResourceTagMap(resourceSearchViewList);
 
+		List<IBaseResourceEntity> entitiesToParse = new ArrayList<>(resourceSearchViewList.size());
+		List<JpaPid> entityResourceIds = new ArrayList<>(resourceSearchViewList.size());
 		for (IBaseResourceEntity next : resourceSearchViewList) {
 			if (next.getDeleted() != null) {
 				continue;
 			}
 
-			Class<? extends IBaseResource> resourceType =
-					myContext.getResourceDefinition(next.getResourceType()).getImplementingClass();
-
 			JpaPid resourceId = JpaPid.fromId(next.getResourceId());
 
 			/*
@@ -1087,17 +1138,57 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 				Long version = resourcePidToVersion.get(next.getResourceId());
 				resourceId.setVersion(version);
 				if (version != null && !version.equals(next.getVersion())) {
+					Class<? extends IBaseResource> resourceType = myContext
+							.getResourceDefinition(next.getResourceType())
+							.getImplementingClass();
 					IFhirResourceDao<? extends IBaseResource> dao = myDaoRegistry.getResourceDao(resourceType);
-					next = (IBaseResourceEntity)
+					IBaseResourceEntity versionedEntity = (IBaseResourceEntity)
 							dao.readEntity(next.getIdDt().withVersion(Long.toString(version)), null);
+					if (versionedEntity == null) {
+						ourLog.warn(
+								"Unable to find resource {}/{}/_history/{} in database",
+								next.getResourceType(),
+								next.getIdDt().getIdPart(),
+								version);
+						continue;
+					}
+					next = versionedEntity;
 				}
 			}
 
-			IBaseResource resource = null;
-			if (next != null) {
-				resource = myJpaStorageResourceParser.toResource(
-						resourceType, next, tagMap.get(next.getId()), theForHistoryOperation);
+			entitiesToParse.add(next);
+			entityResourceIds.add(resourceId);
+		}
+
+		// -- parse the resources. This is the most expensive part of loading a page of results,
+		// so rows from the search view, which are fully loaded along with their tags, may be
+		// spread across several threads. Entities loaded for versioned includes lazily load
+		// their tags and history through this thread's persistence context, so they are
+		// always parsed here.
+		List<IBaseResource> resources = new ArrayList<>(Collections.nCopies(entitiesToParse.size(), null));
+		List<Integer> searchViewIndexes = new ArrayList<>(entitiesToParse.size());
+		List<IBaseResourceEntity> searchViews = new ArrayList<>(entitiesToParse.size());
+		for (int i = 0; i < entitiesToParse.size(); i++) {
+			IBaseResourceEntity next = entitiesToParse.get(i);
+			if (next instanceof ResourceSearchView) {
+				searchViewIndexes.add(i);
+				searchViews.add(next);
+			} else {
+				resources.set(i, toResource(next, tagMap, theForHistoryOperation));
 			}
+		}
+
+		preloadPartitions(searchViews);
+		List<IBaseResource> parsedSearchViews = mySearchResourceParseExecutor.map(
+				searchViews, next -> toResource(next, tagMap, theForHistoryOperation));
+		for (int i = 0; i < searchViewIndexes.size(); i++) {
+			resources.set(searchViewIndexes.get(i), parsedSearchViews.get(i));
+		}
+
+		for (int i = 0; i < entitiesToParse.size(); i++) {
+			IBaseResourceEntity next = entitiesToParse.get(i);
+			JpaPid resourceId = entityResourceIds.get(i);
+			IBaseResource resource = resources.get(i);
 			if (resource == null) {
 				ourLog.warn(
 						"Unable to find resource {}/{}/_history/{} in database",
@@ -1123,6 +1214,36 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 		}
 	}
 
+	private IBaseResource toResource(
+			IBaseResourceEntity theEntity,
+			Map<Long, Collection<ResourceTag>> theTagMap,
+			boolean theForHistoryOperation) {
+		Class<? extends IBaseResource> resourceType =
+				myContext.getResourceDefinition(theEntity.getResourceType()).getImplementingClass();
+		return myJpaStorageResourceParser.toResource(
+				resourceType, theEntity, theTagMap.get(theEntity.getId()), theForHistoryOperation);
+	}
+
+	/**
+	 * Makes sure that the partitions of the given entities are cached before they are parsed,
+	 * so that the partition lookups made while parsing don't go to the database from another thread
+	 */
+	private void preloadPartitions(List<IBaseResourceEntity> theEntities) {
+		if (!myPartitionSettings.isPartitioningEnabled()) {
+			return;
+		}
+		Set<Integer> partitionIds = new HashSet<>();
+		for (IBaseResourceEntity next : theEntities) {
+			PartitionablePartitionId partitionId = next.getPartitionId();
+			if (partitionId != null && partitionId.getPartitionId() != null) {
+				partitionIds.add(partitionId.getPartitionId());
+			}
+		}
+		for (Integer next : partitionIds) {
+			myPartitionLookupSvc.getPartitionById(next);
+		}
+	}
+
 	private Map<Long, Collection<ResourceTag>> getResourceTagMap(
 			Collection<? extends IBaseResourceEntity> theResourceSearchViewList) {
 
@@ -1987,6 +2108,9 @@ public class SearchBuilder implements ISearchBuilder<JpaPid> {
 							myMaxResultsToFetch = myParams.getLoadSynchronousUpTo();
 						} else if (myParams.getOffset() != null && myParams.getCount() != null) {
 							myMaxResultsToFetch = myParams.getCount();
+						} else if (myParams.isKeysetPaging() && myParams.getCount() != null) {
+							// One extra row tells us whether there is a next page
+							myMaxResultsToFetch = myParams.getCount() + 1;
 						} else {
 							myMaxResultsToFetch = myStorageSettings.getFetchSizeDefaultMaximum();
 						}
@@ -0,0 +1,138 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.util.ThreadPoolUtil;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+
+/**
+ * Spreads the parsing of a page of loaded search results across a small shared
+ * thread pool, as configured by {@link JpaStorageSettings#setSearchResourceParseThreadCount(int)}.
+ * The calling thread always processes one slice of the work itself, so a page is never
+ * slower to load than it would be when parsing sequentially on the calling thread.
+ *
+ * @since 7.0.0
+ */
+public class SearchResourceParseExecutor {
+
+	/**
+	 * Slices smaller than this aren't worth the overhead of a thread handoff
+	 */
+	static final int MIN_ITEMS_PER_SLICE = 20;
+
+	private final JpaStorageSettings myStorageSettings;
+	private ThreadPoolTaskExecutor myExecutor;
+
+	/**
+	 * Constructor
+	 */
+	public SearchResourceParseExecutor(JpaStorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
+	}
+
+	/**
+	 * Applies a function to every item in the input list and returns the results in the
+	 * same order as the input. Exceptions thrown by the function are rethrown on the
+	 * calling thread.
+	 */
+	@SuppressWarnings("unchecked")
+	public <I, O> List<O> map(List<I> theInput, Function<I, O> theFunction) {
+		int threadCount = myStorageSettings.getSearchResourceParseThreadCount();
+		int sliceCount = Math.min(threadCount, theInput.size() / MIN_ITEMS_PER_SLICE);
+		if (sliceCount <= 1) {
+			List<O> retVal = new ArrayList<>(theInput.size());
+			for (I next : theInput) {
+				retVal.add(theFunction.apply(next));
+			}
+			return retVal;
+		}
+
+		Object[] output = new Object[theInput.size()];
+		int sliceSize = (theInput.size() + sliceCount - 1) / sliceCount;
+		ThreadPoolTaskExecutor executor = getExecutor(threadCount);
+
+		List<Future<?>> futures = new ArrayList<>(sliceCount - 1);
+		try {
+			for (int sliceStart = sliceSize; sliceStart < theInput.size(); sliceStart += sliceSize) {
+				int from = sliceStart;
+				int to = Math.min(sliceStart + sliceSize, theInput.size());
+				futures.add(executor.submit(() -> applyToSlice(theInput, theFunction, output, from, to)));
+			}
+
+			applyToSlice(theInput, theFunction, output, 0, sliceSize);
+
+			for (Future<?> next : futures) {
+				next.get();
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new InternalErrorException(Msg.code(2447) + "Failed to parse resources: " + e.getCause(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException(Msg.code(2448) + "Interrupted while parsing resources", e);
+		} finally {
+			for (Future<?> next : futures) {
+				next.cancel(false);
+			}
+		}
+
+		return (List<O>) Arrays.asList(output);
+	}
+
+	private synchronized ThreadPoolTaskExecutor getExecutor(int theThreadCount) {
+		if (myExecutor == null) {
+			// The calling thread processes one slice itself
+			int poolSize = theThreadCount - 1;
+			myExecutor = ThreadPoolUtil.newThreadPool(poolSize, poolSize, "search-resource-parse-", 1000);
+		}
+		return myExecutor;
+	}
+
+	@PreDestroy
+	public synchronized void stop() {
+		if (myExecutor != null) {
+			myExecutor.shutdown();
+			myExecutor = null;
+		}
+	}
+
+	private static <I, O> void applyToSlice(
+			List<I> theInput, Function<I, O> theFunction, Object[] theOutput, int theFrom, int theTo) {
+		for (int i = theFrom; i < theTo; i++) {
+			theOutput[i] = theFunction.apply(theInput.get(i));
+		}
+	}
+}
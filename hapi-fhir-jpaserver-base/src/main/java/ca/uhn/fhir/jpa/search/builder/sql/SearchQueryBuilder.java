@@ -56,6 +56,7 @@ import com.healthmarketscience.sqlbuilder.FunctionCall;
 import com.healthmarketscience.sqlbuilder.InCondition;
 import com.healthmarketscience.sqlbuilder.OrderObject;
 import com.healthmarketscience.sqlbuilder.SelectQuery;
+import com.healthmarketscience.sqlbuilder.UnaryCondition;
 import com.healthmarketscience.sqlbuilder.dbspec.Join;
 import com.healthmarketscience.sqlbuilder.dbspec.basic.DbColumn;
 import com.healthmarketscience.sqlbuilder.dbspec.basic.DbJoin;
@@ -744,6 +745,57 @@ public class SearchQueryBuilder {
 		return false;
 	}
 
+	/**
+	 * Creates a keyset (aka seek) paging predicate which only matches the rows sorting after the
+	 * last row of the previous page, for results sorted by a sort column and then by resource PID.
+	 *
+	 * @param theSortColumn The sort column
+	 * @param theSortValue  The sort column value of the last row of the previous page. May only be
+	 *                      <code>null</code> if <code>theSortNullOrder</code> is supplied.
+	 * @param theSortNullOrder The null order the sort column was sorted with, or <code>null</code> if
+	 *                      the sort column can never be null
+	 * @param thePidColumn  The resource PID column
+	 * @param thePid        The resource PID of the last row of the previous page
+	 * @param theAscending  The sort direction of both columns
+	 */
+	public Condition createSearchAfterPredicate(
+			DbColumn theSortColumn,
+			@Nullable Object theSortValue,
+			@Nullable OrderObject.NullOrder theSortNullOrder,
+			DbColumn thePidColumn,
+			long thePid,
+			boolean theAscending) {
+		ParamPrefixEnum after = theAscending ? GREATERTHAN : LESSTHAN;
+		Condition pidAfter = createConditionForValueWithComparator(after, thePidColumn, thePid);
+
+		boolean nullable = theSortNullOrder != null;
+		boolean nullsFirst;
+		if (dialectIsMySql || dialectIsMsSql) {
+			// These databases always sort nulls as lower than any other value, see addSortString(..)
+			nullsFirst = theAscending;
+		} else {
+			nullsFirst = theSortNullOrder == OrderObject.NullOrder.FIRST;
+		}
+
+		if (theSortValue == null) {
+			Validate.isTrue(nullable, "Sort column is not nullable");
+			Condition retVal = ComboCondition.and(UnaryCondition.isNull(theSortColumn), pidAfter);
+			if (nullsFirst) {
+				retVal = ComboCondition.or(retVal, UnaryCondition.isNotNull(theSortColumn));
+			}
+			return retVal;
+		}
+
+		Condition retVal = ComboCondition.or(
+				createConditionForValueWithComparator(after, theSortColumn, theSortValue),
+				ComboCondition.and(
+						BinaryCondition.equalTo(theSortColumn, generatePlaceholder(theSortValue)), pidAfter));
+		if (nullable && !nullsFirst) {
+			retVal = ComboCondition.or(retVal, UnaryCondition.isNull(theSortColumn));
+		}
+		return retVal;
+	}
+
 	public void addResourceIdsPredicate(List<Long> thePidList) {
 		DbColumn resourceIdColumn = getOrCreateFirstPredicateBuilder().getResourceIdColumn();
 		InCondition predicate = new InCondition(resourceIdColumn, generatePlaceholders(thePidList));
@@ -0,0 +1,152 @@
+package ca.uhn.fhir.jpa.cache;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Practitioner;
+import org.hl7.fhir.r4.model.PractitionerRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParsedResourceCacheSvcTest {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private static final String ID = "Practitioner/123";
+	private static final Long PID = 123L;
+
+	private JpaStorageSettings myStorageSettings;
+	private ParsedResourceCacheSvc mySvc;
+
+	@BeforeEach
+	public void before() {
+		myStorageSettings = new JpaStorageSettings();
+		myStorageSettings.setParsedResourceCacheResourceTypes(Set.of("Practitioner"));
+		mySvc = new ParsedResourceCacheSvc(myStorageSettings);
+	}
+
+	@Test
+	public void testDisabledByDefault() {
+		myStorageSettings.setParsedResourceCacheResourceTypes(Collections.emptySet());
+		mySvc.start();
+
+		assertFalse(mySvc.isCacheable("Practitioner"));
+	}
+
+	@Test
+	public void testHitReturnsCopy() {
+		mySvc.start();
+		assertTrue(mySvc.isCacheable("Practitioner"));
+		assertFalse(mySvc.isCacheable("Patient"));
+
+		Date updated = new Date();
+		Practitioner parsed = new Practitioner();
+		parsed.addName().setFamily("Smith");
+		mySvc.put(ourCtx, ID, PID, 1L, updated, parsed);
+
+		// Modifying the original must not affect the cache
+		parsed.getNameFirstRep().setFamily("Jones");
+
+		Practitioner first = mySvc.get(ourCtx, ID, PID, 1L, updated);
+		assertNotNull(first);
+		assertEquals("Smith", first.getNameFirstRep().getFamily());
+		first.getNameFirstRep().setFamily("Jones");
+
+		Practitioner second = mySvc.get(ourCtx, ID, PID, 1L, updated);
+		assertNotNull(second);
+		assertNotSame(first, second);
+		assertEquals("Smith", second.getNameFirstRep().getFamily());
+
+		assertEquals(2, mySvc.getHitCount());
+		assertEquals(0, mySvc.getMissCount());
+	}
+
+	@Test
+	public void testMissOnDifferentVersionOrTimestamp() {
+		mySvc.start();
+
+		Date updated = new Date(1000L);
+		mySvc.put(ourCtx, ID, PID, 1L, updated, new Practitioner());
+
+		assertNull(mySvc.get(ourCtx, ID, PID, 2L, updated));
+		assertNull(mySvc.get(ourCtx, ID, PID, 1L, new Date(2000L)));
+		assertNull(mySvc.get(ourCtx, ID, 999L, 1L, updated));
+		assertNull(mySvc.get(ourCtx, "Practitioner/456", PID, 1L, updated));
+		assertNotNull(mySvc.get(ourCtx, ID, PID, 1L, updated));
+
+		assertEquals(1, mySvc.getHitCount());
+		assertEquals(4, mySvc.getMissCount());
+	}
+
+	@Test
+	public void testStopDisablesCache() {
+		mySvc.start();
+		mySvc.put(ourCtx, ID, PID, 1L, new Date(), new Practitioner());
+
+		mySvc.stop();
+
+		assertFalse(mySvc.isCacheable("Practitioner"));
+		assertEquals(0, mySvc.getEstimatedSize());
+	}
+
+	@Test
+	public void testVersionsCachedIndependently() {
+		mySvc.start();
+
+		Date updated1 = new Date(1000L);
+		Date updated2 = new Date(2000L);
+		Practitioner v1 = new Practitioner();
+		v1.addName().setFamily("Smith");
+		Practitioner v2 = new Practitioner();
+		v2.addName().setFamily("Jones");
+		mySvc.put(ourCtx, ID, PID, 1L, updated1, v1);
+		mySvc.put(ourCtx, ID, PID, 2L, updated2, v2);
+
+		for (int i = 0; i < 2; i++) {
+			Practitioner actual1 = mySvc.get(ourCtx, ID, PID, 1L, updated1);
+			assertNotNull(actual1);
+			assertEquals("Smith", actual1.getNameFirstRep().getFamily());
+			Practitioner actual2 = mySvc.get(ourCtx, ID, PID, 2L, updated2);
+			assertNotNull(actual2);
+			assertEquals("Jones", actual2.getNameFirstRep().getFamily());
+		}
+
+		assertEquals(4, mySvc.getHitCount());
+		assertEquals(0, mySvc.getMissCount());
+	}
+
+	@Test
+	public void testContainedReferencesLinkedInCopy() {
+		mySvc.start();
+
+		Organization org = new Organization();
+		org.setId("#org");
+		org.setName("Acme");
+		PractitionerRole role = new PractitionerRole();
+		role.getContained().add(org);
+		role.getOrganization().setReference("#org");
+		role.getOrganization().setResource(org);
+
+		Date updated = new Date();
+		mySvc.put(ourCtx, "PractitionerRole/1", 1L, 1L, updated, role);
+
+		PractitionerRole actual = mySvc.get(ourCtx, "PractitionerRole/1", 1L, 1L, updated);
+		assertNotNull(actual);
+		Organization actualOrg = (Organization) actual.getOrganization().getResource();
+		assertNotNull(actualOrg);
+		assertSame(actual.getContained().get(0), actualOrg);
+		assertEquals("Acme", actualOrg.getName());
+	}
+
+}
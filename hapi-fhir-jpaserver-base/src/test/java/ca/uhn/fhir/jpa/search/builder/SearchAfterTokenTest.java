@@ -0,0 +1,129 @@
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.SortOrderEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.param.StringParam;
+import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SearchAfterTokenTest {
+
+	private static final SortSpec SORT_LAST_UPDATED = new SortSpec(Constants.PARAM_LASTUPDATED);
+	private static final SortSpec SORT_ID_DESC = new SortSpec("_id", SortOrderEnum.DESC);
+
+	@Test
+	public void testLastUpdatedRoundTrip() {
+		Date lastUpdated = new Date(1697500000123L);
+		String encoded = SearchAfterToken.forSort(SORT_LAST_UPDATED, "123", false, lastUpdated).encode();
+		assertThat(encoded, matchesPattern("[A-Za-z0-9_-]+"));
+
+		SearchAfterToken decoded = SearchAfterToken.decode(encoded, SORT_LAST_UPDATED);
+		assertEquals(123L, decoded.getPid());
+		assertEquals("123", decoded.getResourceId());
+		assertEquals(lastUpdated, decoded.getLastUpdated());
+		assertNull(decoded.getForcedId());
+	}
+
+	@Test
+	public void testLastUpdatedWithForcedIdRoundTrip() {
+		Date lastUpdated = new Date(1697500000123L);
+		String encoded = SearchAfterToken.forSort(SORT_LAST_UPDATED, "a.b", true, lastUpdated).encode();
+
+		SearchAfterToken decoded = SearchAfterToken.decode(encoded, SORT_LAST_UPDATED);
+		assertNull(decoded.getPid());
+		assertEquals("a.b", decoded.getForcedId());
+		assertEquals(lastUpdated, decoded.getLastUpdated());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"abc", "a.b.c", "Ünïcode", "123"})
+	public void testResourceIdRoundTrip(String theForcedId) {
+		String encoded = SearchAfterToken.forSort(SORT_ID_DESC, theForcedId, true, new Date()).encode();
+
+		SearchAfterToken decoded = SearchAfterToken.decode(encoded, SORT_ID_DESC);
+		assertNull(decoded.getPid());
+		assertEquals(theForcedId, decoded.getForcedId());
+		assertNull(decoded.getLastUpdated());
+	}
+
+	@Test
+	public void testResourceIdWithoutForcedIdRoundTrip() {
+		String encoded = SearchAfterToken.forResourceId(false, "456", false).encode();
+
+		SearchAfterToken decoded = SearchAfterToken.decode(encoded, SORT_ID_DESC);
+		assertEquals(456L, decoded.getPid());
+		assertNull(decoded.getForcedId());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"!!!",
+		// u+.123
+		"dSsuMTIz",
+		// u+.p.abc.123
+		"dSsucC5hYmMuMTIz",
+		// u+.p.1697500000123.abc
+		"dSsucC4xNjk3NTAwMDAwMTIzLmFiYw",
+		// u+.x.1697500000123.123
+		"dSsueC4xNjk3NTAwMDAwMTIzLjEyMw",
+		// u+.p.1697500000123.
+		"dSsucC4xNjk3NTAwMDAwMTIzLg",
+		"dSs"
+	})
+	public void testInvalidToken(String theToken) {
+		InvalidRequestException e = assertThrows(InvalidRequestException.class, () -> SearchAfterToken.decode(theToken, SORT_LAST_UPDATED));
+		assertThat(e.getMessage(), startsWith("HAPI-2449: Invalid _searchAfter value"));
+	}
+
+	@Test
+	public void testTokenFromDifferentSort() {
+		String lastUpdatedToken = SearchAfterToken.forLastUpdated(true, "1", false, new Date()).encode();
+		String descendingToken = SearchAfterToken.forLastUpdated(false, "1", false, new Date()).encode();
+
+		InvalidRequestException e = assertThrows(InvalidRequestException.class, () -> SearchAfterToken.decode(lastUpdatedToken, SORT_ID_DESC));
+		assertThat(e.getMessage(), startsWith("HAPI-2450: "));
+		e = assertThrows(InvalidRequestException.class, () -> SearchAfterToken.decode(descendingToken, SORT_LAST_UPDATED));
+		assertThat(e.getMessage(), startsWith("HAPI-2450: "));
+	}
+
+	@Test
+	public void testIsKeysetPagingSupported() {
+		SearchParameterMap map = new SearchParameterMap();
+		assertFalse(SearchAfterToken.isKeysetPagingSupported(map));
+
+		map.setSort(new SortSpec("name"));
+		assertFalse(SearchAfterToken.isKeysetPagingSupported(map));
+
+		map.setSort(new SortSpec(Constants.PARAM_LASTUPDATED));
+		assertTrue(SearchAfterToken.isKeysetPagingSupported(map));
+
+		map.setSort(SORT_ID_DESC);
+		assertTrue(SearchAfterToken.isKeysetPagingSupported(map));
+
+		map.setSort(new SortSpec(Constants.PARAM_LASTUPDATED).setChain(new SortSpec("_id")));
+		assertFalse(SearchAfterToken.isKeysetPagingSupported(map));
+
+		map.setSort(new SortSpec(Constants.PARAM_LASTUPDATED));
+		map.setOffset(10);
+		assertFalse(SearchAfterToken.isKeysetPagingSupported(map));
+
+		map.setOffset(null);
+		map.add(Constants.PARAM_CONTENT, new StringParam("foo"));
+		assertFalse(SearchAfterToken.isKeysetPagingSupported(map));
+	}
+}
@@ -0,0 +1,99 @@
+package ca.uhn.fhir.jpa.search.builder;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.parser.DataFormatException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchResourceParseExecutorTest {
+
+	private final JpaStorageSettings myStorageSettings = new JpaStorageSettings();
+	private final SearchResourceParseExecutor mySvc = new SearchResourceParseExecutor(myStorageSettings);
+
+	@AfterEach
+	public void after() {
+		mySvc.stop();
+	}
+
+	@Test
+	public void testSequentialByDefault() {
+		Set<String> threadNames = ConcurrentHashMap.newKeySet();
+		List<Integer> input = range(200);
+
+		List<String> output = mySvc.map(input, t -> {
+			threadNames.add(Thread.currentThread().getName());
+			return "R" + t;
+		});
+
+		assertEquals(200, output.size());
+		assertEquals("R0", output.get(0));
+		assertEquals("R199", output.get(199));
+		assertThat(threadNames, contains(Thread.currentThread().getName()));
+	}
+
+	@Test
+	public void testParallelPreservesOrder() {
+		myStorageSettings.setSearchResourceParseThreadCount(4);
+		Set<String> threadNames = ConcurrentHashMap.newKeySet();
+		List<Integer> input = range(1000);
+
+		List<String> output = mySvc.map(input, t -> {
+			threadNames.add(Thread.currentThread().getName());
+			return "R" + t;
+		});
+
+		assertEquals(input.stream().map(t -> "R" + t).collect(Collectors.toList()), output);
+		assertTrue(threadNames.contains(Thread.currentThread().getName()), threadNames.toString());
+		assertTrue(threadNames.size() > 1, threadNames.toString());
+	}
+
+	@Test
+	public void testSmallInputStaysOnCallingThread() {
+		myStorageSettings.setSearchResourceParseThreadCount(4);
+		Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+		mySvc.map(range(SearchResourceParseExecutor.MIN_ITEMS_PER_SLICE + 1), t -> {
+			threadNames.add(Thread.currentThread().getName());
+			return t;
+		});
+
+		assertThat(threadNames, contains(Thread.currentThread().getName()));
+	}
+
+	@Test
+	public void testEmptyInput() {
+		myStorageSettings.setSearchResourceParseThreadCount(4);
+		assertEquals(Collections.emptyList(), mySvc.map(Collections.<Integer>emptyList(), t -> t));
+	}
+
+	@Test
+	public void testExceptionOnWorkerThreadIsRethrown() {
+		myStorageSettings.setSearchResourceParseThreadCount(4);
+
+		DataFormatException e = assertThrows(DataFormatException.class, () -> mySvc.map(range(1000), t -> {
+			if (t == 999) {
+				throw new DataFormatException("Failed on " + t);
+			}
+			return t;
+		}));
+		assertThat(e.getMessage(), startsWith("Failed on 999"));
+	}
+
+	private static List<Integer> range(int theCount) {
+		return IntStream.range(0, theCount).boxed().collect(Collectors.toList());
+	}
+}
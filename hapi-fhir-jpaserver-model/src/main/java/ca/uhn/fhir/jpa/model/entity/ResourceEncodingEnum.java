@@ -40,6 +40,14 @@ public enum ResourceEncodingEnum {
 	 */
 	JSONC,
 
+	/**
+	 * Json Compressed using LZ4, which is much faster to compress and
+	 * decompress than {@link #JSONC} but has a lower compression ratio
+	 *
+	 * @since 7.0.0
+	 */
+	JSONL,
+
 	/**
 	 * Resource was deleted - No contents expected
 	 */
@@ -105,6 +105,9 @@ public class StorageSettings {
 	private boolean myMassIngestionMode;
 	private Integer myMaximumTransactionBundleSize = DEFAULT_MAXIMUM_TRANSACTION_BUNDLE_SIZE;
 	private boolean myNormalizeTerminologyForBulkExportJobs = false;
+	private boolean myBulkExportStreamToBinaryStorage = false;
+	private boolean myBulkExportGzipOutput = false;
+	private long myBulkExportMaximumFileSize = Long.MAX_VALUE;
 	private String myEmailFromAddress = "noreply@unknown.com";
 	private String myWebsocketContextPath = DEFAULT_WEBSOCKET_CONTEXT_PATH;
 	/**
@@ -138,6 +141,11 @@ public class StorageSettings {
 	 * Since 6.4.0
 	 */
 	private boolean myQualifySubscriptionMatchingChannelName = true;
+
+	/**
+	 * @since 7.0.0
+	 */
+	private long myRestHookDeliveryBatchWindowMillis = 0;
 	/**
 	 * Should the {@literal _lamguage} SearchParameter be supported
 	 * on this server?
@@ -432,6 +440,83 @@ public class StorageSettings {
 		myNormalizeTerminologyForBulkExportJobs = theNormalizeTerminologyForBulkExportJobs;
 	}
 
+	/**
+	 * If set to true, bulk export output files are streamed directly into the binary
+	 * storage service (e.g. the filesystem or database blob store) and the generated
+	 * Binary resource only holds a pointer to the stored blob, instead of the whole file
+	 * being assembled in memory and embedded in the Binary. This has no effect unless
+	 * binary storage is enabled on the server. Default is <code>false</code>.
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isBulkExportStreamToBinaryStorage() {
+		return myBulkExportStreamToBinaryStorage;
+	}
+
+	/**
+	 * If set to true, bulk export output files are streamed directly into the binary
+	 * storage service (e.g. the filesystem or database blob store) and the generated
+	 * Binary resource only holds a pointer to the stored blob, instead of the whole file
+	 * being assembled in memory and embedded in the Binary. This has no effect unless
+	 * binary storage is enabled on the server. Default is <code>false</code>.
+	 *
+	 * @since 7.0.0
+	 */
+	public void setBulkExportStreamToBinaryStorage(boolean theBulkExportStreamToBinaryStorage) {
+		myBulkExportStreamToBinaryStorage = theBulkExportStreamToBinaryStorage;
+	}
+
+	/**
+	 * If set to true, bulk export output files are gzip compressed. The generated Binary
+	 * resources keep the <code>application/fhir+ndjson</code> content type and record the
+	 * compression in the {@link ca.uhn.fhir.util.HapiExtensions#EXT_BINARY_CONTENT_ENCODING}
+	 * extension, so that downloads of the files are served with <code>Content-Encoding: gzip</code>.
+	 * This has no effect on DSTU2. Default is <code>false</code>.
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isBulkExportGzipOutput() {
+		return myBulkExportGzipOutput;
+	}
+
+	/**
+	 * If set to true, bulk export output files are gzip compressed. The generated Binary
+	 * resources keep the <code>application/fhir+ndjson</code> content type and record the
+	 * compression in the {@link ca.uhn.fhir.util.HapiExtensions#EXT_BINARY_CONTENT_ENCODING}
+	 * extension, so that downloads of the files are served with <code>Content-Encoding: gzip</code>.
+	 * This has no effect on DSTU2. Default is <code>false</code>.
+	 *
+	 * @since 7.0.0
+	 */
+	public void setBulkExportGzipOutput(boolean theBulkExportGzipOutput) {
+		myBulkExportGzipOutput = theBulkExportGzipOutput;
+	}
+
+	/**
+	 * The maximum (uncompressed) size in bytes of a single bulk export output file. When
+	 * writing a batch of resources would exceed this size, the output is rolled over into
+	 * an additional file. A single resource is never split across files, so a file containing
+	 * only one very large resource may exceed this size. Default is {@link Long#MAX_VALUE}.
+	 *
+	 * @since 7.0.0
+	 */
+	public long getBulkExportMaximumFileSize() {
+		return myBulkExportMaximumFileSize;
+	}
+
+	/**
+	 * The maximum (uncompressed) size in bytes of a single bulk export output file. When
+	 * writing a batch of resources would exceed this size, the output is rolled over into
+	 * an additional file. A single resource is never split across files, so a file containing
+	 * only one very large resource may exceed this size. Default is {@link Long#MAX_VALUE}.
+	 *
+	 * @since 7.0.0
+	 */
+	public void setBulkExportMaximumFileSize(long theBulkExportMaximumFileSize) {
+		Validate.isTrue(theBulkExportMaximumFileSize > 0, "theBulkExportMaximumFileSize must be positive");
+		myBulkExportMaximumFileSize = theBulkExportMaximumFileSize;
+	}
+
 	/**
 	 * This is an internal API and may change or disappear without notice
 	 *
@@ -471,6 +556,46 @@ public class StorageSettings {
 		myTriggerSubscriptionsForNonVersioningChanges = theTriggerSubscriptionsForNonVersioningChanges;
 	}
 
+	/**
+	 * If set to a value greater than zero (default is <code>0</code>), REST-hook deliveries for
+	 * the same subscription which arrive within this many milliseconds of each other are
+	 * coalesced into a single transaction Bundle POST to the subscription endpoint instead of
+	 * one request per notification. Only subscriptions with a payload, no payload search
+	 * criteria, and which are not topic subscriptions are batched.
+	 * <p>
+	 * A batched delivery is only acknowledged on the delivery channel once its batch has been
+	 * sent, so a batch holds at most as many deliveries as there are consumers on the subscription
+	 * delivery channel. If a batch can't be sent, each of its deliveries is sent on its own instead,
+	 * and is retried by the channel if that fails too.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public long getRestHookDeliveryBatchWindowMillis() {
+		return myRestHookDeliveryBatchWindowMillis;
+	}
+
+	/**
+	 * If set to a value greater than zero (default is <code>0</code>), REST-hook deliveries for
+	 * the same subscription which arrive within this many milliseconds of each other are
+	 * coalesced into a single transaction Bundle POST to the subscription endpoint instead of
+	 * one request per notification. Only subscriptions with a payload, no payload search
+	 * criteria, and which are not topic subscriptions are batched.
+	 * <p>
+	 * A batched delivery is only acknowledged on the delivery channel once its batch has been
+	 * sent, so a batch holds at most as many deliveries as there are consumers on the subscription
+	 * delivery channel. If a batch can't be sent, each of its deliveries is sent on its own instead,
+	 * and is retried by the channel if that fails too.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setRestHookDeliveryBatchWindowMillis(long theRestHookDeliveryBatchWindowMillis) {
+		Validate.isTrue(
+				theRestHookDeliveryBatchWindowMillis >= 0, "theRestHookDeliveryBatchWindowMillis must not be negative");
+		myRestHookDeliveryBatchWindowMillis = theRestHookDeliveryBatchWindowMillis;
+	}
+
 	/**
 	 * If set to <code>true</code> (default is <code>false</code>) the
 	 * <code>:of-type</code> modifier on token search parameters for
@@ -71,6 +71,8 @@ public class SearchParameterMap implements Serializable {
 	private final HashMap<String, List<List<IQueryParameterType>>> mySearchParameterMap = new LinkedHashMap<>();
 	private Integer myCount;
 	private Integer myOffset;
+	private boolean myKeysetPaging;
+	private String mySearchAfter;
 	private EverythingModeEnum myEverythingMode = null;
 	private Set<Include> myIncludes;
 	private DateRangeParam myLastUpdated;
@@ -122,6 +124,8 @@ public class SearchParameterMap implements Serializable {
 		map.setNearDistanceParam(getNearDistanceParam());
 		map.setLoadSynchronousUpTo(getLoadSynchronousUpTo());
 		map.setOffset(getOffset());
+		map.setKeysetPaging(isKeysetPaging());
+		map.setSearchAfter(getSearchAfter());
 		map.setSearchContainedMode(getSearchContainedMode());
 
 		for (Map.Entry<String, List<List<IQueryParameterType>>> entry : mySearchParameterMap.entrySet()) {
@@ -277,6 +281,48 @@ public class SearchParameterMap implements Serializable {
 		myOffset = theOffset;
 	}
 
+	/**
+	 * If set to <code>true</code>, this search is executed as a single keyset (aka seek)
+	 * paged page of {@link #getCount()} results.
+	 *
+	 * @see #setSearchAfter(String)
+	 * @since 7.0.0
+	 */
+	public boolean isKeysetPaging() {
+		return myKeysetPaging;
+	}
+
+	/**
+	 * If set to <code>true</code>, this search is executed as a single keyset (aka seek)
+	 * paged page of {@link #getCount()} results.
+	 *
+	 * @see #setSearchAfter(String)
+	 * @since 7.0.0
+	 */
+	public void setKeysetPaging(boolean theKeysetPaging) {
+		myKeysetPaging = theKeysetPaging;
+	}
+
+	/**
+	 * For keyset paged searches, the opaque token identifying the last result of the
+	 * previous page, or <code>null</code> for the first page.
+	 *
+	 * @since 7.0.0
+	 */
+	public String getSearchAfter() {
+		return mySearchAfter;
+	}
+
+	/**
+	 * For keyset paged searches, the opaque token identifying the last result of the
+	 * previous page, or <code>null</code> for the first page.
+	 *
+	 * @since 7.0.0
+	 */
+	public void setSearchAfter(String theSearchAfter) {
+		mySearchAfter = theSearchAfter;
+	}
+
 	public EverythingModeEnum getEverythingMode() {
 		return myEverythingMode;
 	}
@@ -544,6 +590,13 @@ public class SearchParameterMap implements Serializable {
 			b.append(getOffset());
 		}
 
+		if (isNotBlank(getSearchAfter())) {
+			addUrlParamSeparator(b);
+			b.append(Constants.PARAM_SEARCH_AFTER);
+			b.append('=');
+			b.append(UrlUtil.escapeUrlParam(getSearchAfter()));
+		}
+
 		// Summary mode (_summary)
 		if (getSummaryMode() != null) {
 			addUrlParamSeparator(b);
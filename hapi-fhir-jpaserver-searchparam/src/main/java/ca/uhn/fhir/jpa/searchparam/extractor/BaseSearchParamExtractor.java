@@ -41,6 +41,7 @@ import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.util.ISearchParamRegistry;
+import ca.uhn.fhir.rest.server.util.ResourceSearchParams;
 import ca.uhn.fhir.util.BundleUtil;
 import ca.uhn.fhir.util.FhirTerser;
 import ca.uhn.fhir.util.HapiExtensions;
@@ -72,12 +73,15 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -161,6 +165,8 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 	private BaseRuntimeChildDefinition myPatientCommunicationLanguageValueChild;
 	private BaseRuntimeChildDefinition myCodeableReferenceConcept;
 	private BaseRuntimeChildDefinition myCodeableReferenceReference;
+	private final Map<String, PathPlanHolder> myResourceTypeToPathPlan = new ConcurrentHashMap<>();
+	private final ThreadLocal<ExtractionPass> myCurrentExtractionPass = new ThreadLocal<>();
 
 	/**
 	 * Constructor
@@ -896,6 +902,59 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 		};
 	}
 
+	/**
+	 * Walks the resource once, collecting the values for every active search parameter path
+	 * that can be resolved by plain element navigation, so that {@link #extractValues(String, IBase)}
+	 * doesn't need to evaluate those paths again for each search parameter type.
+	 * <p>
+	 * This is skipped if only some of the search parameters will be extracted (e.g. when
+	 * matching a subscription in memory), since walking the paths of every search parameter
+	 * would then cost more than it saves.
+	 * </p>
+	 */
+	@Override
+	public IExtractionPass startExtractionPass(IBaseResource theResource, ISearchParamFilter theSearchParamFilter) {
+		if (theSearchParamFilter != ALL_PARAMS) {
+			return IExtractionPass.NO_OP;
+		}
+		if (myCurrentExtractionPass.get() != null) {
+			// A pass is already open on this thread, so the outer one stays in charge
+			return IExtractionPass.NO_OP;
+		}
+
+		SearchParamPathPlan plan = getPathPlan(getContext().getResourceType(theResource));
+		Map<String, List<IBase>> values = plan.evaluate(theResource);
+		myCurrentExtractionPass.set(new ExtractionPass(theResource, values));
+		return myCurrentExtractionPass::remove;
+	}
+
+	/**
+	 * Plans are keyed on the search parameters themselves rather than on the
+	 * {@link ResourceSearchParams} instance, since some registries (e.g. the
+	 * {@link ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry}) build a new
+	 * instance on every call.
+	 */
+	@VisibleForTesting
+	SearchParamPathPlan getPathPlan(String theResourceType) {
+		ResourceSearchParams searchParams = mySearchParamRegistry.getActiveSearchParams(theResourceType);
+		PathPlanHolder holder = myResourceTypeToPathPlan.get(theResourceType);
+		if (holder == null || !holder.isPlanFor(searchParams)) {
+			Set<String> paths = new HashSet<>();
+			if (searchParams != null) {
+				for (RuntimeSearchParam next : searchParams.values()) {
+					if (isNotBlank(next.getPath())) {
+						for (String nextPath : split(next.getPath())) {
+							paths.add(trim(nextPath));
+						}
+					}
+				}
+			}
+			holder = new PathPlanHolder(searchParams, new SearchParamPathPlan(getContext(), theResourceType, paths));
+			myResourceTypeToPathPlan.put(theResourceType, holder);
+		}
+		return holder.myPlan;
+	}
+
 	/**
 	 * Override parent because we're using FHIRPath here
 	 */
@@ -914,14 +973,18 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 				}
 
 				nextPath = trim(nextPath);
-				IValueExtractor allValuesFunc = getPathValueExtractor(theResource, nextPath);
-				try {
-					allValues = allValuesFunc.get();
-				} catch (Exception e) {
-					String msg = getContext()
-							.getLocalizer()
-							.getMessage(BaseSearchParamExtractor.class, "failedToExtractPaths", nextPath, e.toString());
-					throw new InternalErrorException(Msg.code(504) + msg, e);
+				allValues = getValuesFromExtractionPass(theResource, nextPath);
+				if (allValues == null) {
+					IValueExtractor allValuesFunc = getPathValueExtractor(theResource, nextPath);
+					try {
+						allValues = allValuesFunc.get();
+					} catch (Exception e) {
+						String msg = getContext()
+								.getLocalizer()
+								.getMessage(
+										BaseSearchParamExtractor.class, "failedToExtractPaths", nextPath, e.toString());
+						throw new InternalErrorException(Msg.code(504) + msg, e);
+					}
 				}
 
 				values.addAll(allValues);
@@ -940,6 +1003,15 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 		return values;
 	}
 
+	@Nullable
+	private List<IBase> getValuesFromExtractionPass(IBase theResource, String thePath) {
+		ExtractionPass pass = myCurrentExtractionPass.get();
+		if (pass == null || pass.myResource != theResource) {
+			return null;
+		}
+		return pass.myValues.get(thePath);
+	}
+
 	protected FhirContext getContext() {
 		return myContext;
 	}
@@ -2036,6 +2108,49 @@ public abstract class BaseSearchParamExtractor implements ISearchParamExtractor
 		List<? extends IBase> get() throws FHIRException;
 	}
 
+	private static class PathPlanHolder {
+		private final Map<String, RuntimeSearchParam> mySearchParams = new HashMap<>();
+		private final SearchParamPathPlan myPlan;
+
+		private PathPlanHolder(@Nullable ResourceSearchParams theSearchParams, SearchParamPathPlan thePlan) {
+			if (theSearchParams != null) {
+				for (String next : theSearchParams.getSearchParamNames()) {
+					mySearchParams.put(next, theSearchParams.get(next));
+				}
+			}
+			myPlan = thePlan;
+		}
+
+		/**
+		 * Registries hand out the same {@link RuntimeSearchParam} instances until a search
+		 * parameter changes, so comparing those is enough to tell if the plan is still current
+		 */
+		private boolean isPlanFor(@Nullable ResourceSearchParams theSearchParams) {
+			if (theSearchParams == null) {
+				return mySearchParams.isEmpty();
+			}
+			if (theSearchParams.size() != mySearchParams.size()) {
+				return false;
+			}
+			for (String next : theSearchParams.getSearchParamNames()) {
+				if (mySearchParams.get(next) != theSearchParams.get(next)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static class ExtractionPass {
+		private final IBase myResource;
+		private final Map<String, List<IBase>> myValues;
+
+		private ExtractionPass(IBase theResource, Map<String, List<IBase>> theValues) {
+			myResource = theResource;
+			myValues = theValues;
+		}
+	}
+
 	@FunctionalInterface
 	private interface IExtractor<T> {
 
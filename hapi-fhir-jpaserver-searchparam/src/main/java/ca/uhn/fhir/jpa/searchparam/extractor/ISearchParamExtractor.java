@@ -142,6 +142,42 @@ public interface ISearchParamExtractor {
 
 	String getDisplayTextFromCodeableConcept(IBase theValue);
 
+	/**
+	 * Starts an extraction pass for the given resource. While the pass is open, the extract
+	 * methods on this interface may share work (such as evaluating the search parameter paths)
+	 * between calls made for that same resource instance on the current thread. The elements
+	 * of the resource must not be added or removed until the pass is closed.
+	 *
+	 * @since 7.0.0
+	 */
+	default IExtractionPass startExtractionPass(IBaseResource theResource) {
+		return startExtractionPass(theResource, ALL_PARAMS);
+	}
+
+	/**
+	 * Starts an extraction pass for the given resource, for extractions which will only be made
+	 * for the search parameters selected by the given filter.
+	 *
+	 * @see #startExtractionPass(IBaseResource)
+	 * @since 7.0.0
+	 */
+	default IExtractionPass startExtractionPass(IBaseResource theResource, ISearchParamFilter theSearchParamFilter) {
+		return IExtractionPass.NO_OP;
+	}
+
+	/**
+	 * @see #startExtractionPass(IBaseResource)
+	 * @since 7.0.0
+	 */
+	@FunctionalInterface
+	interface IExtractionPass extends AutoCloseable {
+
+		IExtractionPass NO_OP = () -> {};
+
+		@Override
+		void close();
+	}
+
 	@FunctionalInterface
 	interface ISearchParamFilter {
 
@@ -148,14 +148,17 @@ public class SearchParamExtractorService {
 			TransactionDetails theTransactionDetails,
 			boolean theFailOnInvalidReference,
 			@Nonnull ISearchParamExtractor.ISearchParamFilter theSearchParamFilter) {
-		// All search parameter types except Reference
+		boolean indexOnContainedResources = myStorageSettings.isIndexOnContainedResources();
 		ResourceIndexedSearchParams normalParams = new ResourceIndexedSearchParams();
-		extractSearchIndexParameters(theRequestDetails, normalParams, theResource, theSearchParamFilter);
-		mergeParams(normalParams, theNewParams);
+		ISearchParamExtractor.SearchParamSet<PathAndRef> indexedReferences;
+		try (ISearchParamExtractor.IExtractionPass pass =
+				mySearchParamExtractor.startExtractionPass(theResource, theSearchParamFilter)) {
+			// All search parameter types except Reference
+			extractSearchIndexParameters(theRequestDetails, normalParams, theResource, theSearchParamFilter);
 
-		boolean indexOnContainedResources = myStorageSettings.isIndexOnContainedResources();
-		ISearchParamExtractor.SearchParamSet<PathAndRef> indexedReferences =
-				mySearchParamExtractor.extractResourceLinks(theResource, indexOnContainedResources);
+			indexedReferences = mySearchParamExtractor.extractResourceLinks(theResource, indexOnContainedResources);
+		}
+		mergeParams(normalParams, theNewParams);
 		SearchParamExtractorService.handleWarnings(theRequestDetails, myInterceptorBroadcaster, indexedReferences);
 
 		if (indexOnContainedResources) {
@@ -0,0 +1,160 @@
+/*
+ * #%L
+ * HAPI FHIR Search Parameters
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.searchparam.extractor;
+
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementCompositeDefinition;
+import ca.uhn.fhir.context.BaseRuntimeElementDefinition;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeChildChoiceDefinition;
+import ca.uhn.fhir.context.RuntimeChildDeclaredExtensionDefinition;
+import org.hl7.fhir.instance.model.api.IBase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A traversal plan for the search parameter paths of a single resource type. All paths
+ * which are a plain chain of element names (e.g. <code>Patient.name</code> or
+ * <code>Patient.address.city</code>) are compiled into a single tree of element names,
+ * which is then walked once per resource in order to collect the values for all of
+ * those paths at the same time, without involving the FHIRPath engine. Shared prefixes
+ * are only navigated once.
+ * <p>
+ * Paths using any other FHIRPath syntax (functions, type casts, indexers, etc.) are
+ * not part of the plan, and neither are paths which turn out to be unresolvable for a
+ * given resource instance. Callers are expected to fall back to the FHIRPath engine
+ * for these.
+ * </p>
+ */
+class SearchParamPathPlan {
+
+	private static final Pattern SIMPLE_PATH = Pattern.compile("[A-Z][A-Za-z0-9]*(\\.[a-z][A-Za-z0-9]*)+");
+
+	private final FhirContext myContext;
+	private final Node myRoot = new Node();
+	private int myPathCount;
+
+	SearchParamPathPlan(FhirContext theContext, String theResourceType, Collection<String> thePaths) {
+		myContext = theContext;
+		for (String nextPath : thePaths) {
+			if (!SIMPLE_PATH.matcher(nextPath).matches()) {
+				continue;
+			}
+			String[] parts = nextPath.split("\\.");
+			if (!parts[0].equals(theResourceType)) {
+				continue;
+			}
+
+			Node node = myRoot;
+			for (int i = 1; i < parts.length; i++) {
+				node = node.myChildren.computeIfAbsent(parts[i], t -> new Node());
+			}
+			if (node.myPath == null) {
+				node.myPath = nextPath;
+				myPathCount++;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of distinct paths covered by this plan
+	 */
+	int getPathCount() {
+		return myPathCount;
+	}
+
+	/**
+	 * Walks the given resource once and returns the values of every path in the plan that
+	 * could be resolved against it, keyed by path. Paths which are missing from the returned
+	 * map must be evaluated some other way.
+	 */
+	Map<String, List<IBase>> evaluate(IBase theResource) {
+		Map<String, List<IBase>> retVal = new HashMap<>();
+		if (myPathCount > 0) {
+			List<IBase> focus = new ArrayList<>(1);
+			focus.add(theResource);
+			evaluate(myRoot, focus, retVal);
+		}
+		return retVal;
+	}
+
+	private void evaluate(Node theNode, List<IBase> theFocus, Map<String, List<IBase>> theValues) {
+		if (theNode.myPath != null) {
+			theValues.put(theNode.myPath, theFocus);
+		}
+
+		for (Map.Entry<String, Node> nextChild : theNode.myChildren.entrySet()) {
+			List<IBase> values = getChildValues(theFocus, nextChild.getKey());
+			if (values != null) {
+				evaluate(nextChild.getValue(), values, theValues);
+			}
+		}
+	}
+
+	/**
+	 * Returns the values of the named child across all elements in the focus, or
+	 * <code>null</code> if any element in the focus has no such child.
+	 */
+	private List<IBase> getChildValues(List<IBase> theFocus, String theName) {
+		List<IBase> retVal = new ArrayList<>();
+		for (IBase next : theFocus) {
+			BaseRuntimeElementDefinition<?> def = myContext.getElementDefinition(next.getClass());
+			if (!(def instanceof BaseRuntimeElementCompositeDefinition)) {
+				return null;
+			}
+			BaseRuntimeChildDefinition child = getChild((BaseRuntimeElementCompositeDefinition<?>) def, theName);
+			if (child == null) {
+				return null;
+			}
+			retVal.addAll(child.getAccessor().getValues(next));
+		}
+		return retVal;
+	}
+
+	/**
+	 * Only matches a child by its element name the way FHIRPath does, so for example
+	 * <code>value</code> matches the <code>value[x]</code> choice but <code>valueQuantity</code>
+	 * does not.
+	 */
+	private static BaseRuntimeChildDefinition getChild(
+			BaseRuntimeElementCompositeDefinition<?> theDefinition, String theName) {
+		BaseRuntimeChildDefinition retVal = theDefinition.getChildByName(theName);
+		if (retVal instanceof RuntimeChildChoiceDefinition || retVal == null) {
+			retVal = theDefinition.getChildByName(theName + "[x]");
+		}
+		if (retVal == null
+				|| retVal instanceof RuntimeChildDeclaredExtensionDefinition
+				|| !theName.equals(retVal.getElementName())) {
+			return null;
+		}
+		return retVal;
+	}
+
+	private static class Node {
+		private final Map<String, Node> myChildren = new LinkedHashMap<>();
+		private String myPath;
+	}
+}
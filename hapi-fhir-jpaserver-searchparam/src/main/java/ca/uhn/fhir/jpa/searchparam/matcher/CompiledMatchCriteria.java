@@ -0,0 +1,81 @@
+/*-
+ * #%L
+ * HAPI FHIR Search Parameters
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.jpa.searchparam.matcher;
+
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+
+import java.util.Collections;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A criteria string (e.g. <code>Observation?code=http://loinc.org|1234-5</code>) that has already been
+ * translated into a {@link SearchParameterMap}, so that it can be matched against many resources
+ * without being parsed again each time.
+ *
+ * @see InMemoryResourceMatcher#compile(String)
+ * @since 7.0.0
+ */
+public class CompiledMatchCriteria {
+
+	private final String myCriteria;
+	private final RuntimeResourceDefinition myResourceDefinition;
+	private final SearchParameterMap mySearchParameterMap;
+	private final Map<String, RuntimeSearchParam> mySearchParams;
+
+	/**
+	 * @param theSearchParameterMap Will be <code>null</code> if the criteria could not be translated
+	 * @param theSearchParams       The active search parameter for each parameter in the map at the time it was
+	 *                              translated, used to detect when the map needs to be translated again
+	 */
+	CompiledMatchCriteria(
+			String theCriteria,
+			RuntimeResourceDefinition theResourceDefinition,
+			@Nullable SearchParameterMap theSearchParameterMap,
+			Map<String, RuntimeSearchParam> theSearchParams) {
+		myCriteria = theCriteria;
+		myResourceDefinition = theResourceDefinition;
+		mySearchParameterMap = theSearchParameterMap;
+		mySearchParams = Collections.unmodifiableMap(theSearchParams);
+	}
+
+	public String getCriteria() {
+		return myCriteria;
+	}
+
+	public String getResourceType() {
+		return myResourceDefinition.getName();
+	}
+
+	RuntimeResourceDefinition getResourceDefinition() {
+		return myResourceDefinition;
+	}
+
+	@Nullable
+	SearchParameterMap getSearchParameterMap() {
+		return mySearchParameterMap;
+	}
+
+	Map<String, RuntimeSearchParam> getSearchParams() {
+		return mySearchParams;
+	}
+}
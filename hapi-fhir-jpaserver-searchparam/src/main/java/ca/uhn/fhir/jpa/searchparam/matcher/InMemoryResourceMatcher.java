@@ -64,6 +64,8 @@ import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -178,19 +180,111 @@ public class InMemoryResourceMatcher {
 		}
 		searchParameterMap.clean();
 
+		return matchTranslated(
+				searchParameterMap, theResource, resourceDefinition, theIndexedSearchParams, theRequestDetails);
+	}
+
+	/**
+	 * Translates the given criteria (which must start with a resource type, e.g. <code>Patient?name=smith</code>)
+	 * so that it can be matched against any number of resources using
+	 * {@link #matchCompiled(CompiledMatchCriteria, IBaseResource, ResourceIndexedSearchParams, RequestDetails)}
+	 * without being parsed each time.
+	 * <p>
+	 * The compiled criteria depend on the search parameters that are active when they are compiled, so
+	 * callers that hold on to them should use {@link #isCurrent(CompiledMatchCriteria)} to find out when
+	 * they need to be compiled again.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	@Nonnull
+	public CompiledMatchCriteria compile(String theCriteria) {
+		Validate.isTrue(
+				!theCriteria.startsWith("?"), "Invalid match URL format (must match \"[resourceType]?[params]\")");
+
+		// Criteria consisting of only a resource type match any resource of that type
+		String matchUrl = theCriteria.indexOf('?') == -1 ? theCriteria + "?" : theCriteria;
+		RuntimeResourceDefinition resourceDefinition = UrlUtil.parseUrlResourceType(myFhirContext, matchUrl);
+
+		SearchParameterMap searchParameterMap;
+		try {
+			searchParameterMap = myMatchUrlService.translateMatchUrl(matchUrl, resourceDefinition);
+		} catch (UnsupportedOperationException e) {
+			return new CompiledMatchCriteria(theCriteria, resourceDefinition, null, Collections.emptyMap());
+		}
+		searchParameterMap.clean();
+
+		Map<String, RuntimeSearchParam> searchParams = new HashMap<>();
+		for (String nextParamName : searchParameterMap.keySet()) {
+			searchParams.put(
+					nextParamName,
+					mySearchParamRegistry.getActiveSearchParam(resourceDefinition.getName(), nextParamName));
+		}
+		return new CompiledMatchCriteria(theCriteria, resourceDefinition, searchParameterMap, searchParams);
+	}
+
+	/**
+	 * Returns <code>false</code> if any of the search parameters used by the given criteria have changed
+	 * since it was compiled, meaning that it should be compiled again.
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isCurrent(CompiledMatchCriteria theCriteria) {
+		String resourceName = theCriteria.getResourceType();
+		for (Map.Entry<String, RuntimeSearchParam> next :
+				theCriteria.getSearchParams().entrySet()) {
+			if (mySearchParamRegistry.getActiveSearchParam(resourceName, next.getKey()) != next.getValue()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Same as {@link #match(String, IBaseResource, ResourceIndexedSearchParams, RequestDetails)}, but using
+	 * criteria that were compiled ahead of time by {@link #compile(String)}.
+	 *
+	 * @since 7.0.0
+	 */
+	public InMemoryMatchResult matchCompiled(
+			CompiledMatchCriteria theCriteria,
+			IBaseResource theResource,
+			@Nullable ResourceIndexedSearchParams theIndexedSearchParams,
+			RequestDetails theRequestDetails) {
+		RuntimeResourceDefinition resourceDefinition = myFhirContext.getResourceDefinition(theResource);
+		if (resourceDefinition != theCriteria.getResourceDefinition()) {
+			// The criteria are always interpreted against the type of the resource being matched
+			return match(theCriteria.getCriteria(), theResource, theIndexedSearchParams, theRequestDetails);
+		}
+
+		SearchParameterMap searchParameterMap = theCriteria.getSearchParameterMap();
+		if (searchParameterMap == null) {
+			return InMemoryMatchResult.unsupportedFromReason(InMemoryMatchResult.PARSE_FAIL);
+		}
+
+		return matchTranslated(
+				searchParameterMap, theResource, resourceDefinition, theIndexedSearchParams, theRequestDetails);
+	}
+
+	private InMemoryMatchResult matchTranslated(
+			SearchParameterMap theSearchParameterMap,
+			IBaseResource theResource,
+			RuntimeResourceDefinition theResourceDefinition,
+			@Nullable ResourceIndexedSearchParams theIndexedSearchParams,
+			RequestDetails theRequestDetails) {
 		ResourceIndexedSearchParams relevantSearchParams = null;
 		if (theIndexedSearchParams != null) {
 			relevantSearchParams = theIndexedSearchParams;
 		} else if (theResource != null) {
 			// Don't index search params we don't actully need for the given criteria
 			ISearchParamExtractor.ISearchParamFilter filter = theSearchParams -> theSearchParams.stream()
-					.filter(t -> searchParameterMap.containsKey(t.getName()))
+					.filter(t -> theSearchParameterMap.containsKey(t.getName()))
 					.collect(Collectors.toList());
 			relevantSearchParams =
 					myIndexedSearchParamExtractor.extractIndexedSearchParams(theResource, theRequestDetails, filter);
 		}
 
-		return match(searchParameterMap, theResource, resourceDefinition, relevantSearchParams);
+		return match(theSearchParameterMap, theResource, theResourceDefinition, relevantSearchParams);
 	}
 
 	/**
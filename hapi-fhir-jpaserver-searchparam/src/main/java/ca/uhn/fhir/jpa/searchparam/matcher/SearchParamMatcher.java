@@ -43,6 +43,31 @@ public class SearchParamMatcher {
 		return myInMemoryResourceMatcher.match(theCriteria, theResource, null, theRequest);
 	}
 
+	/**
+	 * @see InMemoryResourceMatcher#compile(String)
+	 * @since 7.0.0
+	 */
+	public CompiledMatchCriteria compile(String theCriteria) {
+		return myInMemoryResourceMatcher.compile(theCriteria);
+	}
+
+	/**
+	 * @see InMemoryResourceMatcher#isCurrent(CompiledMatchCriteria)
+	 * @since 7.0.0
+	 */
+	public boolean isCurrent(CompiledMatchCriteria theCriteria) {
+		return myInMemoryResourceMatcher.isCurrent(theCriteria);
+	}
+
+	/**
+	 * @see InMemoryResourceMatcher#matchCompiled(CompiledMatchCriteria, IBaseResource, ResourceIndexedSearchParams, RequestDetails)
+	 * @since 7.0.0
+	 */
+	public InMemoryMatchResult matchCompiled(
+			CompiledMatchCriteria theCriteria, IBaseResource theResource, RequestDetails theRequest) {
+		return myInMemoryResourceMatcher.matchCompiled(theCriteria, theResource, null, theRequest);
+	}
+
 	public InMemoryMatchResult match(SearchParameterMap theSearchParameterMap, IBaseResource theResource) {
 		if (theSearchParameterMap.isEmpty()) {
 			return InMemoryMatchResult.successfulMatch();
@@ -1,5 +1,13 @@
 package ca.uhn.fhir.jpa.searchparam.extractor;
 
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeSearchParam;
+import ca.uhn.fhir.jpa.model.config.PartitionSettings;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.rest.api.RestSearchParameterTypeEnum;
+import ca.uhn.fhir.rest.server.util.FhirContextSearchParamRegistry;
+import com.google.common.collect.Sets;
+import org.hl7.fhir.r4.model.Patient;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
@@ -17,4 +25,42 @@ class BaseSearchParamExtractorTest {
 		assertThat(tokens, contains("aaa", "bbb + '|'", "ccc  ddd"));
 
 	}
+
+	@Test
+	public void testPathPlanReusedUntilSearchParamsChange() {
+		FhirContext ctx = FhirContext.forR4Cached();
+		// This registry builds a new ResourceSearchParams on every call
+		FhirContextSearchParamRegistry registry = new FhirContextSearchParamRegistry(ctx);
+		SearchParamExtractorR4 extractor = new SearchParamExtractorR4(new StorageSettings(), new PartitionSettings(), ctx, registry);
+		extractor.start();
+
+		SearchParamPathPlan plan = extractor.getPathPlan("Patient");
+		assertSame(plan, extractor.getPathPlan("Patient"));
+		int pathCount = plan.getPathCount();
+
+		registry.addSearchParam(new RuntimeSearchParam(null, null, "foo", "foo", "Patient.contact.name", RestSearchParameterTypeEnum.STRING, Sets.newHashSet(), Sets.newHashSet(), RuntimeSearchParam.RuntimeSearchParamStatusEnum.ACTIVE, null, null, Sets.newHashSet("Patient")));
+
+		SearchParamPathPlan newPlan = extractor.getPathPlan("Patient");
+		assertNotSame(plan, newPlan);
+		assertEquals(pathCount + 1, newPlan.getPathCount());
+		assertSame(newPlan, extractor.getPathPlan("Patient"));
+	}
+
+	@Test
+	public void testExtractionPassSkippedForFilteredExtraction() {
+		FhirContext ctx = FhirContext.forR4Cached();
+		SearchParamExtractorR4 extractor = new SearchParamExtractorR4(new StorageSettings(), new PartitionSettings(), ctx, new FhirContextSearchParamRegistry(ctx));
+		extractor.start();
+		Patient patient = new Patient();
+
+		// Only the search parameters chosen by the filter will be extracted, so no pass is made
+		ISearchParamExtractor.ISearchParamFilter filter = t -> t;
+		try (ISearchParamExtractor.IExtractionPass pass = extractor.startExtractionPass(patient, filter)) {
+			assertSame(ISearchParamExtractor.IExtractionPass.NO_OP, pass);
+		}
+
+		try (ISearchParamExtractor.IExtractionPass pass = extractor.startExtractionPass(patient)) {
+			assertNotSame(ISearchParamExtractor.IExtractionPass.NO_OP, pass);
+		}
+	}
 }
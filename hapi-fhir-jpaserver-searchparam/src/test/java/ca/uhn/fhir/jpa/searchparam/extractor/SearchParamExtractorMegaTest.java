@@ -31,7 +31,9 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -245,6 +247,33 @@ public class SearchParamExtractorMegaTest {
 			assertEquals(0, warnings.size(), () -> String.join("\n", warnings));
 			theIndexesCounter.addAndGet(set.size());
 		}
+
+		assertExtractionPassProducesSameIndexes(theExtractor, resource);
+	}
+
+	/**
+	 * Values taken from the single-pass path plan must index exactly the same way as
+	 * values from the FHIRPath engine
+	 */
+	private void assertExtractionPassProducesSameIndexes(BaseSearchParamExtractor theExtractor, IBaseResource theResource) {
+		List<Set<?>> expected = extractAll(theExtractor, theResource);
+		List<Set<?>> actual;
+		try (ISearchParamExtractor.IExtractionPass pass = theExtractor.startExtractionPass(theResource)) {
+			actual = extractAll(theExtractor, theResource);
+		}
+		assertEquals(expected, actual);
+	}
+
+	private List<Set<?>> extractAll(BaseSearchParamExtractor theExtractor, IBaseResource theResource) {
+		return List.of(
+			theExtractor.extractSearchParamDates(theResource),
+			theExtractor.extractSearchParamNumber(theResource),
+			theExtractor.extractSearchParamStrings(theResource),
+			theExtractor.extractSearchParamQuantity(theResource),
+			theExtractor.extractSearchParamTokens(theResource),
+			theExtractor.extractSearchParamUri(theResource),
+			theExtractor.extractResourceLinks(theResource, false).stream().map(PathAndRef::toString).collect(Collectors.toSet())
+		);
 	}
 
 	public static List<FhirContext> provideContexts() {
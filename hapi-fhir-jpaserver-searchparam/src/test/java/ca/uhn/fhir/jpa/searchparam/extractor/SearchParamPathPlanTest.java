@@ -0,0 +1,91 @@
+package ca.uhn.fhir.jpa.searchparam.extractor;
+
+import ca.uhn.fhir.context.FhirContext;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.r4.model.Observation;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Quantity;
+import org.hl7.fhir.r4.model.StringType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchParamPathPlanTest {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+
+	@Test
+	public void testOnlySimplePathsAreCompiled() {
+		SearchParamPathPlan plan = new SearchParamPathPlan(ourCtx, "Patient", List.of(
+			"Patient.name",
+			"Patient.name.family",
+			"Patient.address.city",
+			"Patient.telecom.where(system='email')",
+			"Patient.deceased.exists() and Patient.deceased != false",
+			"Observation.subject",
+			"Patient"
+		));
+
+		assertEquals(3, plan.getPathCount());
+	}
+
+	@Test
+	public void testEvaluate() {
+		SearchParamPathPlan plan = new SearchParamPathPlan(ourCtx, "Patient", List.of(
+			"Patient.name", "Patient.name.family", "Patient.name.given", "Patient.address.city", "Patient.nonExistent"
+		));
+
+		Patient patient = new Patient();
+		patient.addName().setFamily("Simpson").addGiven("Homer").addGiven("Jay");
+		patient.addName().setFamily("Simpson").addGiven("Max");
+
+		Map<String, List<IBase>> values = plan.evaluate(patient);
+
+		assertEquals(patient.getName(), values.get("Patient.name"));
+		assertThat(toStrings(values.get("Patient.name.family")), contains("Simpson", "Simpson"));
+		assertThat(toStrings(values.get("Patient.name.given")), contains("Homer", "Jay", "Max"));
+		assertThat(values.get("Patient.address.city"), empty());
+
+		// Unresolvable paths are left for the FHIRPath engine
+		assertFalse(values.containsKey("Patient.nonExistent"));
+	}
+
+	@Test
+	public void testEvaluateChoice() {
+		SearchParamPathPlan plan = new SearchParamPathPlan(ourCtx, "Observation", List.of(
+			"Observation.value", "Observation.valueQuantity", "Observation.value.unit"
+		));
+
+		Quantity quantity = new Quantity().setValue(1).setUnit("mg");
+		Observation observation = new Observation();
+		observation.setValue(quantity);
+
+		Map<String, List<IBase>> values = plan.evaluate(observation);
+
+		assertEquals(1, values.get("Observation.value").size());
+		assertSame(quantity, values.get("Observation.value").get(0));
+		assertThat(toStrings(values.get("Observation.value.unit")), contains("mg"));
+
+		// FHIRPath doesn't know about typed choice names
+		assertFalse(values.containsKey("Observation.valueQuantity"));
+
+		// A child that doesn't exist on the actual type of a choice falls back
+		observation.setValue(new StringType("hello"));
+		values = plan.evaluate(observation);
+		assertTrue(values.containsKey("Observation.value"));
+		assertFalse(values.containsKey("Observation.value.unit"));
+	}
+
+	private static List<String> toStrings(List<IBase> theValues) {
+		return theValues.stream().map(t -> ((StringType) t).getValue()).toList();
+	}
+}
@@ -407,6 +407,42 @@ public class InMemoryResourceMatcherR5Test {
 	}
 
 
+	@Test
+	public void testCompiledCriteria() {
+		CompiledMatchCriteria matching = myInMemoryResourceMatcher.compile("Observation?date=gt" + EARLY_DATE + "&_source=" + SOURCE_URI);
+		CompiledMatchCriteria notMatching = myInMemoryResourceMatcher.compile("Observation?date=gt" + LATE_DATE);
+		assertEquals("Observation", matching.getResourceType());
+
+		for (int i = 0; i < 2; i++) {
+			InMemoryMatchResult result = myInMemoryResourceMatcher.matchCompiled(matching, myObservation, mySearchParams, newRequest());
+			assertTrue(result.supported(), result.getUnsupportedReason());
+			assertTrue(result.matched());
+
+			result = myInMemoryResourceMatcher.matchCompiled(notMatching, myObservation, mySearchParams, newRequest());
+			assertTrue(result.supported(), result.getUnsupportedReason());
+			assertFalse(result.matched());
+		}
+	}
+
+	@Test
+	public void testCompiledCriteria_ResourceTypeOnly() {
+		CompiledMatchCriteria criteria = myInMemoryResourceMatcher.compile("Observation");
+
+		InMemoryMatchResult result = myInMemoryResourceMatcher.matchCompiled(criteria, myObservation, mySearchParams, newRequest());
+		assertTrue(result.matched());
+	}
+
+	@Test
+	public void testCompiledCriteria_NotCurrentAfterSearchParameterChanges() {
+		CompiledMatchCriteria criteria = myInMemoryResourceMatcher.compile("Observation?date=gt" + EARLY_DATE);
+		assertTrue(myInMemoryResourceMatcher.isCurrent(criteria));
+
+		RuntimeSearchParam dateSearchParam = new RuntimeSearchParam(null, null, null, null, "Observation.effective", RestSearchParameterTypeEnum.DATE, null, null, RuntimeSearchParam.RuntimeSearchParamStatusEnum.ACTIVE, null, null, null);
+		when(mySearchParamRegistry.getActiveSearchParam("Observation", "date")).thenReturn(dateSearchParam);
+		assertFalse(myInMemoryResourceMatcher.isCurrent(criteria));
+		assertTrue(myInMemoryResourceMatcher.isCurrent(myInMemoryResourceMatcher.compile(criteria.getCriteria())));
+	}
+
 	private ResourceIndexedSearchParams extractSearchParams(Observation theObservation) {
 		ResourceIndexedSearchParams retval = new ResourceIndexedSearchParams();
 		retval.myDateParams.add(extractEffectiveDateParam(theObservation));
@@ -129,9 +129,13 @@ public class SubscriptionChannelRegistry {
 			ourLog.warn("Failed to remove subscription {} from channel {}", theActiveSubscription.getId(), channelName);
 		}
 
+		SubscriptionChannelWithHandlers channel = myDeliveryReceiverChannels.get(channelName);
+		if (channel != null) {
+			channel.handleSubscriptionUnregistered(theActiveSubscription.getId());
+		}
+
 		// This was the last one.  Close and remove the channel
 		if (!myActiveSubscriptionByChannelName.containsKey(channelName)) {
-			SubscriptionChannelWithHandlers channel = myDeliveryReceiverChannels.get(channelName);
 			if (channel != null) {
 				channel.close();
 			}
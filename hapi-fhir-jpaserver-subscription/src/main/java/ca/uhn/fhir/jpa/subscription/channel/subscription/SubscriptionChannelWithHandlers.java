@@ -19,6 +19,7 @@
  */
 package ca.uhn.fhir.jpa.subscription.channel.subscription;
 
+import ca.uhn.fhir.jpa.subscription.match.deliver.BaseSubscriptionDeliverySubscriber;
 import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
 import com.google.common.annotations.VisibleForTesting;
 import org.slf4j.Logger;
@@ -66,6 +67,17 @@ public class SubscriptionChannelWithHandlers implements Closeable {
 		}
 	}
 
+	/**
+	 * Notifies the delivery handlers that a subscription using this channel has been unregistered
+	 */
+	public void handleSubscriptionUnregistered(String theSubscriptionId) {
+		for (MessageHandler next : myDeliveryHandlerSet) {
+			if (next instanceof BaseSubscriptionDeliverySubscriber) {
+				((BaseSubscriptionDeliverySubscriber) next).handleSubscriptionUnregistered(theSubscriptionId);
+			}
+		}
+	}
+
 	@VisibleForTesting
 	public MessageHandler getDeliveryHandlerForUnitTest() {
 		return myDeliveryHandlerSet.iterator().next();
@@ -122,6 +122,17 @@ public abstract class BaseSubscriptionDeliverySubscriber implements MessageHandl
 
 	public abstract void handleMessage(ResourceDeliveryMessage theMessage) throws Exception;
 
+	/**
+	 * Called when a subscription delivered by this subscriber is unregistered, so that any state
+	 * held for that subscription can be released. Does nothing by default.
+	 *
+	 * @param theSubscriptionId The ID (without resource type or version) of the subscription
+	 * @since 7.0.0
+	 */
+	public void handleSubscriptionUnregistered(String theSubscriptionId) {
+		// nothing
+	}
+
 	protected IBaseBundle createDeliveryBundleForPayloadSearchCriteria(
 			CanonicalSubscription theSubscription, IBaseResource thePayloadResource) {
 		String resType = theSubscription
@@ -26,7 +26,9 @@ import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.subscription.match.deliver.BaseSubscriptionDeliverySubscriber;
+import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceDeliveryMessage;
 import ca.uhn.fhir.rest.api.EncodingEnum;
@@ -37,41 +39,85 @@ import ca.uhn.fhir.rest.client.api.IGenericClient;
 import ca.uhn.fhir.rest.client.api.IHttpClient;
 import ca.uhn.fhir.rest.client.api.IHttpRequest;
 import ca.uhn.fhir.rest.client.api.IHttpResponse;
+import ca.uhn.fhir.rest.client.api.IRestfulClientFactory;
 import ca.uhn.fhir.rest.client.api.ServerValidationModeEnum;
 import ca.uhn.fhir.rest.client.interceptor.SimpleRequestHeaderInterceptor;
 import ca.uhn.fhir.rest.gclient.IClientExecutable;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
 import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.messaging.BaseResourceModifiedMessage;
+import ca.uhn.fhir.util.BundleBuilder;
 import ca.uhn.fhir.util.BundleUtil;
 import ca.uhn.fhir.util.Logs;
 import ca.uhn.fhir.util.StopWatch;
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.messaging.MessagingException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 @Scope("prototype")
-public class SubscriptionDeliveringRestHookSubscriber extends BaseSubscriptionDeliverySubscriber {
+public class SubscriptionDeliveringRestHookSubscriber extends BaseSubscriptionDeliverySubscriber
+		implements DisposableBean {
 	private static final Logger ourLog = LoggerFactory.getLogger(SubscriptionDeliveringRestHookSubscriber.class);
 
+	/**
+	 * A batch which reaches this many deliveries is sent without waiting for the rest of the window
+	 */
+	static final int MAX_BATCH_SIZE = 1000;
+
+	/**
+	 * The number of threads sending batches. Each subscription is always sent by the same
+	 * thread, so that its batches are sent one at a time and in order.
+	 */
+	static final int BATCH_SENDER_THREAD_COUNT = 4;
+
+	/**
+	 * How long {@link #destroy()} waits for batches which are still being sent
+	 */
+	static final long BATCH_SHUTDOWN_TIMEOUT_MILLIS = 30000;
+
 	@Autowired
 	private DaoRegistry myDaoRegistry;
 
+	@Autowired
+	private StorageSettings myStorageSettings;
+
+	private final Map<String, CachedClient> myClientCache = new ConcurrentHashMap<>();
+	private final Map<String, DeliveryBatch> myOpenBatches = new ConcurrentHashMap<>();
+	private ScheduledExecutorService myBatchScheduler;
+	private ExecutorService[] myBatchSenders;
+	private volatile boolean myDestroyed;
+
 	/**
 	 * Constructor
 	 */
@@ -268,30 +314,369 @@ public class SubscriptionDeliveringRestHookSubscriber extends BaseSubscriptionDe
 		}
 
 		// Create the client request
-		myFhirContext.getRestfulClientFactory().setServerValidationMode(ServerValidationModeEnum.NEVER);
 		IGenericClient client = null;
 		if (isNotBlank(endpointUrl)) {
-			client = myFhirContext.newRestfulGenericClient(endpointUrl);
+			client = getClient(subscription);
+		}
+
+		if (client != null && isBatchable(theMessage, payloadType)) {
+			deliverPayloadBatched(theMessage, subscription, payloadType, client);
+		} else {
+			deliverPayload(theMessage, subscription, payloadType, client);
+		}
+
+		// Interceptor call: SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY
+		params = new HookParams()
+				.add(CanonicalSubscription.class, subscription)
+				.add(ResourceDeliveryMessage.class, theMessage);
+		if (!getInterceptorBroadcaster().callHooks(Pointcut.SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY, params)) {
+			//noinspection UnnecessaryReturnStatement
+			return;
+		}
+	}
+
+	/**
+	 * Returns a client for the endpoint of the given subscription. Clients are cached per
+	 * subscription and only rebuilt when the endpoint, the headers, or the client factory
+	 * change, so that a busy subscription doesn't pay for client setup on every delivery.
+	 * Clients are evicted when the subscription is unregistered.
+	 */
+	private IGenericClient getClient(CanonicalSubscription theSubscription) {
+		IRestfulClientFactory clientFactory = myFhirContext.getRestfulClientFactory();
+		String endpointUrl = theSubscription.getEndpointUrl();
+		List<String> headers = theSubscription.getHeaders();
+		String subscriptionId = theSubscription.getIdPart();
+
+		CachedClient cachedClient = myClientCache.get(subscriptionId);
+		if (cachedClient == null || !cachedClient.matches(clientFactory, endpointUrl, headers)) {
+			clientFactory.setServerValidationMode(ServerValidationModeEnum.NEVER);
+			IGenericClient client = clientFactory.newGenericClient(endpointUrl);
 
 			// Additional headers specified in the subscription
-			List<String> headers = subscription.getHeaders();
 			for (String next : headers) {
 				if (isNotBlank(next)) {
 					client.registerInterceptor(new SimpleRequestHeaderInterceptor(next));
 				}
 			}
+
+			cachedClient = new CachedClient(clientFactory, endpointUrl, headers, client);
+			myClientCache.put(subscriptionId, cachedClient);
 		}
+		return cachedClient.getClient();
+	}
 
-		deliverPayload(theMessage, subscription, payloadType, client);
+	private boolean isBatchable(ResourceDeliveryMessage theMsg, EncodingEnum thePayloadType) {
+		CanonicalSubscription subscription = theMsg.getSubscription();
+		return myStorageSettings.getRestHookDeliveryBatchWindowMillis() > 0
+				&& thePayloadType != null
+				&& !myDestroyed
+				&& !subscription.isTopicSubscription()
+				&& isBlank(subscription.getPayloadSearchCriteria());
+	}
 
-		// Interceptor call: SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY
-		params = new HookParams()
-				.add(CanonicalSubscription.class, subscription)
-				.add(ResourceDeliveryMessage.class, theMessage);
-		if (!getInterceptorBroadcaster().callHooks(Pointcut.SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY, params)) {
-			//noinspection UnnecessaryReturnStatement
+	/**
+	 * Delivers a payload as part of a batch. The first delivery for a subscription opens a batch
+	 * and schedules it to be sent once the configured window has passed, and every delivery that
+	 * arrives in the meantime is added to it. Batches for a given subscription are sent one at a
+	 * time, in the order they were opened.
+	 * <p>
+	 * This method only returns once the batch has been sent, so the delivery isn't acked on the
+	 * delivery channel before its payload has actually reached the endpoint. As a consequence a
+	 * batch never holds more deliveries than there are consumers on the delivery channel. A
+	 * delivery which was replaced in the batch by a newer change to the same resource returns
+	 * (or fails) along with that change.
+	 * </p>
+	 * <p>
+	 * If the batch can't be sent, the payload is delivered on its own instead, and an exception
+	 * is thrown if that fails too so that the channel retries it as usual.
+	 * </p>
+	 *
+	 * @see StorageSettings#setRestHookDeliveryBatchWindowMillis(long)
+	 */
+	protected void deliverPayloadBatched(
+			ResourceDeliveryMessage theMsg,
+			CanonicalSubscription theSubscription,
+			EncodingEnum thePayloadType,
+			IGenericClient theClient) {
+		IBaseResource payloadResource = getAndMassagePayload(theMsg, theSubscription);
+		BatchedDelivery delivery = new BatchedDelivery(theMsg, payloadResource);
+		addToBatch(theSubscription.getIdPart(), delivery);
+
+		try {
+			switch (awaitBatch(delivery.getOutcome())) {
+				case SENT:
+					break;
+				case SUPERSEDED:
+					awaitBatch(delivery.getSupersededBy().getDelivered());
+					break;
+				case FAILED:
+				default:
+					doDelivery(theMsg, theSubscription, thePayloadType, theClient, payloadResource);
+					break;
+			}
+		} catch (RuntimeException e) {
+			delivery.getDelivered().completeExceptionally(e);
+			throw e;
+		}
+		delivery.getDelivered().complete(null);
+	}
+
+	private void addToBatch(String theSubscriptionId, BatchedDelivery theDelivery) {
+		while (true) {
+			boolean opened = false;
+			DeliveryBatch batch = myOpenBatches.get(theSubscriptionId);
+			if (batch == null) {
+				DeliveryBatch newBatch = new DeliveryBatch(theSubscriptionId);
+				batch = myOpenBatches.putIfAbsent(theSubscriptionId, newBatch);
+				if (batch == null) {
+					batch = newBatch;
+					opened = true;
+				}
+			}
+
+			int size = batch.add(theDelivery);
+			if (size == 0) {
+				// The batch was closed before we could add to it
+				myOpenBatches.remove(theSubscriptionId, batch);
+				continue;
+			}
+
+			if (opened) {
+				scheduleBatch(batch);
+			}
+			if (size >= MAX_BATCH_SIZE) {
+				submitBatch(batch);
+			}
+			return;
+		}
+	}
+
+	private static <T> T awaitBatch(CompletableFuture<T> theFuture) {
+		try {
+			return theFuture.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException(Msg.code(2461) + "Interrupted while waiting for a rest-hook batch", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new InternalErrorException(Msg.code(2462) + e.getCause().getMessage(), e.getCause());
+		}
+	}
+
+	/**
+	 * The scheduler only times the batch windows, batches are sent by {@link #getBatchSender(String)}
+	 */
+	private synchronized ScheduledExecutorService getBatchScheduler() {
+		if (myDestroyed) {
+			throw new RejectedExecutionException("Rest-hook batching has been shut down");
+		}
+		if (myBatchScheduler == null) {
+			myBatchScheduler =
+					Executors.newSingleThreadScheduledExecutor(newBatchThreadFactory("rest-hook-batch-timer-%d"));
+		}
+		return myBatchScheduler;
+	}
+
+	private synchronized ExecutorService getBatchSender(String theSubscriptionId) {
+		if (myDestroyed) {
+			throw new RejectedExecutionException("Rest-hook batching has been shut down");
+		}
+		if (myBatchSenders == null) {
+			myBatchSenders = new ExecutorService[BATCH_SENDER_THREAD_COUNT];
+			for (int i = 0; i < myBatchSenders.length; i++) {
+				myBatchSenders[i] =
+						Executors.newSingleThreadExecutor(newBatchThreadFactory("rest-hook-batch-" + i + "-%d"));
+			}
+		}
+		return myBatchSenders[Math.floorMod(theSubscriptionId.hashCode(), myBatchSenders.length)];
+	}
+
+	private static BasicThreadFactory newBatchThreadFactory(String theNamingPattern) {
+		return new BasicThreadFactory.Builder()
+				.namingPattern(theNamingPattern)
+				.daemon(true)
+				.build();
+	}
+
+	private void scheduleBatch(DeliveryBatch theBatch) {
+		try {
+			getBatchScheduler()
+					.schedule(
+							() -> submitBatch(theBatch),
+							myStorageSettings.getRestHookDeliveryBatchWindowMillis(),
+							TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// We're shutting down, so don't wait for the window
+			submitBatch(theBatch);
+		}
+	}
+
+	private void submitBatch(DeliveryBatch theBatch) {
+		try {
+			getBatchSender(theBatch.getSubscriptionId()).execute(() -> flushBatch(theBatch));
+		} catch (RejectedExecutionException e) {
+			// We're shutting down, so each waiting consumer delivers its own payload instead
+			Collection<BatchedDelivery> deliveries = closeBatch(theBatch);
+			if (deliveries != null) {
+				completeBatch(deliveries, BatchOutcome.FAILED);
+			}
+		}
+	}
+
+	private void flushBatch(DeliveryBatch theBatch) {
+		Collection<BatchedDelivery> deliveries = closeBatch(theBatch);
+		if (deliveries == null) {
+			// Already sent
+			return;
+		}
+
+		BatchOutcome outcome = BatchOutcome.SENT;
+		try {
+			sendBatch(deliveries, theBatch);
+		} catch (Exception e) {
+			ourLog.error(
+					"Failure delivering batch of {} rest-hook payloads for subscription: {}, delivering singly",
+					deliveries.size(),
+					theBatch.getSubscriptionId(),
+					e);
+			outcome = BatchOutcome.FAILED;
+		}
+		completeBatch(deliveries, outcome);
+	}
+
+	/**
+	 * @return The deliveries in the batch, or <code>null</code> if the batch was already closed
+	 */
+	@Nullable
+	private Collection<BatchedDelivery> closeBatch(DeliveryBatch theBatch) {
+		myOpenBatches.remove(theBatch.getSubscriptionId(), theBatch);
+		return theBatch.close();
+	}
+
+	private static void completeBatch(Collection<BatchedDelivery> theDeliveries, BatchOutcome theOutcome) {
+		for (BatchedDelivery next : theDeliveries) {
+			next.getOutcome().complete(theOutcome);
+		}
+	}
+
+	/**
+	 * A batch can stay open for a while, so it is sent using the subscription as it currently
+	 * stands in the registry rather than as it was when the batch was opened. If the subscription
+	 * has been unregistered in the meantime, the one carried by the most recent delivery is used.
+	 */
+	private CanonicalSubscription getSubscriptionForBatch(DeliveryBatch theBatch) {
+		ActiveSubscription activeSubscription = mySubscriptionRegistry.get(theBatch.getSubscriptionId());
+		if (activeSubscription != null) {
+			return activeSubscription.getSubscription();
+		}
+		return theBatch.getLatestSubscription();
+	}
+
+	@Override
+	public void handleSubscriptionUnregistered(String theSubscriptionId) {
+		myClientCache.remove(theSubscriptionId);
+	}
+
+	/**
+	 * Sends any open batches right away, waits for the batches being sent to complete, and
+	 * releases the cached clients. A batch opened while shutting down is not sent, the consumers
+	 * waiting on it deliver their payloads on their own instead.
+	 */
+	@Override
+	public void destroy() throws InterruptedException {
+		ExecutorService[] senders;
+		synchronized (this) {
+			if (myBatchScheduler != null) {
+				// Open batches are submitted below, so their pending windows aren't needed
+				myBatchScheduler.shutdownNow();
+			}
+			for (DeliveryBatch next : myOpenBatches.values()) {
+				submitBatch(next);
+			}
+			myDestroyed = true;
+			senders = myBatchSenders;
+		}
+
+		if (senders != null) {
+			for (ExecutorService next : senders) {
+				next.shutdown();
+			}
+			long deadline = System.currentTimeMillis() + BATCH_SHUTDOWN_TIMEOUT_MILLIS;
+			for (ExecutorService next : senders) {
+				long remaining = Math.max(0, deadline - System.currentTimeMillis());
+				if (!next.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+					ourLog.warn("Timed out waiting for rest-hook batches to be sent");
+				}
+			}
+		}
+		myClientCache.clear();
+	}
+
+	private void sendBatch(Collection<BatchedDelivery> theDeliveries, DeliveryBatch theBatch) {
+		CanonicalSubscription subscription = getSubscriptionForBatch(theBatch);
+		String payloadString = subscription.getPayloadString();
+		EncodingEnum payloadType = payloadString != null ? EncodingEnum.forContentType(payloadString) : null;
+		if (payloadType == null || isBlank(subscription.getEndpointUrl())) {
+			throw new InternalErrorException(Msg.code(2463) + "Subscription " + theBatch.getSubscriptionId()
+					+ " no longer has an endpoint and payload type to deliver a batch to");
+		}
+		IGenericClient client = getClient(subscription);
+
+		// A lone delivery is sent exactly as it would have been without batching
+		if (theDeliveries.size() == 1) {
+			BatchedDelivery delivery = theDeliveries.iterator().next();
+			doDelivery(delivery.getMessage(), subscription, payloadType, client, delivery.getPayloadResource());
 			return;
 		}
+
+		BundleBuilder builder = new BundleBuilder(myFhirContext);
+		for (BatchedDelivery next : theDeliveries) {
+			switch (next.getMessage().getOperationType()) {
+				case CREATE:
+				case UPDATE:
+					if (next.getPayloadResource() != null) {
+						builder.addTransactionUpdateEntry(next.getPayloadResource());
+					}
+					break;
+				case DELETE:
+					builder.addTransactionDeleteEntry(next.getMessage().getPayloadId(myFhirContext));
+					break;
+				default:
+					ourLog.warn(
+							"Ignoring delivery message of type: {}",
+							next.getMessage().getOperationType());
+					break;
+			}
+		}
+
+		IClientExecutable<?, ?> operation = client.transaction().withBundle(builder.getBundle());
+		operation.encoded(payloadType);
+
+		StopWatch sw = new StopWatch();
+		try {
+			operation.execute();
+		} catch (ResourceNotFoundException e) {
+			ourLog.error("Cannot reach {} ", subscription.getEndpointUrl());
+			ourLog.error("Exception: ", e);
+			throw e;
+		}
+
+		Logs.getSubscriptionTroubleshootingLog()
+				.debug(
+						"Delivered batch of {} rest-hook payloads for {} in {}",
+						theDeliveries.size(),
+						subscription
+								.getIdElement(myFhirContext)
+								.toUnqualifiedVersionless()
+								.getValue(),
+						sw);
+	}
+
+	@VisibleForTesting
+	public void setStorageSettingsForUnitTest(StorageSettings theStorageSettings) {
+		myStorageSettings = theStorageSettings;
 	}
 
 	/**
@@ -343,4 +728,149 @@ public class SubscriptionDeliveringRestHookSubscriber extends BaseSubscriptionDe
 		}
 		return headers;
 	}
+
+	private static class CachedClient {
+		private final IRestfulClientFactory myClientFactory;
+		private final String myEndpointUrl;
+		private final List<String> myHeaders;
+		private final IGenericClient myClient;
+
+		private CachedClient(
+				IRestfulClientFactory theClientFactory,
+				String theEndpointUrl,
+				List<String> theHeaders,
+				IGenericClient theClient) {
+			myClientFactory = theClientFactory;
+			myEndpointUrl = theEndpointUrl;
+			myHeaders = new ArrayList<>(theHeaders);
+			myClient = theClient;
+		}
+
+		private boolean matches(
+				IRestfulClientFactory theClientFactory, String theEndpointUrl, List<String> theHeaders) {
+			return myClientFactory == theClientFactory
+					&& myEndpointUrl.equals(theEndpointUrl)
+					&& myHeaders.equals(theHeaders);
+		}
+
+		private IGenericClient getClient() {
+			return myClient;
+		}
+	}
+
+	private enum BatchOutcome {
+		SENT,
+		FAILED,
+		SUPERSEDED
+	}
+
+	private static class BatchedDelivery {
+		private final ResourceDeliveryMessage myMessage;
+		private final IBaseResource myPayloadResource;
+
+		/**
+		 * Completed once the batch has been sent or has failed, or once a newer change to the
+		 * same resource has taken this delivery's place in the batch
+		 */
+		private final CompletableFuture<BatchOutcome> myOutcome = new CompletableFuture<>();
+
+		/**
+		 * Completed by the consumer waiting on this delivery once its payload has been delivered,
+		 * as part of the batch or on its own
+		 */
+		private final CompletableFuture<Void> myDelivered = new CompletableFuture<>();
+
+		private volatile BatchedDelivery mySupersededBy;
+
+		private BatchedDelivery(ResourceDeliveryMessage theMessage, IBaseResource thePayloadResource) {
+			myMessage = theMessage;
+			myPayloadResource = thePayloadResource;
+		}
+
+		private ResourceDeliveryMessage getMessage() {
+			return myMessage;
+		}
+
+		private IBaseResource getPayloadResource() {
+			return myPayloadResource;
+		}
+
+		private CompletableFuture<BatchOutcome> getOutcome() {
+			return myOutcome;
+		}
+
+		private CompletableFuture<Void> getDelivered() {
+			return myDelivered;
+		}
+
+		private BatchedDelivery getSupersededBy() {
+			return mySupersededBy;
+		}
+
+		private void supersede(BatchedDelivery theSupersededBy) {
+			mySupersededBy = theSupersededBy;
+			myOutcome.complete(BatchOutcome.SUPERSEDED);
+		}
+	}
+
+	private class DeliveryBatch {
+		private final String mySubscriptionId;
+
+		/**
+		 * Keyed by the versionless payload ID so that only the most recent change to each
+		 * resource is sent, since a transaction can't touch the same resource twice
+		 */
+		private final Map<String, BatchedDelivery> myDeliveries = new LinkedHashMap<>();
+
+		private CanonicalSubscription myLatestSubscription;
+		private boolean myClosed;
+
+		private DeliveryBatch(String theSubscriptionId) {
+			mySubscriptionId = theSubscriptionId;
+		}
+
+		/**
+		 * @return The number of deliveries in the batch, or <code>0</code> if the batch has
+		 * already been closed and the delivery was not added
+		 */
+		private synchronized int add(BatchedDelivery theDelivery) {
+			if (myClosed) {
+				return 0;
+			}
+			ResourceDeliveryMessage message = theDelivery.getMessage();
+			IIdType payloadId = message.getPayloadId(myFhirContext);
+			String key = payloadId != null && payloadId.hasIdPart()
+					? payloadId.toUnqualifiedVersionless().getValue()
+					: UUID.randomUUID().toString();
+			BatchedDelivery previous = myDeliveries.remove(key);
+			if (previous != null) {
+				previous.supersede(theDelivery);
+			}
+			myDeliveries.put(key, theDelivery);
+			myLatestSubscription = message.getSubscription();
+			return myDeliveries.size();
+		}
+
+		/**
+		 * Closes the batch to further deliveries
+		 *
+		 * @return The deliveries in the batch, or <code>null</code> if the batch was already closed
+		 */
+		@Nullable
+		private synchronized Collection<BatchedDelivery> close() {
+			if (myClosed) {
+				return null;
+			}
+			myClosed = true;
+			return new ArrayList<>(myDeliveries.values());
+		}
+
+		private String getSubscriptionId() {
+			return mySubscriptionId;
+		}
+
+		private synchronized CanonicalSubscription getLatestSubscription() {
+			return myLatestSubscription;
+		}
+	}
 }
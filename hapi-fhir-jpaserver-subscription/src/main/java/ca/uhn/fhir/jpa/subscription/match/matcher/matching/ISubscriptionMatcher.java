@@ -20,9 +20,20 @@
 package ca.uhn.fhir.jpa.subscription.match.matcher.matching;
 
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
+import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 
 public interface ISubscriptionMatcher {
 	InMemoryMatchResult match(CanonicalSubscription subscription, ResourceModifiedMessage msg);
+
+	/**
+	 * Same as {@link #match(CanonicalSubscription, ResourceModifiedMessage)}, but allows implementations
+	 * to keep state that is reused across messages (such as compiled criteria) on the active subscription.
+	 *
+	 * @since 7.0.0
+	 */
+	default InMemoryMatchResult match(ActiveSubscription theActiveSubscription, ResourceModifiedMessage theMsg) {
+		return match(theActiveSubscription.getSubscription(), theMsg);
+	}
 }
@@ -21,8 +21,10 @@ package ca.uhn.fhir.jpa.subscription.match.matcher.matching;
 
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.jpa.searchparam.matcher.CompiledMatchCriteria;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.searchparam.matcher.SearchParamMatcher;
+import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceModifiedMessage;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
@@ -45,11 +47,38 @@ public class InMemorySubscriptionMatcher implements ISubscriptionMatcher {
 			return mySearchParamMatcher.match(
 					theSubscription.getCriteriaString(), theMsg.getNewPayload(myContext), null);
 		} catch (Exception e) {
-			ourLog.error("Failure in in-memory matcher", e);
-			throw new InternalErrorException(
-					Msg.code(1) + "Failure performing memory-match for resource ID[" + theMsg.getPayloadId(myContext)
-							+ "] for subscription ID[" + theSubscription.getIdElementString() + "]: " + e.getMessage(),
-					e);
+			throw newMatchFailureException(theSubscription, theMsg, e);
 		}
 	}
+
+	/**
+	 * The criteria are compiled the first time the subscription is matched, and then only
+	 * compiled again if the subscription criteria or the search parameters they use change.
+	 */
+	@Override
+	public InMemoryMatchResult match(ActiveSubscription theActiveSubscription, ResourceModifiedMessage theMsg) {
+		CanonicalSubscription subscription = theActiveSubscription.getSubscription();
+		try {
+			CompiledMatchCriteria criteria = theActiveSubscription.getCompiledCriteria();
+			if (criteria == null
+					|| !criteria.getCriteria().equals(subscription.getCriteriaString())
+					|| !mySearchParamMatcher.isCurrent(criteria)) {
+				criteria = mySearchParamMatcher.compile(subscription.getCriteriaString());
+				theActiveSubscription.setCompiledCriteria(criteria);
+			}
+			return mySearchParamMatcher.matchCompiled(criteria, theMsg.getNewPayload(myContext), null);
+		} catch (Exception e) {
+			throw newMatchFailureException(subscription, theMsg, e);
+		}
+	}
+
+	private InternalErrorException newMatchFailureException(
+			CanonicalSubscription theSubscription, ResourceModifiedMessage theMsg, Exception theCause) {
+		ourLog.error("Failure in in-memory matcher", theCause);
+		return new InternalErrorException(
+				Msg.code(1) + "Failure performing memory-match for resource ID[" + theMsg.getPayloadId(myContext)
+						+ "] for subscription ID[" + theSubscription.getIdElementString() + "]: "
+						+ theCause.getMessage(),
+				theCause);
+	}
 }
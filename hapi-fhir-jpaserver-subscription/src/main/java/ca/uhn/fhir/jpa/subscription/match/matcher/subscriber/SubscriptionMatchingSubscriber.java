@@ -40,6 +40,7 @@ import org.springframework.messaging.MessageHandler;
 import org.springframework.messaging.MessagingException;
 
 import java.util.Collection;
+import java.util.Collections;
 import javax.annotation.Nonnull;
 
 import static ca.uhn.fhir.rest.server.messaging.BaseResourceMessage.OperationTypeEnum.DELETE;
@@ -114,7 +115,7 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 	private void doMatchActiveSubscriptionsAndDeliver(ResourceModifiedMessage theMsg) {
 		IIdType resourceId = theMsg.getPayloadId(myFhirContext);
 
-		Collection<ActiveSubscription> subscriptions = mySubscriptionRegistry.getAllNonTopicSubscriptions();
+		Collection<ActiveSubscription> subscriptions = getCandidateSubscriptions(theMsg, resourceId);
 
 		ourLog.trace("Testing {} subscriptions for applicability", subscriptions.size());
 		boolean anySubscriptionsMatchedResource = false;
@@ -130,6 +131,29 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 		}
 	}
 
+	/**
+	 * Returns the subscriptions that could possibly match the given message, i.e. the subscription
+	 * it is addressed to if there is one, or otherwise the subscriptions applicable to the type
+	 * of the modified resource
+	 */
+	private Collection<ActiveSubscription> getCandidateSubscriptions(
+			ResourceModifiedMessage theMsg, IIdType theResourceId) {
+		if (isNotBlank(theMsg.getSubscriptionId())) {
+			ActiveSubscription activeSubscription = mySubscriptionRegistry.get(theMsg.getSubscriptionId());
+			if (activeSubscription == null
+					|| activeSubscription.getSubscription().isTopicSubscription()) {
+				ourLog.debug("Subscription {} is not an active subscription", theMsg.getSubscriptionId());
+				return Collections.emptyList();
+			}
+			return Collections.singletonList(activeSubscription);
+		}
+		String resourceType = theResourceId != null ? theResourceId.getResourceType() : null;
+		if (resourceType == null) {
+			return mySubscriptionRegistry.getAllNonTopicSubscriptions();
+		}
+		return mySubscriptionRegistry.getNonTopicSubscriptionsForResourceType(resourceType);
+	}
+
 	/**
 	 * Returns true if subscription matched, and processing completed successfully, and the message was sent to the delivery channel. False otherwise.
 	 *
@@ -145,18 +169,6 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 				&& !theMsg.getPartitionId().hasPartitionId(subscription.getRequestPartitionId())) {
 			return false;
 		}
-		String nextSubscriptionId = theActiveSubscription.getId();
-
-		if (isNotBlank(theMsg.getSubscriptionId())) {
-			if (!theMsg.getSubscriptionId().equals(nextSubscriptionId)) {
-				// TODO KHS we should use a hash to look it up instead of this full table scan
-				ourLog.debug(
-						"Ignoring subscription {} because it is not {}",
-						nextSubscriptionId,
-						theMsg.getSubscriptionId());
-				return false;
-			}
-		}
 
 		if (!resourceTypeIsAppropriateForSubscription(theActiveSubscription, theResourceId)) {
 			return false;
@@ -171,7 +183,7 @@ public class SubscriptionMatchingSubscriber implements MessageHandler {
 
 		InMemoryMatchResult matchResult;
 		if (theActiveSubscription.getCriteria().getType() == SubscriptionCriteriaParser.TypeEnum.SEARCH_EXPRESSION) {
-			matchResult = mySubscriptionMatcher.match(theActiveSubscription.getSubscription(), theMsg);
+			matchResult = mySubscriptionMatcher.match(theActiveSubscription, theMsg);
 			if (!matchResult.matched()) {
 				ourLog.trace(
 						"Subscription {} was not matched by resource {} {}",
@@ -19,12 +19,14 @@
  */
 package ca.uhn.fhir.jpa.subscription.match.registry;
 
+import ca.uhn.fhir.jpa.searchparam.matcher.CompiledMatchCriteria;
 import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.SubscriptionCriteriaParser;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscriptionChannelType;
 import ca.uhn.fhir.jpa.subscription.model.ChannelRetryConfiguration;
 
 import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
 
 public class ActiveSubscription {
 
@@ -37,6 +39,7 @@ public class ActiveSubscription {
 
 	private ChannelRetryConfiguration myRetryConfigurationParameters;
 	private final AtomicLong myDeliveriesCount = new AtomicLong();
+	private volatile CompiledMatchCriteria myCompiledCriteria;
 
 	public ActiveSubscription(CanonicalSubscription theSubscription, String theChannelName) {
 		myChannelName = theChannelName;
@@ -92,4 +95,18 @@ public class ActiveSubscription {
 	public long incrementDeliveriesCount() {
 		return myDeliveriesCount.incrementAndGet();
 	}
+
+	/**
+	 * The criteria of this subscription as last compiled for in-memory matching, or <code>null</code>
+	 * if they have not been compiled yet. Note that these may belong to an earlier version of the
+	 * subscription if it has since been updated.
+	 */
+	@Nullable
+	public CompiledMatchCriteria getCompiledCriteria() {
+		return myCompiledCriteria;
+	}
+
+	public void setCompiledCriteria(CompiledMatchCriteria theCompiledCriteria) {
+		myCompiledCriteria = theCompiledCriteria;
+	}
 }
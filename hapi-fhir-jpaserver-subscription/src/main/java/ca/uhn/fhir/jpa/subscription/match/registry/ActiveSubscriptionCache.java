@@ -19,6 +19,7 @@
  */
 package ca.uhn.fhir.jpa.subscription.match.registry;
 
+import ca.uhn.fhir.jpa.subscription.match.matcher.subscriber.SubscriptionCriteriaParser;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,8 +29,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
@@ -38,6 +41,17 @@ class ActiveSubscriptionCache {
 
 	private final Map<String, ActiveSubscription> myCache = new ConcurrentHashMap<>();
 
+	/**
+	 * Non-topic subscriptions, indexed by the resource types their criteria apply to, so that a
+	 * modified resource only needs to be tested against the subscriptions that could match it.
+	 * Subscriptions with criteria that apply to all resource types (<code>[*]</code>) are kept in
+	 * {@link #myStarTypeSubscriptions} instead.
+	 */
+	private final Map<String, Map<String, ActiveSubscription>> myNonTopicSubscriptionsByResourceType =
+			new ConcurrentHashMap<>();
+
+	private final Map<String, ActiveSubscription> myStarTypeSubscriptions = new ConcurrentHashMap<>();
+
 	public ActiveSubscription get(String theIdPart) {
 		return myCache.get(theIdPart);
 	}
@@ -50,8 +64,13 @@ class ActiveSubscriptionCache {
 		return myCache.size();
 	}
 
-	public void put(String theSubscriptionId, ActiveSubscription theActiveSubscription) {
+	/**
+	 * Adds the given subscription, or re-indexes it if it is already present (e.g. because its
+	 * criteria have been updated)
+	 */
+	public synchronized void put(String theSubscriptionId, ActiveSubscription theActiveSubscription) {
 		myCache.put(theSubscriptionId, theActiveSubscription);
+		index(theSubscriptionId, theActiveSubscription);
 	}
 
 	public synchronized ActiveSubscription remove(String theSubscriptionId) {
@@ -63,9 +82,50 @@ class ActiveSubscriptionCache {
 		}
 
 		myCache.remove(theSubscriptionId);
+		index(theSubscriptionId, null);
 		return activeSubscription;
 	}
 
+	/**
+	 * Adds the subscription to the index entries for its current criteria before removing it from
+	 * any others, so that a subscription being re-indexed is never briefly missing from the index.
+	 *
+	 * @param theActiveSubscription The subscription to index, or <code>null</code> to remove the subscription
+	 *                              with the given ID from the index
+	 */
+	private void index(String theSubscriptionId, @Nullable ActiveSubscription theActiveSubscription) {
+		Set<String> resourceTypes = Collections.emptySet();
+		boolean starType = false;
+
+		SubscriptionCriteriaParser.SubscriptionCriteria criteria =
+				theActiveSubscription != null ? theActiveSubscription.getCriteria() : null;
+		if (criteria != null && !theActiveSubscription.getSubscription().isTopicSubscription()) {
+			if (criteria.getType() == SubscriptionCriteriaParser.TypeEnum.STARTYPE_EXPRESSION) {
+				starType = true;
+			} else {
+				resourceTypes = criteria.getApplicableResourceTypes();
+			}
+		}
+
+		for (String nextResourceType : resourceTypes) {
+			myNonTopicSubscriptionsByResourceType
+					.computeIfAbsent(nextResourceType, t -> new ConcurrentHashMap<>())
+					.put(theSubscriptionId, theActiveSubscription);
+		}
+		if (starType) {
+			myStarTypeSubscriptions.put(theSubscriptionId, theActiveSubscription);
+		} else {
+			myStarTypeSubscriptions.remove(theSubscriptionId);
+		}
+
+		for (Map.Entry<String, Map<String, ActiveSubscription>> next :
+				myNonTopicSubscriptionsByResourceType.entrySet()) {
+			if (!resourceTypes.contains(next.getKey())) {
+				next.getValue().remove(theSubscriptionId);
+			}
+		}
+	}
+
 	List<String> markAllSubscriptionsNotInCollectionForDeletionAndReturnIdsToDelete(Collection<String> theAllIds) {
 		List<String> retval = new ArrayList<>();
 		for (String next : new ArrayList<>(myCache.keySet())) {
@@ -98,6 +158,18 @@ class ActiveSubscriptionCache {
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * @return all non-topic subscriptions whose criteria could apply to a resource of the given type
+	 */
+	public List<ActiveSubscription> getNonTopicSubscriptionsForResourceType(String theResourceType) {
+		Map<String, ActiveSubscription> subscriptionsForType =
+				myNonTopicSubscriptionsByResourceType.getOrDefault(theResourceType, Collections.emptyMap());
+		List<ActiveSubscription> retVal = new ArrayList<>(subscriptionsForType.size() + myStarTypeSubscriptions.size());
+		retVal.addAll(subscriptionsForType.values());
+		retVal.addAll(myStarTypeSubscriptions.values());
+		return retVal;
+	}
+
 	public List<ActiveSubscription> getAllNonTopicSubscriptions() {
 		return getAll().stream()
 				.filter(as -> !as.getSubscription().isTopicSubscription())
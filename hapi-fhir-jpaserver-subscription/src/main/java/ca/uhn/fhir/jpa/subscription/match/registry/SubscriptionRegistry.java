@@ -214,6 +214,8 @@ public class SubscriptionRegistry {
 		Validate.notNull(activeSubscription);
 		CanonicalSubscription canonicalized = mySubscriptionCanonicalizer.canonicalize(theSubscription);
 		activeSubscription.setSubscription(canonicalized);
+		// The criteria may have changed, so re-index the subscription
+		myActiveSubscriptionCache.put(theId.getIdPart(), activeSubscription);
 
 		// Interceptor call: SUBSCRIPTION_AFTER_ACTIVE_SUBSCRIPTION_REGISTERED
 		HookParams params = new HookParams().add(CanonicalSubscription.class, canonicalized);
@@ -232,4 +234,15 @@ public class SubscriptionRegistry {
 	public synchronized List<ActiveSubscription> getAllNonTopicSubscriptions() {
 		return myActiveSubscriptionCache.getAllNonTopicSubscriptions();
 	}
+
+	/**
+	 * Returns the non-topic subscriptions whose criteria could apply to a resource of the given type.
+	 * This is called for every modified resource, so unlike the other accessors it does not
+	 * lock the registry (the underlying cache is safe for concurrent reads).
+	 *
+	 * @since 7.0.0
+	 */
+	public List<ActiveSubscription> getNonTopicSubscriptionsForResourceType(String theResourceType) {
+		return myActiveSubscriptionCache.getNonTopicSubscriptionsForResourceType(theResourceType);
+	}
 }
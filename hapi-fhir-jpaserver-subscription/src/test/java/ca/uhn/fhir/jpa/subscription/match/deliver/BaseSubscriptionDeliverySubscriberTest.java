@@ -8,12 +8,14 @@ import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.searchparam.MatchUrlService;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.subscription.channel.api.IChannelFactory;
 import ca.uhn.fhir.jpa.subscription.channel.api.IChannelProducer;
 import ca.uhn.fhir.jpa.subscription.match.deliver.message.SubscriptionDeliveringMessageSubscriber;
 import ca.uhn.fhir.jpa.subscription.match.deliver.resthook.SubscriptionDeliveringRestHookSubscriber;
+import ca.uhn.fhir.jpa.subscription.match.registry.ActiveSubscription;
 import ca.uhn.fhir.jpa.subscription.match.registry.SubscriptionRegistry;
 import ca.uhn.fhir.jpa.subscription.model.CanonicalSubscription;
 import ca.uhn.fhir.jpa.subscription.model.ResourceDeliveryJsonMessage;
@@ -47,13 +49,22 @@ import org.springframework.messaging.support.GenericMessage;
 import javax.annotation.Nonnull;
 import java.net.URISyntaxException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -61,6 +72,8 @@ import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -72,6 +85,7 @@ public class BaseSubscriptionDeliverySubscriberTest {
 	private SubscriptionDeliveringRestHookSubscriber mySubscriber;
 	private SubscriptionDeliveringMessageSubscriber myMessageSubscriber;
 	private final FhirContext myCtx = FhirContext.forR4();
+	private final StorageSettings myStorageSettings = new StorageSettings();
 
 	@Mock
 	private IInterceptorBroadcaster myInterceptorBroadcaster;
@@ -102,6 +116,7 @@ public class BaseSubscriptionDeliverySubscriberTest {
 		mySubscriber.setFhirContextForUnitTest(myCtx);
 		mySubscriber.setInterceptorBroadcasterForUnitTest(myInterceptorBroadcaster);
 		mySubscriber.setSubscriptionRegistryForUnitTest(mySubscriptionRegistry);
+		mySubscriber.setStorageSettingsForUnitTest(myStorageSettings);
 
 		myMessageSubscriber = new SubscriptionDeliveringMessageSubscriber(myChannelFactory);
 		myMessageSubscriber.setFhirContextForUnitTest(myCtx);
@@ -147,6 +162,203 @@ public class BaseSubscriptionDeliverySubscriberTest {
 		verify(myGenericClient, times(1)).update();
 	}
 
+	@Test
+	public void testRestHookDeliveryReusesClient() {
+		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
+
+		CanonicalSubscription subscription = generateSubscription();
+		subscription.setHeaders("Authorization: Bearer 123");
+
+		mySubscriber.handleMessage(new ResourceDeliveryJsonMessage(generateDeliveryMessage(subscription, generatePatient())));
+		mySubscriber.handleMessage(new ResourceDeliveryJsonMessage(generateDeliveryMessage(subscription, generatePatient())));
+
+		verify(myRestfulClientFactory, times(1)).newGenericClient(any());
+		verify(myGenericClient, times(2)).update();
+
+		// A change to the headers requires a new client
+		subscription.setHeaders("Authorization: Bearer 456");
+		mySubscriber.handleMessage(new ResourceDeliveryJsonMessage(generateDeliveryMessage(subscription, generatePatient())));
+
+		verify(myRestfulClientFactory, times(2)).newGenericClient(any());
+		verify(myGenericClient, times(3)).update();
+	}
+
+	@Test
+	public void testRestHookDeliveryReusesClient_EvictedWhenSubscriptionUnregistered() {
+		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
+
+		CanonicalSubscription subscription = generateSubscription();
+		mySubscriber.handleMessage(new ResourceDeliveryJsonMessage(generateDeliveryMessage(subscription, generatePatient())));
+		verify(myRestfulClientFactory, times(1)).newGenericClient(any());
+
+		mySubscriber.handleSubscriptionUnregistered(subscription.getIdPart());
+		mySubscriber.handleMessage(new ResourceDeliveryJsonMessage(generateDeliveryMessage(subscription, generatePatient())));
+		verify(myRestfulClientFactory, times(2)).newGenericClient(any());
+	}
+
+	@Test
+	public void testRestHookDeliveryBatched() throws Exception {
+		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
+		myStorageSettings.setRestHookDeliveryBatchWindowMillis(1000);
+
+		CanonicalSubscription subscription = generateSubscription();
+		List<ResourceDeliveryMessage> messages = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			Patient patient = generatePatient();
+			patient.setId("Patient/" + i);
+			messages.add(generateDeliveryMessage(subscription, patient));
+		}
+		awaitAll(handleConcurrently(messages));
+
+		ArgumentCaptor<Bundle> captor = ArgumentCaptor.forClass(Bundle.class);
+		verify(myGenericClient.transaction(), times(1)).withBundle(captor.capture());
+		verify(myGenericClient, never()).update();
+		verify(myInterceptorBroadcaster, times(20)).callHooks(eq(Pointcut.SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY), any());
+
+		Bundle bundle = captor.getValue();
+		assertEquals(Bundle.BundleType.TRANSACTION, bundle.getType());
+		assertEquals(20, bundle.getEntry().size());
+		assertThat(bundle.getEntry().stream().map(t -> t.getRequest().getUrl()).collect(Collectors.toList()), hasItems("Patient/0", "Patient/19"));
+	}
+
+	@Test
+	public void testRestHookDeliveryBatched_SupersededDeliveryCompletesWithItsReplacement() throws Exception {
+		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
+		myStorageSettings.setRestHookDeliveryBatchWindowMillis(1000);
+
+		CanonicalSubscription subscription = generateSubscription();
+		List<ResourceDeliveryMessage> messages = new ArrayList<>();
+		for (String id : List.of("Patient/1", "Patient/1", "Patient/2")) {
+			Patient patient = generatePatient();
+			patient.setId(id);
+			messages.add(generateDeliveryMessage(subscription, patient));
+		}
+		awaitAll(handleConcurrently(messages));
+
+		// Only one change per resource is sent, but every delivery is reported as delivered
+		ArgumentCaptor<Bundle> captor = ArgumentCaptor.forClass(Bundle.class);
+		verify(myGenericClient.transaction(), times(1)).withBundle(captor.capture());
+		assertEquals(2, captor.getValue().getEntry().size());
+		verify(myInterceptorBroadcaster, times(3)).callHooks(eq(Pointcut.SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY), any());
+	}
+
+	@Test
+	public void testRestHookDeliveryBatched_FailureDeliversSingly() throws Exception {
+		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
+		when(myGenericClient.transaction().withBundle(any(Bundle.class)).execute()).thenThrow(new InternalErrorException("FOO"));
+		myStorageSettings.setRestHookDeliveryBatchWindowMillis(1000);
+
+		CanonicalSubscription subscription = generateSubscription();
+		List<ResourceDeliveryMessage> messages = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			Patient patient = generatePatient();
+			patient.setId("Patient/" + i);
+			messages.add(generateDeliveryMessage(subscription, patient));
+		}
+		awaitAll(handleConcurrently(messages));
+
+		verify(myGenericClient, times(2)).update();
+		verify(myInterceptorBroadcaster, times(2)).callHooks(eq(Pointcut.SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY), any());
+	}
+
+	@Test
+	public void testRestHookDeliveryBatched_FailureIsRetriedByChannel() throws Exception {
+		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
+		when(myGenericClient.transaction().withBundle(any(Bundle.class)).execute()).thenThrow(new InternalErrorException("FOO"));
+		when(myGenericClient.update()).thenThrow(new InternalErrorException("BAR"));
+		myStorageSettings.setRestHookDeliveryBatchWindowMillis(1000);
+
+		CanonicalSubscription subscription = generateSubscription();
+		List<ResourceDeliveryMessage> messages = new ArrayList<>();
+		for (String id : List.of("Patient/1", "Patient/1", "Patient/2")) {
+			Patient patient = generatePatient();
+			patient.setId(id);
+			messages.add(generateDeliveryMessage(subscription, patient));
+		}
+
+		// Every delivery fails back to the channel, including the one that was superseded
+		for (Future<?> next : handleConcurrently(messages)) {
+			try {
+				next.get(5, TimeUnit.SECONDS);
+				fail();
+			} catch (ExecutionException e) {
+				assertThat(e.getCause(), instanceOf(MessagingException.class));
+				assertThat(e.getCause().getMessage(), containsString("BAR"));
+			}
+		}
+		verify(myInterceptorBroadcaster, never()).callHooks(eq(Pointcut.SUBSCRIPTION_AFTER_REST_HOOK_DELIVERY), any());
+	}
+
+	@Test
+	public void testRestHookDeliveryBatched_SentWithCurrentSubscription() {
+		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
+		myStorageSettings.setRestHookDeliveryBatchWindowMillis(10);
+
+		// The endpoint changes while the delivery is waiting for its batch
+		CanonicalSubscription updatedSubscription = generateSubscription();
+		updatedSubscription.setEndpointUrl("http://example.com/updated");
+		when(mySubscriptionRegistry.get(eq("123"))).thenReturn(null).thenReturn(new ActiveSubscription(updatedSubscription, "CHANNEL"));
+
+		Patient patient = generatePatient();
+		patient.setId("Patient/1");
+		mySubscriber.handleMessage(new ResourceDeliveryJsonMessage(generateDeliveryMessage(generateSubscription(), patient)));
+
+		verify(myRestfulClientFactory, times(1)).newGenericClient(eq("http://example.com/fhir"));
+		verify(myRestfulClientFactory, times(1)).newGenericClient(eq("http://example.com/updated"));
+		verify(myGenericClient, times(1)).update();
+	}
+
+	@Test
+	public void testRestHookDeliveryBatched_SingleDeliveryIsNotWrapped() {
+		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
+		myStorageSettings.setRestHookDeliveryBatchWindowMillis(10);
+
+		Patient patient = generatePatient();
+		patient.setId("Patient/1");
+		mySubscriber.handleMessage(new ResourceDeliveryJsonMessage(generateDeliveryMessage(generateSubscription(), patient)));
+
+		verify(myGenericClient, times(1)).update();
+		verify(myGenericClient, never()).transaction();
+	}
+
+	@Test
+	public void testRestHookDeliveryBatched_DestroySendsOpenBatches() throws Exception {
+		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
+		myStorageSettings.setRestHookDeliveryBatchWindowMillis(60000);
+
+		Patient patient = generatePatient();
+		patient.setId("Patient/1");
+		List<Future<?>> futures = handleConcurrently(List.of(generateDeliveryMessage(generateSubscription(), patient)));
+		verify(myInterceptorBroadcaster, timeout(5000)).callHooks(eq(Pointcut.SUBSCRIPTION_BEFORE_REST_HOOK_DELIVERY), any());
+		mySubscriber.destroy();
+
+		// The delivery doesn't wait for the rest of the window
+		awaitAll(futures);
+		verify(myGenericClient, times(1)).update();
+	}
+
+	/**
+	 * Batched deliveries wait for their batch to be sent, so each one needs its own consumer
+	 */
+	private List<Future<?>> handleConcurrently(List<ResourceDeliveryMessage> theMessages) {
+		ExecutorService consumers = Executors.newFixedThreadPool(theMessages.size());
+		try {
+			List<Future<?>> retVal = new ArrayList<>();
+			for (ResourceDeliveryMessage next : theMessages) {
+				retVal.add(consumers.submit(() -> mySubscriber.handleMessage(new ResourceDeliveryJsonMessage(next))));
+			}
+			return retVal;
+		} finally {
+			consumers.shutdown();
+		}
+	}
+
+	private static void awaitAll(List<Future<?>> theFutures) throws Exception {
+		for (Future<?> next : theFutures) {
+			next.get(5, TimeUnit.SECONDS);
+		}
+	}
+
 	@Test
 	public void testRestHookDeliveryFails_ShouldRollBack() {
 		when(myInterceptorBroadcaster.callHooks(any(), any())).thenReturn(true);
@@ -407,6 +619,15 @@ public class BaseSubscriptionDeliverySubscriberTest {
 		return patient;
 	}
 
+	@Nonnull
+	private ResourceDeliveryMessage generateDeliveryMessage(CanonicalSubscription theSubscription, Patient thePatient) {
+		ResourceDeliveryMessage payload = new ResourceDeliveryMessage();
+		payload.setSubscription(theSubscription);
+		payload.setPayload(myCtx, thePatient, EncodingEnum.JSON);
+		payload.setOperationType(ResourceModifiedMessage.OperationTypeEnum.CREATE);
+		return payload;
+	}
+
 	@Nonnull
 	private CanonicalSubscription generateSubscription() {
 		CanonicalSubscription subscription = new CanonicalSubscription();
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -132,6 +133,50 @@ public class ActiveSubscriptionCacheTest {
 		assertEquals(ID3, match.getId());
 	}
 
+	@Test
+	public void getNonTopicSubscriptionsForResourceType() {
+		ActiveSubscriptionCache activeSubscriptionCache = new ActiveSubscriptionCache();
+		activeSubscriptionCache.put(ID1, buildActiveSubscription(ID1, "Patient?name=smith"));
+		activeSubscriptionCache.put(ID2, buildActiveSubscription(ID2, "[Patient,Observation]"));
+		activeSubscriptionCache.put(ID3, buildActiveSubscription(ID3, "[*]"));
+		activeSubscriptionCache.put("id4", buildTopicSubscription("id4", TEST_TOPIC_URL));
+
+		assertThat(getIds(activeSubscriptionCache.getNonTopicSubscriptionsForResourceType("Patient")), containsInAnyOrder(ID1, ID2, ID3));
+		assertThat(getIds(activeSubscriptionCache.getNonTopicSubscriptionsForResourceType("Observation")), containsInAnyOrder(ID2, ID3));
+		assertThat(getIds(activeSubscriptionCache.getNonTopicSubscriptionsForResourceType("Encounter")), containsInAnyOrder(ID3));
+
+		activeSubscriptionCache.remove(ID2);
+		assertThat(getIds(activeSubscriptionCache.getNonTopicSubscriptionsForResourceType("Patient")), containsInAnyOrder(ID1, ID3));
+		assertThat(getIds(activeSubscriptionCache.getNonTopicSubscriptionsForResourceType("Observation")), containsInAnyOrder(ID3));
+	}
+
+	@Test
+	public void getNonTopicSubscriptionsForResourceType_CriteriaUpdated() {
+		ActiveSubscriptionCache activeSubscriptionCache = new ActiveSubscriptionCache();
+		ActiveSubscription activeSub1 = buildActiveSubscription(ID1, "Patient?name=smith");
+		activeSubscriptionCache.put(ID1, activeSub1);
+
+		CanonicalSubscription updated = new CanonicalSubscription();
+		updated.setIdElement(new IdDt(ID1));
+		updated.setCriteriaString("Observation?code=123");
+		activeSub1.setSubscription(updated);
+		activeSubscriptionCache.put(ID1, activeSub1);
+
+		assertThat(activeSubscriptionCache.getNonTopicSubscriptionsForResourceType("Patient"), hasSize(0));
+		assertThat(getIds(activeSubscriptionCache.getNonTopicSubscriptionsForResourceType("Observation")), containsInAnyOrder(ID1));
+	}
+
+	private ActiveSubscription buildActiveSubscription(String theId, String theCriteria) {
+		CanonicalSubscription canonicalSubscription = new CanonicalSubscription();
+		canonicalSubscription.setIdElement(new IdDt(theId));
+		canonicalSubscription.setCriteriaString(theCriteria);
+		return new ActiveSubscription(canonicalSubscription, null);
+	}
+
+	private static List<String> getIds(List<ActiveSubscription> theSubscriptions) {
+		return theSubscriptions.stream().map(ActiveSubscription::getId).collect(Collectors.toList());
+	}
+
 	@NotNull
 	private ActiveSubscription buildTopicSubscription(String theId, String theTopicUrl) {
 		ActiveSubscription activeSub2 = buildActiveSubscription(theId);
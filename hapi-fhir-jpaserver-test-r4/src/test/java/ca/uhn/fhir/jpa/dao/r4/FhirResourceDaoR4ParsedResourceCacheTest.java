@@ -0,0 +1,80 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.cache.ParsedResourceCacheSvc;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class FhirResourceDaoR4ParsedResourceCacheTest extends BaseJpaR4Test {
+
+	@Autowired
+	private ParsedResourceCacheSvc myParsedResourceCacheSvc;
+
+	@BeforeEach
+	public void beforeEnableCache() {
+		myParsedResourceCacheSvc.stop();
+		myStorageSettings.setParsedResourceCacheResourceTypes(Set.of("Patient"));
+		myParsedResourceCacheSvc.start();
+	}
+
+	@AfterEach
+	public void afterDisableCache() {
+		myParsedResourceCacheSvc.stop();
+		myStorageSettings.setParsedResourceCacheResourceTypes(new JpaStorageSettings().getParsedResourceCacheResourceTypes());
+	}
+
+	@Test
+	public void testReadWithContainedResource() {
+		Organization org = new Organization();
+		org.setId("#org");
+		org.setName("Acme");
+		Patient patient = new Patient();
+		patient.getContained().add(org);
+		patient.getManagingOrganization().setReference("#org");
+		IIdType id = myPatientDao.create(patient, mySrd).getId().toUnqualifiedVersionless();
+
+		myPatientDao.read(id, mySrd);
+		long misses = myParsedResourceCacheSvc.getMissCount();
+		for (int i = 0; i < 3; i++) {
+			Patient actual = myPatientDao.read(id, mySrd);
+			Organization actualOrg = (Organization) actual.getManagingOrganization().getResource();
+			assertNotNull(actualOrg, "Read " + i);
+			assertSame(actual.getContained().get(0), actualOrg);
+			assertEquals("Acme", actualOrg.getName());
+		}
+		assertEquals(misses, myParsedResourceCacheSvc.getMissCount());
+	}
+
+	@Test
+	public void testHistoryReads() {
+		IIdType id = createPatient(withFamily("SMITH")).toUnqualifiedVersionless();
+		Patient patient = myPatientDao.read(id, mySrd);
+		patient.getNameFirstRep().setFamily("JONES");
+		myPatientDao.update(patient, new SystemRequestDetails());
+
+		myPatientDao.read(id.withVersion("1"), mySrd);
+		myPatientDao.read(id.withVersion("2"), mySrd);
+		long misses = myParsedResourceCacheSvc.getMissCount();
+		for (int i = 0; i < 3; i++) {
+			assertEquals("SMITH", myPatientDao.read(id.withVersion("1"), mySrd).getNameFirstRep().getFamily());
+			assertEquals("JONES", myPatientDao.read(id.withVersion("2"), mySrd).getNameFirstRep().getFamily());
+			assertEquals("JONES", myPatientDao.read(id, mySrd).getNameFirstRep().getFamily());
+		}
+		// Both versions stay cached, so alternating between them never re-parses
+		assertEquals(misses, myParsedResourceCacheSvc.getMissCount());
+	}
+
+}
@@ -0,0 +1,217 @@
+package ca.uhn.fhir.jpa.dao.r4;
+
+import ca.uhn.fhir.interceptor.api.IAnonymousInterceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
+import ca.uhn.fhir.jpa.api.model.ExpungeOptions;
+import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
+import ca.uhn.fhir.jpa.model.entity.ResourceTable;
+import ca.uhn.fhir.jpa.search.builder.SearchAfterToken;
+import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
+import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.SortOrderEnum;
+import ca.uhn.fhir.rest.api.SortSpec;
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.IPreResourceAccessDetails;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import org.hl7.fhir.instance.model.api.IAnyResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FhirResourceDaoR4SearchKeysetPagingTest extends BaseJpaR4Test {
+
+	private static final int PAGE_SIZE = 3;
+
+	@AfterEach
+	public void after() {
+		myStorageSettings.setResourceClientIdStrategy(new JpaStorageSettings().getResourceClientIdStrategy());
+		myStorageSettings.setExpungeEnabled(new JpaStorageSettings().isExpungeEnabled());
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = SortOrderEnum.class)
+	public void testSortByLastUpdated_TiedTimestamps(SortOrderEnum theOrder) {
+		for (int i = 0; i < 10; i++) {
+			createPatient(withFamily("FAMILY" + i));
+		}
+		Date updated = new Date(System.currentTimeMillis() - 60000L);
+		runInTransaction(() -> {
+			for (ResourceTable next : myResourceTableDao.findAll()) {
+				next.setUpdated(updated);
+			}
+			for (ResourceHistoryTable next : myResourceHistoryTableDao.findAll()) {
+				next.setUpdated(updated);
+			}
+		});
+
+		SortSpec sort = new SortSpec(Constants.PARAM_LASTUPDATED, theOrder);
+		List<String> keysetPaged = searchAllPages(sort);
+
+		assertEquals(10, keysetPaged.size());
+		assertEquals(10, new HashSet<>(keysetPaged).size());
+		assertEquals(searchUnpaged(sort), keysetPaged);
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = SortOrderEnum.class)
+	public void testSortById_ForcedAndUnforcedIds(SortOrderEnum theOrder) {
+		for (int i = 0; i < 5; i++) {
+			createPatient(withFamily("UNFORCED" + i));
+			createPatient(withId("forced-" + (char) ('e' - i)), withFamily("FORCED" + i));
+		}
+
+		SortSpec sort = new SortSpec(IAnyResource.SP_RES_ID, theOrder);
+		List<String> keysetPaged = searchAllPages(sort);
+
+		assertEquals(10, keysetPaged.size());
+		assertEquals(10, new HashSet<>(keysetPaged).size());
+		assertEquals(searchUnpaged(sort), keysetPaged);
+	}
+
+	@Test
+	public void testSortById_ClientIdStrategyAny() {
+		myStorageSettings.setResourceClientIdStrategy(JpaStorageSettings.ClientIdStrategyEnum.ANY);
+		for (int i = 0; i < 4; i++) {
+			createPatient(withFamily("UNFORCED" + i));
+			createPatient(withId(Integer.toString(900000 + i)), withFamily("FORCED" + i));
+		}
+
+		SortSpec sort = new SortSpec(IAnyResource.SP_RES_ID, SortOrderEnum.ASC);
+		List<String> keysetPaged = searchAllPages(sort);
+
+		assertEquals(8, keysetPaged.size());
+		assertEquals(searchUnpaged(sort), keysetPaged);
+	}
+
+	@Test
+	public void testNextPageTokenDoesNotReloadLastRow() {
+		for (int i = 0; i < 4; i++) {
+			createPatient(withFamily("FAMILY" + i));
+		}
+		SortSpec sort = new SortSpec(Constants.PARAM_LASTUPDATED);
+
+		// The first page has a following page and so produces a token, the second one doesn't
+		myCaptureQueriesListener.clear();
+		IBundleProvider firstPage = searchPage(sort, null, 2);
+		int firstPageSelects = myCaptureQueriesListener.countSelectQueries();
+		assertNotNull(firstPage.getNextPageSearchAfter());
+
+		myCaptureQueriesListener.clear();
+		IBundleProvider lastPage = searchPage(sort, firstPage.getNextPageSearchAfter(), 2);
+		int lastPageSelects = myCaptureQueriesListener.countSelectQueries();
+		assertNull(lastPage.getNextPageSearchAfter());
+
+		assertEquals(lastPageSelects, firstPageSelects);
+	}
+
+	@Test
+	public void testNextPageTokenDoesNotContainPidOfForcedId() {
+		for (int i = 0; i < 4; i++) {
+			createPatient(withId("forced-" + i));
+		}
+		SortSpec sort = new SortSpec(Constants.PARAM_LASTUPDATED);
+
+		IBundleProvider firstPage = searchPage(sort, null, 2);
+		String searchAfter = firstPage.getNextPageSearchAfter();
+		assertNotNull(searchAfter);
+
+		SearchAfterToken token = SearchAfterToken.decode(searchAfter, sort);
+		assertEquals("forced-1", token.getResourceId());
+		assertEquals("forced-1", token.getForcedId());
+		assertNull(token.getPid());
+		assertEquals(List.of("Patient/forced-2", "Patient/forced-3"), toUnqualifiedVersionlessIdValues(searchPage(sort, searchAfter, 2)));
+	}
+
+	@Test
+	public void testLastRowOfPageExpungedWhileLoadingPage() throws Exception {
+		myStorageSettings.setExpungeEnabled(true);
+		List<IIdType> ids = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			ids.add(createPatient(withFamily("FAMILY" + i)).toUnqualifiedVersionless());
+		}
+		SortSpec sort = new SortSpec(Constants.PARAM_LASTUPDATED);
+
+		// Expunge the last row of the first page after the page has been selected, and hide it
+		// from the page so that its resource isn't loaded
+		AtomicBoolean expunged = new AtomicBoolean();
+		IAnonymousInterceptor interceptor = (thePointcut, theArgs) -> {
+			IPreResourceAccessDetails details = theArgs.get(IPreResourceAccessDetails.class);
+			if (expunged.compareAndSet(false, true)) {
+				details.setDontReturnResourceAtIndex(details.size() - 1);
+				ExecutorService executor = Executors.newSingleThreadExecutor();
+				try {
+					executor.submit(() -> {
+						myPatientDao.delete(ids.get(1), new SystemRequestDetails());
+						myPatientDao.expunge(ids.get(1), new ExpungeOptions().setExpungeDeletedResources(true).setExpungeOldVersions(true), new SystemRequestDetails());
+					}).get();
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				} finally {
+					executor.shutdown();
+				}
+			}
+		};
+		myInterceptorRegistry.registerAnonymousInterceptor(Pointcut.STORAGE_PREACCESS_RESOURCES, interceptor);
+		IBundleProvider firstPage;
+		try {
+			firstPage = searchPage(sort, null, 2);
+		} finally {
+			myInterceptorRegistry.unregisterInterceptor(interceptor);
+		}
+
+		// The next page continues after the last row which still exists
+		assertEquals(List.of(ids.get(0).getValue()), toUnqualifiedVersionlessIdValues(firstPage));
+		assertNotNull(firstPage.getNextPageSearchAfter());
+		IBundleProvider secondPage = searchPage(sort, firstPage.getNextPageSearchAfter(), 2);
+		assertEquals(List.of(ids.get(2).getValue(), ids.get(3).getValue()), toUnqualifiedVersionlessIdValues(secondPage));
+	}
+
+	private List<String> searchAllPages(SortSpec theSort) {
+		List<String> retVal = new ArrayList<>();
+		String searchAfter = null;
+		int pages = 0;
+		do {
+			IBundleProvider outcome = searchPage(theSort, searchAfter, PAGE_SIZE);
+			assertTrue(outcome.isKeysetPaging());
+			List<String> ids = toUnqualifiedVersionlessIdValues(outcome, 0, PAGE_SIZE, true);
+			assertTrue(ids.size() <= PAGE_SIZE);
+			retVal.addAll(ids);
+			searchAfter = outcome.getNextPageSearchAfter();
+			assertTrue(++pages < 10, "Too many pages");
+		} while (searchAfter != null);
+		return retVal;
+	}
+
+	private IBundleProvider searchPage(SortSpec theSort, String theSearchAfter, int theCount) {
+		SearchParameterMap map = new SearchParameterMap();
+		map.setSort(theSort);
+		map.setCount(theCount);
+		map.setKeysetPaging(true);
+		map.setSearchAfter(theSearchAfter);
+		return myPatientDao.search(map, new SystemRequestDetails());
+	}
+
+	private List<String> searchUnpaged(SortSpec theSort) {
+		SearchParameterMap map = SearchParameterMap.newSynchronous();
+		map.setSort(theSort);
+		return toUnqualifiedVersionlessIdValues(myPatientDao.search(map, new SystemRequestDetails()));
+	}
+}
@@ -178,6 +178,7 @@ public class FhirResourceDaoR4Test extends BaseJpaR4Test {
 		myStorageSettings.setNormalizedQuantitySearchLevel(NormalizedQuantitySearchLevel.NORMALIZED_QUANTITY_SEARCH_NOT_SUPPORTED);
 		myStorageSettings.setHistoryCountMode(JpaStorageSettings.DEFAULT_HISTORY_COUNT_MODE);
 		myStorageSettings.setMassIngestionMode(false);
+		myStorageSettings.setResourceEncoding(new JpaStorageSettings().getResourceEncoding());
 	}
 
 	@BeforeEach
@@ -2901,6 +2902,31 @@ public class FhirResourceDaoR4Test extends BaseJpaR4Test {
 
 	}
 
+	@Test
+	public void testResourceEncodingJsonl() {
+		myStorageSettings.setResourceEncoding(ResourceEncodingEnum.JSONL);
+
+		Patient p = new Patient();
+		p.addName().setFamily("Ünïcødé");
+		p.setGender(AdministrativeGender.FEMALE);
+		IIdType id = myPatientDao.create(p, mySrd).getId().toUnqualifiedVersionless();
+
+		runInTransaction(() -> {
+			ResourceHistoryTable history = myResourceHistoryTableDao.findForIdAndVersionAndFetchProvenance(id.getIdPartAsLong(), 1L);
+			assertEquals(ResourceEncodingEnum.JSONL, history.getEncoding());
+			assertNull(history.getResourceTextVc());
+			assertNotNull(history.getResource());
+		});
+
+		Patient read = myPatientDao.read(id, mySrd);
+		assertEquals("Ünïcødé", read.getNameFirstRep().getFamily());
+		assertEquals(AdministrativeGender.FEMALE, read.getGender());
+
+		// An update with identical content is detected as unchanged
+		read.setId(id);
+		assertEquals("1", myPatientDao.update(read, mySrd).getId().getVersionIdPart());
+	}
+
 	/**
 	 * Can we handle content that was previously saved containing vocabulary that
 	 * is no longer valid
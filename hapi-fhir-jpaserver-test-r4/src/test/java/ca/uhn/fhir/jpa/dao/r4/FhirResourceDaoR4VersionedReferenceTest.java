@@ -58,6 +58,7 @@ public class FhirResourceDaoR4VersionedReferenceTest extends BaseJpaR4Test {
 		myStorageSettings.setDeleteEnabled(new JpaStorageSettings().isDeleteEnabled());
 		myStorageSettings.setRespectVersionsForSearchIncludes(new JpaStorageSettings().isRespectVersionsForSearchIncludes());
 		myStorageSettings.setAutoVersionReferenceAtPaths(new JpaStorageSettings().getAutoVersionReferenceAtPaths());
+		myStorageSettings.setSearchResourceParseThreadCount(new JpaStorageSettings().getSearchResourceParseThreadCount());
 	}
 
 	@Test
@@ -658,6 +659,52 @@ public class FhirResourceDaoR4VersionedReferenceTest extends BaseJpaR4Test {
 		assertEquals(conditionId.withVersion("4").getValue(), resources.get(1).getIdElement().getValue());
 	}
 
+	/**
+	 * Versioned include targets are loaded as history entities with lazily loaded tags, so
+	 * they must not be parsed on the search resource parse pool
+	 */
+	@Test
+	public void testSearchAndIncludeVersionedReference_ParsedInParallel() {
+		HashSet<String> refPaths = new HashSet<String>();
+		refPaths.add("Task.basedOn");
+		myFhirContext.getParserOptions().setDontStripVersionsFromReferencesAtPaths(refPaths);
+		myStorageSettings.setRespectVersionsForSearchIncludes(true);
+		myFhirContext.getParserOptions().setStripVersionsFromReferences(false);
+		myStorageSettings.setSearchResourceParseThreadCount(4);
+
+		int count = 60;
+		for (int i = 0; i < count; i++) {
+			// Create a tagged Condition, and then update it so that the Task references an old version
+			Condition condition = new Condition();
+			condition.getMeta().addTag("http://tags", "tag" + i, null);
+			IIdType conditionId = myConditionDao.create(condition).getId().toUnqualified();
+			condition.setId(conditionId.toVersionless());
+			condition.setRecordedDate(new Date());
+			myConditionDao.update(condition);
+
+			Task task = new Task();
+			task.getMeta().addTag("http://tags", "tag" + i, null);
+			task.setBasedOn(Arrays.asList(new Reference(conditionId)));
+			myTaskDao.create(task);
+		}
+
+		IBundleProvider outcome = myTaskDao.search(SearchParameterMap.newSynchronous().addInclude(Task.INCLUDE_BASED_ON));
+		List<IBaseResource> resources = outcome.getResources(0, count * 2);
+		assertEquals(count * 2, resources.size());
+
+		List<Task> tasks = resources.stream().filter(t -> t instanceof Task).map(t -> (Task) t).collect(Collectors.toList());
+		List<Condition> conditions = resources.stream().filter(t -> t instanceof Condition).map(t -> (Condition) t).collect(Collectors.toList());
+		assertEquals(count, tasks.size());
+		assertEquals(count, conditions.size());
+		for (Task next : tasks) {
+			assertEquals(1, next.getMeta().getTag().size());
+		}
+		for (Condition next : conditions) {
+			assertEquals("1", next.getIdElement().getVersionIdPart());
+			assertEquals(1, next.getMeta().getTag().size());
+		}
+	}
+
 	@Test
 	public void testSearchAndIncludeVersionedReference_WhenPreviouslyReferencedVersionOne() {
 		HashSet<String> refPaths = new HashSet<String>();
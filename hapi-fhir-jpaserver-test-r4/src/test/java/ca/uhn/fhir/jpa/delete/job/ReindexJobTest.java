@@ -13,12 +13,14 @@ import ca.uhn.fhir.jpa.api.config.JpaStorageSettings;
 import ca.uhn.fhir.jpa.api.dao.ReindexParameters;
 import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.batch.models.Batch2JobStartResponse;
+import ca.uhn.fhir.jpa.model.entity.ResourceEncodingEnum;
 import ca.uhn.fhir.jpa.model.entity.ResourceHistoryTable;
 import ca.uhn.fhir.jpa.model.entity.ResourceTable;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.test.BaseJpaR4Test;
 import ca.uhn.fhir.jpa.test.PatientReindexTestHelper;
 import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
+import com.google.common.hash.Hashing;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.hl7.fhir.r4.model.Observation;
 import org.hl7.fhir.r4.model.Patient;
@@ -41,6 +43,7 @@ import static org.hamcrest.Matchers.blankOrNullString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -70,6 +73,7 @@ public class ReindexJobTest extends BaseJpaR4Test {
 		myStorageSettings.setInlineResourceTextBelowSize(new JpaStorageSettings().getInlineResourceTextBelowSize());
 		myStorageSettings.setStoreMetaSourceInformation(new JpaStorageSettings().getStoreMetaSourceInformation());
 		myStorageSettings.setPreserveRequestIdInResourceBody(new JpaStorageSettings().isPreserveRequestIdInResourceBody());
+		myStorageSettings.setResourceEncoding(new JpaStorageSettings().getResourceEncoding());
 	}
 
 	@Test
@@ -126,6 +130,55 @@ public class ReindexJobTest extends BaseJpaR4Test {
 	}
 
 
+	@Test
+	public void testOptimizeStorage_CurrentVersion_ReEncode() {
+		// Setup
+		myStorageSettings.setResourceEncoding(ResourceEncodingEnum.JSONC);
+		IIdType patientId = createPatient(withActiveTrue());
+		Patient p = new Patient();
+		p.setId(patientId.toUnqualifiedVersionless());
+		p.setActive(false);
+		myPatientDao.update(p, mySrd);
+
+		runInTransaction(()->{
+			for (ResourceHistoryTable history : myResourceHistoryTableDao.findAll()) {
+				assertEquals(ResourceEncodingEnum.JSONC, history.getEncoding());
+			}
+		});
+
+		myStorageSettings.setResourceEncoding(ResourceEncodingEnum.JSONL);
+
+		// execute
+		JobInstanceStartRequest startRequest = new JobInstanceStartRequest();
+		startRequest.setJobDefinitionId(ReindexAppCtx.JOB_REINDEX);
+		startRequest.setParameters(
+			new ReindexJobParameters()
+				.setOptimizeStorage(ReindexParameters.OptimizeStorageModeEnum.CURRENT_VERSION)
+				.setReindexSearchParameters(ReindexParameters.ReindexSearchParametersEnum.NONE)
+		);
+		Batch2JobStartResponse startResponse = myJobCoordinator.startInstance(startRequest);
+		myBatch2JobHelper.awaitJobCompletion(startResponse);
+
+		// validate
+		runInTransaction(()->{
+			ResourceTable entity = myResourceTableDao.findById(patientId.getIdPartAsLong()).orElseThrow();
+			ResourceHistoryTable current = myResourceHistoryTableDao.findForIdAndVersionAndFetchProvenance(patientId.getIdPartAsLong(), 2L);
+			assertEquals(ResourceEncodingEnum.JSONL, current.getEncoding());
+			assertEquals(Hashing.sha256().hashBytes(current.getResource()).toString(), entity.getHashSha256());
+			ResourceHistoryTable previous = myResourceHistoryTableDao.findForIdAndVersionAndFetchProvenance(patientId.getIdPartAsLong(), 1L);
+			assertEquals(ResourceEncodingEnum.JSONC, previous.getEncoding());
+		});
+		Patient patient = myPatientDao.read(patientId, mySrd);
+		assertFalse(patient.getActive());
+		assertTrue(myPatientDao.read(patientId.withVersion("1"), mySrd).getActive());
+
+		// An update with identical content is still detected as unchanged
+		p = new Patient();
+		p.setId(patientId.toUnqualifiedVersionless());
+		p.setActive(false);
+		assertEquals("2", myPatientDao.update(p, mySrd).getId().getVersionIdPart());
+	}
+
 	@Test
 	public void testOptimizeStorage_AllVersions() {
 		// Setup
@@ -7,6 +7,7 @@ import ca.uhn.fhir.jpa.model.config.PartitionSettings;
 import ca.uhn.fhir.jpa.model.entity.StorageSettings;
 import ca.uhn.fhir.jpa.search.builder.predicate.ResourceTablePredicateBuilder;
 import com.google.common.collect.Lists;
+import com.healthmarketscience.sqlbuilder.OrderObject;
 import org.hibernate.dialect.DerbyTenSevenDialect;
 import org.hibernate.dialect.MariaDB103Dialect;
 import org.hibernate.dialect.MySQL8Dialect;
@@ -24,6 +25,7 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.Date;
 import java.util.Locale;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -436,6 +438,52 @@ public class SearchQueryBuilderTest {
 
 	}
 	
+	@Test
+	public void testSearchAfterPredicate_PostgreSQL() {
+
+		HibernatePropertiesProvider dialectProvider = new HibernatePropertiesProvider();
+		dialectProvider.setDialectForUnitTest(new PostgreSQL95Dialect());
+		SearchQueryBuilder builder = new SearchQueryBuilder(myFhirContext, myStorageSettings, myPartitionSettings, myRequestPartitionId, "Patient", mySqlBuilderFactory, dialectProvider, false);
+		ResourceTablePredicateBuilder resourceTable = builder.getOrCreateResourceTablePredicateBuilder();
+		Date lastUpdated = new Date(1000L);
+
+		// Ascending
+		builder.addPredicate(builder.createSearchAfterPredicate(resourceTable.getColumnLastUpdated(), lastUpdated, null, resourceTable.getResourceIdColumn(), 500L, true));
+		GeneratedSql generated = builder.generate(null, null);
+		assertEquals("SELECT t0.RES_ID FROM HFJ_RESOURCE t0 WHERE (((t0.RES_TYPE = ?) AND (t0.RES_DELETED_AT IS NULL)) AND ((t0.RES_UPDATED > ?) OR ((t0.RES_UPDATED = ?) AND (t0.RES_ID > ?))))", generated.getSql());
+		assertThat(generated.getBindVariables().toString(), generated.getBindVariables(), contains("Patient", lastUpdated, lastUpdated, 500L));
+
+		// Descending, nullable, sorted with nulls first
+		builder = new SearchQueryBuilder(myFhirContext, myStorageSettings, myPartitionSettings, myRequestPartitionId, "Patient", mySqlBuilderFactory, dialectProvider, false);
+		resourceTable = builder.getOrCreateResourceTablePredicateBuilder();
+		builder.addPredicate(builder.createSearchAfterPredicate(resourceTable.getColumnLastUpdated(), lastUpdated, OrderObject.NullOrder.FIRST, resourceTable.getResourceIdColumn(), 500L, false));
+		generated = builder.generate(null, null);
+		assertEquals("SELECT t0.RES_ID FROM HFJ_RESOURCE t0 WHERE (((t0.RES_TYPE = ?) AND (t0.RES_DELETED_AT IS NULL)) AND ((t0.RES_UPDATED < ?) OR ((t0.RES_UPDATED = ?) AND (t0.RES_ID < ?))))", generated.getSql());
+
+		// Ascending, nullable, sorted with nulls last, previous page ended in the nulls
+		builder = new SearchQueryBuilder(myFhirContext, myStorageSettings, myPartitionSettings, myRequestPartitionId, "Patient", mySqlBuilderFactory, dialectProvider, false);
+		resourceTable = builder.getOrCreateResourceTablePredicateBuilder();
+		builder.addPredicate(builder.createSearchAfterPredicate(resourceTable.getColumnLastUpdated(), null, OrderObject.NullOrder.LAST, resourceTable.getResourceIdColumn(), 500L, true));
+		generated = builder.generate(null, null);
+		assertEquals("SELECT t0.RES_ID FROM HFJ_RESOURCE t0 WHERE (((t0.RES_TYPE = ?) AND (t0.RES_DELETED_AT IS NULL)) AND ((t0.RES_UPDATED IS NULL) AND (t0.RES_ID > ?)))", generated.getSql());
+		assertThat(generated.getBindVariables().toString(), generated.getBindVariables(), contains("Patient", 500L));
+	}
+
+	@Test
+	public void testSearchAfterPredicate_MySQL() {
+
+		HibernatePropertiesProvider dialectProvider = new HibernatePropertiesProvider();
+		dialectProvider.setDialectForUnitTest(new MySQL8Dialect());
+		SearchQueryBuilder builder = new SearchQueryBuilder(myFhirContext, myStorageSettings, myPartitionSettings, myRequestPartitionId, "Patient", mySqlBuilderFactory, dialectProvider, false);
+		ResourceTablePredicateBuilder resourceTable = builder.getOrCreateResourceTablePredicateBuilder();
+		Date lastUpdated = new Date(1000L);
+
+		// MySQL always sorts nulls as the lowest values
+		builder.addPredicate(builder.createSearchAfterPredicate(resourceTable.getColumnLastUpdated(), lastUpdated, OrderObject.NullOrder.LAST, resourceTable.getResourceIdColumn(), 500L, false));
+		GeneratedSql generated = builder.generate(null, null);
+		assertEquals("SELECT t0.RES_ID FROM HFJ_RESOURCE t0 WHERE (((t0.RES_TYPE = ?) AND (t0.RES_DELETED_AT IS NULL)) AND (((t0.RES_UPDATED < ?) OR ((t0.RES_UPDATED = ?) AND (t0.RES_ID < ?))) OR (t0.RES_UPDATED IS NULL)))", generated.getSql());
+	}
+
 	@Configuration
 	public static class MyConfig {
 
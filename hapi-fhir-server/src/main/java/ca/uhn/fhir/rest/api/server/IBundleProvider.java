@@ -107,6 +107,30 @@ public interface IBundleProvider {
 		return null;
 	}
 
+	/**
+	 * Returns <code>true</code> if the results in this bundle were produced by a keyset (aka seek) paged
+	 * query. Such a query returns exactly one page of results and nothing is retained on the server
+	 * between pages, so the server must not try to store the results in its paging provider. Instead it
+	 * forms a next page link which repeats the original request with a
+	 * {@link ca.uhn.fhir.rest.api.Constants#PARAM_SEARCH_AFTER} value taken from
+	 * {@link #getNextPageSearchAfter()}.
+	 *
+	 * @since 7.0.0
+	 */
+	default boolean isKeysetPaging() {
+		return false;
+	}
+
+	/**
+	 * If {@link #isKeysetPaging()} returns <code>true</code>, returns the opaque token identifying the last
+	 * result on this page, or <code>null</code> if this is the last page.
+	 *
+	 * @since 7.0.0
+	 */
+	default String getNextPageSearchAfter() {
+		return null;
+	}
+
 	/**
 	 * Returns the instant as of which this result was created. The
 	 * result of this value is used to populate the <code>lastUpdated</code>
@@ -0,0 +1,248 @@
+/*
+ * #%L
+ * HAPI FHIR - Server Framework
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.server;
+
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.lang3.Validate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * In-memory paging provider which can be used by any number of concurrent requests without
+ * them waiting on each other. Stored result lists are evicted oldest first, when any of the
+ * following limits is exceeded:
+ * <ul>
+ *    <li>The maximum number of stored result lists, which must be supplied to the constructor.</li>
+ *    <li>The time to live, if one is {@link #setTimeToLive(Duration) set}. Result lists are
+ *    evicted once they were stored longer ago than this.</li>
+ *    <li>The maximum total weight, if one is {@link #setMaximumTotalWeight(long) set}. The weight of
+ *    each result list is calculated by a {@link #setWeigher(ToLongFunction) weigher}, which by default
+ *    uses the number of resources in the list as a proxy for the memory it holds. A result list which
+ *    is heavier than the maximum total weight on its own is evicted as soon as it has been stored, so
+ *    its later pages will not be available.</li>
+ * </ul>
+ * Eviction happens as result lists are stored and retrieved, without any background thread. The limits
+ * are applied without locking, so when requests race they may briefly be exceeded, or a result list may
+ * be evicted slightly early.
+ *
+ * @since 7.0.0
+ */
+public class ConcurrentMemoryPagingProvider extends BasePagingProvider {
+
+	/**
+	 * Default weigher, which uses the number of resources in the result list (or 1 if
+	 * the size is unknown)
+	 */
+	public static final ToLongFunction<IBundleProvider> DEFAULT_WEIGHER = t -> {
+		Integer size = t.size();
+		return size != null ? Math.max(size, 1) : 1;
+	};
+
+	private final Map<String, StoredResultList> myResultLists = new ConcurrentHashMap<>();
+	private final Queue<String> myStorageOrder = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger myCount = new AtomicInteger();
+	private final AtomicLong myTotalWeight = new AtomicLong();
+	private final int myMaximumCount;
+	private long myTimeToLiveNanos;
+	private long myMaximumTotalWeight;
+	private ToLongFunction<IBundleProvider> myWeigher = DEFAULT_WEIGHER;
+	private LongSupplier myNanoTime = System::nanoTime;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theMaximumCount The maximum number of result lists to store
+	 */
+	public ConcurrentMemoryPagingProvider(int theMaximumCount) {
+		Validate.isTrue(theMaximumCount > 0, "theMaximumCount must be greater than 0");
+		myMaximumCount = theMaximumCount;
+	}
+
+	/**
+	 * Returns the maximum number of result lists to store
+	 */
+	public int getMaximumCount() {
+		return myMaximumCount;
+	}
+
+	/**
+	 * Returns the time after which stored result lists are evicted, or <code>null</code> (the default)
+	 * if they are only evicted when other limits are exceeded
+	 */
+	@Nullable
+	public Duration getTimeToLive() {
+		return myTimeToLiveNanos > 0 ? Duration.ofNanos(myTimeToLiveNanos) : null;
+	}
+
+	/**
+	 * Sets the time after which stored result lists are evicted, or <code>null</code> (the default)
+	 * if they should only be evicted when other limits are exceeded
+	 */
+	public ConcurrentMemoryPagingProvider setTimeToLive(@Nullable Duration theTimeToLive) {
+		Validate.isTrue(
+				theTimeToLive == null || !theTimeToLive.isNegative() && !theTimeToLive.isZero(),
+				"theTimeToLive must be greater than 0");
+		myTimeToLiveNanos = theTimeToLive != null ? theTimeToLive.toNanos() : 0;
+		return this;
+	}
+
+	/**
+	 * Returns the maximum total weight of all stored result lists, or 0 (the default) if there is no limit
+	 */
+	public long getMaximumTotalWeight() {
+		return myMaximumTotalWeight;
+	}
+
+	/**
+	 * Sets the maximum total weight of all stored result lists, as calculated by the
+	 * {@link #setWeigher(ToLongFunction) weigher}. A value of 0 (the default) means there is no limit.
+	 * This should be set before the provider is used, since only result lists stored afterward are weighed.
+	 */
+	public ConcurrentMemoryPagingProvider setMaximumTotalWeight(long theMaximumTotalWeight) {
+		Validate.isTrue(theMaximumTotalWeight >= 0, "theMaximumTotalWeight must not be negative");
+		myMaximumTotalWeight = theMaximumTotalWeight;
+		return this;
+	}
+
+	/**
+	 * Sets the function which calculates the weight of each stored result list. Defaults to
+	 * {@link #DEFAULT_WEIGHER}. Only used if a {@link #setMaximumTotalWeight(long) maximum total weight}
+	 * is set. The returned weight must not be negative.
+	 */
+	public ConcurrentMemoryPagingProvider setWeigher(@Nonnull ToLongFunction<IBundleProvider> theWeigher) {
+		Validate.notNull(theWeigher, "theWeigher must not be null");
+		myWeigher = theWeigher;
+		return this;
+	}
+
+	/**
+	 * Returns the number of result lists which are currently stored
+	 */
+	public int size() {
+		return myCount.get();
+	}
+
+	/**
+	 * Returns the total weight of the result lists which are currently stored
+	 */
+	public long getTotalWeight() {
+		return myTotalWeight.get();
+	}
+
+	@Override
+	public IBundleProvider retrieveResultList(@Nullable RequestDetails theRequest, @Nonnull String theId) {
+		StoredResultList resultList = myResultLists.get(theId);
+		if (resultList == null) {
+			return null;
+		}
+		if (isExpired(resultList, myNanoTime.getAsLong())) {
+			remove(theId);
+			return null;
+		}
+		return resultList.myBundleProvider;
+	}
+
+	@Override
+	public String storeResultList(@Nullable RequestDetails theRequestDetails, IBundleProvider theList) {
+		long weight = 0;
+		if (myMaximumTotalWeight > 0) {
+			weight = myWeigher.applyAsLong(theList);
+			Validate.isTrue(weight >= 0, "Weigher returned a negative weight: %d", weight);
+		}
+
+		String key = UUID.randomUUID().toString();
+		myResultLists.put(key, new StoredResultList(theList, myNanoTime.getAsLong(), weight));
+		myCount.incrementAndGet();
+		myTotalWeight.addAndGet(weight);
+		myStorageOrder.add(key);
+
+		evict();
+		return key;
+	}
+
+	/**
+	 * Evicts the oldest result lists while they have expired, or while any
+	 * of the other limits are exceeded. Keys in the storage order queue whose
+	 * result list has already been removed are discarded along the way.
+	 */
+	private void evict() {
+		long now = myNanoTime.getAsLong();
+		while (true) {
+			String oldest = myStorageOrder.peek();
+			if (oldest == null) {
+				return;
+			}
+			StoredResultList resultList = myResultLists.get(oldest);
+			boolean evict = resultList == null
+					|| myCount.get() > myMaximumCount
+					|| (myMaximumTotalWeight > 0 && myTotalWeight.get() > myMaximumTotalWeight)
+					|| isExpired(resultList, now);
+			if (!evict) {
+				return;
+			}
+			if (myStorageOrder.remove(oldest)) {
+				remove(oldest);
+			}
+		}
+	}
+
+	private void remove(String theId) {
+		StoredResultList removed = myResultLists.remove(theId);
+		if (removed != null) {
+			myCount.decrementAndGet();
+			myTotalWeight.addAndGet(-removed.myWeight);
+		}
+	}
+
+	private boolean isExpired(StoredResultList theResultList, long theNow) {
+		return myTimeToLiveNanos > 0 && theNow - theResultList.myStoredNanos > myTimeToLiveNanos;
+	}
+
+	@VisibleForTesting
+	void setNanoTimeForUnitTest(LongSupplier theNanoTime) {
+		myNanoTime = theNanoTime;
+	}
+
+	private static class StoredResultList {
+
+		private final IBundleProvider myBundleProvider;
+		private final long myStoredNanos;
+		private final long myWeight;
+
+		private StoredResultList(IBundleProvider theBundleProvider, long theStoredNanos, long theWeight) {
+			myBundleProvider = theBundleProvider;
+			myStoredNanos = theStoredNanos;
+			myWeight = theWeight;
+		}
+	}
+}
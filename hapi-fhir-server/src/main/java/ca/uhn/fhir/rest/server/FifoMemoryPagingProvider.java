@@ -19,38 +19,17 @@
  */
 package ca.uhn.fhir.rest.server;
 
-import ca.uhn.fhir.rest.api.server.IBundleProvider;
-import ca.uhn.fhir.rest.api.server.RequestDetails;
-import org.apache.commons.lang3.Validate;
-
-import java.util.LinkedHashMap;
-import java.util.UUID;
-
-public class FifoMemoryPagingProvider extends BasePagingProvider {
-
-	private final LinkedHashMap<String, IBundleProvider> myBundleProviders;
-	private final int mySize;
+/**
+ * In-memory paging provider which stores up to a fixed number of result lists, and
+ * evicts the oldest result list when that number is exceeded.
+ * <p>
+ * This is a {@link ConcurrentMemoryPagingProvider} which is only limited by count, so
+ * a time to live or maximum total weight may also be set on it.
+ * </p>
+ */
+public class FifoMemoryPagingProvider extends ConcurrentMemoryPagingProvider {
 
 	public FifoMemoryPagingProvider(int theSize) {
-		Validate.isTrue(theSize > 0, "theSize must be greater than 0");
-
-		mySize = theSize;
-		myBundleProviders = new LinkedHashMap<>(mySize);
-	}
-
-	@Override
-	public synchronized IBundleProvider retrieveResultList(RequestDetails theRequest, String theId) {
-		return myBundleProviders.get(theId);
-	}
-
-	@Override
-	public synchronized String storeResultList(RequestDetails theRequestDetails, IBundleProvider theList) {
-		while (myBundleProviders.size() > mySize) {
-			myBundleProviders.remove(myBundleProviders.keySet().iterator().next());
-		}
-
-		String key = UUID.randomUUID().toString();
-		myBundleProviders.put(key, theList);
-		return key;
+		super(theSize);
 	}
 }
@@ -87,6 +87,20 @@ public interface IRestfulServerDefaults {
 		return null;
 	}
 
+	/**
+	 * If this returns a value greater than zero, search result pages produced from an
+	 * {@link ca.uhn.fhir.rest.api.server.IBundleProvider} may be streamed to the client:
+	 * the Bundle envelope is written first and the entries are then loaded from the
+	 * provider and encoded this many resources at a time, instead of the whole page being
+	 * loaded into a Bundle before encoding starts. A value of zero (the default) disables
+	 * streaming.
+	 *
+	 * @since 7.0.0
+	 */
+	default int getStreamingBundleChunkSize() {
+		return 0;
+	}
+
 	/**
 	 * Should the server "pretty print" responses by default (requesting clients can always override this default by
 	 * supplying an <code>Accept</code> header in the request, or a <code>_pretty</code>
@@ -155,6 +155,7 @@ public class RestfulServer extends HttpServlet implements IRestfulServer<Servlet
 	private IPagingProvider myPagingProvider;
 	private Integer myDefaultPageSize;
 	private Integer myMaximumPageSize;
+	private int myStreamingBundleChunkSize = 0;
 	private boolean myStatelessPagingDefault = false;
 	private Lock myProviderRegistrationMutex = new ReentrantLock();
 	private Map<String, ResourceBinding> myResourceNameToBinding = new HashMap<>();
@@ -796,6 +797,31 @@ public class RestfulServer extends HttpServlet implements IRestfulServer<Servlet
 		myMaximumPageSize = theMaximumPageSize;
 	}
 
+	@Override
+	public int getStreamingBundleChunkSize() {
+		return myStreamingBundleChunkSize;
+	}
+
+	/**
+	 * If set to a value greater than zero (default is zero, meaning disabled), search result pages
+	 * returned by an {@link ca.uhn.fhir.rest.api.server.IBundleProvider} are streamed to the client: the Bundle envelope is
+	 * written first, and the entries are then loaded from the provider and encoded this many
+	 * resources at a time. This keeps the memory used by a large page proportional to the chunk
+	 * size rather than the page size.
+	 * <p>
+	 * Streaming only applies to JSON responses where the total number of results is known and
+	 * no interceptor is registered against {@link Pointcut#SERVER_OUTGOING_RESPONSE} (since those
+	 * interceptors expect to see the complete response Bundle). Other requests are handled
+	 * normally.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setStreamingBundleChunkSize(int theStreamingBundleChunkSize) {
+		Validate.isTrue(theStreamingBundleChunkSize >= 0, "theStreamingBundleChunkSize must not be negative");
+		myStreamingBundleChunkSize = theStreamingBundleChunkSize;
+	}
+
 	/**
 	 * Provides the non-resource specific providers which implement method calls on this server
 	 *
@@ -36,6 +36,7 @@ import ca.uhn.fhir.rest.api.*;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.method.ElementsParameter;
+import ca.uhn.fhir.rest.server.method.StreamingBundleEntries;
 import ca.uhn.fhir.rest.server.method.SummaryEnumParameter;
 import ca.uhn.fhir.rest.server.servlet.ServletRequestDetails;
 import ca.uhn.fhir.util.BinaryUtil;
@@ -222,6 +223,36 @@ public class RestfulServerUtils {
 			Integer theOffset,
 			Integer theCount,
 			Map<String, String[]> theRequestParameters) {
+		Map<String, String[]> params = Maps.newLinkedHashMap(theRequestParameters);
+		params.put(Constants.PARAM_OFFSET, new String[] {String.valueOf(theOffset)});
+		params.put(Constants.PARAM_COUNT, new String[] {String.valueOf(theCount)});
+
+		return createRequestPathLink(theBundleLinks, requestPath, tenantId, params);
+	}
+
+	/**
+	 * Creates a link to the next page of a keyset (aka seek) paged search. The link repeats the original
+	 * request with the {@link Constants#PARAM_SEARCH_AFTER} parameter set to the given token.
+	 *
+	 * @since 7.0.0
+	 */
+	public static String createSearchAfterPagingLink(
+			BundleLinks theBundleLinks,
+			String theRequestPath,
+			String theTenantId,
+			String theSearchAfter,
+			Integer theCount,
+			Map<String, String[]> theRequestParameters) {
+		Map<String, String[]> params = Maps.newLinkedHashMap(theRequestParameters);
+		params.remove(Constants.PARAM_OFFSET);
+		params.put(Constants.PARAM_SEARCH_AFTER, new String[] {theSearchAfter});
+		params.put(Constants.PARAM_COUNT, new String[] {String.valueOf(theCount)});
+
+		return createRequestPathLink(theBundleLinks, theRequestPath, theTenantId, params);
+	}
+
+	private static String createRequestPathLink(
+			BundleLinks theBundleLinks, String requestPath, String tenantId, Map<String, String[]> params) {
 		StringBuilder b = new StringBuilder();
 		b.append(theBundleLinks.serverBase);
 
@@ -234,10 +265,6 @@ public class RestfulServerUtils {
 			}
 		}
 
-		Map<String, String[]> params = Maps.newLinkedHashMap(theRequestParameters);
-		params.put(Constants.PARAM_OFFSET, new String[] {String.valueOf(theOffset)});
-		params.put(Constants.PARAM_COUNT, new String[] {String.valueOf(theCount)});
-
 		boolean first = true;
 		for (String nextParamName : new TreeSet<>(params.keySet())) {
 			for (String nextParamValue : params.get(nextParamName)) {
@@ -937,6 +964,10 @@ public class RestfulServerUtils {
 				// malicious images or HTML blocks being served up as content.
 				contentType = getBinaryContentTypeOrDefault(bin);
 				response.addHeader(Constants.HEADER_CONTENT_DISPOSITION, "Attachment;");
+				String contentEncoding = BinaryUtil.getContentEncoding(bin);
+				if (isNotBlank(contentEncoding)) {
+					response.addHeader(Constants.HEADER_CONTENT_ENCODING, contentEncoding);
+				}
 
 				Integer contentLength = null;
 				if (bin.hasData()) {
@@ -996,6 +1027,20 @@ public class RestfulServerUtils {
 		}
 		String charset = Constants.CHARSET_NAME_UTF8;
 
+		/*
+		 * Load streamed Bundle entries (or at least the first chunk of them) before the
+		 * response is committed, so that a failing search still gets an error response
+		 */
+		StreamingBundleEntries streamingEntries = StreamingBundleEntries.fromResponseResource(theResource);
+		if (streamingEntries != null) {
+			if (responseEncoding.getEncoding() == EncodingEnum.JSON) {
+				streamingEntries.loadFirstChunk();
+			} else {
+				streamingEntries.populate((IBaseBundle) theResource);
+				streamingEntries = null;
+			}
+		}
+
 		Writer writer = response.getResponseWriter(theStatusCode, contentType, charset, respondGzip);
 
 		// Interceptor call: SERVER_OUTGOING_WRITER_CREATED
@@ -1028,7 +1073,12 @@ public class RestfulServerUtils {
 		} else {
 			FhirVersionEnum forVersion = theResource.getStructureFhirVersionEnum();
 			IParser parser = getNewParser(theServer.getFhirContext(), forVersion, theRequestDetails);
-			parser.encodeResourceToWriter(theResource, writer);
+
+			if (streamingEntries != null) {
+				streamingEntries.encode(parser, (IBaseBundle) theResource, writer);
+			} else {
+				parser.encodeResourceToWriter(theResource, writer);
+			}
 		}
 
 		return response.commitResponse(writer);
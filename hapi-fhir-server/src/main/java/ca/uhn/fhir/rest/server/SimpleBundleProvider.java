@@ -41,6 +41,8 @@ public class SimpleBundleProvider implements IBundleProvider {
 	private IPrimitiveType<Date> myPublished = InstantDt.withCurrentTime();
 	private Integer myCurrentPageOffset;
 	private Integer myCurrentPageSize;
+	private boolean myKeysetPaging;
+	private String myNextPageSearchAfter;
 	private ResponsePage.ResponsePageBuilder myPageBuilder;
 
 	/**
@@ -118,6 +120,36 @@ public class SimpleBundleProvider implements IBundleProvider {
 		myCurrentPageSize = theCurrentPageSize;
 	}
 
+	/**
+	 * @since 7.0.0
+	 */
+	@Override
+	public boolean isKeysetPaging() {
+		return myKeysetPaging;
+	}
+
+	/**
+	 * @since 7.0.0
+	 */
+	public void setKeysetPaging(boolean theKeysetPaging) {
+		myKeysetPaging = theKeysetPaging;
+	}
+
+	/**
+	 * @since 7.0.0
+	 */
+	@Override
+	public String getNextPageSearchAfter() {
+		return myNextPageSearchAfter;
+	}
+
+	/**
+	 * @since 7.0.0
+	 */
+	public void setNextPageSearchAfter(String theNextPageSearchAfter) {
+		myNextPageSearchAfter = theNextPageSearchAfter;
+	}
+
 	/**
 	 * Returns the results stored in this provider
 	 */
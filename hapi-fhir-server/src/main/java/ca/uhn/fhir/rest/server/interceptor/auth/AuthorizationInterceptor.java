@@ -146,12 +146,25 @@ public class AuthorizationInterceptor implements IRuleApplier {
 			IIdType theInputResourceId,
 			IBaseResource theOutputResource,
 			Pointcut thePointcut) {
-		@SuppressWarnings("unchecked")
-		List<IAuthRule> rules =
-				(List<IAuthRule>) theRequestDetails.getUserData().get(myRequestRuleListKey);
-		if (rules == null) {
-			rules = buildRuleList(theRequestDetails);
-			theRequestDetails.getUserData().put(myRequestRuleListKey, rules);
+		IndexedRuleList ruleList =
+				(IndexedRuleList) theRequestDetails.getUserData().get(myRequestRuleListKey);
+		if (ruleList == null) {
+			ruleList = new IndexedRuleList(buildRuleList(theRequestDetails));
+			theRequestDetails.getUserData().put(myRequestRuleListKey, ruleList);
+		}
+
+		/*
+		 * Outgoing resources are checked individually (e.g. every resource in a
+		 * search result), so only apply the rules which can apply to them
+		 */
+		List<IAuthRule> rules;
+		if (theInputResource == null && theInputResourceId == null && theOutputResource != null) {
+			rules = ruleList.getRulesForOutputResource(
+					theOperation,
+					theRequestDetails.getFhirContext().getResourceType(theOutputResource),
+					theOutputResource.getIdElement().getResourceType());
+		} else {
+			rules = ruleList.getRules();
 		}
 		Set<AuthorizationFlagsEnum> flags = getFlags();
 
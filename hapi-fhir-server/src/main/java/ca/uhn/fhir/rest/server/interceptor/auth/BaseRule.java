@@ -32,6 +32,7 @@ import org.hl7.fhir.instance.model.api.IIdType;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import javax.annotation.Nullable;
 
 abstract class BaseRule implements IAuthRule {
 	private String myName;
@@ -133,6 +134,22 @@ abstract class BaseRule implements IAuthRule {
 		return new Verdict(myMode, this);
 	}
 
+	/**
+	 * Returns <code>false</code> if this rule can never return a verdict when it is applied to an
+	 * outgoing resource (i.e. there is no input resource or input resource ID) of the given type,
+	 * for the given operation. This is used to index the rules which are evaluated against each
+	 * resource in a response, so implementations must return <code>true</code> whenever they
+	 * are not certain.
+	 *
+	 * @param theOperation          The operation being authorized
+	 * @param theResourceType       The resource type of the outgoing resource
+	 * @param theResourceIdType     The resource type in the ID of the outgoing resource, or <code>null</code> if the ID does not have one
+	 */
+	boolean isCandidateForOutputResource(
+			RestOperationTypeEnum theOperation, String theResourceType, @Nullable String theResourceIdType) {
+		return true;
+	}
+
 	protected boolean isResourceAccess(Pointcut thePointcut) {
 		return thePointcut.equals(Pointcut.STORAGE_PREACCESS_RESOURCES)
 				|| thePointcut.equals(Pointcut.STORAGE_PRESHOW_RESOURCES);
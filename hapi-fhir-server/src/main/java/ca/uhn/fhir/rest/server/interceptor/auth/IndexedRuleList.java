@@ -0,0 +1,87 @@
+/*
+ * #%L
+ * HAPI FHIR - Server Framework
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.server.interceptor.auth;
+
+import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
+import org.apache.commons.lang3.tuple.Triple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * The rules which apply to an individual request, along with an index of the rules
+ * which are able to render a verdict for an outgoing resource of a given type.
+ * <p>
+ * Searches apply the rules to every resource in the response, so rules which can never
+ * apply to a resource of the given type (e.g. a read rule for a different resource type,
+ * or a write rule) are left out of the rules used for that resource. Each index entry keeps
+ * the order of the original rule list, so the first rule which renders a verdict is always
+ * the same rule as when the full list is applied.
+ * </p>
+ */
+class IndexedRuleList {
+
+	private final List<IAuthRule> myRules;
+	private final Map<Triple<RestOperationTypeEnum, String, String>, List<IAuthRule>> myOutputResourceRules =
+			new ConcurrentHashMap<>();
+
+	IndexedRuleList(List<IAuthRule> theRules) {
+		myRules = theRules;
+	}
+
+	/**
+	 * Returns all rules, in the order they were supplied
+	 */
+	List<IAuthRule> getRules() {
+		return myRules;
+	}
+
+	/**
+	 * Returns the rules which could render a verdict for an outgoing resource (i.e. when
+	 * there is no input resource or input resource ID), in the order they were supplied
+	 *
+	 * @param theOperation      The operation being authorized
+	 * @param theResourceType   The resource type of the outgoing resource
+	 * @param theResourceIdType The resource type in the ID of the outgoing resource, if any
+	 */
+	List<IAuthRule> getRulesForOutputResource(
+			RestOperationTypeEnum theOperation, String theResourceType, @Nullable String theResourceIdType) {
+		return myOutputResourceRules.computeIfAbsent(
+				Triple.of(theOperation, theResourceType, theResourceIdType),
+				k -> buildRulesForOutputResource(theOperation, theResourceType, theResourceIdType));
+	}
+
+	private List<IAuthRule> buildRulesForOutputResource(
+			RestOperationTypeEnum theOperation, String theResourceType, @Nullable String theResourceIdType) {
+		List<IAuthRule> retVal = new ArrayList<>(myRules.size());
+		for (IAuthRule next : myRules) {
+			if (next instanceof BaseRule
+					&& !((BaseRule) next)
+							.isCandidateForOutputResource(theOperation, theResourceType, theResourceIdType)) {
+				continue;
+			}
+			retVal.add(next);
+		}
+		return retVal;
+	}
+}
@@ -27,6 +27,7 @@ import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
 import java.util.Set;
+import javax.annotation.Nullable;
 
 public class RuleImplConditional extends BaseRule implements IAuthRule {
 
@@ -94,6 +95,13 @@ public class RuleImplConditional extends BaseRule implements IAuthRule {
 		return null;
 	}
 
+	@Override
+	boolean isCandidateForOutputResource(
+			RestOperationTypeEnum theOperation, String theResourceType, @Nullable String theResourceIdType) {
+		// Conditional operations are only authorized against the input resource
+		return false;
+	}
+
 	void setAppliesTo(AppliesTypeEnum theAppliesTo) {
 		myAppliesTo = theAppliesTo;
 	}
@@ -39,6 +39,7 @@ import ca.uhn.fhir.util.bundle.BundleEntryParts;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.tuple.Pair;
 import org.hl7.fhir.instance.model.api.IBaseBundle;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
@@ -48,6 +49,9 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -63,6 +67,7 @@ import static org.hl7.fhir.instance.model.api.IAnyResource.SP_RES_ID;
 @SuppressWarnings("EnumSwitchStatementWhichMissesCases")
 class RuleImplOp extends BaseRule /* implements IAuthRule */ {
 	private static final Logger ourLog = LoggerFactory.getLogger(RuleImplOp.class);
+	private static final String COMPARTMENT_OWNERS_CACHE_KEY = RuleImplOp.class.getName() + "_COMPARTMENTOWNERS";
 
 	private AppliesTypeEnum myAppliesTo;
 	private Set<String> myAppliesToTypes;
@@ -428,6 +433,39 @@ class RuleImplOp extends BaseRule /* implements IAuthRule */ {
 				theRuleApplier);
 	}
 
+	@Override
+	boolean isCandidateForOutputResource(
+			RestOperationTypeEnum theOperation, String theResourceType, @Nullable String theResourceIdType) {
+		switch (myOp) {
+			case READ:
+				// Mirrors the TYPES check in applyRule(..), where the target is the output resource
+				if (myAppliesTo == AppliesTypeEnum.TYPES && myAppliesToTypes != null) {
+					if (myClassifierType == ClassifierTypeEnum.ANY_ID && !myAppliesToTypes.contains(theResourceType)) {
+						return false;
+					}
+					if (theResourceIdType != null && !myAppliesToTypes.contains(theResourceIdType)) {
+						return false;
+					}
+				}
+				return true;
+			case WRITE:
+			case CREATE:
+				// These need an input resource or resource ID
+				return false;
+			case DELETE:
+				return theOperation == RestOperationTypeEnum.DELETE;
+			case GRAPHQL:
+				return theOperation == RestOperationTypeEnum.GRAPHQL_REQUEST;
+			case TRANSACTION:
+				return theOperation == RestOperationTypeEnum.TRANSACTION;
+			case METADATA:
+				return theOperation == RestOperationTypeEnum.METADATA;
+			case ALL:
+			default:
+				return true;
+		}
+	}
+
 	/**
 	 * Apply any special processing logic specific to this rule.
 	 * This is intended to be overridden.
@@ -501,6 +539,38 @@ class RuleImplOp extends BaseRule /* implements IAuthRule */ {
 		}
 	}
 
+	/**
+	 * Returns the owners of every compartment named {@link #myClassifierCompartmentName} which
+	 * contains the given outgoing resource, including the resource itself. This is the same
+	 * check as {@link FhirTerser#isSourceInCompartmentForTarget(String, IBaseResource, IIdType, Set)}
+	 * for all owners at once, and the result is cached for the remainder of the request.
+	 */
+	private Set<String> getCompartmentOwnersForOutputResource(
+			RequestDetails theRequestDetails,
+			FhirTerser theTerser,
+			IBaseResource theResource,
+			@Nullable Set<String> theAdditionalSearchParamNames) {
+		@SuppressWarnings("unchecked")
+		Map<IBaseResource, Map<Pair<String, Set<String>>, Set<String>>> cache =
+				(Map<IBaseResource, Map<Pair<String, Set<String>>, Set<String>>>) theRequestDetails
+						.getUserData()
+						.computeIfAbsent(COMPARTMENT_OWNERS_CACHE_KEY, k -> new IdentityHashMap<>());
+
+		Pair<String, Set<String>> cacheKey = Pair.of(myClassifierCompartmentName, theAdditionalSearchParamNames);
+		return cache.computeIfAbsent(theResource, k -> new HashMap<>()).computeIfAbsent(cacheKey, k -> {
+			Set<String> retVal = new HashSet<>();
+			for (IIdType next : theTerser.getCompartmentOwnersForResource(
+					myClassifierCompartmentName, theResource, theAdditionalSearchParamNames)) {
+				retVal.add(next.toUnqualifiedVersionless().getValue());
+			}
+			if (theResource.getIdElement().hasIdPart()) {
+				String resourceType = theRequestDetails.getFhirContext().getResourceType(theResource);
+				retVal.add(resourceType + '/' + theResource.getIdElement().getIdPart());
+			}
+			return retVal;
+		});
+	}
+
 	@Nullable
 	private Verdict applyRuleToCompartment(
 			RestOperationTypeEnum theOperation,
@@ -515,6 +585,23 @@ class RuleImplOp extends BaseRule /* implements IAuthRule */ {
 		FhirTerser t = ctx.newTerser();
 		boolean foundMatch = false;
 
+		Set<String> additionalSearchParamNames = null;
+		if (target.resource != null && myAdditionalCompartmentSearchParamMap != null) {
+			additionalSearchParamNames = myAdditionalCompartmentSearchParamMap.getSearchParamNamesForResourceType(
+					ctx.getResourceType(target.resource));
+		}
+
+		/*
+		 * Outgoing resources are checked against every compartment rule, so the compartment
+		 * owners of each one are only calculated once per request. Input resources may still
+		 * be modified while the request is processed, so they are checked directly.
+		 */
+		Set<String> outputResourceCompartmentOwners = null;
+		if (target.resource != null && target.resource == theOutputResource) {
+			outputResourceCompartmentOwners = getCompartmentOwnersForOutputResource(
+					theRequestDetails, t, target.resource, additionalSearchParamNames);
+		}
+
 		if (target.resourceIds != null && target.resourceIds.size() > 0) {
 			boolean haveOwnersForAll = target.resourceIds.stream()
 					.allMatch(n -> myClassifierCompartmentOwners.contains(n.toUnqualifiedVersionless()));
@@ -524,14 +611,13 @@ class RuleImplOp extends BaseRule /* implements IAuthRule */ {
 		}
 
 		for (IIdType next : myClassifierCompartmentOwners) {
-			if (target.resource != null) {
-
-				Set<String> additionalSearchParamNames = null;
-				if (myAdditionalCompartmentSearchParamMap != null) {
-					additionalSearchParamNames =
-							myAdditionalCompartmentSearchParamMap.getSearchParamNamesForResourceType(
-									ctx.getResourceType(target.resource));
+			if (outputResourceCompartmentOwners != null) {
+				if (outputResourceCompartmentOwners.contains(
+						next.toUnqualifiedVersionless().getValue())) {
+					foundMatch = true;
+					break;
 				}
+			} else if (target.resource != null) {
 				if (t.isSourceInCompartmentForTarget(
 						myClassifierCompartmentName, target.resource, next, additionalSearchParamNames)) {
 					foundMatch = true;
@@ -26,6 +26,7 @@ import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
 import java.util.Set;
+import javax.annotation.Nullable;
 
 class RuleImplPatch extends BaseRule {
 	private boolean myAllRequests;
@@ -62,6 +63,13 @@ class RuleImplPatch extends BaseRule {
 		return null;
 	}
 
+	@Override
+	boolean isCandidateForOutputResource(
+			RestOperationTypeEnum theOperation, String theResourceType, @Nullable String theResourceIdType) {
+		// Only applies when there is no input or output resource
+		return false;
+	}
+
 	RuleImplPatch setAllRequests(boolean theAllRequests) {
 		myAllRequests = theAllRequests;
 		return this;
@@ -26,6 +26,7 @@ import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 
 import java.util.Set;
+import javax.annotation.Nullable;
 
 public class RuleImplUpdateHistoryRewrite extends BaseRule {
 
@@ -62,6 +63,12 @@ public class RuleImplUpdateHistoryRewrite extends BaseRule {
 		return null;
 	}
 
+	@Override
+	boolean isCandidateForOutputResource(
+			RestOperationTypeEnum theOperation, String theResourceType, @Nullable String theResourceIdType) {
+		return theOperation == RestOperationTypeEnum.UPDATE;
+	}
+
 	RuleImplUpdateHistoryRewrite setAllRequests(boolean theAllRequests) {
 		myAllRequests = theAllRequests;
 		return this;
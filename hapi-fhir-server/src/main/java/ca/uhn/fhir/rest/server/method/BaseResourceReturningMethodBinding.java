@@ -24,12 +24,14 @@ import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.RuntimeResourceDefinition;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.interceptor.api.HookParams;
+import ca.uhn.fhir.interceptor.api.IInterceptorBroadcaster;
 import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.model.api.IResource;
 import ca.uhn.fhir.model.api.Include;
 import ca.uhn.fhir.model.valueset.BundleTypeEnum;
 import ca.uhn.fhir.rest.api.BundleLinks;
 import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.EncodingEnum;
 import ca.uhn.fhir.rest.api.IVersionSpecificBundleFactory;
 import ca.uhn.fhir.rest.api.MethodOutcome;
 import ca.uhn.fhir.rest.api.SummaryEnum;
@@ -198,7 +200,7 @@ public abstract class BaseResourceReturningMethodBinding extends BaseMethodBindi
 							count,
 							responseBundleType,
 							linkSelf);
-					responseObject = myResponseBundleBuilder.buildResponseBundle(responseBundleRequest);
+					responseObject = buildResponseBundle(responseBundleRequest);
 				}
 				break;
 			}
@@ -221,6 +223,44 @@ public abstract class BaseResourceReturningMethodBinding extends BaseMethodBindi
 		return responseObject;
 	}
 
+	/**
+	 * Builds the response Bundle for a page of results. If the page is eligible for streaming
+	 * (see {@link ca.uhn.fhir.rest.server.IRestfulServerDefaults#getStreamingBundleChunkSize()}),
+	 * only the Bundle envelope is built here and the entries are loaded while the response is written.
+	 */
+	protected IBaseBundle buildResponseBundle(ResponseBundleRequest theResponseBundleRequest) {
+		if (isStreamingResponseBundleAllowed(theResponseBundleRequest)) {
+			IBaseBundle retVal = myResponseBundleBuilder.buildStreamingResponseBundle(
+					theResponseBundleRequest, theResponseBundleRequest.server.getStreamingBundleChunkSize());
+			if (retVal != null) {
+				return retVal;
+			}
+		}
+		return myResponseBundleBuilder.buildResponseBundle(theResponseBundleRequest);
+	}
+
+	private static boolean isStreamingResponseBundleAllowed(ResponseBundleRequest theResponseBundleRequest) {
+		RequestDetails requestDetails = theResponseBundleRequest.requestDetails;
+		if (theResponseBundleRequest.server.getStreamingBundleChunkSize() <= 0 || requestDetails.isSubRequest()) {
+			return false;
+		}
+
+		// Interceptors on this pointcut expect to see the complete response Bundle
+		IInterceptorBroadcaster interceptorBroadcaster = requestDetails.getInterceptorBroadcaster();
+		if (interceptorBroadcaster != null && interceptorBroadcaster.hasHooks(Pointcut.SERVER_OUTGOING_RESPONSE)) {
+			return false;
+		}
+
+		Set<SummaryEnum> summaryMode = RestfulServerUtils.determineSummaryMode(requestDetails);
+		if (summaryMode.contains(SummaryEnum.COUNT) || summaryMode.contains(SummaryEnum.TEXT)) {
+			return false;
+		}
+
+		EncodingEnum encoding = RestfulServerUtils.determineResponseEncodingWithDefault(requestDetails)
+				.getEncoding();
+		return encoding == EncodingEnum.JSON;
+	}
+
 	private ResponseBundleRequest buildResponseBundleRequest(
 			IRestfulServer<?> theServer,
 			RequestDetails theRequest,
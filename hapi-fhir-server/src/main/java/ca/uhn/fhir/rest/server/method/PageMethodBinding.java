@@ -96,7 +96,7 @@ public class PageMethodBinding extends BaseResourceReturningMethodBinding {
 
 		ResponseBundleRequest responseBundleRequest =
 				buildResponseBundleRequest(theServer, theRequest, thePagingAction, pagingProvider);
-		return myResponseBundleBuilder.buildResponseBundle(responseBundleRequest);
+		return buildResponseBundle(responseBundleRequest);
 	}
 
 	private ResponseBundleRequest buildResponseBundleRequest(
@@ -40,6 +40,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import javax.annotation.Nullable;
 
 /**
  * Service to build a FHIR Bundle from a request and a Bundle Provider
@@ -64,6 +65,62 @@ public class ResponseBundleBuilder {
 		return buildBundle(theResponseBundleRequest, responsePage, links);
 	}
 
+	/**
+	 * Builds the response Bundle for a page whose entries will be streamed to the client while the
+	 * response is written (see {@link ca.uhn.fhir.rest.server.IRestfulServerDefaults#getStreamingBundleChunkSize()}).
+	 * The returned Bundle has everything except its entries, which are described by a
+	 * {@link StreamingBundleEntries} attached to it.
+	 * <p>
+	 * Only pages whose links can be built without first loading the resources are
+	 * streamed, i.e. cached searches where the total number of results is known.
+	 * </p>
+	 *
+	 * @return Returns <code>null</code> if this page can not be streamed, in which case
+	 * {@link #buildResponseBundle(ResponseBundleRequest)} should be used instead
+	 */
+	@Nullable
+	IBaseBundle buildStreamingResponseBundle(ResponseBundleRequest theResponseBundleRequest, int theChunkSize) {
+		final IRestfulServer<?> server = theResponseBundleRequest.server;
+		final IBundleProvider bundleProvider = theResponseBundleRequest.bundleProvider;
+		final RequestedPage requestedPage = theResponseBundleRequest.requestedPage;
+
+		Integer size = bundleProvider.size();
+		if (myIsOffsetModeHistory
+				|| requestedPage.offset != null
+				|| !server.canStoreSearchResults()
+				|| size == null
+				|| bundleProvider.isKeysetPaging()
+				|| bundleProvider.getCurrentPageId() != null
+				|| bundleProvider.getCurrentPageOffset() != null) {
+			return null;
+		}
+
+		int pageSize = pagingCalculatePageSize(requestedPage, server.getPagingProvider());
+		int numToReturn = Math.max(0, Math.min(pageSize, size - theResponseBundleRequest.offset));
+		String searchId = pagingBuildSearchId(theResponseBundleRequest, numToReturn, size);
+
+		ResponsePage responsePage = new ResponsePage.ResponsePageBuilder()
+				.setSearchId(searchId)
+				.setPageSize(pageSize)
+				.setNumToReturn(numToReturn)
+				.setBundleProvider(bundleProvider)
+				.setResources(Collections.emptyList())
+				.build();
+
+		BundleLinks links = buildLinks(theResponseBundleRequest, responsePage);
+		IBaseBundle retVal = buildBundle(theResponseBundleRequest, responsePage, links);
+
+		StreamingBundleEntries entries = new StreamingBundleEntries(
+				theResponseBundleRequest,
+				links.serverBase,
+				theResponseBundleRequest.offset,
+				theResponseBundleRequest.offset + numToReturn,
+				theChunkSize);
+		entries.attachTo(retVal);
+
+		return retVal;
+	}
+
 	private static IBaseBundle buildBundle(
 			ResponseBundleRequest theResponseBundleRequest, ResponsePage pageResponse, BundleLinks links) {
 		final IRestfulServer<?> server = theResponseBundleRequest.server;
@@ -95,7 +152,7 @@ public class ResponseBundleBuilder {
 		int numToReturn;
 		String searchId = null;
 
-		if (requestedPage.offset != null || !server.canStoreSearchResults()) {
+		if (requestedPage.offset != null || !server.canStoreSearchResults() || bundleProvider.isKeysetPaging()) {
 			pageSize = offsetCalculatePageSize(server, requestedPage, bundleProvider.size());
 			numToReturn = pageSize;
 
@@ -182,7 +239,8 @@ public class ResponseBundleBuilder {
 			ResponsePage.ResponsePageBuilder theResponsePageBuilder) {
 		final List<IBaseResource> retval;
 		if ((theRequestedPage.offset != null && !myIsOffsetModeHistory)
-				|| theBundleProvider.getCurrentPageOffset() != null) {
+				|| theBundleProvider.getCurrentPageOffset() != null
+				|| theBundleProvider.isKeysetPaging()) {
 			// When offset query is done theResult already contains correct amount (+ their includes etc.) so return
 			// everything
 			retval = theBundleProvider.getResources(0, Integer.MAX_VALUE, theResponsePageBuilder);
@@ -209,7 +267,7 @@ public class ResponseBundleBuilder {
 		return retval;
 	}
 
-	private static void validateIds(List<IBaseResource> theResourceList) {
+	static void validateIds(List<IBaseResource> theResourceList) {
 		/*
 		 * Make sure all returned resources have an ID (if not, this is a bug
 		 * in the user server code)
@@ -225,7 +283,7 @@ public class ResponseBundleBuilder {
 		}
 	}
 
-	private static void removeNulls(List<IBaseResource> resourceList) {
+	static void removeNulls(List<IBaseResource> resourceList) {
 		/*
 		 * Remove any null entries in the list - This generally shouldn't happen but can if
 		 * data has been manually purged from the JPA database
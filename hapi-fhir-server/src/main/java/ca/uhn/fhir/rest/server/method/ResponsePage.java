@@ -149,7 +149,9 @@ public class ResponsePage {
 			return;
 		}
 
-		if (isBundleProviderOffsetPaging()) {
+		if (myBundleProvider != null && myBundleProvider.isKeysetPaging()) {
+			myPagingStyle = PagingStyle.KEYSET;
+		} else if (isBundleProviderOffsetPaging()) {
 			myPagingStyle = PagingStyle.BUNDLE_PROVIDER_OFFSETS;
 		} else if (myIsUsingOffsetPages) {
 			myPagingStyle = PagingStyle.NONCACHED_OFFSET;
@@ -188,6 +190,8 @@ public class ResponsePage {
 			case BUNDLE_PROVIDER_OFFSETS:
 			case BUNDLE_PROVIDER_PAGE_IDS:
 				return StringUtils.isNotBlank(myBundleProvider.getNextPageId());
+			case KEYSET:
+				return StringUtils.isNotBlank(myBundleProvider.getNextPageSearchAfter());
 			case NONCACHED_OFFSET:
 				if (myNumTotalResults == null) {
 					/*
@@ -250,6 +254,15 @@ public class ResponsePage {
 							myBundleProvider.getNextPageId(),
 							myResponseBundleRequest.getRequestParameters());
 					break;
+				case KEYSET:
+					next = RestfulServerUtils.createSearchAfterPagingLink(
+							theLinks,
+							myResponseBundleRequest.requestDetails.getRequestPath(),
+							myResponseBundleRequest.requestDetails.getTenantId(),
+							myBundleProvider.getNextPageSearchAfter(),
+							ObjectUtils.defaultIfNull(myBundleProvider.preferredPageSize(), myPageSize),
+							myResponseBundleRequest.getRequestParameters());
+					break;
 				case SAVED_SEARCH:
 					next = RestfulServerUtils.createPagingLink(
 							theLinks,
@@ -420,6 +433,8 @@ public class ResponsePage {
 	 * 							provide them. bundle provider will have a currentPageId
 	 * * Saved Search			- the server has a saved search object with an id that it
 	 * 							uses to page through results.
+	 * * Keyset				- the bundle provider returned a single keyset paged page and
+	 * 							provides the token identifying where the next page starts.
 	 */
 	private enum PagingStyle {
 		/**
@@ -441,6 +456,11 @@ public class ResponsePage {
 		 * that is used to page through results.
 		 */
 		SAVED_SEARCH,
+		/**
+		 * Paging is done by repeating the search for the rows following
+		 * the last row of the current page. Only next links are available.
+		 */
+		KEYSET,
 		/**
 		 * No paging is done at all.
 		 * No previous nor next links will be available, even if previous or next
@@ -0,0 +1,539 @@
+/*-
+ * #%L
+ * HAPI FHIR - Server Framework
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.rest.server.method;
+
+import ca.uhn.fhir.context.BaseRuntimeChildDefinition;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.RuntimeResourceDefinition;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.model.valueset.BundleEntrySearchModeEnum;
+import ca.uhn.fhir.parser.IJsonLikeParser;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.parser.json.BaseJsonLikeWriter;
+import ca.uhn.fhir.parser.json.jackson.JacksonStructure;
+import ca.uhn.fhir.rest.api.BundleLinks;
+import ca.uhn.fhir.rest.api.IVersionSpecificBundleFactory;
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.api.server.IRestfulServer;
+import ca.uhn.fhir.util.FhirTerser;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.hl7.fhir.instance.model.api.IBaseBundle;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.instance.model.api.IIdType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.commons.lang3.StringUtils.stripStart;
+
+/**
+ * Describes the entries of a response Bundle that are not added to the Bundle up front, but
+ * are instead loaded from the {@link IBundleProvider} and encoded a chunk at a time while the
+ * response is being written. An instance is attached to the (otherwise complete) response
+ * Bundle envelope as user data.
+ *
+ * @see ca.uhn.fhir.rest.server.IRestfulServerDefaults#getStreamingBundleChunkSize()
+ * @since 7.0.0
+ */
+public class StreamingBundleEntries {
+
+	private static final String USER_DATA_KEY = StreamingBundleEntries.class.getName();
+
+	private final ResponseBundleRequest myResponseBundleRequest;
+	private final String myServerBase;
+	private final int myFromIndex;
+	private final int myToIndex;
+	private final int myChunkSize;
+	private final Set<String> myAddedMatchIds = new HashSet<>();
+	private final Set<String> myAddedIncludeIds = new HashSet<>();
+	private IBaseBundle myFirstChunk;
+
+	StreamingBundleEntries(
+			ResponseBundleRequest theResponseBundleRequest,
+			String theServerBase,
+			int theFromIndex,
+			int theToIndex,
+			int theChunkSize) {
+		myResponseBundleRequest = theResponseBundleRequest;
+		myServerBase = theServerBase;
+		myFromIndex = theFromIndex;
+		myToIndex = theToIndex;
+		myChunkSize = theChunkSize;
+	}
+
+	void attachTo(IBaseBundle theBundle) {
+		theBundle.setUserData(USER_DATA_KEY, this);
+	}
+
+	/**
+	 * Loads the first chunk of entries ahead of {@link #encode(IParser, IBaseBundle, Writer)}. This
+	 * should be called before the response status is committed, so that a search which fails as soon
+	 * as its resources are loaded still produces a proper error response instead of a truncated Bundle.
+	 */
+	public void loadFirstChunk() {
+		if (myFirstChunk == null && myFromIndex < myToIndex) {
+			myFirstChunk = loadChunk(myFromIndex);
+		}
+	}
+
+	/**
+	 * Encodes the given Bundle envelope along with the streamed entries. Only the JSON encoding is
+	 * supported. The envelope and each chunk of entries are encoded by the parser as complete Bundles,
+	 * so all of the parser's settings (e.g. <code>_summary</code> and <code>_elements</code>) apply
+	 * exactly as they would to a single Bundle, but the entries of each chunk are written straight to
+	 * the envelope's <code>entry</code> array in the response.
+	 */
+	public void encode(IParser theParser, IBaseBundle theEnvelope, Writer theWriter) throws IOException {
+		theEnvelope.setUserData(USER_DATA_KEY, null);
+		IJsonLikeParser parser = (IJsonLikeParser) theParser;
+
+		EnvelopeRecordingWriter envelope = new EnvelopeRecordingWriter(getChildNamesAfterEntry(theEnvelope));
+		parser.encodeResourceToJsonLikeWriter(theEnvelope, envelope);
+
+		BaseJsonLikeWriter out = new JacksonStructure().getJsonLikeWriter(theWriter);
+		out.setPrettyPrint(envelope.isPrettyPrint());
+		out.init();
+		for (JsonEvent next : envelope.getEvents()) {
+			if (next == ENTRIES_PLACEHOLDER) {
+				EntryForwardingWriter entries = new EntryForwardingWriter(out);
+				for (int from = myFromIndex; from < myToIndex; from += myChunkSize) {
+					parser.encodeResourceToJsonLikeWriter(getChunk(from), entries);
+				}
+				entries.finish();
+			} else {
+				next.writeTo(out);
+			}
+		}
+		out.close();
+	}
+
+	private Set<String> getChildNamesAfterEntry(IBaseBundle theEnvelope) {
+		RuntimeResourceDefinition bundleDef =
+				myResponseBundleRequest.server.getFhirContext().getResourceDefinition(theEnvelope);
+		Set<String> retVal = new HashSet<>();
+		boolean afterEntry = false;
+		for (BaseRuntimeChildDefinition next : bundleDef.getChildren()) {
+			if (afterEntry) {
+				retVal.add(next.getElementName());
+			} else if ("entry".equals(next.getElementName())) {
+				afterEntry = true;
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Loads all of the entries into the given Bundle envelope. This is used if the response
+	 * can not be streamed after all (e.g. because it is not being encoded as JSON).
+	 */
+	public void populate(IBaseBundle theEnvelope) {
+		theEnvelope.setUserData(USER_DATA_KEY, null);
+
+		BaseRuntimeChildDefinition entryChild = getEntryChild(theEnvelope);
+		for (int from = myFromIndex; from < myToIndex; from += myChunkSize) {
+			IBaseBundle chunk = getChunk(from);
+			for (IBase next : getEntryChild(chunk).getAccessor().getValues(chunk)) {
+				entryChild.getMutator().addValue(theEnvelope, next);
+			}
+		}
+	}
+
+	private IBaseBundle getChunk(int theFromIndex) {
+		if (theFromIndex == myFromIndex && myFirstChunk != null) {
+			IBaseBundle retVal = myFirstChunk;
+			myFirstChunk = null;
+			return retVal;
+		}
+		return loadChunk(theFromIndex);
+	}
+
+	private IBaseBundle loadChunk(int theFromIndex) {
+		IRestfulServer<?> server = myResponseBundleRequest.server;
+		int toIndex = Math.min(theFromIndex + myChunkSize, myToIndex);
+
+		List<IBaseResource> resources = new ArrayList<>(myResponseBundleRequest.bundleProvider.getResources(
+				theFromIndex, toIndex, new ResponsePage.ResponsePageBuilder()));
+		ResponseBundleBuilder.removeNulls(resources);
+		ResponseBundleBuilder.validateIds(resources);
+
+		// Only the server base is needed here (for the entry fullUrls), the links belong to the envelope
+		BundleLinks links = new BundleLinks(myServerBase, null, false, myResponseBundleRequest.bundleType);
+		IVersionSpecificBundleFactory bundleFactory = server.getFhirContext().newBundleFactory();
+		bundleFactory.addRootPropertiesToBundle(null, links, null, null);
+		bundleFactory.addResourcesToBundle(
+				resources,
+				myResponseBundleRequest.bundleType,
+				myServerBase,
+				server.getBundleInclusionRule(),
+				myResponseBundleRequest.includes);
+		IBaseBundle retVal = (IBaseBundle) bundleFactory.getResourceBundle();
+
+		removeEntriesAlreadyAdded(retVal);
+		return retVal;
+	}
+
+	/**
+	 * Each chunk is loaded separately, so a resource that is included (e.g. via <code>_include</code>)
+	 * by resources in more than one chunk, or included by one chunk and matched in a later one, would
+	 * otherwise be written more than once. As in a Bundle built in one go, each resource is only written
+	 * once, except that matches are never removed because of an earlier match. Since entries which
+	 * have been written can't be taken back, the first entry for a resource is the one which is kept.
+	 */
+	private void removeEntriesAlreadyAdded(IBaseBundle theChunk) {
+		FhirContext ctx = myResponseBundleRequest.server.getFhirContext();
+		FhirTerser terser = ctx.newTerser();
+		BaseRuntimeChildDefinition entryChild = getEntryChild(theChunk);
+
+		List<IBase> entries = entryChild.getAccessor().getValues(theChunk);
+		List<Integer> indexesToRemove = new ArrayList<>();
+		for (int i = 0; i < entries.size(); i++) {
+			IBaseResource resource = terser.getSingleValueOrNull(entries.get(i), "resource", IBaseResource.class);
+			if (resource == null
+					|| resource.getIdElement() == null
+					|| !resource.getIdElement().hasIdPart()) {
+				continue;
+			}
+			IIdType id = resource.getIdElement();
+			String key = ctx.getResourceType(resource) + "/" + id.getIdPart();
+			boolean include = BundleEntrySearchModeEnum.INCLUDE
+					.getCode()
+					.equals(terser.getSinglePrimitiveValueOrNull(entries.get(i), "search.mode"));
+			boolean alreadyAdded = myAddedIncludeIds.contains(key) || (include && myAddedMatchIds.contains(key));
+			if (alreadyAdded) {
+				indexesToRemove.add(i);
+			} else if (include) {
+				myAddedIncludeIds.add(key);
+			} else {
+				myAddedMatchIds.add(key);
+			}
+		}
+
+		for (int i = indexesToRemove.size() - 1; i >= 0; i--) {
+			entryChild.getMutator().remove(theChunk, indexesToRemove.get(i));
+		}
+	}
+
+	private BaseRuntimeChildDefinition getEntryChild(IBaseBundle theBundle) {
+		RuntimeResourceDefinition bundleDef =
+				myResponseBundleRequest.server.getFhirContext().getResourceDefinition(theBundle);
+		return bundleDef.getChildByName("entry");
+	}
+
+	/**
+	 * Returns the streamed entries attached to the given response resource, or <code>null</code>
+	 * if the resource is not a Bundle whose entries are streamed
+	 */
+	public static StreamingBundleEntries fromResponseResource(IBaseResource theResource) {
+		if (theResource instanceof IBaseBundle) {
+			Object retVal = theResource.getUserData(USER_DATA_KEY);
+			if (retVal instanceof StreamingBundleEntries) {
+				return (StreamingBundleEntries) retVal;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * A single call made by the parser on a {@link BaseJsonLikeWriter}, which can be replayed on another writer
+	 */
+	@FunctionalInterface
+	private interface JsonEvent {
+		void writeTo(BaseJsonLikeWriter theWriter) throws IOException;
+	}
+
+	private static final JsonEvent ENTRIES_PLACEHOLDER = t -> {
+		throw new IllegalStateException(Msg.code(2459) + "Entry placeholder must not be written");
+	};
+
+	/**
+	 * Receives the calls made by the parser, without writing anything itself
+	 */
+	private abstract static class BaseEventHandlingWriter extends BaseJsonLikeWriter {
+
+		abstract void onBegin(String theName, JsonEvent theEvent) throws IOException;
+
+		abstract void onValue(String theName, JsonEvent theEvent) throws IOException;
+
+		abstract void onEnd(JsonEvent theEvent) throws IOException;
+
+		@Override
+		public BaseJsonLikeWriter init() {
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter flush() {
+			return this;
+		}
+
+		@Override
+		public void close() {
+			// nothing
+		}
+
+		@Override
+		public BaseJsonLikeWriter beginObject() throws IOException {
+			onBegin(null, BaseJsonLikeWriter::beginObject);
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter beginObject(String theName) throws IOException {
+			onBegin(theName, t -> t.beginObject(theName));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter beginArray(String theName) throws IOException {
+			onBegin(theName, t -> t.beginArray(theName));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(String theValue) throws IOException {
+			onValue(null, t -> t.write(theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(BigInteger theValue) throws IOException {
+			onValue(null, t -> t.write(theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(BigDecimal theValue) throws IOException {
+			onValue(null, t -> t.write(theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(long theValue) throws IOException {
+			onValue(null, t -> t.write(theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(double theValue) throws IOException {
+			onValue(null, t -> t.write(theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(Boolean theValue) throws IOException {
+			onValue(null, t -> t.write(theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(boolean theValue) throws IOException {
+			onValue(null, t -> t.write(theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter writeNull() throws IOException {
+			onValue(null, BaseJsonLikeWriter::writeNull);
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(String theName, String theValue) throws IOException {
+			onValue(theName, t -> t.write(theName, theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(String theName, BigInteger theValue) throws IOException {
+			onValue(theName, t -> t.write(theName, theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(String theName, BigDecimal theValue) throws IOException {
+			onValue(theName, t -> t.write(theName, theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(String theName, long theValue) throws IOException {
+			onValue(theName, t -> t.write(theName, theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(String theName, double theValue) throws IOException {
+			onValue(theName, t -> t.write(theName, theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(String theName, Boolean theValue) throws IOException {
+			onValue(theName, t -> t.write(theName, theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter write(String theName, boolean theValue) throws IOException {
+			onValue(theName, t -> t.write(theName, theValue));
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter endObject() throws IOException {
+			onEnd(BaseJsonLikeWriter::endObject);
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter endArray() throws IOException {
+			onEnd(BaseJsonLikeWriter::endArray);
+			return this;
+		}
+
+		@Override
+		public BaseJsonLikeWriter endBlock() throws IOException {
+			onEnd(BaseJsonLikeWriter::endBlock);
+			return this;
+		}
+	}
+
+	/**
+	 * Records the envelope as it is encoded, along with a placeholder marking where the
+	 * <code>entry</code> array belongs (i.e. before the first Bundle element which is
+	 * defined after <code>Bundle.entry</code>, or at the end of the Bundle)
+	 */
+	private static class EnvelopeRecordingWriter extends BaseEventHandlingWriter {
+
+		private final Set<String> myChildNamesAfterEntry;
+		private final List<JsonEvent> myEvents = new ArrayList<>();
+		private int myDepth;
+		private boolean myAddedPlaceholder;
+
+		private EnvelopeRecordingWriter(Set<String> theChildNamesAfterEntry) {
+			myChildNamesAfterEntry = theChildNamesAfterEntry;
+		}
+
+		List<JsonEvent> getEvents() {
+			return myEvents;
+		}
+
+		@Override
+		void onBegin(String theName, JsonEvent theEvent) {
+			addPlaceholderIfElementIsAfterEntry(theName);
+			myEvents.add(theEvent);
+			myDepth++;
+		}
+
+		@Override
+		void onValue(String theName, JsonEvent theEvent) {
+			addPlaceholderIfElementIsAfterEntry(theName);
+			myEvents.add(theEvent);
+		}
+
+		@Override
+		void onEnd(JsonEvent theEvent) {
+			if (myDepth == 1) {
+				addPlaceholder();
+			}
+			myDepth--;
+			myEvents.add(theEvent);
+		}
+
+		private void addPlaceholderIfElementIsAfterEntry(String theName) {
+			// Extensions on primitive elements are encoded as "_name"
+			if (myDepth == 1 && theName != null && myChildNamesAfterEntry.contains(stripStart(theName, "_"))) {
+				addPlaceholder();
+			}
+		}
+
+		private void addPlaceholder() {
+			if (!myAddedPlaceholder) {
+				myEvents.add(ENTRIES_PLACEHOLDER);
+				myAddedPlaceholder = true;
+			}
+		}
+	}
+
+	/**
+	 * Forwards the contents of the <code>entry</code> array of each encoded chunk to the response,
+	 * and discards the rest of the chunk
+	 */
+	private static class EntryForwardingWriter extends BaseEventHandlingWriter {
+
+		private final BaseJsonLikeWriter myTarget;
+		private int myDepth;
+		private boolean myInEntries;
+		private boolean myStartedEntryArray;
+
+		private EntryForwardingWriter(BaseJsonLikeWriter theTarget) {
+			myTarget = theTarget;
+		}
+
+		@Override
+		void onBegin(String theName, JsonEvent theEvent) throws IOException {
+			if (myDepth == 1 && "entry".equals(theName)) {
+				myInEntries = true;
+			} else if (myInEntries) {
+				forward(theEvent);
+			}
+			myDepth++;
+		}
+
+		@Override
+		void onValue(String theName, JsonEvent theEvent) throws IOException {
+			if (myInEntries) {
+				forward(theEvent);
+			}
+		}
+
+		@Override
+		void onEnd(JsonEvent theEvent) throws IOException {
+			myDepth--;
+			if (myInEntries) {
+				if (myDepth == 1) {
+					myInEntries = false;
+				} else {
+					forward(theEvent);
+				}
+			}
+		}
+
+		private void forward(JsonEvent theEvent) throws IOException {
+			if (!myStartedEntryArray) {
+				myTarget.beginArray("entry");
+				myStartedEntryArray = true;
+			}
+			theEvent.writeTo(myTarget);
+		}
+
+		void finish() throws IOException {
+			if (myStartedEntryArray) {
+				myTarget.endArray();
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package ca.uhn.fhir.rest.server;
+
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentMemoryPagingProviderTest {
+
+	@Test
+	public void testEvictByCount() {
+		ConcurrentMemoryPagingProvider provider = new ConcurrentMemoryPagingProvider(2);
+		IBundleProvider list0 = new SimpleBundleProvider();
+		IBundleProvider list1 = new SimpleBundleProvider();
+		IBundleProvider list2 = new SimpleBundleProvider();
+
+		String id0 = provider.storeResultList(null, list0);
+		String id1 = provider.storeResultList(null, list1);
+		assertSame(list0, provider.retrieveResultList(null, id0));
+
+		String id2 = provider.storeResultList(null, list2);
+		assertNull(provider.retrieveResultList(null, id0));
+		assertSame(list1, provider.retrieveResultList(null, id1));
+		assertSame(list2, provider.retrieveResultList(null, id2));
+		assertEquals(2, provider.size());
+	}
+
+	@Test
+	public void testEvictByTimeToLive() {
+		AtomicLong now = new AtomicLong();
+		ConcurrentMemoryPagingProvider provider = new ConcurrentMemoryPagingProvider(100);
+		provider.setNanoTimeForUnitTest(now::get);
+		provider.setTimeToLive(Duration.ofMinutes(1));
+
+		String id0 = provider.storeResultList(null, new SimpleBundleProvider());
+		now.addAndGet(Duration.ofSeconds(40).toNanos());
+		String id1 = provider.storeResultList(null, new SimpleBundleProvider());
+		now.addAndGet(Duration.ofSeconds(40).toNanos());
+
+		// Expired on retrieval
+		assertNull(provider.retrieveResultList(null, id0));
+		assertEquals(1, provider.size());
+
+		// Expired when another list is stored
+		now.addAndGet(Duration.ofSeconds(40).toNanos());
+		String id2 = provider.storeResultList(null, new SimpleBundleProvider());
+		assertEquals(1, provider.size());
+		assertNull(provider.retrieveResultList(null, id1));
+		assertNotNull(provider.retrieveResultList(null, id2));
+	}
+
+	@Test
+	public void testEvictByWeight() {
+		ConcurrentMemoryPagingProvider provider = new ConcurrentMemoryPagingProvider(100);
+		provider.setMaximumTotalWeight(10);
+
+		String id0 = provider.storeResultList(null, newBundleProvider(4));
+		String id1 = provider.storeResultList(null, newBundleProvider(4));
+		assertEquals(8, provider.getTotalWeight());
+
+		String id2 = provider.storeResultList(null, newBundleProvider(4));
+		assertNull(provider.retrieveResultList(null, id0));
+		assertNotNull(provider.retrieveResultList(null, id1));
+		assertNotNull(provider.retrieveResultList(null, id2));
+		assertEquals(8, provider.getTotalWeight());
+
+		// Heavier than the limit on its own
+		String id3 = provider.storeResultList(null, newBundleProvider(11));
+		assertNull(provider.retrieveResultList(null, id3));
+		assertEquals(0, provider.size());
+		assertEquals(0, provider.getTotalWeight());
+	}
+
+	@Test
+	public void testConcurrentStoreAndRetrieve() throws Exception {
+		ConcurrentMemoryPagingProvider provider = new ConcurrentMemoryPagingProvider(50);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < 1000; j++) {
+						IBundleProvider list = new SimpleBundleProvider();
+						String id = provider.storeResultList(null, list);
+						IBundleProvider retrieved = provider.retrieveResultList(null, id);
+						assertTrue(retrieved == null || retrieved == list);
+					}
+				}));
+			}
+			for (Future<?> next : futures) {
+				next.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		// Racing evictions may remove a few more lists than strictly needed
+		assertTrue(provider.size() <= 50 && provider.size() > 40, Integer.toString(provider.size()));
+	}
+
+	private static IBundleProvider newBundleProvider(int theSize) {
+		SimpleBundleProvider retVal = new SimpleBundleProvider();
+		retVal.setSize(theSize);
+		return retVal;
+	}
+}
@@ -0,0 +1,53 @@
+package ca.uhn.fhir.rest.server.interceptor.auth;
+
+import ca.uhn.fhir.model.primitive.IdDt;
+import ca.uhn.fhir.rest.api.RestOperationTypeEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class IndexedRuleListTest {
+
+	@Test
+	public void testGetRulesForOutputResource() {
+		List<IAuthRule> rules = new RuleBuilder()
+			.allow("read observations").read().resourcesOfType("Observation").withAnyId().andThen()
+			.allow("write patients").write().resourcesOfType("Patient").withAnyId().andThen()
+			.allow("read patients").read().resourcesOfType("Patient").withAnyId().andThen()
+			.allow("patch").patch().allRequests().andThen()
+			.allow("metadata").metadata().andThen()
+			.denyAll("deny all")
+			.build();
+		IndexedRuleList ruleList = new IndexedRuleList(rules);
+
+		assertEquals(List.of("read patients", "deny all"), toNames(ruleList.getRulesForOutputResource(RestOperationTypeEnum.SEARCH_TYPE, "Patient", "Patient")));
+		assertEquals(List.of("read observations", "deny all"), toNames(ruleList.getRulesForOutputResource(RestOperationTypeEnum.SEARCH_TYPE, "Observation", null)));
+		assertEquals(List.of("metadata", "deny all"), toNames(ruleList.getRulesForOutputResource(RestOperationTypeEnum.METADATA, "CapabilityStatement", null)));
+		assertEquals(6, ruleList.getRules().size());
+
+		assertSame(
+			ruleList.getRulesForOutputResource(RestOperationTypeEnum.SEARCH_TYPE, "Patient", "Patient"),
+			ruleList.getRulesForOutputResource(RestOperationTypeEnum.SEARCH_TYPE, "Patient", "Patient"));
+	}
+
+	@Test
+	public void testGetRulesForOutputResource_CompartmentRuleNeedsIdType() {
+		List<IAuthRule> rules = new RuleBuilder()
+			.allow("compartment").read().resourcesOfType("Observation").inCompartment("Patient", new IdDt("Patient/123")).andThen()
+			.denyAll("deny all")
+			.build();
+		IndexedRuleList ruleList = new IndexedRuleList(rules);
+
+		assertEquals(List.of("deny all"), toNames(ruleList.getRulesForOutputResource(RestOperationTypeEnum.SEARCH_TYPE, "Patient", "Patient")));
+		// Without a typed ID the compartment rule still applies its own checks
+		assertEquals(List.of("compartment", "deny all"), toNames(ruleList.getRulesForOutputResource(RestOperationTypeEnum.SEARCH_TYPE, "Patient", null)));
+	}
+
+	private static List<String> toNames(List<IAuthRule> theRules) {
+		return theRules.stream().map(IAuthRule::getName).collect(Collectors.toList());
+	}
+}
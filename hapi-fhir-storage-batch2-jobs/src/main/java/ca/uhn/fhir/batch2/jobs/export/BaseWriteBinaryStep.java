@@ -0,0 +1,484 @@
+/*-
+ * #%L
+ * hapi-fhir-storage-batch2-jobs
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.jobs.export;
+
+import ca.uhn.fhir.batch2.api.IJobDataSink;
+import ca.uhn.fhir.batch2.api.IJobStepWorker;
+import ca.uhn.fhir.batch2.api.JobExecutionFailedException;
+import ca.uhn.fhir.batch2.api.StepExecutionDetails;
+import ca.uhn.fhir.batch2.jobs.export.models.BulkExportBinaryFileId;
+import ca.uhn.fhir.batch2.jobs.export.models.ExpandedResourcesList;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
+import ca.uhn.fhir.jpa.binary.api.IBinaryStorageSvc;
+import ca.uhn.fhir.jpa.binary.api.StoredDetails;
+import ca.uhn.fhir.jpa.binary.svc.NullBinaryStorageSvcImpl;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.jpa.model.util.JpaConstants;
+import ca.uhn.fhir.jpa.util.RandomTextUtils;
+import ca.uhn.fhir.model.api.IModelJson;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
+import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
+import ca.uhn.fhir.util.BinaryUtil;
+import ca.uhn.fhir.util.FhirTerser;
+import ca.uhn.fhir.util.HapiExtensions;
+import com.google.common.base.Utf8;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import org.apache.commons.lang3.StringUtils;
+import org.hl7.fhir.instance.model.api.IBaseBinary;
+import org.hl7.fhir.instance.model.api.IBaseExtension;
+import org.hl7.fhir.instance.model.api.IBaseHasExtensions;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nonnull;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Common superclass for the bulk export steps which write expanded resources out
+ * into NDJSON Binary resources.
+ * <p>
+ * If {@link StorageSettings#isBulkExportStreamToBinaryStorage()} is enabled and a binary storage service
+ * is available, each file is streamed straight into the {@link IBinaryStorageSvc} one resource at a
+ * time, and the Binary resource is created afterward holding only a pointer to the stored blob. Otherwise
+ * the file is assembled in memory and embedded in the Binary, as it always has been.
+ * </p>
+ */
+public abstract class BaseWriteBinaryStep<IT extends IModelJson>
+		implements IJobStepWorker<BulkExportJobParameters, IT, BulkExportBinaryFileId> {
+	private final Logger myLog;
+
+	@Autowired
+	protected FhirContext myFhirContext;
+
+	@Autowired
+	protected DaoRegistry myDaoRegistry;
+
+	@Autowired
+	protected StorageSettings myStorageSettings;
+
+	@Autowired(required = false) // It is possible that some implementers will not create such a bean.
+	private IBinaryStorageSvc myBinaryStorageSvc;
+
+	/**
+	 * Constructor
+	 *
+	 * @param theLog The logger of the concrete step, so that output is still logged under its name
+	 */
+	protected BaseWriteBinaryStep(Logger theLog) {
+		myLog = theLog;
+	}
+
+	/**
+	 * Writes the given resources out into one or more Binary resources (more than one if
+	 * the output rolls over because of {@link StorageSettings#getBulkExportMaximumFileSize()}),
+	 * and passes the ID of each to the data sink.
+	 *
+	 * @return The number of resources written
+	 */
+	protected int writeBinaries(
+			StepExecutionDetails<BulkExportJobParameters, ?> theStepExecutionDetails,
+			ExpandedResourcesList theExpandedResources,
+			IJobDataSink<BulkExportBinaryFileId> theDataSink) {
+		return writeBinaries(
+				theStepExecutionDetails,
+				theExpandedResources.getResourceType(),
+				theExpandedResources.getStringifiedResources().iterator(),
+				theDataSink);
+	}
+
+	/**
+	 * Writes the given resources out into one or more Binary resources (more than one if
+	 * the output rolls over because of {@link StorageSettings#getBulkExportMaximumFileSize()}),
+	 * and passes the ID of each to the data sink. The resources are only pulled from the
+	 * iterator as they are written, so if it encodes them lazily only one encoded resource
+	 * is held in memory at a time.
+	 *
+	 * @return The number of resources written
+	 */
+	protected int writeBinaries(
+			StepExecutionDetails<BulkExportJobParameters, ?> theStepExecutionDetails,
+			String theResourceType,
+			Iterator<String> theEncodedResources,
+			IJobDataSink<BulkExportBinaryFileId> theDataSink) {
+
+		PeekingIterator<String> resources = Iterators.peekingIterator(theEncodedResources);
+		int processedRecordsCount = 0;
+		do {
+			NdJsonFileResources file =
+					new NdJsonFileResources(resources, myStorageSettings.getBulkExportMaximumFileSize());
+			IIdType id = writeBinary(theStepExecutionDetails, theResourceType, file);
+			myLog.info("Wrote {} resources to binary file {}", file.getCount(), id.getIdPart());
+
+			BulkExportBinaryFileId bulkExportBinaryFileId = new BulkExportBinaryFileId();
+			bulkExportBinaryFileId.setBinaryId(id.getValueAsString());
+			bulkExportBinaryFileId.setResourceType(theResourceType);
+			theDataSink.accept(bulkExportBinaryFileId);
+
+			processedRecordsCount += file.getCount();
+		} while (resources.hasNext());
+
+		myLog.info("Binary writing complete for {} resources of type {}.", processedRecordsCount, theResourceType);
+
+		return processedRecordsCount;
+	}
+
+	private IIdType writeBinary(
+			StepExecutionDetails<BulkExportJobParameters, ?> theStepExecutionDetails,
+			String theResourceType,
+			Iterator<String> theEncodedResources) {
+		@SuppressWarnings("unchecked")
+		IFhirResourceDao<IBaseBinary> binaryDao = myDaoRegistry.getResourceDao("Binary");
+
+		IBaseBinary binary = BinaryUtil.newBinary(myFhirContext);
+
+		addMetadataExtensionsToBinary(theStepExecutionDetails, theResourceType, binary);
+
+		// TODO
+		// should be dependent on the output format in parameters but for now, only NDJSON is supported
+		binary.setContentType(Constants.CT_FHIR_NDJSON);
+
+		// The content encoding is recorded on Binary.meta, which can't hold extensions on DSTU2
+		boolean gzip = myStorageSettings.isBulkExportGzipOutput() && binary.getMeta() instanceof IBaseHasExtensions;
+		if (gzip) {
+			IBaseExtension<?, ?> contentEncodingExtension = ((IBaseHasExtensions) binary.getMeta()).addExtension();
+			contentEncodingExtension.setUrl(HapiExtensions.EXT_BINARY_CONTENT_ENCODING);
+			contentEncodingExtension.setValue(myFhirContext.newPrimitiveString(Constants.ENCODING_GZIP));
+		}
+
+		SystemRequestDetails srd = new SystemRequestDetails();
+		BulkExportJobParameters jobParameters = theStepExecutionDetails.getParameters();
+		RequestPartitionId partitionId = jobParameters.getPartitionId();
+		if (partitionId == null) {
+			srd.setRequestPartitionId(RequestPartitionId.defaultPartition());
+		} else {
+			srd.setRequestPartitionId(partitionId);
+		}
+
+		if (myFhirContext.getVersion().getVersion().isNewerThan(FhirVersionEnum.DSTU2)) {
+			if (isNotBlank(jobParameters.getBinarySecurityContextIdentifierSystem())
+					|| isNotBlank(jobParameters.getBinarySecurityContextIdentifierValue())) {
+				FhirTerser terser = myFhirContext.newTerser();
+				terser.setElement(
+						binary,
+						"securityContext.identifier.system",
+						jobParameters.getBinarySecurityContextIdentifierSystem());
+				terser.setElement(
+						binary,
+						"securityContext.identifier.value",
+						jobParameters.getBinarySecurityContextIdentifierValue());
+			}
+		}
+
+		// Pick a unique ID and retry until we get one that isn't already used. This is just to
+		// avoid any possibility of people guessing the IDs of these Binaries and fishing for them.
+		while (true) {
+			// Use a random ID to make it harder to guess IDs - 32 characters of a-zA-Z0-9
+			// has 190 bts of entropy according to https://www.omnicalculator.com/other/password-entropy
+			String proposedId = RandomTextUtils.newSecureRandomAlphaNumericString(32);
+			binary.setId(proposedId);
+
+			// Make sure we don't accidentally reuse an ID. This should be impossible given the
+			// amount of entropy in the IDs but might as well be sure.
+			try {
+				IBaseBinary output = binaryDao.read(binary.getIdElement(), new SystemRequestDetails(), true);
+				if (output != null) {
+					continue;
+				}
+			} catch (ResourceNotFoundException e) {
+				// good
+			}
+
+			break;
+		}
+
+		// The blob is keyed by the Binary ID, so it must be stored after the ID is chosen
+		IIdType binaryId = binary.getIdElement().withResourceType("Binary");
+		String blobId = null;
+		try {
+			if (isStreamToBinaryStorage(binary)) {
+				StoredDetails storedDetails;
+				try (InputStream inputStream = new NdJsonInputStream(theEncodedResources, gzip)) {
+					storedDetails =
+							myBinaryStorageSvc.storeBlob(binaryId, null, Constants.CT_FHIR_NDJSON, inputStream, srd);
+				}
+				blobId = storedDetails.getBlobId();
+				replaceDataWithExtension(binary, blobId);
+				myLog.debug("Streamed {} bytes into blob {}", storedDetails.getBytes(), blobId);
+			} else {
+				try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+					try (OutputStreamWriter streamWriter = getStreamWriter(outputStream)) {
+						while (theEncodedResources.hasNext()) {
+							streamWriter.append(theEncodedResources.next());
+							streamWriter.append("\n");
+						}
+						streamWriter.flush();
+						outputStream.flush();
+					}
+					byte[] content = outputStream.toByteArray();
+					binary.setContent(gzip ? gzip(content) : content);
+				}
+			}
+		} catch (IOException ex) {
+			String errorMsg =
+					String.format("Failure to process resource of type %s : %s", theResourceType, ex.getMessage());
+			myLog.error(errorMsg);
+
+			throw new JobExecutionFailedException(Msg.code(2238) + errorMsg);
+		}
+
+		try {
+			DaoMethodOutcome outcome = binaryDao.update(binary, srd);
+			return outcome.getId();
+		} catch (RuntimeException e) {
+			if (blobId != null) {
+				// Nothing will ever point at the blob, so don't leave it behind
+				expungeBlobQuietly(binaryId, blobId, e);
+			}
+			throw e;
+		}
+	}
+
+	private void expungeBlobQuietly(IIdType theBinaryId, String theBlobId, RuntimeException theCause) {
+		try {
+			myBinaryStorageSvc.expungeBlob(theBinaryId, theBlobId);
+		} catch (RuntimeException e) {
+			myLog.warn("Failed to remove blob {} after failing to store Binary {}", theBlobId, theBinaryId, e);
+			theCause.addSuppressed(e);
+		}
+	}
+
+	private boolean isStreamToBinaryStorage(IBaseBinary theBinary) {
+		if (!myStorageSettings.isBulkExportStreamToBinaryStorage()) {
+			return false;
+		}
+		if (myBinaryStorageSvc == null || myBinaryStorageSvc instanceof NullBinaryStorageSvcImpl) {
+			return false;
+		}
+		// DSTU2 Binary content can not carry the externalized binary extension
+		return BinaryUtil.getOrCreateData(myFhirContext, theBinary) instanceof IBaseHasExtensions;
+	}
+
+	/**
+	 * Marks the Binary data as externalized in the same way the binary storage interceptor does, so
+	 * that it is transparently re-inflated when the Binary is read.
+	 */
+	private void replaceDataWithExtension(IBaseBinary theBinary, String theBlobId) {
+		IBaseHasExtensions data = (IBaseHasExtensions) BinaryUtil.getOrCreateData(myFhirContext, theBinary);
+		IBaseExtension<?, ?> ext = data.addExtension();
+		ext.setUrl(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID);
+		ext.setUserData(JpaConstants.EXTENSION_EXT_SYSTEMDEFINED, Boolean.TRUE);
+		ext.setValue(myFhirContext.newPrimitiveString(theBlobId));
+	}
+
+	/**
+	 * Adds 3 extensions to the `binary.meta` element.
+	 *
+	 * 1. the _exportId provided at request time
+	 * 2. the job_id of the job instance.
+	 * 3. the resource type of the resources contained in the binary
+	 */
+	private void addMetadataExtensionsToBinary(
+			@Nonnull StepExecutionDetails<BulkExportJobParameters, ?> theStepExecutionDetails,
+			String theResourceType,
+			IBaseBinary binary) {
+		// Note that this applies only to hl7.org structures, so these extensions will not be added
+		// to DSTU2 structures
+		if (binary.getMeta() instanceof IBaseHasExtensions) {
+			IBaseHasExtensions meta = (IBaseHasExtensions) binary.getMeta();
+
+			// export identifier, potentially null.
+			String exportIdentifier = theStepExecutionDetails.getParameters().getExportIdentifier();
+			if (!StringUtils.isBlank(exportIdentifier)) {
+				IBaseExtension<?, ?> exportIdentifierExtension = meta.addExtension();
+				exportIdentifierExtension.setUrl(JpaConstants.BULK_META_EXTENSION_EXPORT_IDENTIFIER);
+				exportIdentifierExtension.setValue(myFhirContext.newPrimitiveString(exportIdentifier));
+			}
+
+			// job id
+			IBaseExtension<?, ?> jobExtension = meta.addExtension();
+			jobExtension.setUrl(JpaConstants.BULK_META_EXTENSION_JOB_ID);
+			jobExtension.setValue(myFhirContext.newPrimitiveString(
+					theStepExecutionDetails.getInstance().getInstanceId()));
+
+			// resource type
+			IBaseExtension<?, ?> typeExtension = meta.addExtension();
+			typeExtension.setUrl(JpaConstants.BULK_META_EXTENSION_RESOURCE_TYPE);
+			typeExtension.setValue(myFhirContext.newPrimitiveString(theResourceType));
+		} else {
+			myLog.warn(
+					"Could not attach metadata extensions to binary resource, as this binary metadata does not support extensions");
+		}
+	}
+
+	/**
+	 * Returns an output stream writer
+	 * (exposed for testing)
+	 */
+	protected OutputStreamWriter getStreamWriter(ByteArrayOutputStream theOutputStream) {
+		return new OutputStreamWriter(theOutputStream, Constants.CHARSET_UTF8);
+	}
+
+	private static byte[] gzip(byte[] theContent) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+			gzipOutputStream.write(theContent);
+		}
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Yields resources from the underlying iterator until the next one would take the file
+	 * over the maximum file size. The first resource is always included, so a single resource
+	 * larger than the maximum still gets a file of its own.
+	 */
+	static class NdJsonFileResources implements Iterator<String> {
+		private final PeekingIterator<String> myResources;
+		private final long myMaximumFileSize;
+		private long myFileSize;
+		private int myCount;
+
+		NdJsonFileResources(PeekingIterator<String> theResources, long theMaximumFileSize) {
+			myResources = theResources;
+			myMaximumFileSize = theMaximumFileSize;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (!myResources.hasNext()) {
+				return false;
+			}
+			if (myCount == 0 || myMaximumFileSize == Long.MAX_VALUE) {
+				return true;
+			}
+			return myFileSize + sizeOf(myResources.peek()) <= myMaximumFileSize;
+		}
+
+		@Override
+		public String next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			String retVal = myResources.next();
+			if (myMaximumFileSize != Long.MAX_VALUE) {
+				myFileSize += sizeOf(retVal);
+			}
+			myCount++;
+			return retVal;
+		}
+
+		int getCount() {
+			return myCount;
+		}
+
+		private static long sizeOf(String theEncodedResource) {
+			// +1 for the newline
+			return Utf8.encodedLength(theEncodedResource) + 1L;
+		}
+	}
+
+	/**
+	 * An input stream which encodes (and optionally compresses) the NDJSON file lazily, one
+	 * resource at a time as the binary storage service reads from it, so that the file as a
+	 * whole never has to be held in memory.
+	 */
+	static class NdJsonInputStream extends InputStream {
+		private static final byte[] NEWLINE = {'\n'};
+
+		private final Iterator<String> myResources;
+		private final ExposedByteArrayOutputStream myBuffer = new ExposedByteArrayOutputStream();
+		private final OutputStream myTarget;
+		private int myPosition;
+		private boolean myFinished;
+
+		NdJsonInputStream(Iterator<String> theResources, boolean theGzip) throws IOException {
+			myResources = theResources;
+			myTarget = theGzip ? new GZIPOutputStream(myBuffer) : myBuffer;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!fillBuffer()) {
+				return -1;
+			}
+			return myBuffer.getBuffer()[myPosition++] & 0xFF;
+		}
+
+		@Override
+		public int read(@Nonnull byte[] theBytes, int theOffset, int theLength) throws IOException {
+			if (theLength == 0) {
+				return 0;
+			}
+			if (!fillBuffer()) {
+				return -1;
+			}
+			int count = Math.min(theLength, myBuffer.size() - myPosition);
+			System.arraycopy(myBuffer.getBuffer(), myPosition, theBytes, theOffset, count);
+			myPosition += count;
+			return count;
+		}
+
+		/**
+		 * @return <code>false</code> if there is nothing more to read
+		 */
+		private boolean fillBuffer() throws IOException {
+			while (myPosition >= myBuffer.size()) {
+				if (myFinished) {
+					return false;
+				}
+				myBuffer.reset();
+				myPosition = 0;
+				if (myResources.hasNext()) {
+					myTarget.write(myResources.next().getBytes(Constants.CHARSET_UTF8));
+					myTarget.write(NEWLINE);
+				} else {
+					// Flushes out any remaining compressed data and the gzip trailer
+					myTarget.close();
+					myFinished = true;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+		byte[] getBuffer() {
+			return buf;
+		}
+	}
+}
@@ -34,9 +34,11 @@ import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nonnull;
 
 import static org.slf4j.LoggerFactory.getLogger;
@@ -45,7 +47,10 @@ public class BulkExportCreateReportStep
 		implements IReductionStepWorker<BulkExportJobParameters, BulkExportBinaryFileId, BulkExportJobResults> {
 	private static final Logger ourLog = getLogger(BulkExportCreateReportStep.class);
 
-	private Map<String, List<String>> myResourceToBinaryIds;
+	/**
+	 * Job instance ID -> resource type -> binary IDs
+	 */
+	private final Map<String, Map<String, List<String>>> myInstanceIdToResourceToBinaryIds = new ConcurrentHashMap<>();
 
 	@Nonnull
 	@Override
@@ -53,19 +58,25 @@ public class BulkExportCreateReportStep
 			@Nonnull StepExecutionDetails<BulkExportJobParameters, BulkExportBinaryFileId> theStepExecutionDetails,
 			@Nonnull IJobDataSink<BulkExportJobResults> theDataSink)
 			throws JobExecutionFailedException {
+		String instanceId = theStepExecutionDetails.getInstance().getInstanceId();
+		Map<String, List<String>> resourceToBinaryIds = myInstanceIdToResourceToBinaryIds.remove(instanceId);
+
 		BulkExportJobResults results = new BulkExportJobResults();
 
 		String requestUrl = getOriginatingRequestUrl(theStepExecutionDetails, results);
 		results.setOriginalRequestUrl(requestUrl);
 
-		if (myResourceToBinaryIds != null) {
-			ourLog.info(
-					"Bulk Export Report creation step for instance: {}",
-					theStepExecutionDetails.getInstance().getInstanceId());
-
-			results.setResourceTypeToBinaryIds(myResourceToBinaryIds);
-
-			myResourceToBinaryIds = null;
+		if (resourceToBinaryIds != null) {
+			ourLog.info("Bulk Export Report creation step for instance: {}", instanceId);
+
+			// Chunks are consumed in parallel, so sort the IDs to keep the report stable between runs
+			Map<String, List<String>> resourceTypeToBinaryIds = new HashMap<>();
+			resourceToBinaryIds.forEach((k, v) -> {
+				List<String> binaryIds = new ArrayList<>(v);
+				Collections.sort(binaryIds);
+				resourceTypeToBinaryIds.put(k, binaryIds);
+			});
+			results.setResourceTypeToBinaryIds(resourceTypeToBinaryIds);
 		} else {
 			String msg = "Export complete, but no data to generate report for job instance: "
 					+ theStepExecutionDetails.getInstance().getInstanceId();
@@ -84,15 +95,27 @@ public class BulkExportCreateReportStep
 	public ChunkOutcome consume(
 			ChunkExecutionDetails<BulkExportJobParameters, BulkExportBinaryFileId> theChunkDetails) {
 		BulkExportBinaryFileId fileId = theChunkDetails.getData();
-		if (myResourceToBinaryIds == null) {
-			myResourceToBinaryIds = new HashMap<>();
-		}
+		myInstanceIdToResourceToBinaryIds
+				.computeIfAbsent(theChunkDetails.getInstanceId(), t -> new ConcurrentHashMap<>())
+				.computeIfAbsent(fileId.getResourceType(), t -> Collections.synchronizedList(new ArrayList<>()))
+				.add(fileId.getBinaryId());
 
-		myResourceToBinaryIds.putIfAbsent(fileId.getResourceType(), new ArrayList<>());
+		return ChunkOutcome.SUCCESS();
+	}
 
-		myResourceToBinaryIds.get(fileId.getResourceType()).add(fileId.getBinaryId());
+	/**
+	 * The report is a map of binary IDs collected separately for each job instance
+	 */
+	@Override
+	public boolean isAssociative() {
+		return true;
+	}
 
-		return ChunkOutcome.SUCCESS();
+	@Override
+	public void reductionAborted(String theInstanceId) {
+		if (myInstanceIdToResourceToBinaryIds.remove(theInstanceId) != null) {
+			ourLog.info("Discarded the Bulk Export report data for aborted instance: {}", theInstanceId);
+		}
 	}
 
 	private static String getOriginatingRequestUrl(
@@ -20,59 +20,38 @@
 package ca.uhn.fhir.batch2.jobs.export;
 
 import ca.uhn.fhir.batch2.api.IJobDataSink;
-import ca.uhn.fhir.batch2.api.IJobStepWorker;
 import ca.uhn.fhir.batch2.api.JobExecutionFailedException;
 import ca.uhn.fhir.batch2.api.RunOutcome;
 import ca.uhn.fhir.batch2.api.StepExecutionDetails;
 import ca.uhn.fhir.batch2.jobs.export.models.BulkExportBinaryFileId;
-import ca.uhn.fhir.batch2.jobs.export.models.ExpandedResourcesList;
 import ca.uhn.fhir.batch2.jobs.export.models.ResourceIdList;
-import ca.uhn.fhir.context.FhirContext;
-import ca.uhn.fhir.context.FhirVersionEnum;
-import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.interceptor.api.HookParams;
 import ca.uhn.fhir.interceptor.api.Pointcut;
 import ca.uhn.fhir.interceptor.executor.InterceptorService;
 import ca.uhn.fhir.interceptor.model.RequestPartitionId;
-import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
-import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
 import ca.uhn.fhir.jpa.api.model.PersistentIdToForcedIdMap;
 import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
 import ca.uhn.fhir.jpa.bulk.export.api.IBulkExportProcessor;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
-import ca.uhn.fhir.jpa.model.entity.StorageSettings;
-import ca.uhn.fhir.jpa.model.util.JpaConstants;
 import ca.uhn.fhir.jpa.searchparam.SearchParameterMap;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryMatchResult;
 import ca.uhn.fhir.jpa.searchparam.matcher.InMemoryResourceMatcher;
-import ca.uhn.fhir.jpa.util.RandomTextUtils;
 import ca.uhn.fhir.parser.IParser;
-import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.server.IBundleProvider;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
 import ca.uhn.fhir.rest.param.TokenOrListParam;
-import ca.uhn.fhir.rest.server.exceptions.ResourceNotFoundException;
 import ca.uhn.fhir.rest.server.interceptor.ResponseTerminologyTranslationSvc;
-import ca.uhn.fhir.util.BinaryUtil;
-import ca.uhn.fhir.util.FhirTerser;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.ListMultimap;
-import org.apache.commons.lang3.StringUtils;
-import org.hl7.fhir.instance.model.api.IBaseBinary;
-import org.hl7.fhir.instance.model.api.IBaseExtension;
-import org.hl7.fhir.instance.model.api.IBaseHasExtensions;
 import org.hl7.fhir.instance.model.api.IBaseResource;
-import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -82,18 +61,14 @@ import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 
 import static ca.uhn.fhir.rest.api.Constants.PARAM_ID;
-import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.slf4j.LoggerFactory.getLogger;
 
-public class ExpandResourceAndWriteBinaryStep
-		implements IJobStepWorker<BulkExportJobParameters, ResourceIdList, BulkExportBinaryFileId> {
+public class ExpandResourceAndWriteBinaryStep extends BaseWriteBinaryStep<ResourceIdList> {
 	private static final Logger ourLog = getLogger(ExpandResourceAndWriteBinaryStep.class);
 
-	@Autowired
-	private FhirContext myFhirContext;
-
-	@Autowired
-	private DaoRegistry myDaoRegistry;
+	public ExpandResourceAndWriteBinaryStep() {
+		super(ourLog);
+	}
 
 	@Autowired
 	private InMemoryResourceMatcher myInMemoryResourceMatcher;
@@ -101,9 +76,6 @@ public class ExpandResourceAndWriteBinaryStep
 	@Autowired
 	private IBulkExportProcessor<?> myBulkExportProcessor;
 
-	@Autowired
-	private StorageSettings myStorageSettings;
-
 	@Autowired
 	private ApplicationContext myApplicationContext;
 
@@ -125,114 +97,27 @@ public class ExpandResourceAndWriteBinaryStep
 			@Nonnull IJobDataSink<BulkExportBinaryFileId> theDataSink)
 			throws JobExecutionFailedException {
 
-		List<ExpandedResourcesList> expandedResourcesList = expandResourcesFromList(theStepExecutionDetails);
+		ListMultimap<String, IBaseResource> expandedResources = expandResourcesFromList(theStepExecutionDetails);
 		int numResourcesProcessed = 0;
 		ourLog.info("Write binary step of Job Export");
 
-		// write to binary each resource type separately, without chunking, we need to do this in a loop now
-		for (ExpandedResourcesList expandedResources : expandedResourcesList) {
-
-			numResourcesProcessed += expandedResources.getStringifiedResources().size();
-
-			ourLog.info("Writing {} resources to binary file", numResourcesProcessed);
-
-			@SuppressWarnings("unchecked")
-			IFhirResourceDao<IBaseBinary> binaryDao = myDaoRegistry.getResourceDao("Binary");
-
-			IBaseBinary binary = BinaryUtil.newBinary(myFhirContext);
-
-			addMetadataExtensionsToBinary(theStepExecutionDetails, expandedResources, binary);
-
-			// TODO
-			// should be dependent on the output format in parameters but for now, only NDJSON is supported
-			binary.setContentType(Constants.CT_FHIR_NDJSON);
-
-			int processedRecordsCount = 0;
-			try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-				try (OutputStreamWriter streamWriter = getStreamWriter(outputStream)) {
-					for (String stringified : expandedResources.getStringifiedResources()) {
-						streamWriter.append(stringified);
-						streamWriter.append("\n");
-						processedRecordsCount++;
-					}
-					streamWriter.flush();
-					outputStream.flush();
-				}
-				binary.setContent(outputStream.toByteArray());
-			} catch (IOException ex) {
-				String errorMsg = String.format(
-						"Failure to process resource of type %s : %s",
-						expandedResources.getResourceType(), ex.getMessage());
-				ourLog.error(errorMsg);
-
-				throw new JobExecutionFailedException(Msg.code(2431) + errorMsg);
-			}
-
-			SystemRequestDetails srd = new SystemRequestDetails();
-			BulkExportJobParameters jobParameters = theStepExecutionDetails.getParameters();
-			RequestPartitionId partitionId = jobParameters.getPartitionId();
-			if (partitionId == null) {
-				srd.setRequestPartitionId(RequestPartitionId.defaultPartition());
-			} else {
-				srd.setRequestPartitionId(partitionId);
-			}
-
-			// Pick a unique ID and retry until we get one that isn't already used. This is just to
-			// avoid any possibility of people guessing the IDs of these Binaries and fishing for them.
-			while (true) {
-				// Use a random ID to make it harder to guess IDs - 32 characters of a-zA-Z0-9
-				// has 190 bts of entropy according to https://www.omnicalculator.com/other/password-entropy
-				String proposedId = RandomTextUtils.newSecureRandomAlphaNumericString(32);
-				binary.setId(proposedId);
-
-				// Make sure we don't accidentally reuse an ID. This should be impossible given the
-				// amount of entropy in the IDs but might as well be sure.
-				try {
-					IBaseBinary output = binaryDao.read(binary.getIdElement(), new SystemRequestDetails(), true);
-					if (output != null) {
-						continue;
-					}
-				} catch (ResourceNotFoundException e) {
-					// good
-				}
-
-				break;
-			}
-
-			if (myFhirContext.getVersion().getVersion().isNewerThan(FhirVersionEnum.DSTU2)) {
-				if (isNotBlank(jobParameters.getBinarySecurityContextIdentifierSystem())
-						|| isNotBlank(jobParameters.getBinarySecurityContextIdentifierValue())) {
-					FhirTerser terser = myFhirContext.newTerser();
-					terser.setElement(
-							binary,
-							"securityContext.identifier.system",
-							jobParameters.getBinarySecurityContextIdentifierSystem());
-					terser.setElement(
-							binary,
-							"securityContext.identifier.value",
-							jobParameters.getBinarySecurityContextIdentifierValue());
-				}
-			}
-
-			DaoMethodOutcome outcome = binaryDao.update(binary, srd);
-			IIdType id = outcome.getId();
-
-			BulkExportBinaryFileId bulkExportBinaryFileId = new BulkExportBinaryFileId();
-			bulkExportBinaryFileId.setBinaryId(id.getValueAsString());
-			bulkExportBinaryFileId.setResourceType(expandedResources.getResourceType());
-			theDataSink.accept(bulkExportBinaryFileId);
-
-			ourLog.info(
-					"Binary writing complete for {} resources of type {}.",
-					processedRecordsCount,
-					expandedResources.getResourceType());
+		// write to binary each resource type separately, without chunking, we need to do this in a loop now.
+		// Resources are encoded one at a time as they are written, so the encoded output is never held as a whole.
+		IParser parser = getParser(theStepExecutionDetails.getParameters());
+		for (String nextResourceType : expandedResources.keySet()) {
+			Iterator<IBaseResource> resources = expandedResources.get(nextResourceType).iterator();
+			Iterator<String> encodedResources = Iterators.transform(resources, parser::encodeResourceToString);
+			numResourcesProcessed +=
+					writeBinaries(theStepExecutionDetails, nextResourceType, encodedResources, theDataSink);
 		}
 		return new RunOutcome(numResourcesProcessed);
 	}
 
-	private List<ExpandedResourcesList> expandResourcesFromList(
+	/**
+	 * @return The expanded resources, keyed by resource type
+	 */
+	private ListMultimap<String, IBaseResource> expandResourcesFromList(
 			StepExecutionDetails<BulkExportJobParameters, ResourceIdList> theStepExecutionDetails) {
-		List<ExpandedResourcesList> expandedResourcesList = new ArrayList<>();
 		String instanceId = theStepExecutionDetails.getInstance().getInstanceId();
 		String chunkId = theStepExecutionDetails.getChunkId();
 		ResourceIdList idList = theStepExecutionDetails.getData();
@@ -286,22 +171,15 @@ public class ExpandResourceAndWriteBinaryStep
 			}
 		}
 
-		// encode them - Key is resource type, Value is a collection of serialized resources of that type
-		ListMultimap<String, String> resources = encodeToString(allResources, parameters);
-
-		for (String nextResourceType : resources.keySet()) {
-
-			ExpandedResourcesList output = new ExpandedResourcesList();
-			output.setStringifiedResources(resources.get(nextResourceType));
-			output.setResourceType(nextResourceType);
-			expandedResourcesList.add(output);
-
-			ourLog.info(
-					"Expanding of {} resources of type {} completed",
-					idList.getIds().size(),
-					idList.getResourceType());
+		// group them - Key is resource type, Value is a collection of resources of that type
+		ListMultimap<String, IBaseResource> retVal = ArrayListMultimap.create();
+		for (IBaseResource resource : allResources) {
+			retVal.put(myFhirContext.getResourceType(resource), resource);
 		}
-		return expandedResourcesList;
+
+		ourLog.info(
+				"Expanding of {} resources of type {} completed", idList.getIds().size(), idList.getResourceType());
+		return retVal;
 	}
 
 	private void applyPostFetchFiltering(
@@ -389,71 +267,10 @@ public class ExpandResourceAndWriteBinaryStep
 		return resources;
 	}
 
-	private ListMultimap<String, String> encodeToString(
-			List<IBaseResource> theResources, BulkExportJobParameters theParameters) {
-		IParser parser = getParser(theParameters);
-
-		ListMultimap<String, String> retVal = ArrayListMultimap.create();
-		for (IBaseResource resource : theResources) {
-			String type = myFhirContext.getResourceType(resource);
-			String jsonResource = parser.encodeResourceToString(resource);
-			retVal.put(type, jsonResource);
-		}
-		return retVal;
-	}
-
 	private IParser getParser(BulkExportJobParameters theParameters) {
 		// The parser depends on the output format
 		// but for now, only ndjson is supported
 		// see WriteBinaryStep as well
 		return myFhirContext.newJsonParser().setPrettyPrint(false);
 	}
-
-	/**
-	 * Adds 3 extensions to the `binary.meta` element.
-	 *
-	 * 1. the _exportId provided at request time
-	 * 2. the job_id of the job instance.
-	 * 3. the resource type of the resources contained in the binary
-	 */
-	private void addMetadataExtensionsToBinary(
-			@Nonnull StepExecutionDetails<BulkExportJobParameters, ResourceIdList> theStepExecutionDetails,
-			ExpandedResourcesList expandedResources,
-			IBaseBinary binary) {
-		// Note that this applies only to hl7.org structures, so these extensions will not be added
-		// to DSTU2 structures
-		if (binary.getMeta() instanceof IBaseHasExtensions) {
-			IBaseHasExtensions meta = (IBaseHasExtensions) binary.getMeta();
-
-			// export identifier, potentially null.
-			String exportIdentifier = theStepExecutionDetails.getParameters().getExportIdentifier();
-			if (!StringUtils.isBlank(exportIdentifier)) {
-				IBaseExtension<?, ?> exportIdentifierExtension = meta.addExtension();
-				exportIdentifierExtension.setUrl(JpaConstants.BULK_META_EXTENSION_EXPORT_IDENTIFIER);
-				exportIdentifierExtension.setValue(myFhirContext.newPrimitiveString(exportIdentifier));
-			}
-
-			// job id
-			IBaseExtension<?, ?> jobExtension = meta.addExtension();
-			jobExtension.setUrl(JpaConstants.BULK_META_EXTENSION_JOB_ID);
-			jobExtension.setValue(myFhirContext.newPrimitiveString(
-					theStepExecutionDetails.getInstance().getInstanceId()));
-
-			// resource type
-			IBaseExtension<?, ?> typeExtension = meta.addExtension();
-			typeExtension.setUrl(JpaConstants.BULK_META_EXTENSION_RESOURCE_TYPE);
-			typeExtension.setValue(myFhirContext.newPrimitiveString(expandedResources.getResourceType()));
-		} else {
-			ourLog.warn(
-					"Could not attach metadata extensions to binary resource, as this binary metadata does not support extensions");
-		}
-	}
-
-	/**
-	 * Returns an output stream writer
-	 * (exposed for testing)
-	 */
-	protected OutputStreamWriter getStreamWriter(ByteArrayOutputStream theOutputStream) {
-		return new OutputStreamWriter(theOutputStream, Constants.CHARSET_UTF8);
-	}
 }
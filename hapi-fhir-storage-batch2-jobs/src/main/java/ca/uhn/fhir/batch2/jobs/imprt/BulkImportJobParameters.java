@@ -52,6 +52,11 @@ public class BulkImportJobParameters implements IModelJson {
 	@Nullable
 	private Integer myMaxBatchResourceCount;
 
+	@JsonProperty(value = "commitBatchResourceCount", required = false)
+	@Min(1)
+	@Nullable
+	private Integer myCommitBatchResourceCount;
+
 	@JsonProperty(value = "partitionId", required = false)
 	@Nullable
 	private RequestPartitionId myPartitionId;
@@ -82,6 +87,44 @@ public class BulkImportJobParameters implements IModelJson {
 		return this;
 	}
 
+	/**
+	 * The maximum number of resources which will be stored in a single database transaction. Each
+	 * work chunk (see {@link #getMaxBatchResourceCount()}) is stored in as many transactions as needed.
+	 * If not set, each work chunk is stored in a single transaction.
+	 * <p>
+	 * Every resource in a work chunk is parsed before any of them are stored, so invalid content
+	 * fails the chunk without importing any of it. If storing a resource fails, for example because
+	 * it is rejected by validation or an interceptor, the batches of the chunk which were already
+	 * committed remain stored, so the import may be partially complete. Retrying the chunk is safe,
+	 * since resources are stored as updates with their client assigned IDs.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	@Nullable
+	public Integer getCommitBatchResourceCount() {
+		return myCommitBatchResourceCount;
+	}
+
+	/**
+	 * The maximum number of resources which will be stored in a single database transaction. Each
+	 * work chunk (see {@link #getMaxBatchResourceCount()}) is stored in as many transactions as needed.
+	 * If not set, each work chunk is stored in a single transaction.
+	 * <p>
+	 * Every resource in a work chunk is parsed before any of them are stored, so invalid content
+	 * fails the chunk without importing any of it. If storing a resource fails, for example because
+	 * it is rejected by validation or an interceptor, the batches of the chunk which were already
+	 * committed remain stored, so the import may be partially complete. Retrying the chunk is safe,
+	 * since resources are stored as updates with their client assigned IDs.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public BulkImportJobParameters setCommitBatchResourceCount(@Nullable Integer theCommitBatchResourceCount) {
+		myCommitBatchResourceCount = theCommitBatchResourceCount;
+		return this;
+	}
+
 	public BulkImportJobParameters addNdJsonUrl(String theUrl) {
 		Validate.notBlank(theUrl, "theUrl must not be blank or null");
 		getNdJsonUrls().add(theUrl);
@@ -39,28 +39,45 @@ import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
 import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.rest.server.exceptions.InvalidRequestException;
 import ca.uhn.fhir.rest.server.exceptions.PreconditionFailedException;
+import ca.uhn.fhir.util.ThreadPoolUtil;
 import org.apache.commons.io.LineIterator;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IIdType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import javax.annotation.Nonnull;
+import javax.annotation.PreDestroy;
 
+import static org.apache.commons.lang3.ObjectUtils.defaultIfNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 public class ConsumeFilesStep implements ILastJobStepWorker<BulkImportJobParameters, NdJsonFileJson> {
 
 	private static final Logger ourLog = LoggerFactory.getLogger(ConsumeFilesStep.class);
 
+	/**
+	 * Slices smaller than this aren't worth the overhead of a thread handoff
+	 */
+	static final int MIN_LINES_PER_PARSE_SLICE = 20;
+
+	static final int PARSE_THREAD_COUNT =
+			Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
 	@Autowired
 	private FhirContext myCtx;
 
@@ -76,6 +93,8 @@ public class ConsumeFilesStep implements ILastJobStepWorker<BulkImportJobParamet
 	@Autowired
 	private IFhirSystemDao<?, ?> mySystemDao;
 
+	private ThreadPoolTaskExecutor myParseExecutor;
+
 	@Nonnull
 	@Override
 	public RunOutcome run(
@@ -84,28 +103,166 @@ public class ConsumeFilesStep implements ILastJobStepWorker<BulkImportJobParamet
 
 		String ndjson = theStepExecutionDetails.getData().getNdJsonText();
 		String sourceName = theStepExecutionDetails.getData().getSourceName();
+		BulkImportJobParameters parameters = theStepExecutionDetails.getParameters();
+
+		int commitBatchSize = defaultIfNull(parameters.getCommitBatchResourceCount(), Integer.MAX_VALUE);
+
+		/*
+		 * Resources are stored one commit batch at a time, and at most two batches of parsed
+		 * resources are held in memory. Before the first batch is stored, the whole chunk is
+		 * parsed once, so that a resource that can't be parsed fails the chunk before anything
+		 * from it is committed. The first batch is kept from that pass. The other batches are
+		 * parsed again when they are stored.
+		 *
+		 * If storing a later batch fails, the batches that were already committed stay
+		 * committed, and they are stored again when the chunk is retried. Every resource is
+		 * stored as an update with a client assigned ID, so storing an unchanged resource
+		 * again is a no-op and the retry is safe.
+		 */
+		Iterator<List<String>> batches = new LineBatchIterator(ndjson, commitBatchSize);
+		List<IBaseResource> firstBatch = batches.hasNext() ? parseResources(batches.next()) : List.of();
+		boolean hasMoreBatches = batches.hasNext();
+		while (batches.hasNext()) {
+			parseResources(batches.next());
+		}
+
+		int count = 0;
+		if (!firstBatch.isEmpty()) {
+			ourLog.info("Bulk loading {} resources from source {}", firstBatch.size(), sourceName);
+			storeResources(firstBatch, parameters.getPartitionId());
+			count += firstBatch.size();
+		}
+
+		if (hasMoreBatches) {
+			batches = new LineBatchIterator(ndjson, commitBatchSize);
+			batches.next();
+			while (batches.hasNext()) {
+				List<IBaseResource> resources = parseResources(batches.next());
+
+				ourLog.info("Bulk loading {} resources from source {}", resources.size(), sourceName);
+
+				storeResources(resources, parameters.getPartitionId());
+				count += resources.size();
+			}
+		}
+
+		return new RunOutcome(count);
+	}
+
+	/**
+	 * Parses the given NDJSON lines, spreading the work across the parse thread pool
+	 * if there are enough of them to make this worthwhile
+	 */
+	private List<IBaseResource> parseResources(List<String> theLines) {
+		int sliceCount = Math.min(PARSE_THREAD_COUNT, theLines.size() / MIN_LINES_PER_PARSE_SLICE);
+		if (sliceCount <= 1) {
+			return parseSlice(theLines);
+		}
 
+		int sliceSize = (theLines.size() + sliceCount - 1) / sliceCount;
+		ThreadPoolTaskExecutor executor = getParseExecutor();
+		List<Future<List<IBaseResource>>> futures = new ArrayList<>(sliceCount - 1);
+		try {
+			for (int sliceStart = sliceSize; sliceStart < theLines.size(); sliceStart += sliceSize) {
+				List<String> slice = theLines.subList(sliceStart, Math.min(sliceStart + sliceSize, theLines.size()));
+				futures.add(executor.submit(() -> parseSlice(slice)));
+			}
+
+			// The calling thread parses the first slice itself
+			List<IBaseResource> retVal = new ArrayList<>(theLines.size());
+			retVal.addAll(parseSlice(theLines.subList(0, sliceSize)));
+			for (Future<List<IBaseResource>> next : futures) {
+				retVal.addAll(next.get());
+			}
+			return retVal;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new JobExecutionFailedException(Msg.code(2456) + "Failed to parse resources: " + e.getCause(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException(Msg.code(2455) + "Interrupted while parsing resources", e);
+		} finally {
+			for (Future<?> next : futures) {
+				next.cancel(false);
+			}
+		}
+	}
+
+	private List<IBaseResource> parseSlice(List<String> theLines) {
+		// Parsers aren't thread safe, so each slice gets its own
 		IParser jsonParser = myCtx.newJsonParser();
-		LineIterator lineIter = new LineIterator(new StringReader(ndjson));
-		List<IBaseResource> resources = new ArrayList<>();
-		while (lineIter.hasNext()) {
-			String next = lineIter.next();
-			if (isNotBlank(next)) {
-				IBaseResource parsed;
-				try {
-					parsed = jsonParser.parseResource(next);
-				} catch (DataFormatException e) {
-					throw new JobExecutionFailedException(Msg.code(2052) + "Failed to parse resource: " + e, e);
-				}
-				resources.add(parsed);
+		List<IBaseResource> retVal = new ArrayList<>(theLines.size());
+		for (String next : theLines) {
+			try {
+				retVal.add(jsonParser.parseResource(next));
+			} catch (DataFormatException e) {
+				throw new JobExecutionFailedException(Msg.code(2052) + "Failed to parse resource: " + e, e);
 			}
 		}
+		return retVal;
+	}
 
-		ourLog.info("Bulk loading {} resources from source {}", resources.size(), sourceName);
+	private synchronized ThreadPoolTaskExecutor getParseExecutor() {
+		if (myParseExecutor == null) {
+			// The calling thread parses one slice itself
+			int poolSize = PARSE_THREAD_COUNT - 1;
+			myParseExecutor = ThreadPoolUtil.newThreadPool(poolSize, poolSize, "bulk-import-parse-", 1000);
+		}
+		return myParseExecutor;
+	}
 
-		storeResources(resources, theStepExecutionDetails.getParameters().getPartitionId());
+	@PreDestroy
+	public synchronized void stop() {
+		if (myParseExecutor != null) {
+			myParseExecutor.shutdown();
+			myParseExecutor = null;
+		}
+	}
 
-		return new RunOutcome(resources.size());
+	/**
+	 * Splits NDJSON text into batches of non-blank lines, reading the lines lazily
+	 */
+	private static class LineBatchIterator implements Iterator<List<String>> {
+		private final LineIterator myLines;
+		private final int myBatchSize;
+		private List<String> myNext;
+
+		LineBatchIterator(String theNdJson, int theBatchSize) {
+			myLines = new LineIterator(new StringReader(theNdJson));
+			myBatchSize = theBatchSize;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (myNext == null) {
+				List<String> next = new ArrayList<>();
+				while (next.size() < myBatchSize && myLines.hasNext()) {
+					String line = myLines.next();
+					if (isNotBlank(line)) {
+						next.add(line);
+					}
+				}
+				if (!next.isEmpty()) {
+					myNext = next;
+				}
+			}
+			return myNext != null;
+		}
+
+		@Override
+		public List<String> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			List<String> retVal = myNext;
+			myNext = null;
+			return retVal;
+		}
 	}
 
 	public void storeResources(List<IBaseResource> resources, RequestPartitionId thePartitionId) {
@@ -0,0 +1,80 @@
+package ca.uhn.fhir.batch2.jobs.export;
+
+import ca.uhn.fhir.batch2.api.ChunkExecutionDetails;
+import ca.uhn.fhir.batch2.api.IJobDataSink;
+import ca.uhn.fhir.batch2.api.StepExecutionDetails;
+import ca.uhn.fhir.batch2.jobs.export.models.BulkExportBinaryFileId;
+import ca.uhn.fhir.batch2.model.JobInstance;
+import ca.uhn.fhir.jpa.api.model.BulkExportJobResults;
+import ca.uhn.fhir.rest.api.server.bulk.BulkExportJobParameters;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class BulkExportCreateReportStepTest {
+
+	private static final String INSTANCE_ID = "instance-id";
+
+	private final BulkExportCreateReportStep mySvc = new BulkExportCreateReportStep();
+	private final BulkExportJobParameters myParameters = new BulkExportJobParameters();
+
+	@Test
+	public void run_binaryIdsConsumedOutOfOrder_reportsSortedIds() {
+		// setup
+		for (String binaryId : Arrays.asList("Binary/3", "Binary/1", "Binary/2")) {
+			consume("Patient", binaryId);
+		}
+		consume("Observation", "Binary/5");
+		consume("Observation", "Binary/4");
+
+		// test
+		BulkExportJobResults results = runReport();
+
+		// verify
+		assertEquals(List.of("Binary/1", "Binary/2", "Binary/3"), results.getResourceTypeToBinaryIds().get("Patient"));
+		assertEquals(List.of("Binary/4", "Binary/5"), results.getResourceTypeToBinaryIds().get("Observation"));
+	}
+
+	@Test
+	public void reductionAborted_discardsConsumedBinaryIds() {
+		// setup
+		consume("Patient", "Binary/1");
+
+		// test
+		mySvc.reductionAborted(INSTANCE_ID);
+
+		// verify
+		BulkExportJobResults results = runReport();
+		assertTrue(results.getResourceTypeToBinaryIds().isEmpty());
+		assertNotNull(results.getReportMsg());
+	}
+
+	private void consume(String theResourceType, String theBinaryId) {
+		BulkExportBinaryFileId fileId = new BulkExportBinaryFileId();
+		fileId.setResourceType(theResourceType);
+		fileId.setBinaryId(theBinaryId);
+		mySvc.consume(new ChunkExecutionDetails<>(fileId, myParameters, INSTANCE_ID, theBinaryId));
+	}
+
+	@SuppressWarnings("unchecked")
+	private BulkExportJobResults runReport() {
+		JobInstance instance = new JobInstance();
+		instance.setInstanceId(INSTANCE_ID);
+		instance.setParameters(myParameters);
+		IJobDataSink<BulkExportJobResults> sink = mock(IJobDataSink.class);
+
+		mySvc.run(new StepExecutionDetails<>(myParameters, null, instance, "REDUCTION"), sink);
+
+		ArgumentCaptor<BulkExportJobResults> resultsCaptor = ArgumentCaptor.forClass(BulkExportJobResults.class);
+		verify(sink).accept(resultsCaptor.capture());
+		return resultsCaptor.getValue();
+	}
+}
@@ -14,14 +14,23 @@ import ca.uhn.fhir.interceptor.model.RequestPartitionId;
 import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
 import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
 import ca.uhn.fhir.jpa.api.model.DaoMethodOutcome;
+import ca.uhn.fhir.jpa.binary.api.IBinaryStorageSvc;
+import ca.uhn.fhir.jpa.binary.api.StoredDetails;
+import ca.uhn.fhir.jpa.dao.GZipUtil;
+import ca.uhn.fhir.jpa.model.entity.StorageSettings;
+import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.server.RequestDetails;
 import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.util.BinaryUtil;
+import ca.uhn.fhir.util.HapiExtensions;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 import org.hl7.fhir.instance.model.api.IBaseBinary;
 import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Binary;
 import org.hl7.fhir.r4.model.IdType;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -38,19 +47,25 @@ import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -87,6 +102,12 @@ public class WriteBinaryStepTest {
 	@Mock
 	private DaoRegistry myDaoRegistry;
 
+	@Spy
+	private StorageSettings myStorageSettings = new StorageSettings();
+
+	@Mock
+	private IBinaryStorageSvc myBinaryStorageSvc;
+
 	@InjectMocks
 	private TestWriteBinaryStep myFinalStep;
 
@@ -176,6 +197,136 @@ public class WriteBinaryStepTest {
 		assertEquals(binaryId.getValueAsString(), fileIdArgumentCaptor.getValue().getBinaryId());
 	}
 
+	@Test
+	public void run_maximumFileSizeExceeded_rollsOverIntoMultipleBinaries() {
+		// setup
+		myStorageSettings.setBulkExportMaximumFileSize(14);
+		ExpandedResourcesList expandedResources = new ExpandedResourcesList();
+		JobInstance instance = new JobInstance();
+		instance.setInstanceId("1");
+		List<String> stringified = Arrays.asList("first", "second", "third", "forth");
+		expandedResources.setStringifiedResources(stringified);
+		expandedResources.setResourceType("Patient");
+		IFhirResourceDao<IBaseBinary> binaryDao = mock(IFhirResourceDao.class);
+		IJobDataSink<BulkExportBinaryFileId> sink = mock(IJobDataSink.class);
+		StepExecutionDetails<BulkExportJobParameters, ExpandedResourcesList> input = createInput(expandedResources, instance, false);
+		DaoMethodOutcome methodOutcome = new DaoMethodOutcome();
+		methodOutcome.setId(new IdType("Binary/123"));
+
+		when(myDaoRegistry.getResourceDao(eq("Binary")))
+			.thenReturn(binaryDao);
+		when(binaryDao.update(any(IBaseBinary.class), any(RequestDetails.class)))
+			.thenReturn(methodOutcome);
+
+		// test
+		RunOutcome outcome = myFinalStep.run(input, sink);
+
+		// verify
+		assertEquals(4, outcome.getRecordsProcessed());
+		ArgumentCaptor<IBaseBinary> binaryCaptor = ArgumentCaptor.forClass(IBaseBinary.class);
+		verify(binaryDao, times(2)).update(binaryCaptor.capture(), any(RequestDetails.class));
+		assertEquals("first\nsecond\n", new String(binaryCaptor.getAllValues().get(0).getContent()));
+		assertEquals("third\nforth\n", new String(binaryCaptor.getAllValues().get(1).getContent()));
+		verify(sink, times(2)).accept(any(BulkExportBinaryFileId.class));
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = {true, false})
+	public void run_streamToBinaryStorage_storesBlobAndPointsBinaryAtIt(boolean theGzip) throws IOException {
+		// setup
+		myStorageSettings.setBulkExportStreamToBinaryStorage(true);
+		myStorageSettings.setBulkExportGzipOutput(theGzip);
+		ExpandedResourcesList expandedResources = new ExpandedResourcesList();
+		JobInstance instance = new JobInstance();
+		instance.setInstanceId("1");
+		List<String> stringified = Arrays.asList("first", "second", "third", "forth");
+		expandedResources.setStringifiedResources(stringified);
+		expandedResources.setResourceType("Patient");
+		IFhirResourceDao<IBaseBinary> binaryDao = mock(IFhirResourceDao.class);
+		IJobDataSink<BulkExportBinaryFileId> sink = mock(IJobDataSink.class);
+		StepExecutionDetails<BulkExportJobParameters, ExpandedResourcesList> input = createInput(expandedResources, instance, false);
+		DaoMethodOutcome methodOutcome = new DaoMethodOutcome();
+		methodOutcome.setId(new IdType("Binary/123"));
+
+		when(myDaoRegistry.getResourceDao(eq("Binary")))
+			.thenReturn(binaryDao);
+		when(binaryDao.update(any(IBaseBinary.class), any(RequestDetails.class)))
+			.thenReturn(methodOutcome);
+		List<byte[]> storedBytes = new ArrayList<>();
+		when(myBinaryStorageSvc.storeBlob(any(), isNull(), anyString(), any(InputStream.class), any(RequestDetails.class)))
+			.thenAnswer(t -> {
+				// Read in small increments to exercise the lazy encoding
+				InputStream inputStream = t.getArgument(3);
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] buffer = new byte[3];
+				int count;
+				while ((count = inputStream.read(buffer)) != -1) {
+					bytes.write(buffer, 0, count);
+				}
+				storedBytes.add(bytes.toByteArray());
+				return new StoredDetails().setBlobId("BLOB-ID").setBytes(bytes.size());
+			});
+
+		// test
+		myFinalStep.run(input, sink);
+
+		// verify
+		ArgumentCaptor<IIdType> blobResourceIdCaptor = ArgumentCaptor.forClass(IIdType.class);
+		verify(myBinaryStorageSvc).storeBlob(blobResourceIdCaptor.capture(), isNull(), anyString(), any(InputStream.class), any(RequestDetails.class));
+		ArgumentCaptor<Binary> binaryCaptor = ArgumentCaptor.forClass(Binary.class);
+		verify(binaryDao).update(binaryCaptor.capture(), any(RequestDetails.class));
+		Binary binary = binaryCaptor.getValue();
+		assertEquals("Binary/" + binary.getIdElement().getIdPart(), blobResourceIdCaptor.getValue().getValue());
+		assertNull(binary.getData());
+		assertEquals("BLOB-ID", binary.getDataElement().getExtensionString(HapiExtensions.EXT_EXTERNALIZED_BINARY_ID));
+
+		byte[] stored = storedBytes.get(0);
+		String expected = String.join("\n", stringified) + "\n";
+		assertEquals(Constants.CT_FHIR_NDJSON, binary.getContentType());
+		if (theGzip) {
+			assertEquals(Constants.ENCODING_GZIP, BinaryUtil.getContentEncoding(binary));
+			assertEquals(expected, GZipUtil.decompress(stored));
+		} else {
+			assertNull(BinaryUtil.getContentEncoding(binary));
+			assertEquals(expected, new String(stored, StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void run_streamToBinaryStorage_binaryUpdateFails_expungesBlob() throws IOException {
+		// setup
+		myStorageSettings.setBulkExportStreamToBinaryStorage(true);
+		ExpandedResourcesList expandedResources = new ExpandedResourcesList();
+		JobInstance instance = new JobInstance();
+		instance.setInstanceId("1");
+		expandedResources.setStringifiedResources(Arrays.asList("first", "second"));
+		expandedResources.setResourceType("Patient");
+		IFhirResourceDao<IBaseBinary> binaryDao = mock(IFhirResourceDao.class);
+		IJobDataSink<BulkExportBinaryFileId> sink = mock(IJobDataSink.class);
+		StepExecutionDetails<BulkExportJobParameters, ExpandedResourcesList> input = createInput(expandedResources, instance, false);
+
+		when(myDaoRegistry.getResourceDao(eq("Binary")))
+			.thenReturn(binaryDao);
+		when(binaryDao.update(any(IBaseBinary.class), any(RequestDetails.class)))
+			.thenThrow(new InternalErrorException("FAILED"));
+		when(myBinaryStorageSvc.storeBlob(any(), isNull(), anyString(), any(InputStream.class), any(RequestDetails.class)))
+			.thenReturn(new StoredDetails().setBlobId("BLOB-ID").setBytes(13));
+
+		// test
+		try {
+			myFinalStep.run(input, sink);
+			fail();
+		} catch (InternalErrorException e) {
+			assertEquals("FAILED", e.getMessage());
+		}
+
+		// verify
+		ArgumentCaptor<IIdType> blobResourceIdCaptor = ArgumentCaptor.forClass(IIdType.class);
+		verify(myBinaryStorageSvc).storeBlob(blobResourceIdCaptor.capture(), isNull(), anyString(), any(InputStream.class), any(RequestDetails.class));
+		verify(myBinaryStorageSvc).expungeBlob(eq(blobResourceIdCaptor.getValue()), eq("BLOB-ID"));
+		verify(sink, never()).accept(any(BulkExportBinaryFileId.class));
+	}
+
 	@Test
 	public void run_withIOException_throws() throws IOException {
 		// setup
@@ -0,0 +1,163 @@
+package ca.uhn.fhir.batch2.jobs.imprt;
+
+import ca.uhn.fhir.batch2.api.IJobDataSink;
+import ca.uhn.fhir.batch2.api.JobExecutionFailedException;
+import ca.uhn.fhir.batch2.api.RunOutcome;
+import ca.uhn.fhir.batch2.api.StepExecutionDetails;
+import ca.uhn.fhir.batch2.api.VoidModel;
+import ca.uhn.fhir.batch2.model.JobInstance;
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.jpa.api.dao.DaoRegistry;
+import ca.uhn.fhir.jpa.api.dao.IFhirResourceDao;
+import ca.uhn.fhir.jpa.api.dao.IFhirSystemDao;
+import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
+import ca.uhn.fhir.jpa.dao.tx.HapiTransactionService;
+import ca.uhn.fhir.rest.api.server.RequestDetails;
+import ca.uhn.fhir.rest.api.server.storage.TransactionDetails;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ConsumeFilesStepTest {
+
+	@Spy
+	private FhirContext myCtx = FhirContext.forR4Cached();
+	@Mock
+	private DaoRegistry myDaoRegistry;
+	@Mock
+	private HapiTransactionService myHapiTransactionService;
+	@Mock
+	private IIdHelperService<?> myIdHelperService;
+	@Mock
+	private IFhirSystemDao<?, ?> mySystemDao;
+	@Mock
+	private IFhirResourceDao myPatientDao;
+	@Mock
+	private IJobDataSink<VoidModel> mySink;
+	@InjectMocks
+	private ConsumeFilesStep mySvc;
+
+	@AfterEach
+	public void after() {
+		mySvc.stop();
+	}
+
+	@Test
+	public void testRun_CommitBatchSize_StoresInSeveralTransactions() {
+		// Setup
+		mockTransactionService();
+		when(myDaoRegistry.getResourceDao(any(IBaseResource.class))).thenReturn(myPatientDao);
+
+		BulkImportJobParameters parameters = new BulkImportJobParameters();
+		parameters.setCommitBatchResourceCount(40);
+
+		// Execute
+		RunOutcome outcome = mySvc.run(newStepExecutionDetails(parameters, createPatientsNdJson(100)), mySink);
+
+		// Verify
+		assertEquals(100, outcome.getRecordsProcessed());
+		verify(myHapiTransactionService, times(3)).execute(any(RequestDetails.class), any(TransactionDetails.class), any());
+		ArgumentCaptor<Patient> patientCaptor = ArgumentCaptor.forClass(Patient.class);
+		verify(myPatientDao, times(100)).update(patientCaptor.capture(), isNull(), eq(true), eq(false), any(), any());
+		List<String> ids = patientCaptor.getAllValues().stream().map(t -> t.getIdElement().getIdPart()).collect(Collectors.toList());
+		List<String> expectedIds = IntStream.range(0, 100).mapToObj(t -> "P" + t).collect(Collectors.toList());
+		assertEquals(expectedIds, ids);
+	}
+
+	@Test
+	public void testRun_NoCommitBatchSize_StoresInOneTransaction() {
+		// Setup
+		mockTransactionService();
+		when(myDaoRegistry.getResourceDao(any(IBaseResource.class))).thenReturn(myPatientDao);
+
+		// Execute
+		RunOutcome outcome = mySvc.run(newStepExecutionDetails(new BulkImportJobParameters(), createPatientsNdJson(100)), mySink);
+
+		// Verify
+		assertEquals(100, outcome.getRecordsProcessed());
+		verify(myHapiTransactionService, times(1)).execute(any(RequestDetails.class), any(TransactionDetails.class), any());
+		verify(myPatientDao, times(100)).update(any(), isNull(), eq(true), eq(false), any(), any());
+	}
+
+	@Test
+	public void testRun_InvalidResource_FailsBeforeStoring() {
+		String ndJson = createPatientsNdJson(100) + "{\"resourceType\":\"Patient\",\"foo\":}\n";
+
+		JobExecutionFailedException e = assertThrows(JobExecutionFailedException.class, () -> mySvc.run(newStepExecutionDetails(new BulkImportJobParameters(), ndJson), mySink));
+
+		assertTrue(e.getMessage().contains("Failed to parse resource"), e.getMessage());
+		verify(myHapiTransactionService, never()).execute(any(RequestDetails.class), any(TransactionDetails.class), any());
+	}
+
+	@Test
+	public void testRun_CommitBatchSize_InvalidResourceInLaterBatch_FailsBeforeStoring() {
+		String ndJson = createPatientsNdJson(100) + "{\"resourceType\":\"Patient\",\"foo\":}\n";
+		BulkImportJobParameters parameters = new BulkImportJobParameters();
+		parameters.setCommitBatchResourceCount(40);
+
+		JobExecutionFailedException e = assertThrows(JobExecutionFailedException.class, () -> mySvc.run(newStepExecutionDetails(parameters, ndJson), mySink));
+
+		assertTrue(e.getMessage().contains("Failed to parse resource"), e.getMessage());
+		verify(myHapiTransactionService, never()).execute(any(RequestDetails.class), any(TransactionDetails.class), any());
+	}
+
+	@Test
+	public void testRun_EmptyChunk_StoresNothing() {
+		RunOutcome outcome = mySvc.run(newStepExecutionDetails(new BulkImportJobParameters(), "\n\n"), mySink);
+
+		assertEquals(0, outcome.getRecordsProcessed());
+		verify(myHapiTransactionService, never()).execute(any(RequestDetails.class), any(TransactionDetails.class), any());
+	}
+
+	@SuppressWarnings("unchecked")
+	private void mockTransactionService() {
+		when(myHapiTransactionService.execute(any(RequestDetails.class), any(TransactionDetails.class), any())).thenAnswer(t -> {
+			TransactionCallback<Object> callback = t.getArgument(2);
+			return callback.doInTransaction(null);
+		});
+		when(myIdHelperService.resolveResourcePersistentIdsWithCache(any(), any(), anyBoolean())).thenReturn(List.of());
+	}
+
+	private String createPatientsNdJson(int theCount) {
+		StringBuilder retVal = new StringBuilder();
+		for (int i = 0; i < theCount; i++) {
+			Patient patient = new Patient();
+			patient.setId("Patient/P" + i);
+			patient.setActive(true);
+			retVal.append(myCtx.newJsonParser().encodeResourceToString(patient)).append("\n\n");
+		}
+		return retVal.toString();
+	}
+
+	private static StepExecutionDetails<BulkImportJobParameters, NdJsonFileJson> newStepExecutionDetails(BulkImportJobParameters theParameters, String theNdJson) {
+		NdJsonFileJson data = new NdJsonFileJson();
+		data.setNdJsonText(theNdJson);
+		data.setSourceName("http://example.com/Patient.ndjson");
+		return new StepExecutionDetails<>(theParameters, data, new JobInstance(), "chunk-id");
+	}
+}
@@ -55,6 +55,7 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -128,6 +129,28 @@ public abstract class AbstractIJobPersistenceSpecificationTest {
 			runInTransaction(() -> assertEquals(WorkChunkStatusEnum.IN_PROGRESS, freshFetchWorkChunk(id).getStatus()));
 		}
 
+		@Test
+		public void testStoreAndFetchWorkChunks_Bulk() {
+			JobInstance instance = createInstance();
+			String instanceId = mySvc.storeNewInstance(instance);
+
+			List<WorkChunkCreateEvent> batchWorkChunks = new ArrayList<>();
+			for (int i = 0; i < 5; i++) {
+				batchWorkChunks.add(new WorkChunkCreateEvent(JOB_DEFINITION_ID, JOB_DEF_VER, TARGET_STEP_ID, instanceId, i, "{\"index\":" + i + "}"));
+			}
+			List<String> ids = runInTransaction(() -> mySvc.onWorkChunksCreate(batchWorkChunks));
+			assertEquals(5, ids.size());
+			assertEquals(5, new HashSet<>(ids).size());
+
+			for (int i = 0; i < 5; i++) {
+				String id = ids.get(i);
+				runInTransaction(() -> assertEquals(WorkChunkStatusEnum.QUEUED, freshFetchWorkChunk(id).getStatus()));
+				WorkChunk chunk = mySvc.onWorkChunkDequeue(id).orElseThrow(IllegalArgumentException::new);
+				assertEquals(i, chunk.getSequence());
+				assertEquals("{\"index\":" + i + "}", chunk.getData());
+			}
+		}
+
 		/**
 		 * Should match the diagram in batch2_states.md
 		 * @see hapi-fhir-docs/src/main/resources/ca/uhn/hapi/fhir/docs/server_jpa_batch/batch2_states.md
@@ -0,0 +1,76 @@
+package ca.uhn.hapi.fhir.batch2.test;
+
+import ca.uhn.fhir.batch2.api.IJobPersistence;
+import ca.uhn.fhir.batch2.inmemory.InMemoryJobPersistenceImpl;
+import ca.uhn.fhir.batch2.model.JobInstance;
+import ca.uhn.fhir.batch2.model.WorkChunk;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.Iterator;
+
+/**
+ * Runs the batch2 persistence specification against {@link InMemoryJobPersistenceImpl}
+ */
+public class InMemoryJobPersistenceImplTest extends AbstractIJobPersistenceSpecificationTest {
+
+	private final InMemoryJobPersistenceImpl myJobPersistence = new InMemoryJobPersistenceImpl();
+	private final PlatformTransactionManager myTxManager = new NoOpTransactionManager();
+
+	public InMemoryJobPersistenceImplTest() {
+		// The specification autowires the persistence under test
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.registerBean(IJobPersistence.class, () -> myJobPersistence);
+		context.refresh();
+		context.getAutowireCapableBeanFactory().autowireBean(this);
+	}
+
+	@Override
+	protected PlatformTransactionManager getTxManager() {
+		return myTxManager;
+	}
+
+	@Override
+	protected WorkChunk freshFetchWorkChunk(String theChunkId) {
+		for (JobInstance instance : myJobPersistence.fetchInstances(1000, 0)) {
+			Iterator<WorkChunk> iter = myJobPersistence.fetchAllWorkChunksIterator(instance.getInstanceId(), true);
+			while (iter.hasNext()) {
+				WorkChunk next = iter.next();
+				if (next.getId().equals(theChunkId)) {
+					return next;
+				}
+			}
+		}
+		throw new IllegalArgumentException("Unknown chunk " + theChunkId);
+	}
+
+	/**
+	 * The in-memory persistence is not transactional, but the specification runs
+	 * some of its calls in a transaction template
+	 */
+	private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object theTransaction, TransactionDefinition theDefinition) {
+			// nothing
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus theStatus) {
+			// nothing
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus theStatus) {
+			// nothing
+		}
+	}
+}
@@ -22,6 +22,8 @@ package ca.uhn.fhir.batch2.api;
 import ca.uhn.fhir.batch2.model.WorkChunkData;
 import ca.uhn.fhir.model.api.IModelJson;
 
+import java.util.Collection;
+
 public interface IJobDataSink<OT extends IModelJson> {
 
 	/**
@@ -59,6 +61,26 @@ public interface IJobDataSink<OT extends IModelJson> {
 	 */
 	void accept(WorkChunkData<OT> theData);
 
+	/**
+	 * Step workers may call this 0..* times in order to provide several output work chunks
+	 * at once. Each element results in a discrete chunk of work, exactly as though
+	 * {@link #accept(IModelJson)} had been called for each one in turn, but the chunks may be
+	 * stored together, which is considerably more efficient for steps which produce
+	 * many chunks in quick succession.
+	 * <p>
+	 * This method may not be called by the final step worker and will result in an
+	 * error.
+	 * </p>
+	 *
+	 * @param theData The data to pass to the next step worker, one element per work chunk
+	 * @since 7.0.0
+	 */
+	default void acceptAll(Collection<OT> theData) {
+		for (OT next : theData) {
+			accept(next);
+		}
+	}
+
 	/**
 	 * Step workers may invoke this method to indicate that an error occurred during
 	 * processing but that it was successfully recovered, or it does not need to be
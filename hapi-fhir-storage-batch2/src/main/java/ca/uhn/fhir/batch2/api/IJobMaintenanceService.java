@@ -30,6 +30,19 @@ public interface IJobMaintenanceService {
 
 	void runMaintenancePass();
 
+	/**
+	 * Called after a work chunk of a gated job has been successfully processed. If the step has no
+	 * remaining incomplete work chunks, the job instance is advanced to the next step (or completed)
+	 * immediately, instead of on the next scheduled maintenance pass.
+	 *
+	 * @param theInstanceId The job instance ID
+	 * @param theStepId     The step which the completed work chunk belonged to
+	 * @since 7.0.0
+	 */
+	default void onWorkChunkCompleted(String theInstanceId, String theStepId) {
+		// nothing by default
+	}
+
 	/**
 	 * Forces a second maintenance run.
 	 * Only to be used in tests to simulate a long running maintenance step
@@ -41,4 +41,36 @@ public interface IReductionStepWorker<PT extends IModelJson, IT extends IModelJs
 	 */
 	@Nonnull
 	ChunkOutcome consume(ChunkExecutionDetails<PT, IT> theChunkDetails);
+
+	/**
+	 * Reducers which return <code>true</code> here declare that the result of the reduction does not
+	 * depend on the order in which chunks are consumed, and that {@link #consume(ChunkExecutionDetails)}
+	 * and {@link #run(StepExecutionDetails, IJobDataSink)} may be called concurrently, both for chunks of
+	 * the same job instance and for different job instances. Any state accumulated by the reducer must
+	 * therefore be thread safe and kept separately for each job instance.
+	 * <p>
+	 * The chunks of such reducers are consumed in parallel, and several instances of the job may be
+	 * reduced at the same time. Other reducers are only ever used for one job instance at a time.
+	 * Each call to {@link #consume(ChunkExecutionDetails)} for an associative reducer runs on a
+	 * separate thread in its own transaction, rather than in the transaction which reads the chunks.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	default boolean isAssociative() {
+		return false;
+	}
+
+	/**
+	 * Called instead of {@link #run(StepExecutionDetails, IJobDataSink)} when the reduction of a job
+	 * instance will not complete, because one of its chunks failed, the reduction failed with an
+	 * exception, or the instance was cancelled while its chunks were being consumed. Reducers which
+	 * accumulate state for each job instance should discard the state for the given instance here.
+	 *
+	 * @param theInstanceId The ID of the job instance whose reduction was abandoned
+	 * @since 7.0.0
+	 */
+	default void reductionAborted(String theInstanceId) {
+		// nothing
+	}
 }
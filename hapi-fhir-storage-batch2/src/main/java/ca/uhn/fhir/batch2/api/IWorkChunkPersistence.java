@@ -30,6 +30,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -63,6 +64,23 @@ public interface IWorkChunkPersistence {
 	@Transactional(propagation = Propagation.REQUIRED)
 	String onWorkChunkCreate(WorkChunkCreateEvent theBatchWorkChunk);
 
+	/**
+	 * Stores several chunks of work for later retrieval.
+	 * This is equivalent to calling {@link #onWorkChunkCreate(WorkChunkCreateEvent)} for each
+	 * chunk, but implementations may store all of them together (e.g. in a single JDBC batch).
+	 * This method should be atomic and should only
+	 * return when all chunks have been successfully stored in the database.
+	 * Chunks should be stored with a status of {@link WorkChunkStatusEnum#QUEUED}
+	 *
+	 * @param theBatchWorkChunks the batch work chunks to be stored
+	 * @return a globally unique identifier for each chunk, in the same order as the chunks were provided
+	 * @since 7.0.0
+	 */
+	@Transactional(propagation = Propagation.REQUIRED)
+	default List<String> onWorkChunksCreate(List<WorkChunkCreateEvent> theBatchWorkChunks) {
+		return theBatchWorkChunks.stream().map(this::onWorkChunkCreate).collect(Collectors.toList());
+	}
+
 	/**
 	 * On arrival at a worker.
 	 * The second state event, as the worker starts processing.
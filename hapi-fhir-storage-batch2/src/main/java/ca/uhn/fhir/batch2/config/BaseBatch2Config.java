@@ -90,7 +90,8 @@ public abstract class BaseBatch2Config {
 			IJobPersistence theJobPersistence,
 			IHapiTransactionService theTransactionService,
 			JobDefinitionRegistry theJobDefinitionRegistry) {
-		return new ReductionStepExecutorServiceImpl(theJobPersistence, theTransactionService, theJobDefinitionRegistry);
+		return new ReductionStepExecutorServiceImpl(
+				theJobPersistence, theTransactionService, theJobDefinitionRegistry, getMaxConcurrentReductions());
 	}
 
 	@Bean
@@ -136,4 +137,14 @@ public abstract class BaseBatch2Config {
 	protected int getConcurrentConsumers() {
 		return 4;
 	}
+
+	/**
+	 * The maximum number of job instances whose reduction step may run at the same time.
+	 * Can be overridden.
+	 *
+	 * @since 7.0.0
+	 */
+	protected int getMaxConcurrentReductions() {
+		return ReductionStepExecutorServiceImpl.DEFAULT_MAX_CONCURRENT_REDUCTIONS;
+	}
 }
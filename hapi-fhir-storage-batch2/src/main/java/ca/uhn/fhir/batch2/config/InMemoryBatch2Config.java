@@ -0,0 +1,41 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Batch2 Task Processor
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.config;
+
+import ca.uhn.fhir.batch2.api.IJobPersistence;
+import ca.uhn.fhir.batch2.inmemory.InMemoryJobPersistenceImpl;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Batch2 configuration which keeps all job instances and work chunks in memory using
+ * {@link InMemoryJobPersistenceImpl}. Import this in place of the JPA batch2 configuration
+ * for servers where batch2 jobs do not need to survive a restart.
+ *
+ * @since 7.0.0
+ */
+@Configuration
+public class InMemoryBatch2Config extends BaseBatch2Config {
+
+	@Bean
+	public IJobPersistence batch2JobInstancePersister() {
+		return new InMemoryJobPersistenceImpl();
+	}
+}
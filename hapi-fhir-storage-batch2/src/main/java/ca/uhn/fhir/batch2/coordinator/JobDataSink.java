@@ -33,8 +33,11 @@ import ca.uhn.fhir.util.JsonUtil;
 import ca.uhn.fhir.util.Logs;
 import org.slf4j.Logger;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 
 class JobDataSink<PT extends IModelJson, IT extends IModelJson, OT extends IModelJson>
@@ -67,21 +70,44 @@ class JobDataSink<PT extends IModelJson, IT extends IModelJson, OT extends IMode
 
 	@Override
 	public void accept(WorkChunkData<OT> theData) {
-		String instanceId = getInstanceId();
-		String targetStepId = myTargetStep.getStepId();
-
-		int sequence = myChunkCounter.getAndIncrement();
-		OT dataValue = theData.getData();
-		String dataValueString = JsonUtil.serialize(dataValue, false);
-
-		WorkChunkCreateEvent batchWorkChunk = new WorkChunkCreateEvent(
-				myJobDefinitionId, myJobDefinitionVersion, targetStepId, instanceId, sequence, dataValueString);
+		WorkChunkCreateEvent batchWorkChunk = newWorkChunkCreateEvent(theData.getData());
 		String chunkId = myJobPersistence.onWorkChunkCreate(batchWorkChunk);
 		myLastChunkId.set(chunkId);
 
+		sendWorkNotification(chunkId);
+	}
+
+	@Override
+	public void acceptAll(Collection<OT> theData) {
+		if (theData.isEmpty()) {
+			return;
+		}
+
+		List<WorkChunkCreateEvent> batchWorkChunks =
+				theData.stream().map(this::newWorkChunkCreateEvent).collect(Collectors.toList());
+		List<String> chunkIds = myJobPersistence.onWorkChunksCreate(batchWorkChunks);
+		myLastChunkId.set(chunkIds.get(chunkIds.size() - 1));
+
+		// Chunks are only announced once all of them have been stored
+		chunkIds.forEach(this::sendWorkNotification);
+	}
+
+	private WorkChunkCreateEvent newWorkChunkCreateEvent(OT theDataValue) {
+		int sequence = myChunkCounter.getAndIncrement();
+		String dataValueString = JsonUtil.serialize(theDataValue, false);
+		return new WorkChunkCreateEvent(
+				myJobDefinitionId,
+				myJobDefinitionVersion,
+				myTargetStep.getStepId(),
+				getInstanceId(),
+				sequence,
+				dataValueString);
+	}
+
+	private void sendWorkNotification(String theChunkId) {
 		if (!myGatedExecution) {
 			JobWorkNotification workNotification = new JobWorkNotification(
-					myJobDefinitionId, myJobDefinitionVersion, instanceId, targetStepId, chunkId);
+					myJobDefinitionId, myJobDefinitionVersion, getInstanceId(), myTargetStep.getStepId(), theChunkId);
 			myBatchJobSender.sendWorkChannelMessage(workNotification);
 		}
 	}
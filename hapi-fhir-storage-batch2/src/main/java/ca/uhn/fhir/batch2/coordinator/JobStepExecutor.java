@@ -86,6 +86,10 @@ public class JobStepExecutor<PT extends IModelJson, IT extends IModelJson, OT ex
 			});
 		}
 
+		if (myDefinition.isGatedExecution()) {
+			myJobMaintenanceService.onWorkChunkCompleted(myInstanceId, myCursor.getCurrentStepId());
+		}
+
 		// This flag could be stale, but checking for fast-track is a safe operation.
 		if (myInstance.isFastTracking()) {
 			handleFastTracking(stepExecutorOutput.getDataSink());
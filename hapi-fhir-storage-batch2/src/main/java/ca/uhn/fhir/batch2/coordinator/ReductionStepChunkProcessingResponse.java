@@ -23,17 +23,21 @@ import ca.uhn.fhir.batch2.model.WorkChunk;
 import org.apache.commons.collections4.CollectionUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * This class is thread safe, since associative reducers consume chunks from several threads
+ */
 public class ReductionStepChunkProcessingResponse {
 
-	private List<String> mySuccessfulChunkIds;
-	private List<String> myFailedChunksIds;
-	private boolean myIsSuccessful;
+	private final List<String> mySuccessfulChunkIds;
+	private final List<String> myFailedChunksIds;
+	private volatile boolean myIsSuccessful;
 
 	public ReductionStepChunkProcessingResponse(boolean theDefaultSuccessValue) {
-		mySuccessfulChunkIds = new ArrayList<>();
-		myFailedChunksIds = new ArrayList<>();
+		mySuccessfulChunkIds = Collections.synchronizedList(new ArrayList<>());
+		myFailedChunksIds = Collections.synchronizedList(new ArrayList<>());
 		myIsSuccessful = theDefaultSuccessValue;
 	}
 
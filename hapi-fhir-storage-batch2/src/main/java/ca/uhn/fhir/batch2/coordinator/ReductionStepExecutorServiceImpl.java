@@ -30,6 +30,7 @@ import ca.uhn.fhir.batch2.model.JobInstance;
 import ca.uhn.fhir.batch2.model.JobWorkCursor;
 import ca.uhn.fhir.batch2.model.WorkChunk;
 import ca.uhn.fhir.batch2.model.WorkChunkStatusEnum;
+import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.jpa.dao.tx.IHapiTransactionService;
 import ca.uhn.fhir.jpa.model.sched.HapiJob;
 import ca.uhn.fhir.jpa.model.sched.IHasScheduledJobs;
@@ -38,6 +39,7 @@ import ca.uhn.fhir.jpa.model.sched.ScheduledJobDefinition;
 import ca.uhn.fhir.model.api.IModelJson;
 import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.time.DateUtils;
 import org.quartz.JobExecutionContext;
 import org.slf4j.Logger;
@@ -49,17 +51,24 @@ import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.transaction.annotation.Propagation;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 
@@ -67,31 +76,82 @@ import static ca.uhn.fhir.batch2.model.StatusEnum.ERRORED;
 import static ca.uhn.fhir.batch2.model.StatusEnum.FINALIZE;
 import static ca.uhn.fhir.batch2.model.StatusEnum.IN_PROGRESS;
 
+/**
+ * Runs the final (reduction) step of batch2 jobs.
+ * <p>
+ * Reductions for up to a configurable number of job instances run at the same time. A
+ * {@link IReductionStepWorker} which is not {@link IReductionStepWorker#isAssociative() associative}
+ * is only ever used for one job instance at a time, since such workers typically accumulate the
+ * state for the reduction in fields. Associative workers are used for several instances at once, and
+ * the chunks of each instance are consumed in parallel.
+ * </p>
+ */
 public class ReductionStepExecutorServiceImpl implements IReductionStepExecutorService, IHasScheduledJobs {
 	public static final String SCHEDULED_JOB_ID = ReductionStepExecutorScheduledJob.class.getName();
+	public static final int DEFAULT_MAX_CONCURRENT_REDUCTIONS = 4;
+	/**
+	 * The number of chunks which are consumed in parallel by an associative reducer before
+	 * checking whether any of them failed
+	 */
+	static final int ASSOCIATIVE_CONSUME_BATCH_SIZE = 100;
+
 	private static final Logger ourLog = LoggerFactory.getLogger(ReductionStepExecutorServiceImpl.class);
 	private final Map<String, JobWorkCursor> myInstanceIdToJobWorkCursor =
 			Collections.synchronizedMap(new LinkedHashMap<>());
-	private final ExecutorService myReducerExecutor;
+	private final ThreadPoolExecutor myReducerExecutor;
+	private final ThreadPoolExecutor myChunkConsumerExecutor;
 	private final IJobPersistence myJobPersistence;
 	private final IHapiTransactionService myTransactionService;
-	private final Semaphore myCurrentlyExecuting = new Semaphore(1);
-	private final AtomicReference<String> myCurrentlyFinalizingInstanceId = new AtomicReference<>();
+	private final Semaphore myCurrentlyExecuting;
+	private final Set<String> myCurrentlyFinalizingInstanceIds = ConcurrentHashMap.newKeySet();
+	private final Set<IReductionStepWorker<?, ?, ?>> myWorkersInUse = ConcurrentHashMap.newKeySet();
 	private final JobDefinitionRegistry myJobDefinitionRegistry;
 	private Timer myHeartbeatTimer;
 
 	/**
-	 * Constructor
+	 * Constructor which allows up to {@link #DEFAULT_MAX_CONCURRENT_REDUCTIONS} concurrent reductions
 	 */
 	public ReductionStepExecutorServiceImpl(
 			IJobPersistence theJobPersistence,
 			IHapiTransactionService theTransactionService,
 			JobDefinitionRegistry theJobDefinitionRegistry) {
+		this(theJobPersistence, theTransactionService, theJobDefinitionRegistry, DEFAULT_MAX_CONCURRENT_REDUCTIONS);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theMaxConcurrentReductions The maximum number of job instances whose reduction step may run at
+	 *                                   the same time on this server. This is also the number of threads used
+	 *                                   to consume the chunks of an instance with an associative reducer.
+	 * @since 7.0.0
+	 */
+	public ReductionStepExecutorServiceImpl(
+			IJobPersistence theJobPersistence,
+			IHapiTransactionService theTransactionService,
+			JobDefinitionRegistry theJobDefinitionRegistry,
+			int theMaxConcurrentReductions) {
+		Validate.isTrue(theMaxConcurrentReductions > 0, "theMaxConcurrentReductions must be positive");
 		myJobPersistence = theJobPersistence;
 		myTransactionService = theTransactionService;
 		myJobDefinitionRegistry = theJobDefinitionRegistry;
 
-		myReducerExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("batch2-reducer"));
+		myCurrentlyExecuting = new Semaphore(theMaxConcurrentReductions);
+		myReducerExecutor = newExecutor(theMaxConcurrentReductions, "batch2-reducer-");
+		myChunkConsumerExecutor = newExecutor(theMaxConcurrentReductions, "batch2-reducer-consumer-");
+	}
+
+	private static ThreadPoolExecutor newExecutor(int theThreadCount, String theThreadNamePrefix) {
+		ThreadPoolExecutor retVal = new ThreadPoolExecutor(
+				theThreadCount,
+				theThreadCount,
+				1,
+				TimeUnit.MINUTES,
+				new LinkedBlockingQueue<>(),
+				new CustomizableThreadFactory(theThreadNamePrefix));
+		// idle threads are released, so the executors never need to be shut down
+		retVal.allowCoreThreadTimeOut(true);
+		return retVal;
 	}
 
 	@EventListener(ContextRefreshedEvent.class)
@@ -104,8 +164,7 @@ public class ReductionStepExecutorServiceImpl implements IReductionStepExecutorS
 	}
 
 	private void runHeartbeat() {
-		String currentlyFinalizingInstanceId = myCurrentlyFinalizingInstanceId.get();
-		if (currentlyFinalizingInstanceId != null) {
+		for (String currentlyFinalizingInstanceId : myCurrentlyFinalizingInstanceIds) {
 			ourLog.info("Running heartbeat for instance: {}", currentlyFinalizingInstanceId);
 			executeInTransactionWithSynchronization(() -> {
 				myJobPersistence.updateInstanceUpdateTime(currentlyFinalizingInstanceId);
@@ -133,13 +192,32 @@ public class ReductionStepExecutorServiceImpl implements IReductionStepExecutorS
 	@Override
 	public void reducerPass() {
 		if (myCurrentlyExecuting.tryAcquire()) {
+			String instanceId = null;
+			IReductionStepWorker<?, ?, ?> claimedWorker = null;
 			try {
 
-				String[] instanceIds = myInstanceIdToJobWorkCursor.keySet().toArray(new String[0]);
-				if (instanceIds.length > 0) {
-					String instanceId = instanceIds[0];
-					myCurrentlyFinalizingInstanceId.set(instanceId);
-					JobWorkCursor<?, ?, ?> jobWorkCursor = myInstanceIdToJobWorkCursor.get(instanceId);
+				JobWorkCursor<?, ?, ?> jobWorkCursor = null;
+				synchronized (myInstanceIdToJobWorkCursor) {
+					for (Map.Entry<String, JobWorkCursor> next : myInstanceIdToJobWorkCursor.entrySet()) {
+						if (myCurrentlyFinalizingInstanceIds.contains(next.getKey())) {
+							continue;
+						}
+						IReductionStepWorker<?, ?, ?> worker = getReductionStepWorker(next.getValue());
+						if (!worker.isAssociative()) {
+							if (!myWorkersInUse.add(worker)) {
+								// Already reducing another instance, and the worker may hold state for it
+								continue;
+							}
+							claimedWorker = worker;
+						}
+						instanceId = next.getKey();
+						jobWorkCursor = next.getValue();
+						myCurrentlyFinalizingInstanceIds.add(instanceId);
+						break;
+					}
+				}
+
+				if (instanceId != null) {
 					executeReductionStep(instanceId, jobWorkCursor);
 
 					// If we get here, this succeeded. Purge the instance from the work queue
@@ -149,12 +227,21 @@ public class ReductionStepExecutorServiceImpl implements IReductionStepExecutorS
 			} catch (Exception e) {
 				ourLog.error("Failed to execute reducer pass", e);
 			} finally {
-				myCurrentlyFinalizingInstanceId.set(null);
+				if (instanceId != null) {
+					myCurrentlyFinalizingInstanceIds.remove(instanceId);
+				}
+				if (claimedWorker != null) {
+					myWorkersInUse.remove(claimedWorker);
+				}
 				myCurrentlyExecuting.release();
 			}
 		}
 	}
 
+	private static IReductionStepWorker<?, ?, ?> getReductionStepWorker(JobWorkCursor<?, ?, ?> theJobWorkCursor) {
+		return (IReductionStepWorker<?, ?, ?>) theJobWorkCursor.getCurrentStep().getJobStepWorker();
+	}
+
 	@VisibleForTesting
 	<PT extends IModelJson, IT extends IModelJson, OT extends IModelJson>
 			ReductionStepChunkProcessingResponse executeReductionStep(
@@ -211,12 +298,40 @@ public class ReductionStepExecutorServiceImpl implements IReductionStepExecutorS
 		boolean defaultSuccessValue = true;
 		ReductionStepChunkProcessingResponse response = new ReductionStepChunkProcessingResponse(defaultSuccessValue);
 
+		try {
+			reduceChunks(instance, parameters, reductionStepWorker, response, theJobWorkCursor);
+		} catch (RuntimeException e) {
+			// Make sure the worker doesn't keep any state for an instance whose reduction blew up part way through
+			reductionStepWorker.reductionAborted(instance.getInstanceId());
+			throw e;
+		}
+
+		// if no successful chunks, return false
+		if (!response.hasSuccessfulChunksIds()) {
+			response.setSuccessful(false);
+		}
+
+		return response;
+	}
+
+	private <PT extends IModelJson, IT extends IModelJson, OT extends IModelJson> void reduceChunks(
+			JobInstance instance,
+			PT parameters,
+			IReductionStepWorker<PT, IT, OT> reductionStepWorker,
+			ReductionStepChunkProcessingResponse response,
+			JobWorkCursor<PT, IT, OT> theJobWorkCursor) {
+		JobDefinitionStep<PT, IT, OT> step = theJobWorkCursor.getCurrentStep();
 		try {
 			executeInTransactionWithSynchronization(() -> {
 				try (Stream<WorkChunk> chunkIterator =
 						myJobPersistence.fetchAllWorkChunksForStepStream(instance.getInstanceId(), step.getStepId())) {
-					chunkIterator.forEach(chunk ->
-							processChunk(chunk, instance, parameters, reductionStepWorker, response, theJobWorkCursor));
+					if (reductionStepWorker.isAssociative()) {
+						consumeChunksInParallel(
+								chunkIterator, instance, parameters, reductionStepWorker, response, theJobWorkCursor);
+					} else {
+						chunkIterator.forEach(chunk -> processChunk(
+								chunk, instance, parameters, reductionStepWorker, response, theJobWorkCursor));
+					}
 				}
 				return null;
 			});
@@ -234,8 +349,17 @@ public class ReductionStepExecutorServiceImpl implements IReductionStepExecutorS
 				StepExecutionDetails<PT, IT> chunkDetails =
 						new StepExecutionDetails<>(parameters, null, instance, "REDUCTION");
 
+				if (response.isSuccessful() && isCancelled(instance.getInstanceId())) {
+					ourLog.info(
+							"Job instance {} was cancelled while its chunks were being reduced, so no report will be produced",
+							instance.getInstanceId());
+					response.setSuccessful(false);
+				}
+
 				if (response.isSuccessful()) {
 					reductionStepWorker.run(chunkDetails, dataSink);
+				} else {
+					reductionStepWorker.reductionAborted(instance.getInstanceId());
 				}
 
 				if (response.hasSuccessfulChunksIds()) {
@@ -259,13 +383,65 @@ public class ReductionStepExecutorServiceImpl implements IReductionStepExecutorS
 				return null;
 			});
 		}
+	}
 
-		// if no successful chunks, return false
-		if (!response.hasSuccessfulChunksIds()) {
-			response.setSuccessful(false);
+	private boolean isCancelled(String theInstanceId) {
+		return myJobPersistence
+				.fetchInstance(theInstanceId)
+				.map(JobInstance::isCancelled)
+				.orElse(true);
+	}
+
+	/**
+	 * Feeds the chunks to an associative reducer from several threads. Chunks are submitted in
+	 * batches so that, as with sequential processing, chunks which are read after a failure has
+	 * been seen are marked as failed instead of being consumed.
+	 * Each chunk is consumed in a separate transaction.
+	 */
+	private <PT extends IModelJson, IT extends IModelJson, OT extends IModelJson> void consumeChunksInParallel(
+			Stream<WorkChunk> theChunks,
+			JobInstance theInstance,
+			PT theParameters,
+			IReductionStepWorker<PT, IT, OT> theReductionStepWorker,
+			ReductionStepChunkProcessingResponse theResponseObject,
+			JobWorkCursor<PT, IT, OT> theJobWorkCursor) {
+		List<WorkChunk> batch = new ArrayList<>(ASSOCIATIVE_CONSUME_BATCH_SIZE);
+		Iterator<WorkChunk> iterator = theChunks.iterator();
+		while (iterator.hasNext()) {
+			batch.add(iterator.next());
+			if (batch.size() == ASSOCIATIVE_CONSUME_BATCH_SIZE || !iterator.hasNext()) {
+				List<Future<?>> futures = new ArrayList<>(batch.size());
+				for (WorkChunk chunk : batch) {
+					// The consumer threads can't join the transaction streaming the chunks, so each
+					// chunk gets its own, as the worker and the failure handling may use the database
+					futures.add(myChunkConsumerExecutor.submit(() -> executeInTransactionWithSynchronization(() -> {
+						processChunk(
+								chunk,
+								theInstance,
+								theParameters,
+								theReductionStepWorker,
+								theResponseObject,
+								theJobWorkCursor);
+						return null;
+					})));
+				}
+				for (Future<?> future : futures) {
+					awaitChunk(future);
+				}
+				batch.clear();
+			}
 		}
+	}
 
-		return response;
+	private static void awaitChunk(Future<?> theFuture) {
+		try {
+			theFuture.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InternalErrorException(Msg.code(2453) + "Interrupted while reducing chunks", e);
+		} catch (ExecutionException e) {
+			throw new InternalErrorException(Msg.code(2454) + "Failed to reduce chunk: " + e.getCause(), e.getCause());
+		}
 	}
 
 	private <T> T executeInTransactionWithSynchronization(Callable<T> runnable) {
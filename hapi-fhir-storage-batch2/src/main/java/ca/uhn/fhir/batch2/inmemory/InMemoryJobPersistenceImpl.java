@@ -0,0 +1,568 @@
+/*-
+ * #%L
+ * HAPI FHIR JPA Server - Batch2 Task Processor
+ * %%
+ * Copyright (C) 2014 - 2023 Smile CDR, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package ca.uhn.fhir.batch2.inmemory;
+
+import ca.uhn.fhir.batch2.api.IJobPersistence;
+import ca.uhn.fhir.batch2.api.JobOperationResultJson;
+import ca.uhn.fhir.batch2.model.FetchJobInstancesRequest;
+import ca.uhn.fhir.batch2.model.JobInstance;
+import ca.uhn.fhir.batch2.model.StatusEnum;
+import ca.uhn.fhir.batch2.model.WorkChunk;
+import ca.uhn.fhir.batch2.model.WorkChunkCompletionEvent;
+import ca.uhn.fhir.batch2.model.WorkChunkCreateEvent;
+import ca.uhn.fhir.batch2.model.WorkChunkErrorEvent;
+import ca.uhn.fhir.batch2.model.WorkChunkStatusEnum;
+import ca.uhn.fhir.batch2.models.JobInstanceFetchRequest;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+
+import static ca.uhn.fhir.batch2.coordinator.WorkChunkProcessor.MAX_CHUNK_ERROR_COUNT;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * An {@link IJobPersistence} which holds job instances and work chunks in memory only, for
+ * servers (or test environments) where batch2 jobs do not need to survive a restart and the
+ * cost of writing every chunk state transition to the database is not wanted. Use it by
+ * importing {@link ca.uhn.fhir.batch2.config.InMemoryBatch2Config} instead of the JPA batch2
+ * configuration.
+ * <p>
+ * Work chunks are held in a {@link ConcurrentHashMap}, and every chunk state transition is
+ * applied atomically to the single chunk it concerns, so workers processing different chunks
+ * never contend with each other. As with instances, a transition replaces the stored chunk
+ * with a modified copy rather than changing it, so reads never see a half-applied change.
+ * Instance updates are serialized per instance, which gives
+ * {@link #updateInstance(String, JobInstanceUpdateCallback)} the same guarantees as the row lock
+ * taken by the JPA implementation, and replace the stored instance with a new copy so that reads
+ * never need to lock. Callers always receive copies, never the stored objects.
+ * </p>
+ * <p>
+ * Transaction propagation declared on {@link IJobPersistence} has no effect here: every method
+ * takes effect immediately and is not rolled back if an enclosing transaction is.
+ * </p>
+ *
+ * @since 7.0.0
+ */
+public class InMemoryJobPersistenceImpl implements IJobPersistence {
+	private static final Logger ourLog = LoggerFactory.getLogger(InMemoryJobPersistenceImpl.class);
+
+	private static final Set<WorkChunkStatusEnum> DEQUEUE_PRIOR_STATES =
+			EnumSet.of(WorkChunkStatusEnum.QUEUED, WorkChunkStatusEnum.ERRORED, WorkChunkStatusEnum.IN_PROGRESS);
+	private static final Comparator<WorkChunk> CHUNK_ORDER =
+			Comparator.comparingInt(WorkChunk::getSequence).thenComparing(WorkChunk::getId);
+	private static final Comparator<JobInstance> CREATE_TIME_ORDER =
+			Comparator.comparing(JobInstance::getCreateTime).thenComparing(JobInstance::getInstanceId);
+
+	private final Map<String, InstanceHolder> myInstances = new ConcurrentHashMap<>();
+	private final Map<String, WorkChunk> myChunks = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> myInstanceIdToChunkIds = new ConcurrentHashMap<>();
+
+	@Override
+	public String storeNewInstance(JobInstance theInstance) {
+		Validate.isTrue(isBlank(theInstance.getInstanceId()));
+
+		JobInstance instance = new JobInstance();
+		instance.setInstanceId(UUID.randomUUID().toString());
+		instance.setJobDefinitionId(theInstance.getJobDefinitionId());
+		instance.setJobDefinitionVersion(theInstance.getJobDefinitionVersion());
+		instance.setStatus(theInstance.getStatus());
+		instance.setParameters(theInstance.getParameters());
+		instance.setCurrentGatedStepId(theInstance.getCurrentGatedStepId());
+		instance.setFastTracking(theInstance.isFastTracking());
+		instance.setCreateTime(new Date());
+		instance.setStartTime(new Date());
+		instance.setReport(theInstance.getReport());
+
+		myInstances.put(instance.getInstanceId(), new InstanceHolder(instance));
+		return instance.getInstanceId();
+	}
+
+	@Override
+	@Nonnull
+	public Optional<JobInstance> fetchInstance(String theInstanceId) {
+		return Optional.ofNullable(myInstances.get(theInstanceId)).map(t -> new JobInstance(t.getInstance()));
+	}
+
+	@Override
+	public List<JobInstance> fetchInstances(
+			String theJobDefinitionId, Set<StatusEnum> theStatuses, Date theCutoff, Pageable thePageable) {
+		return fetchInstancePage(
+				t -> t.getJobDefinitionId().equals(theJobDefinitionId)
+						&& theStatuses.contains(t.getStatus())
+						&& t.getEndTime() != null
+						&& t.getEndTime().before(theCutoff),
+				CREATE_TIME_ORDER,
+				thePageable);
+	}
+
+	@Override
+	public List<JobInstance> fetchInstances(FetchJobInstancesRequest theRequest, int theStart, int theBatchSize) {
+		Set<StatusEnum> statuses = theRequest.getStatuses();
+		return fetchInstancePage(
+				t -> t.getJobDefinitionId().equals(theRequest.getJobDefinition())
+						&& Objects.equals(t.getParameters(), theRequest.getParameters())
+						&& (statuses == null || statuses.isEmpty() || statuses.contains(t.getStatus())),
+				CREATE_TIME_ORDER,
+				PageRequest.of(theStart, theBatchSize));
+	}
+
+	@Override
+	public List<JobInstance> fetchInstances(int thePageSize, int thePageIndex) {
+		return fetchInstancePage(t -> true, CREATE_TIME_ORDER, PageRequest.of(thePageIndex, thePageSize));
+	}
+
+	@Override
+	public List<JobInstance> fetchRecentInstances(int thePageSize, int thePageIndex) {
+		return fetchInstancePage(t -> true, CREATE_TIME_ORDER.reversed(), PageRequest.of(thePageIndex, thePageSize));
+	}
+
+	@Override
+	public List<JobInstance> fetchInstancesByJobDefinitionIdAndStatus(
+			String theJobDefinitionId, Set<StatusEnum> theRequestedStatuses, int thePageSize, int thePageIndex) {
+		return fetchInstancePage(
+				t -> t.getJobDefinitionId().equals(theJobDefinitionId) && theRequestedStatuses.contains(t.getStatus()),
+				CREATE_TIME_ORDER,
+				PageRequest.of(thePageIndex, thePageSize));
+	}
+
+	@Override
+	public List<JobInstance> fetchInstancesByJobDefinitionId(
+			String theJobDefinitionId, int thePageSize, int thePageIndex) {
+		return fetchInstancePage(
+				t -> t.getJobDefinitionId().equals(theJobDefinitionId),
+				CREATE_TIME_ORDER,
+				PageRequest.of(thePageIndex, thePageSize));
+	}
+
+	@Override
+	public Page<JobInstance> fetchJobInstances(JobInstanceFetchRequest theRequest) {
+		PageRequest pageRequest =
+				PageRequest.of(theRequest.getPageStart(), theRequest.getBatchSize(), theRequest.getSort());
+
+		Predicate<JobInstance> filter;
+		if (isBlank(theRequest.getJobStatus())) {
+			filter = t -> true;
+		} else {
+			StatusEnum status = StatusEnum.valueOf(theRequest.getJobStatus());
+			filter = t -> t.getStatus() == status;
+		}
+
+		List<JobInstance> matching = streamInstances().filter(filter).collect(Collectors.toList());
+		List<JobInstance> page = toPage(matching.stream(), toComparator(pageRequest.getSort()), pageRequest);
+		return new PageImpl<>(page, pageRequest, matching.size());
+	}
+
+	@Override
+	public boolean canAdvanceInstanceToNextStep(String theInstanceId, String theCurrentStepId) {
+		InstanceHolder instance = myInstances.get(theInstanceId);
+		if (instance == null || instance.getInstance().getStatus().isEnded()) {
+			return false;
+		}
+		Set<WorkChunkStatusEnum> statusesForStep = streamChunks(theInstanceId)
+				.filter(t -> t.getTargetStepId().equals(theCurrentStepId))
+				.map(WorkChunk::getStatus)
+				.collect(Collectors.toSet());
+
+		ourLog.debug(
+				"Checking whether gated job can advanced to next step. [instanceId={}, currentStepId={}, statusesForStep={}]",
+				theInstanceId,
+				theCurrentStepId,
+				statusesForStep);
+		return statusesForStep.isEmpty() || statusesForStep.equals(Set.of(WorkChunkStatusEnum.COMPLETED));
+	}
+
+	@Override
+	public boolean updateInstance(String theInstanceId, JobInstanceUpdateCallback theModifier) {
+		boolean[] found = new boolean[1];
+		boolean wasModified = modifyInstance(theInstanceId, t -> {
+			found[0] = true;
+			return theModifier.doUpdate(t);
+		});
+		if (!found[0]) {
+			ourLog.error("No instance found with Id {}", theInstanceId);
+		}
+		return wasModified;
+	}
+
+	@Override
+	public void deleteInstanceAndChunks(String theInstanceId) {
+		ourLog.info("Deleting instance and chunks: {}", theInstanceId);
+		deleteChunks(theInstanceId);
+		myInstances.remove(theInstanceId);
+	}
+
+	@Override
+	public void deleteChunksAndMarkInstanceAsChunksPurged(String theInstanceId) {
+		ourLog.info("Deleting all chunks for instance ID: {}", theInstanceId);
+		boolean updated = modifyInstance(theInstanceId, t -> {
+			t.setWorkChunksPurged(true);
+			return true;
+		});
+		int deleteCount = deleteChunks(theInstanceId);
+		ourLog.debug("Purged {} chunks, and updated instance: {}", deleteCount, updated);
+	}
+
+	@Override
+	public boolean markInstanceAsStatusWhenStatusIn(
+			String theInstanceId, StatusEnum theStatusEnum, Set<StatusEnum> thePriorStates) {
+		boolean changed = modifyInstance(theInstanceId, t -> {
+			if (!thePriorStates.contains(t.getStatus())) {
+				return false;
+			}
+			t.setStatus(theStatusEnum);
+			return true;
+		});
+		ourLog.debug(
+				"Update job {} to status {} if in status {}: {}",
+				theInstanceId,
+				theStatusEnum,
+				thePriorStates,
+				changed);
+		return changed;
+	}
+
+	@Override
+	public JobOperationResultJson cancelInstance(String theInstanceId) {
+		boolean changed = modifyInstance(theInstanceId, t -> {
+			t.setCancelled(true);
+			return true;
+		});
+		String operationString = "Cancel job instance " + theInstanceId;
+		String messagePrefix = "Job instance <" + theInstanceId + ">";
+		if (changed) {
+			return JobOperationResultJson.newSuccess(operationString, messagePrefix + " successfully cancelled.");
+		} else {
+			return JobOperationResultJson.newFailure(operationString, messagePrefix + " not found.");
+		}
+	}
+
+	@Override
+	public void updateInstanceUpdateTime(String theInstanceId) {
+		modifyInstance(theInstanceId, t -> {
+			t.setUpdateTime(new Date());
+			return true;
+		});
+	}
+
+	@Override
+	public String onWorkChunkCreate(WorkChunkCreateEvent theBatchWorkChunk) {
+		WorkChunk chunk = new WorkChunk();
+		chunk.setId(UUID.randomUUID().toString());
+		chunk.setSequence(theBatchWorkChunk.sequence);
+		chunk.setJobDefinitionId(theBatchWorkChunk.jobDefinitionId);
+		chunk.setJobDefinitionVersion(theBatchWorkChunk.jobDefinitionVersion);
+		chunk.setTargetStepId(theBatchWorkChunk.targetStepId);
+		chunk.setInstanceId(theBatchWorkChunk.instanceId);
+		chunk.setData(theBatchWorkChunk.serializedData);
+		chunk.setCreateTime(new Date());
+		chunk.setStartTime(new Date());
+		chunk.setStatus(WorkChunkStatusEnum.QUEUED);
+		ourLog.debug("Create work chunk {}/{}/{}", chunk.getInstanceId(), chunk.getId(), chunk.getTargetStepId());
+
+		myChunks.put(chunk.getId(), chunk);
+		myInstanceIdToChunkIds
+				.computeIfAbsent(chunk.getInstanceId(), t -> ConcurrentHashMap.newKeySet())
+				.add(chunk.getId());
+		return chunk.getId();
+	}
+
+	@Override
+	public Optional<WorkChunk> onWorkChunkDequeue(String theChunkId) {
+		WorkChunk started = modifyChunk(theChunkId, t -> {
+			if (!DEQUEUE_PRIOR_STATES.contains(t.getStatus())) {
+				return false;
+			}
+			t.setStatus(WorkChunkStatusEnum.IN_PROGRESS);
+			t.setStartTime(new Date());
+			return true;
+		});
+		if (started == null) {
+			ourLog.info("Attempting to start chunk {} but it was already started.", theChunkId);
+			return Optional.empty();
+		}
+		return Optional.of(copyChunk(started, true));
+	}
+
+	@Override
+	public WorkChunkStatusEnum onWorkChunkError(WorkChunkErrorEvent theParameters) {
+		String chunkId = theParameters.getChunkId();
+		WorkChunk chunk = modifyChunk(chunkId, t -> {
+			t.setStatus(WorkChunkStatusEnum.ERRORED);
+			t.setEndTime(new Date());
+			t.setErrorMessage(theParameters.getErrorMsg());
+			t.setErrorCount(t.getErrorCount() + 1);
+			if (t.getErrorCount() > MAX_CHUNK_ERROR_COUNT) {
+				t.setStatus(WorkChunkStatusEnum.FAILED);
+				t.setErrorMessage(
+						"Too many errors: " + t.getErrorCount() + ". Last error msg was " + t.getErrorMessage());
+			}
+			return true;
+		});
+		Validate.isTrue(chunk != null, "changed chunk matching %s", chunkId);
+		return chunk.getStatus();
+	}
+
+	@Override
+	public void onWorkChunkFailed(String theChunkId, String theErrorMessage) {
+		ourLog.info("Marking chunk {} as failed with message: {}", theChunkId, theErrorMessage);
+		modifyChunk(theChunkId, t -> {
+			t.setStatus(WorkChunkStatusEnum.FAILED);
+			t.setEndTime(new Date());
+			t.setErrorMessage(theErrorMessage);
+			t.setErrorCount(t.getErrorCount() + 1);
+			return true;
+		});
+	}
+
+	@Override
+	public void onWorkChunkCompletion(WorkChunkCompletionEvent theEvent) {
+		modifyChunk(theEvent.getChunkId(), t -> {
+			t.setStatus(WorkChunkStatusEnum.COMPLETED);
+			t.setEndTime(new Date());
+			t.setRecordsProcessed(theEvent.getRecordsProcessed());
+			t.setErrorCount(t.getErrorCount() + theEvent.getRecoveredErrorCount());
+			t.setData((String) null);
+			t.setWarningMessage(theEvent.getRecoveredWarningMessage());
+			return true;
+		});
+	}
+
+	@Override
+	public void markWorkChunksWithStatusAndWipeData(
+			String theInstanceId, List<String> theChunkIds, WorkChunkStatusEnum theStatus, String theErrorMessage) {
+		ourLog.debug("Marking all chunks for instance {} to status {}", theInstanceId, theStatus);
+		for (String chunkId : theChunkIds) {
+			modifyChunk(chunkId, t -> {
+				t.setStatus(theStatus);
+				t.setEndTime(new Date());
+				t.setData((String) null);
+				t.setErrorMessage(theErrorMessage);
+				return true;
+			});
+		}
+	}
+
+	@Override
+	public Iterator<WorkChunk> fetchAllWorkChunksIterator(String theInstanceId, boolean theWithData) {
+		return streamChunks(theInstanceId)
+				.sorted(CHUNK_ORDER)
+				.map(t -> copyChunk(t, theWithData))
+				.iterator();
+	}
+
+	@Override
+	public Stream<WorkChunk> fetchAllWorkChunksForStepStream(String theInstanceId, String theStepId) {
+		return streamChunks(theInstanceId)
+				.filter(t -> t.getTargetStepId().equals(theStepId))
+				.sorted(CHUNK_ORDER)
+				.map(t -> copyChunk(t, true));
+	}
+
+	@Override
+	public List<String> fetchAllChunkIdsForStepWithStatus(
+			String theInstanceId, String theStepId, WorkChunkStatusEnum theStatusEnum) {
+		return streamChunks(theInstanceId)
+				.filter(t -> t.getTargetStepId().equals(theStepId) && t.getStatus() == theStatusEnum)
+				.map(WorkChunk::getId)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Applies a change to a copy of the stored instance while holding its lock, and stores the
+	 * copy if the modifier returns <code>true</code>. Returns <code>false</code> if the instance
+	 * does not exist or the modifier returned <code>false</code>.
+	 */
+	private boolean modifyInstance(String theInstanceId, Predicate<JobInstance> theModifier) {
+		InstanceHolder holder = myInstances.get(theInstanceId);
+		if (holder == null) {
+			return false;
+		}
+		synchronized (holder) {
+			JobInstance instance = new JobInstance(holder.getInstance());
+			if (!theModifier.test(instance)) {
+				return false;
+			}
+			instance.setInstanceId(theInstanceId);
+			holder.setInstance(instance);
+			return true;
+		}
+	}
+
+	/**
+	 * Atomically applies a state transition to a copy of a single stored chunk, and replaces the
+	 * stored chunk with the copy if the modifier returns <code>true</code>. Stored chunks are never
+	 * modified in place, so readers can copy them without locking. Returns a copy of the new chunk,
+	 * or <code>null</code> if the chunk does not exist or the modifier returned <code>false</code>.
+	 */
+	private WorkChunk modifyChunk(String theChunkId, Predicate<WorkChunk> theModifier) {
+		WorkChunk[] retVal = new WorkChunk[1];
+		myChunks.computeIfPresent(theChunkId, (id, chunk) -> {
+			WorkChunk modified = copyChunk(chunk, true);
+			if (!theModifier.test(modified)) {
+				return chunk;
+			}
+			retVal[0] = copyChunk(modified, true);
+			return modified;
+		});
+		return retVal[0];
+	}
+
+	private int deleteChunks(String theInstanceId) {
+		Set<String> chunkIds = myInstanceIdToChunkIds.remove(theInstanceId);
+		if (chunkIds == null) {
+			return 0;
+		}
+		chunkIds.forEach(myChunks::remove);
+		return chunkIds.size();
+	}
+
+	private Stream<WorkChunk> streamChunks(String theInstanceId) {
+		Set<String> chunkIds = myInstanceIdToChunkIds.getOrDefault(theInstanceId, Collections.emptySet());
+		return chunkIds.stream().map(myChunks::get).filter(Objects::nonNull);
+	}
+
+	private Stream<JobInstance> streamInstances() {
+		return myInstances.values().stream().map(InstanceHolder::getInstance);
+	}
+
+	private List<JobInstance> fetchInstancePage(
+			Predicate<JobInstance> theFilter, Comparator<JobInstance> theOrder, Pageable thePageable) {
+		return toPage(streamInstances().filter(theFilter), theOrder, thePageable);
+	}
+
+	private static List<JobInstance> toPage(
+			Stream<JobInstance> theInstances, Comparator<JobInstance> theOrder, Pageable thePageable) {
+		Stream<JobInstance> retVal = theInstances.sorted(theOrder);
+		if (thePageable.isPaged()) {
+			retVal = retVal.skip(thePageable.getOffset()).limit(thePageable.getPageSize());
+		}
+		return retVal.map(JobInstance::new).collect(Collectors.toList());
+	}
+
+	/**
+	 * Converts a sort expressed using the JPA entity property names (which is how callers of
+	 * {@link #fetchJobInstances(JobInstanceFetchRequest)} build it) into a comparator.
+	 * Unknown properties are ignored.
+	 */
+	private static Comparator<JobInstance> toComparator(Sort theSort) {
+		Comparator<JobInstance> retVal = null;
+		for (Sort.Order order : theSort) {
+			Function<JobInstance, Comparable<?>> property = toSortProperty(order.getProperty());
+			if (property == null) {
+				continue;
+			}
+			@SuppressWarnings({"unchecked", "rawtypes"})
+			Comparator<JobInstance> next =
+					Comparator.comparing((Function) property, Comparator.nullsFirst(Comparator.naturalOrder()));
+			if (order.isDescending()) {
+				next = next.reversed();
+			}
+			retVal = retVal == null ? next : retVal.thenComparing(next);
+		}
+		return retVal == null ? CREATE_TIME_ORDER : retVal.thenComparing(CREATE_TIME_ORDER);
+	}
+
+	private static Function<JobInstance, Comparable<?>> toSortProperty(String theProperty) {
+		switch (theProperty) {
+			case "myId":
+				return JobInstance::getInstanceId;
+			case "myDefinitionId":
+				return JobInstance::getJobDefinitionId;
+			case "myStatus":
+				return JobInstance::getStatus;
+			case "myCreateTime":
+				return JobInstance::getCreateTime;
+			case "myStartTime":
+				return JobInstance::getStartTime;
+			case "myEndTime":
+				return JobInstance::getEndTime;
+			case "myUpdateTime":
+				return JobInstance::getUpdateTime;
+			default:
+				return null;
+		}
+	}
+
+	private static WorkChunk copyChunk(WorkChunk theChunk, boolean theWithData) {
+		WorkChunk retVal = new WorkChunk();
+		retVal.setId(theChunk.getId());
+		retVal.setSequence(theChunk.getSequence());
+		retVal.setStatus(theChunk.getStatus());
+		retVal.setJobDefinitionId(theChunk.getJobDefinitionId());
+		retVal.setJobDefinitionVersion(theChunk.getJobDefinitionVersion());
+		retVal.setTargetStepId(theChunk.getTargetStepId());
+		retVal.setInstanceId(theChunk.getInstanceId());
+		retVal.setCreateTime(theChunk.getCreateTime());
+		retVal.setStartTime(theChunk.getStartTime());
+		retVal.setEndTime(theChunk.getEndTime());
+		retVal.setUpdateTime(theChunk.getUpdateTime());
+		retVal.setRecordsProcessed(theChunk.getRecordsProcessed());
+		retVal.setErrorMessage(theChunk.getErrorMessage());
+		retVal.setErrorCount(theChunk.getErrorCount());
+		retVal.setWarningMessage(theChunk.getWarningMessage());
+		if (theWithData) {
+			retVal.setData(theChunk.getData());
+		}
+		return retVal;
+	}
+
+	/**
+	 * The stored instance is never modified once published here; changes replace it with
+	 * a modified copy while holding the lock on the holder.
+	 */
+	private static class InstanceHolder {
+		private volatile JobInstance myInstance;
+
+		private InstanceHolder(JobInstance theInstance) {
+			myInstance = theInstance;
+		}
+
+		private JobInstance getInstance() {
+			return myInstance;
+		}
+
+		private void setInstance(JobInstance theInstance) {
+			myInstance = theInstance;
+		}
+	}
+}
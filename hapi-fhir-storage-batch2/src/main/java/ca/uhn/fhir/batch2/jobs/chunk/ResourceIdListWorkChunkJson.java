@@ -24,6 +24,7 @@ import ca.uhn.fhir.jpa.api.svc.IIdHelperService;
 import ca.uhn.fhir.model.api.IModelJson;
 import ca.uhn.fhir.rest.api.server.storage.IResourcePersistentId;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
@@ -33,12 +34,31 @@ import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * A chunk of resource PIDs to be processed by a batch job step.
+ * <p>
+ * Where possible (i.e. every PID is numeric, which is always the case for the JPA server) the PIDs
+ * are serialized in a compact form under <code>compactIds</code> rather than as a list of
+ * <code>{"type":..., "id":...}</code> objects under <code>ids</code>. The compact form consists of
+ * runs of PIDs sharing the same resource type, separated by <code>;</code>. Each run is the resource type,
+ * a <code>:</code>, then the first PID followed by the difference between each PID and the one before it,
+ * separated by <code>,</code>. For example, <code>Patient:1001,1,1;Observation:2050,-3</code> holds
+ * Patient 1001, Patient 1002, Patient 1003, Observation 2050 and Observation 2047. PIDs are typically
+ * loaded in ascending order, so this is usually many times smaller than the verbose form. Both forms
+ * are accepted when deserializing, so chunks stored by earlier versions can still be processed.
+ * </p>
+ */
 public class ResourceIdListWorkChunkJson implements IModelJson {
 
+	private static final char RUN_SEPARATOR = ';';
+	private static final char TYPE_SEPARATOR = ':';
+	private static final char PID_SEPARATOR = ',';
+
 	@JsonProperty("requestPartitionId")
 	private RequestPartitionId myRequestPartitionId;
 
-	@JsonProperty("ids")
 	private List<TypedPidJson> myTypedPids;
 
 	/**
@@ -69,6 +89,88 @@ public class ResourceIdListWorkChunkJson implements IModelJson {
 		return myTypedPids;
 	}
 
+	@JsonProperty("ids")
+	private List<TypedPidJson> getTypedPidsForSerialization() {
+		return canUseCompactIds() ? null : myTypedPids;
+	}
+
+	@JsonProperty("ids")
+	private void setTypedPidsForSerialization(List<TypedPidJson> theTypedPids) {
+		getTypedPids().addAll(theTypedPids);
+	}
+
+	@JsonProperty("compactIds")
+	private String getCompactIds() {
+		if (!canUseCompactIds()) {
+			return null;
+		}
+
+		StringBuilder b = new StringBuilder();
+		String previousType = null;
+		long previousPid = 0;
+		for (TypedPidJson next : myTypedPids) {
+			long pid = Long.parseLong(next.getPid());
+			if (next.getResourceType().equals(previousType)) {
+				b.append(PID_SEPARATOR).append(pid - previousPid);
+			} else {
+				if (previousType != null) {
+					b.append(RUN_SEPARATOR);
+				}
+				b.append(next.getResourceType()).append(TYPE_SEPARATOR).append(pid);
+				previousType = next.getResourceType();
+			}
+			previousPid = pid;
+		}
+		return b.toString();
+	}
+
+	@JsonProperty("compactIds")
+	private void setCompactIds(String theCompactIds) {
+		List<TypedPidJson> typedPids = getTypedPids();
+		for (String nextRun : StringUtils.split(theCompactIds, RUN_SEPARATOR)) {
+			int typeSeparatorIdx = nextRun.indexOf(TYPE_SEPARATOR);
+			String resourceType = nextRun.substring(0, typeSeparatorIdx);
+			long pid = 0;
+			boolean first = true;
+			for (String nextPid : StringUtils.split(nextRun.substring(typeSeparatorIdx + 1), PID_SEPARATOR)) {
+				pid = first ? Long.parseLong(nextPid) : pid + Long.parseLong(nextPid);
+				first = false;
+				typedPids.add(new TypedPidJson(resourceType, Long.toString(pid)));
+			}
+		}
+	}
+
+	/**
+	 * The compact form can only be used if it round-trips exactly, i.e. every PID is the canonical
+	 * string form of a long and no resource type contains a separator
+	 */
+	private boolean canUseCompactIds() {
+		if (myTypedPids == null || myTypedPids.isEmpty()) {
+			return false;
+		}
+		for (TypedPidJson next : myTypedPids) {
+			String resourceType = next.getResourceType();
+			if (isBlank(resourceType) || StringUtils.containsAny(resourceType, RUN_SEPARATOR, TYPE_SEPARATOR)) {
+				return false;
+			}
+			if (!isCanonicalLong(next.getPid())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isCanonicalLong(String thePid) {
+		// Stay well clear of overflow when computing the differences between PIDs
+		if (thePid == null || thePid.isEmpty() || thePid.length() > 18) {
+			return false;
+		}
+		if (thePid.length() > 1 && thePid.charAt(0) == '0') {
+			return false;
+		}
+		return thePid.chars().allMatch(c -> c >= '0' && c <= '9');
+	}
+
 	@Override
 	public String toString() {
 		return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
@@ -35,6 +35,7 @@ import com.google.common.collect.Iterators;
 import com.google.common.collect.UnmodifiableIterator;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedHashSet;
@@ -100,29 +101,32 @@ public class ResourceIdListStep<PT extends PartitionedJobParameters, IT extends
 			final UnmodifiableIterator<List<TypedPidJson>> partition =
 					Iterators.partition(idBuffer.iterator(), maxBatchId);
 
+			// All the chunks for this page are submitted together so that they can be stored in one batch
+			List<ResourceIdListWorkChunkJson> workChunks = new ArrayList<>();
 			while (partition.hasNext()) {
 				final List<TypedPidJson> submissionIds = partition.next();
 
 				totalIdsFound += submissionIds.size();
 				chunkCount++;
-				submitWorkChunk(submissionIds, nextChunk.getRequestPartitionId(), theDataSink);
+				addWorkChunk(submissionIds, nextChunk.getRequestPartitionId(), workChunks);
 			}
+			theDataSink.acceptAll(workChunks);
 
 			ourLog.info("Submitted {} chunks with {} resource IDs", chunkCount, totalIdsFound);
 		}
 		return RunOutcome.SUCCESS;
 	}
 
-	private void submitWorkChunk(
+	private void addWorkChunk(
 			Collection<TypedPidJson> theTypedPids,
 			RequestPartitionId theRequestPartitionId,
-			IJobDataSink<ResourceIdListWorkChunkJson> theDataSink) {
+			List<ResourceIdListWorkChunkJson> theWorkChunks) {
 		if (theTypedPids.isEmpty()) {
 			return;
 		}
 		ourLog.info("Submitting work chunk with {} IDs", theTypedPids.size());
 		ResourceIdListWorkChunkJson data = new ResourceIdListWorkChunkJson(theTypedPids, theRequestPartitionId);
 		ourLog.debug("IDs are: {}", data);
-		theDataSink.accept(data);
+		theWorkChunks.add(data);
 	}
 }
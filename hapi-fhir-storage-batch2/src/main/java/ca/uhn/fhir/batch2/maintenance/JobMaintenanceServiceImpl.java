@@ -42,7 +42,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
@@ -75,6 +77,12 @@ import javax.annotation.Nonnull;
  *    The maintenance pass is run once per minute.  However if a gated job is fast-tracking (i.e. every step produced
  *    exactly one chunk, then the maintenance task will be triggered earlier than scheduled by the step executor.
  * </p>
+ * <p>
+ *    If {@link JpaStorageSettings#isJobEventDrivenProgressionEnabled() event driven progression} is enabled, a gated
+ *    job instance is also processed as soon as the last work chunk of its current step completes, see
+ *    {@link #onWorkChunkCompleted(String, String)}. The scheduled pass remains as a safety net for instances which
+ *    this misses, e.g. because the server processing the last chunk went down.
+ * </p>
  */
 public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasScheduledJobs {
 	static final Logger ourLog = Logs.getBatchTroubleshootingLog();
@@ -91,6 +99,11 @@ public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasSc
 	private final WorkChunkProcessor myJobExecutorSvc;
 
 	private final Semaphore myRunMaintenanceSemaphore = new Semaphore(1);
+	/**
+	 * Instance IDs with an event driven progression check running on this node, mapped to the number of
+	 * chunk completion notifications received for them so far
+	 */
+	private final Map<String, Integer> myPendingProgressionChecks = new ConcurrentHashMap<>();
 
 	private long myScheduledJobFrequencyMillis = DateUtils.MILLIS_PER_MINUTE;
 	private Runnable myMaintenanceJobStartedCallback = () -> {};
@@ -212,6 +225,58 @@ public class JobMaintenanceServiceImpl implements IJobMaintenanceService, IHasSc
 		}
 	}
 
+	@Override
+	public void onWorkChunkCompleted(String theInstanceId, String theStepId) {
+		if (!myStorageSettings.isJobEventDrivenProgressionEnabled()) {
+			return;
+		}
+
+		/*
+		 * The chunks of a large step complete concurrently on many threads, so rather than running one
+		 * check per chunk, only one thread per instance checks at a time. Notifications which arrive
+		 * while it is checking are collapsed into a single re-check once it is done, so the
+		 * notification for the last chunk is never lost.
+		 */
+		int notificationCount = myPendingProgressionChecks.merge(theInstanceId, 1, Integer::sum);
+		if (notificationCount > 1) {
+			ourLog.debug("Instance {} is already being checked by another thread", theInstanceId);
+			return;
+		}
+
+		Integer pendingNotificationCount = notificationCount;
+		while (pendingNotificationCount != null) {
+			// If the step did advance, a re-check still processes the instance (and so its new current step)
+			progressInstanceIfStepComplete(theInstanceId, theStepId);
+			int handledNotificationCount = pendingNotificationCount;
+			pendingNotificationCount = myPendingProgressionChecks.compute(
+					theInstanceId, (id, count) -> count == handledNotificationCount ? null : count);
+		}
+	}
+
+	private void progressInstanceIfStepComplete(String theInstanceId, String theStepId) {
+		try {
+			if (!myJobPersistence.canAdvanceInstanceToNextStep(theInstanceId, theStepId)) {
+				// Other chunks for this step are still outstanding, so the last of them will do this
+				return;
+			}
+			ourLog.debug(
+					"All chunks for step {} of instance {} are complete.  Processing instance.",
+					theStepId,
+					theInstanceId);
+			new JobInstanceProcessor(
+							myJobPersistence,
+							myBatchJobSender,
+							theInstanceId,
+							new JobChunkProgressAccumulator(),
+							myReductionStepExecutorService,
+							myJobDefinitionRegistry)
+					.process();
+		} catch (Exception e) {
+			// The chunk itself succeeded, and the next maintenance pass will retry this
+			ourLog.error("Failed to process instance {} after completion of step {}", theInstanceId, theStepId, e);
+		}
+	}
+
 	private void doMaintenancePass() {
 		myMaintenanceJobStartedCallback.run();
 		Set<String> processedInstanceIds = new HashSet<>();
@@ -27,11 +27,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -54,6 +58,8 @@ class JobDataSinkTest {
 	private ArgumentCaptor<JobWorkNotification> myJobWorkNotificationCaptor;
 	@Captor
 	private ArgumentCaptor<WorkChunkCreateEvent> myBatchWorkChunkCaptor;
+	@Captor
+	private ArgumentCaptor<List<WorkChunkCreateEvent>> myBatchWorkChunksCaptor;
 
 	@Test
 	public void test_sink_accept() {
@@ -126,6 +132,46 @@ class JobDataSinkTest {
 		assertThat(stepOutput.getPids(), hasSize(PID_COUNT));
 	}
 
+	@Test
+	public void test_sink_acceptAll() {
+		// setup
+		IJobStepWorker<TestJobParameters, Step1Output, VoidModel> lastStepWorker = (details, sink) -> {
+			// Our test does not call this worker
+			fail();
+			return null;
+		};
+		JobDefinition<TestJobParameters> job = JobDefinition.newBuilder()
+			.setJobDefinitionId(JOB_DEF_ID)
+			.setJobDescription(JOB_DESC)
+			.setJobDefinitionVersion(JOB_DEF_VERSION)
+			.setParametersType(TestJobParameters.class)
+			.addFirstStep(FIRST_STEP_ID, "s1desc", Step1Output.class, (details, sink) -> new RunOutcome(0))
+			.addLastStep(LAST_STEP_ID, "s2desc", lastStepWorker)
+			.build();
+		JobDefinitionStep<TestJobParameters, VoidModel, Step1Output> firstStep = (JobDefinitionStep<TestJobParameters, VoidModel, Step1Output>) job.getSteps().get(0);
+		JobDefinitionStep<TestJobParameters, Step1Output, VoidModel> lastStep = (JobDefinitionStep<TestJobParameters, Step1Output, VoidModel>) job.getSteps().get(1);
+		JobWorkCursor<TestJobParameters, VoidModel, Step1Output> cursor = new JobWorkCursor<>(job, true, firstStep, lastStep);
+		JobDataSink<TestJobParameters, VoidModel, Step1Output> sink = new JobDataSink<>(myBatchJobSender, myJobPersistence, job, JOB_INSTANCE_ID, cursor);
+		when(myJobPersistence.onWorkChunksCreate(myBatchWorkChunksCaptor.capture())).thenReturn(List.of("chunk-0", "chunk-1", "chunk-2"));
+
+		// execute
+		sink.acceptAll(List.of(new Step1Output(), new Step1Output(), new Step1Output()));
+
+		// verify
+		List<WorkChunkCreateEvent> batchWorkChunks = myBatchWorkChunksCaptor.getValue();
+		assertThat(batchWorkChunks, hasSize(3));
+		for (int i = 0; i < 3; i++) {
+			assertEquals(i, batchWorkChunks.get(i).sequence);
+			assertEquals(LAST_STEP_ID, batchWorkChunks.get(i).targetStepId);
+		}
+		assertEquals(3, sink.getWorkChunkCount());
+
+		verify(myBatchJobSender, times(3)).sendWorkChannelMessage(myJobWorkNotificationCaptor.capture());
+		List<String> notifiedChunkIds = myJobWorkNotificationCaptor.getAllValues().stream().map(JobWorkNotification::getChunkId).collect(Collectors.toList());
+		assertEquals(List.of("chunk-0", "chunk-1", "chunk-2"), notifiedChunkIds);
+		verify(myJobPersistence, never()).onWorkChunkCreate(any());
+	}
+
 	private static class Step1Output implements IModelJson {
 		@JsonProperty("pids")
 		private List<Long> myPids;
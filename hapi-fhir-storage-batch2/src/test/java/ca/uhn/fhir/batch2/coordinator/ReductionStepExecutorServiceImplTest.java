@@ -27,8 +27,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static ca.uhn.fhir.batch2.coordinator.WorkChunkProcessorTest.INSTANCE_ID;
 import static ca.uhn.fhir.batch2.coordinator.WorkChunkProcessorTest.JOB_DEFINITION_ID;
@@ -40,6 +43,8 @@ import static ca.uhn.fhir.batch2.coordinator.WorkChunkProcessorTest.createWorkCh
 import static ca.uhn.fhir.batch2.coordinator.WorkChunkProcessorTest.getTestJobInstance;
 import static ca.uhn.fhir.batch2.model.StatusEnum.ERRORED;
 import static ca.uhn.fhir.batch2.model.StatusEnum.IN_PROGRESS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -125,6 +130,44 @@ public class ReductionStepExecutorServiceImplTest {
 		List<WorkChunkStatusEnum> statuses = statusCaptor.getAllValues();
 		assertEquals(WorkChunkStatusEnum.COMPLETED, statuses.get(0));
 		assertEquals(WorkChunkStatusEnum.FAILED, statuses.get(1));
+		verify(myReductionStepWorker, never()).run(any(), any());
+		verify(myReductionStepWorker).reductionAborted(eq(INSTANCE_ID));
+	}
+
+	@Test
+	public void doExecution_instanceCancelledDuringReduction_abortsInsteadOfRunning() {
+		// setup
+		List<String> chunkIds = Arrays.asList("chunk1", "chunk2");
+		List<WorkChunk> chunks = new ArrayList<>();
+		for (String id : chunkIds) {
+			chunks.add(createWorkChunk(id));
+		}
+		JobInstance jobInstance = getTestJobInstance();
+		jobInstance.setStatus(StatusEnum.IN_PROGRESS);
+		JobInstance cancelledInstance = getTestJobInstance();
+		cancelledInstance.setStatus(StatusEnum.FINALIZE);
+		cancelledInstance.setCancelled(true);
+		JobWorkCursor<TestJobParameters, StepInputData, StepOutputData> workCursor = mock(JobWorkCursor.class);
+
+		// when
+		when(workCursor.getCurrentStep()).thenReturn((JobDefinitionStep<TestJobParameters, StepInputData, StepOutputData>) createJobDefinition().getSteps().get(1));
+		when(workCursor.getJobDefinition()).thenReturn(createJobDefinition());
+		when(myJobPersistence.fetchInstance(eq(INSTANCE_ID)))
+			.thenReturn(Optional.of(jobInstance))
+			.thenReturn(Optional.of(cancelledInstance));
+		when(myJobPersistence.markInstanceAsStatusWhenStatusIn(INSTANCE_ID, StatusEnum.FINALIZE, EnumSet.of(IN_PROGRESS, ERRORED))).thenReturn(true);
+		when(myJobPersistence.fetchAllWorkChunksForStepStream(eq(INSTANCE_ID), eq(REDUCTION_STEP_ID)))
+			.thenReturn(chunks.stream());
+		when(myReductionStepWorker.consume(any(ChunkExecutionDetails.class)))
+			.thenReturn(ChunkOutcome.SUCCESS());
+
+		// test
+		ReductionStepChunkProcessingResponse result = mySvc.executeReductionStep(INSTANCE_ID, workCursor);
+
+		// verify
+		assertFalse(result.isSuccessful());
+		verify(myReductionStepWorker, never()).run(any(), any());
+		verify(myReductionStepWorker).reductionAborted(eq(INSTANCE_ID));
 	}
 
 
@@ -175,7 +218,7 @@ public class ReductionStepExecutorServiceImplTest {
 		for (String chunkId : chunkIds) {
 			assertTrue(capturedIds.contains(chunkId));
 		}
-
+		verify(myReductionStepWorker, never()).reductionAborted(any());
 	}
 
 
@@ -221,6 +264,53 @@ public class ReductionStepExecutorServiceImplTest {
 			.markWorkChunksWithStatusAndWipeData(anyString(), anyList(), any(), anyString());
 		verify(myReductionStepWorker, never())
 			.run(any(), any());
+		verify(myReductionStepWorker).reductionAborted(eq(INSTANCE_ID));
+	}
+
+	@Test
+	public void doExecution_associativeReducer_consumesChunksInParallel() {
+		// setup
+		List<String> chunkIds = new ArrayList<>();
+		List<WorkChunk> chunks = new ArrayList<>();
+		for (int i = 0; i < 250; i++) {
+			chunkIds.add("chunk" + i);
+			chunks.add(createWorkChunk("chunk" + i));
+		}
+		JobInstance jobInstance = getTestJobInstance();
+		jobInstance.setStatus(StatusEnum.IN_PROGRESS);
+		JobWorkCursor<TestJobParameters, StepInputData, StepOutputData> workCursor = mock(JobWorkCursor.class);
+		Set<String> consumerThreadNames = ConcurrentHashMap.newKeySet();
+
+		// when
+		when(workCursor.getCurrentStep()).thenReturn((JobDefinitionStep<TestJobParameters, StepInputData, StepOutputData>) createJobDefinition().getSteps().get(1));
+		when(workCursor.getJobDefinition()).thenReturn(createJobDefinition());
+		when(myJobPersistence.fetchInstance(eq(INSTANCE_ID))).thenReturn(Optional.of(jobInstance));
+		when(myJobPersistence.markInstanceAsStatusWhenStatusIn(INSTANCE_ID, StatusEnum.FINALIZE, EnumSet.of(IN_PROGRESS, ERRORED))).thenReturn(true);
+		when(myJobPersistence.fetchAllWorkChunksForStepStream(eq(INSTANCE_ID), eq(REDUCTION_STEP_ID)))
+			.thenReturn(chunks.stream());
+		when(myReductionStepWorker.isAssociative()).thenReturn(true);
+		when(myReductionStepWorker.consume(any(ChunkExecutionDetails.class))).thenAnswer(t -> {
+			consumerThreadNames.add(Thread.currentThread().getName());
+			return ChunkOutcome.SUCCESS();
+		});
+		when(myReductionStepWorker.run(any(StepExecutionDetails.class), any(BaseDataSink.class)))
+			.thenReturn(RunOutcome.SUCCESS);
+
+		// test
+		ReductionStepChunkProcessingResponse result = mySvc.executeReductionStep(INSTANCE_ID, workCursor);
+
+		// verify
+		assertTrue(result.isSuccessful());
+		verify(myReductionStepWorker, times(chunks.size())).consume(any());
+		verify(myReductionStepWorker, times(1)).run(any(), any());
+		for (String threadName : consumerThreadNames) {
+			assertThat(threadName, startsWith("batch2-reducer-consumer-"));
+		}
+
+		ArgumentCaptor<List<String>> chunkIdCaptor = ArgumentCaptor.forClass(List.class);
+		verify(myJobPersistence).markWorkChunksWithStatusAndWipeData(eq(INSTANCE_ID),
+			chunkIdCaptor.capture(), eq(WorkChunkStatusEnum.COMPLETED), eq(null));
+		assertEquals(new HashSet<>(chunkIds), new HashSet<>(chunkIdCaptor.getValue()));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -0,0 +1,65 @@
+package ca.uhn.fhir.batch2.jobs.chunk;
+
+import ca.uhn.fhir.interceptor.model.RequestPartitionId;
+import ca.uhn.fhir.util.JsonUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ResourceIdListWorkChunkJsonTest {
+
+	@Test
+	public void testSerialize_NumericPids_UsesCompactForm() {
+		ResourceIdListWorkChunkJson chunk = new ResourceIdListWorkChunkJson(List.of(
+			new TypedPidJson("Patient", "1001"),
+			new TypedPidJson("Patient", "1002"),
+			new TypedPidJson("Patient", "1003"),
+			new TypedPidJson("Observation", "2050"),
+			new TypedPidJson("Observation", "2047"),
+			new TypedPidJson("Patient", "7")
+		), RequestPartitionId.allPartitions());
+
+		String serialized = JsonUtil.serialize(chunk, false);
+		assertThat(serialized, containsString("\"compactIds\":\"Patient:1001,1,1;Observation:2050,-3;Patient:7\""));
+		assertThat(serialized, not(containsString("\"ids\"")));
+
+		ResourceIdListWorkChunkJson deserialized = JsonUtil.deserialize(serialized, ResourceIdListWorkChunkJson.class);
+		assertEquals(chunk.toString(), deserialized.toString());
+		assertEquals(6, deserialized.size());
+		assertEquals("Observation", deserialized.getResourceType(4));
+		assertEquals(RequestPartitionId.allPartitions(), deserialized.getRequestPartitionId());
+	}
+
+	@Test
+	public void testSerialize_NonNumericPids_UsesVerboseForm() {
+		ResourceIdListWorkChunkJson chunk = new ResourceIdListWorkChunkJson(List.of(
+			new TypedPidJson("Patient", "123"),
+			new TypedPidJson("Patient", "0123"),
+			new TypedPidJson("Patient", "abc")
+		), null);
+
+		String serialized = JsonUtil.serialize(chunk, false);
+		assertEquals("{\"ids\":[{\"type\":\"Patient\",\"id\":\"123\"},{\"type\":\"Patient\",\"id\":\"0123\"},{\"type\":\"Patient\",\"id\":\"abc\"}]}", serialized);
+
+		ResourceIdListWorkChunkJson deserialized = JsonUtil.deserialize(serialized, ResourceIdListWorkChunkJson.class);
+		assertEquals(chunk.toString(), deserialized.toString());
+	}
+
+	@Test
+	public void testDeserialize_VerboseFormFromEarlierVersion() {
+		String serialized = "{\"ids\":[{\"type\":\"Patient\",\"id\":\"1\"},{\"type\":\"Observation\",\"id\":\"2\"}]}";
+
+		ResourceIdListWorkChunkJson deserialized = JsonUtil.deserialize(serialized, ResourceIdListWorkChunkJson.class);
+
+		assertEquals(2, deserialized.size());
+		assertEquals("Patient", deserialized.getResourceType(0));
+		assertEquals("Observation", deserialized.getResourceType(1));
+		assertEquals("{\"compactIds\":\"Patient:1;Observation:2\"}", JsonUtil.serialize(deserialized, false));
+	}
+
+}
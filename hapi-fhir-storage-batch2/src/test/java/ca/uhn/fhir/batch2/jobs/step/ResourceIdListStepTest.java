@@ -27,6 +27,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -74,6 +75,7 @@ class ResourceIdListStepTest {
 					"Id batch size should never exceed " + ResourceIdListStep.MAX_BATCH_OF_IDS);
 				return null;
 			}).when(myDataSink).accept(any(ResourceIdListWorkChunkJson.class));
+			doCallRealMethod().when(myDataSink).acceptAll(any());
 		} else {
 			when(homogeneousResourcePidList.isEmpty()).thenReturn(true);
 		}
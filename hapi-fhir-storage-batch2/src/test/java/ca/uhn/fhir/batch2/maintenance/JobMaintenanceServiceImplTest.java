@@ -62,6 +62,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -256,6 +257,81 @@ public class JobMaintenanceServiceImplTest extends BaseBatch2Test {
 		assertEquals(CHUNK_ID_2, payload1.getChunkId());
 	}
 
+	@Test
+	public void testOnWorkChunkCompleted_EventDrivenProgressionEnabled_AdvancesGatedStep() {
+		// Setup
+		myStorageSettings.setJobEventDrivenProgressionEnabled(true);
+		List<WorkChunk> chunks = Arrays.asList(
+			JobCoordinatorImplTest.createWorkChunkStep1().setStatus(WorkChunkStatusEnum.COMPLETED).setId(CHUNK_ID + "abc"),
+			JobCoordinatorImplTest.createWorkChunkStep2().setStatus(WorkChunkStatusEnum.QUEUED).setId(CHUNK_ID)
+		);
+		when (myJobPersistence.canAdvanceInstanceToNextStep(any(), any())).thenReturn(true);
+		myJobDefinitionRegistry.addJobDefinition(createJobDefinition(JobDefinition.Builder::gatedExecution));
+
+		when(myJobPersistence.fetchAllWorkChunksIterator(eq(INSTANCE_ID), eq(false)))
+			.thenReturn(chunks.iterator());
+		when(myJobPersistence.fetchAllChunkIdsForStepWithStatus(eq(INSTANCE_ID), eq(STEP_2), eq(WorkChunkStatusEnum.QUEUED)))
+			.thenReturn(List.of(CHUNK_ID));
+
+		JobInstance instance1 = createInstance();
+		instance1.setCurrentGatedStepId(STEP_1);
+		when(myJobPersistence.fetchInstance(INSTANCE_ID)).thenReturn(Optional.of(instance1));
+		stubUpdateInstanceCallback(instance1);
+
+		// Execute
+		mySvc.onWorkChunkCompleted(INSTANCE_ID, STEP_1);
+
+		// Verify
+		verify(myWorkChannelProducer, times(1)).send(myMessageCaptor.capture());
+		assertEquals(STEP_2, myMessageCaptor.getValue().getPayload().getTargetStepId());
+		assertEquals(STEP_2, instance1.getCurrentGatedStepId());
+		verify(myJobPersistence, never()).fetchInstances(anyInt(), anyInt());
+	}
+
+	@Test
+	public void testOnWorkChunkCompleted_EventDrivenProgressionEnabled_ChunksOutstanding() {
+		myStorageSettings.setJobEventDrivenProgressionEnabled(true);
+		when (myJobPersistence.canAdvanceInstanceToNextStep(INSTANCE_ID, STEP_1)).thenReturn(false);
+
+		mySvc.onWorkChunkCompleted(INSTANCE_ID, STEP_1);
+
+		verify(myJobPersistence, times(1)).canAdvanceInstanceToNextStep(INSTANCE_ID, STEP_1);
+		verifyNoMoreInteractions(myJobPersistence);
+		verifyNoInteractions(myWorkChannelProducer);
+	}
+
+	@Test
+	public void testOnWorkChunkCompleted_EventDrivenProgressionEnabled_ConcurrentNotificationsCollapsed() {
+		myStorageSettings.setJobEventDrivenProgressionEnabled(true);
+		when (myJobPersistence.canAdvanceInstanceToNextStep(INSTANCE_ID, STEP_1))
+			.thenAnswer(t -> {
+				// Simulate other chunks completing while the first check is running
+				mySvc.onWorkChunkCompleted(INSTANCE_ID, STEP_1);
+				mySvc.onWorkChunkCompleted(INSTANCE_ID, STEP_1);
+				return false;
+			})
+			.thenReturn(false);
+
+		mySvc.onWorkChunkCompleted(INSTANCE_ID, STEP_1);
+
+		// The two notifications received during the first check result in a single re-check
+		verify(myJobPersistence, times(2)).canAdvanceInstanceToNextStep(INSTANCE_ID, STEP_1);
+		verifyNoMoreInteractions(myJobPersistence);
+		verifyNoInteractions(myWorkChannelProducer);
+
+		// Once the checks are done, the next notification is checked again
+		mySvc.onWorkChunkCompleted(INSTANCE_ID, STEP_1);
+		verify(myJobPersistence, times(3)).canAdvanceInstanceToNextStep(INSTANCE_ID, STEP_1);
+	}
+
+	@Test
+	public void testOnWorkChunkCompleted_EventDrivenProgressionDisabled() {
+		mySvc.onWorkChunkCompleted(INSTANCE_ID, STEP_1);
+
+		verifyNoInteractions(myJobPersistence);
+		verifyNoInteractions(myWorkChannelProducer);
+	}
+
 	@Test
 	public void testFailed_PurgeOldInstance() {
 		myJobDefinitionRegistry.addJobDefinition(createJobDefinition());
@@ -59,6 +59,12 @@ public class JpaStorageSettings extends StorageSettings {
 	 * @see #myTranslationCachesExpireAfterWriteInMinutes
 	 */
 	public static final Long DEFAULT_TRANSLATION_CACHES_EXPIRE_AFTER_WRITE_IN_MINUTES = 60L;
+	/**
+	 * Default {@link #setParsedResourceCacheMaximumSize(int)} value
+	 *
+	 * @since 7.0.0
+	 */
+	public static final int DEFAULT_PARSED_RESOURCE_CACHE_MAXIMUM_SIZE = 10000;
 	/**
 	 * Default {@link #setBundleTypesAllowedForStorage(Set)} value:
 	 * <ul>
@@ -177,6 +183,8 @@ public class JpaStorageSettings extends StorageSettings {
 	private int myExpungeBatchSize = DEFAULT_EXPUNGE_BATCH_SIZE;
 	private int myReindexThreadCount;
 	private int myExpungeThreadCount;
+	private int mySearchResourceParseThreadCount = 1;
+	private boolean myKeysetPagingEnabled = false;
 	private Set<String> myBundleTypesAllowedForStorage;
 	private boolean myValidateSearchParameterExpressionsOnSave = true;
 
@@ -324,6 +332,10 @@ public class JpaStorageSettings extends StorageSettings {
 	 * Since 6.4.0
 	 */
 	private boolean myJobFastTrackingEnabled = false;
+	/**
+	 * Since 7.0.0
+	 */
+	private boolean myJobEventDrivenProgressionEnabled = false;
 
 	/**
 	 * Since 6.6.0
@@ -352,6 +364,17 @@ public class JpaStorageSettings extends StorageSettings {
 	private boolean myPreventInvalidatingConditionalMatchCriteria =
 			DEFAULT_PREVENT_INVALIDATING_CONDITIONAL_MATCH_CRITERIA;
 
+	/**
+	 * @since 7.0.0
+	 */
+	@Nonnull
+	private Set<String> myParsedResourceCacheResourceTypes = Collections.emptySet();
+
+	/**
+	 * @since 7.0.0
+	 */
+	private int myParsedResourceCacheMaximumSize = DEFAULT_PARSED_RESOURCE_CACHE_MAXIMUM_SIZE;
+
 	/**
 	 * Constructor
 	 */
@@ -988,6 +1011,82 @@ public class JpaStorageSettings extends StorageSettings {
 		myExpungeThreadCount = Math.max(myExpungeThreadCount, 1); // Minimum of 1
 	}
 
+	/**
+	 * This setting controls the number of threads used to parse the stored resource text
+	 * when a page of search results (including any <code>_include</code> and
+	 * <code>_revinclude</code> resources) is loaded from the database. Resources are
+	 * still fetched from the database on the requesting thread, and the order of the
+	 * results is not affected.
+	 * <p>
+	 * The default value is 1, meaning that all resources are parsed on the requesting
+	 * thread. Value for this setting must be a positive integer.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public int getSearchResourceParseThreadCount() {
+		return mySearchResourceParseThreadCount;
+	}
+
+	/**
+	 * This setting controls the number of threads used to parse the stored resource text
+	 * when a page of search results (including any <code>_include</code> and
+	 * <code>_revinclude</code> resources) is loaded from the database. Resources are
+	 * still fetched from the database on the requesting thread, and the order of the
+	 * results is not affected.
+	 * <p>
+	 * The default value is 1, meaning that all resources are parsed on the requesting
+	 * thread. Value for this setting must be a positive integer.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setSearchResourceParseThreadCount(int theSearchResourceParseThreadCount) {
+		mySearchResourceParseThreadCount = Math.max(theSearchResourceParseThreadCount, 1); // Minimum of 1
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), searches which are sorted by
+	 * <code>_lastUpdated</code> or <code>_id</code> (and nothing else) are paged using
+	 * keyset (aka seek) paging. Each page is fetched by a new synchronous query which
+	 * only matches the rows sorting after the last row of the previous page, and the
+	 * next page link carries an opaque <code>_searchAfter</code> token identifying that
+	 * row. No search results are stored in the database, so this mode is well suited to
+	 * very large result sets such as system-wide synchronization feeds.
+	 * <p>
+	 * Keyset paged searches only support next page links, and the bundle total is only
+	 * populated if it is explicitly requested using <code>_total</code>. Searches which
+	 * use <code>_offset</code>, or which require the fulltext index, are not affected by
+	 * this setting.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isKeysetPagingEnabled() {
+		return myKeysetPagingEnabled;
+	}
+
+	/**
+	 * If enabled (default is <code>false</code>), searches which are sorted by
+	 * <code>_lastUpdated</code> or <code>_id</code> (and nothing else) are paged using
+	 * keyset (aka seek) paging. Each page is fetched by a new synchronous query which
+	 * only matches the rows sorting after the last row of the previous page, and the
+	 * next page link carries an opaque <code>_searchAfter</code> token identifying that
+	 * row. No search results are stored in the database, so this mode is well suited to
+	 * very large result sets such as system-wide synchronization feeds.
+	 * <p>
+	 * Keyset paged searches only support next page links, and the bundle total is only
+	 * populated if it is explicitly requested using <code>_total</code>. Searches which
+	 * use <code>_offset</code>, or which require the fulltext index, are not affected by
+	 * this setting.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setKeysetPagingEnabled(boolean theKeysetPagingEnabled) {
+		myKeysetPagingEnabled = theKeysetPagingEnabled;
+	}
+
 	public ResourceEncodingEnum getResourceEncoding() {
 		return myResourceEncoding;
 	}
@@ -2330,6 +2429,36 @@ public class JpaStorageSettings extends StorageSettings {
 		myJobFastTrackingEnabled = theJobFastTrackingEnabled;
 	}
 
+	/**
+	 * If this setting is enabled, then as soon as the last work chunk of a step of a gated batch job completes,
+	 * the server which processed it advances the job to the next step (or marks it as complete) instead of
+	 * waiting for the next scheduled batch maintenance pass, which runs once per minute. The scheduled pass
+	 * still runs, and picks up anything which was missed.
+	 * <p>
+	 * Default is {@literal false}
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isJobEventDrivenProgressionEnabled() {
+		return myJobEventDrivenProgressionEnabled;
+	}
+
+	/**
+	 * If this setting is enabled, then as soon as the last work chunk of a step of a gated batch job completes,
+	 * the server which processed it advances the job to the next step (or marks it as complete) instead of
+	 * waiting for the next scheduled batch maintenance pass, which runs once per minute. The scheduled pass
+	 * still runs, and picks up anything which was missed.
+	 * <p>
+	 * Default is {@literal false}
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setJobEventDrivenProgressionEnabled(boolean theJobEventDrivenProgressionEnabled) {
+		myJobEventDrivenProgressionEnabled = theJobEventDrivenProgressionEnabled;
+	}
+
 	/**
 	 * If set to {@literal false} (default is {@literal true}), the server will not
 	 * preserve resource history and will delete previous versions of resources when
@@ -2439,6 +2568,67 @@ public class JpaStorageSettings extends StorageSettings {
 		return myPreventInvalidatingConditionalMatchCriteria;
 	}
 
+	/**
+	 * If this setting is populated with one or more resource types (e.g. <code>Practitioner</code>,
+	 * <code>Organization</code>, <code>Location</code>), resources of these types are cached in memory
+	 * after they are parsed from the database, so that subsequent reads and search result pages which
+	 * return the same resource version do not need to parse the stored text again. Cached entries are
+	 * keyed by the resource PID and version, so a stale entry is never returned even if another
+	 * server in the cluster has updated the resource.
+	 * <p>
+	 * This is most useful for a small number of resource types which are referenced and read
+	 * very frequently. Default is an empty set, meaning that the cache is disabled.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	@Nonnull
+	public Set<String> getParsedResourceCacheResourceTypes() {
+		return myParsedResourceCacheResourceTypes;
+	}
+
+	/**
+	 * If this setting is populated with one or more resource types (e.g. <code>Practitioner</code>,
+	 * <code>Organization</code>, <code>Location</code>), resources of these types are cached in memory
+	 * after they are parsed from the database, so that subsequent reads and search result pages which
+	 * return the same resource version do not need to parse the stored text again. Cached entries are
+	 * keyed by the resource PID and version, so a stale entry is never returned even if another
+	 * server in the cluster has updated the resource.
+	 * <p>
+	 * This is most useful for a small number of resource types which are referenced and read
+	 * very frequently. Default is an empty set, meaning that the cache is disabled.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setParsedResourceCacheResourceTypes(@Nonnull Set<String> theParsedResourceCacheResourceTypes) {
+		Validate.notNull(theParsedResourceCacheResourceTypes, "theParsedResourceCacheResourceTypes must not be null");
+		myParsedResourceCacheResourceTypes = theParsedResourceCacheResourceTypes;
+	}
+
+	/**
+	 * The maximum number of resources which will be held in the parsed resource cache.
+	 * Default is {@value #DEFAULT_PARSED_RESOURCE_CACHE_MAXIMUM_SIZE}.
+	 *
+	 * @see #setParsedResourceCacheResourceTypes(Set)
+	 * @since 7.0.0
+	 */
+	public int getParsedResourceCacheMaximumSize() {
+		return myParsedResourceCacheMaximumSize;
+	}
+
+	/**
+	 * The maximum number of resources which will be held in the parsed resource cache.
+	 * Default is {@value #DEFAULT_PARSED_RESOURCE_CACHE_MAXIMUM_SIZE}.
+	 *
+	 * @see #setParsedResourceCacheResourceTypes(Set)
+	 * @since 7.0.0
+	 */
+	public void setParsedResourceCacheMaximumSize(int theParsedResourceCacheMaximumSize) {
+		Validate.isTrue(theParsedResourceCacheMaximumSize > 0, "theParsedResourceCacheMaximumSize must be positive");
+		myParsedResourceCacheMaximumSize = theParsedResourceCacheMaximumSize;
+	}
+
 	public enum StoreMetaSourceInformationEnum {
 		NONE(false, false),
 		SOURCE_URI(true, false),
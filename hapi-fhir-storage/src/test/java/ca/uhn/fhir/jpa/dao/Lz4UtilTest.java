@@ -0,0 +1,38 @@
+package ca.uhn.fhir.jpa.dao;
+
+import ca.uhn.fhir.parser.DataFormatException;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class Lz4UtilTest {
+
+	@Test
+	public void testRoundTrip() {
+		String input = "{\"resourceType\":\"Patient\",\"name\":[{\"family\":\"Ünïcødé\"}]," + StringUtils.repeat("\"a\":1,", 100) + "}";
+
+		byte[] compressed = Lz4Util.compress(input);
+		assertTrue(compressed.length < input.length());
+		assertEquals(input, Lz4Util.decompress(compressed));
+	}
+
+	@Test
+	public void testRoundTripEmpty() {
+		assertEquals("", Lz4Util.decompress(Lz4Util.compress("")));
+	}
+
+	@Test
+	public void testDecompressTruncated() {
+		byte[] compressed = Lz4Util.compress(StringUtils.repeat("{\"resourceType\":\"Patient\"}", 20));
+		byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+
+		DataFormatException e = assertThrows(DataFormatException.class, () -> Lz4Util.decompress(truncated));
+		assertTrue(e.getMessage().contains("HAPI-2445"), e.getMessage());
+	}
+
+}
@@ -431,6 +431,50 @@ class ResponseBundleBuilderTest {
 	}
 
 
+	@Test
+	void testKeysetPaging() {
+		// setup
+		when(myServer.canStoreSearchResults()).thenReturn(true);
+		SimpleBundleProvider bundleProvider = new SimpleBundleProvider(buildPatientList());
+		bundleProvider.setSize(null);
+		bundleProvider.setPreferredPageSize(LIMIT);
+		bundleProvider.setKeysetPaging(true);
+		bundleProvider.setNextPageSearchAfter("abc");
+		ResponseBundleRequest responseBundleRequest = buildResponseBundleRequest(bundleProvider);
+		ResponseBundleBuilder svc = new ResponseBundleBuilder(true);
+
+		// run
+		Bundle bundle = (Bundle) svc.buildResponseBundle(responseBundleRequest);
+
+		// verify - the page was not stored, and every resource (including any _include'd ones) is returned
+		verifyBundle(bundle, null, RESOURCE_COUNT);
+		assertThat(bundle.getLink(), hasSize(2));
+		assertSelfLink(bundle);
+		Bundle.BundleLinkComponent link = bundle.getLink().get(1);
+		assertEquals(LINK_NEXT, link.getRelation());
+		assertEquals(TEST_SERVER_BASE + "/" + TEST_REQUEST_PATH + "?_count=" + LIMIT + "&_searchAfter=abc", link.getUrl());
+	}
+
+	@Test
+	void testKeysetPagingLastPage() {
+		// setup
+		when(myServer.canStoreSearchResults()).thenReturn(true);
+		SimpleBundleProvider bundleProvider = new SimpleBundleProvider(buildPatientList());
+		bundleProvider.setSize(null);
+		bundleProvider.setPreferredPageSize(LIMIT);
+		bundleProvider.setKeysetPaging(true);
+		ResponseBundleRequest responseBundleRequest = buildResponseBundleRequest(bundleProvider);
+		ResponseBundleBuilder svc = new ResponseBundleBuilder(true);
+
+		// run
+		Bundle bundle = (Bundle) svc.buildResponseBundle(responseBundleRequest);
+
+		// verify
+		verifyBundle(bundle, null, RESOURCE_COUNT);
+		assertThat(bundle.getLink(), hasSize(1));
+		assertSelfLink(bundle);
+	}
+
 	private static void assertNextLinkOffset(Bundle theBundle, Integer theOffset, Integer theCount) {
 		Bundle.BundleLinkComponent nextLink = theBundle.getLink().get(1);
 		assertEquals(LINK_NEXT, nextLink.getRelation());
@@ -51,6 +51,8 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -100,6 +102,7 @@ public class JsonParserR4Test extends BaseTest {
 	@AfterEach
 	public void afterEach() {
 		ourCtx.getParserOptions().setAutoContainReferenceTargetsWithNoId(true);
+		ourCtx.getParserOptions().setUseStreamingJsonParser(false);
 	}
 
 	@Test
@@ -1053,6 +1056,122 @@ public class JsonParserR4Test extends BaseTest {
 	}
 
 
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"/bundle-with-two-patient-resources.json",
+		"/bundle-circ-ref.json",
+		"/entities-from-cerner.json",
+		"/multi-thread-parsing-issue-bundle.json",
+		"/static-capabilitystatement.json"
+	})
+	public void testStreamingParserMatchesTreeParser(String theResourceName) throws IOException {
+		String input = loadResource(theResourceName);
+		assertStreamingParserMatchesTreeParser(input);
+	}
+
+	@Test
+	public void testStreamingParserMatchesTreeParser_BigBundle() {
+		String input = ourCtx.newJsonParser().encodeResourceToString(createBigBundle());
+		assertStreamingParserMatchesTreeParser(input);
+	}
+
+	@Test
+	public void testStreamingParserMatchesTreeParser_OutOfOrderProperties() {
+		String input = "{\n" +
+			"  \"_birthDate\": { \"extension\": [ { \"url\": \"http://foo\", \"valueString\": \"BD\" } ] },\n" +
+			"  \"id\": \"A\",\n" +
+			"  \"contained\": [ {\n" +
+			"    \"id\": \"org\",\n" +
+			"    \"name\": \"ORG\",\n" +
+			"    \"resourceType\": \"Organization\"\n" +
+			"  } ],\n" +
+			"  \"name\": [ {\n" +
+			"    \"_given\": [ null, { \"id\": \"G2\" } ],\n" +
+			"    \"given\": [ \"G1\", \"G2\" ],\n" +
+			"    \"family\": \"FAM\"\n" +
+			"  } ],\n" +
+			"  \"managingOrganization\": { \"reference\": \"#org\" },\n" +
+			"  \"birthDate\": \"2001-02-03\",\n" +
+			"  \"_gender\": { \"extension\": [ { \"url\": \"http://bar\", \"valueCode\": \"X\" } ] },\n" +
+			"  \"extension\": [ { \"valueDecimal\": 1.10, \"url\": \"http://baz\" } ],\n" +
+			"  \"resourceType\": \"Patient\"\n" +
+			"}";
+
+		Patient patient = assertStreamingParserMatchesTreeParser(input);
+		assertEquals("A", patient.getIdElement().getIdPart());
+		assertEquals("G2", patient.getNameFirstRep().getGiven().get(1).getId());
+		assertEquals("BD", ((StringType) patient.getBirthDateElement().getExtensionByUrl("http://foo").getValue()).getValue());
+		assertTrue(patient.getGenderElement().hasExtension("http://bar"));
+		assertEquals("1.10", ((DecimalType) patient.getExtensionByUrl("http://baz").getValue()).getValueAsString());
+		assertEquals("ORG", ((Organization) patient.getManagingOrganization().getResource()).getName());
+	}
+
+	@Test
+	public void testStreamingParserRejectsMissingResourceType() {
+		ourCtx.getParserOptions().setUseStreamingJsonParser(true);
+		IParser parser = ourCtx.newJsonParser();
+
+		try {
+			parser.parseResource("{\"id\": \"A\"}");
+			fail();
+		} catch (DataFormatException e) {
+			assertEquals(Msg.code(2441) + "Invalid JSON content detected, missing required element: 'resourceType'", e.getMessage());
+		}
+
+		try {
+			parser.parseResource("{\"resourceType\": \"Bundle\", \"entry\": [ { \"resource\": { \"id\": \"A\" } } ] }");
+			fail();
+		} catch (DataFormatException e) {
+			assertEquals(Msg.code(2442) + "Missing required element 'resourceType' from JSON resource object, unable to parse", e.getMessage());
+		}
+
+		try {
+			parser.parseResource("{\"resourceType\": \"Patient\"} {}");
+			fail();
+		} catch (DataFormatException e) {
+			assertThat(e.getMessage(), containsString(Msg.code(2439)));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends IBaseResource> T assertStreamingParserMatchesTreeParser(String theInput) {
+		ourCtx.getParserOptions().setUseStreamingJsonParser(false);
+		IBaseResource expected = ourCtx.newJsonParser().parseResource(theInput);
+
+		ourCtx.getParserOptions().setUseStreamingJsonParser(true);
+		IBaseResource actual = ourCtx.newJsonParser().parseResource(theInput);
+
+		IParser encoder = ourCtx.newJsonParser().setPrettyPrint(true);
+		assertEquals(encoder.encodeResourceToString(expected), encoder.encodeResourceToString(actual));
+		return (T) actual;
+	}
+
+	/**
+	 * Compares the tree based and the streaming JSON parse paths against the same input
+	 */
+	@Test
+	@Disabled
+	public void testTimingsInputStreaming() {
+		Bundle b = createBigBundle();
+		String input = ourCtx.newJsonParser().encodeResourceToString(b);
+
+		for (boolean streaming : new boolean[]{false, true, false, true}) {
+			ourCtx.getParserOptions().setUseStreamingJsonParser(streaming);
+			IParser parser = ourCtx.newJsonParser();
+
+			for (int i = 0; i < 500; i++) {
+				parser.parseResource(input);
+			}
+
+			StopWatch sw = new StopWatch();
+			int passes = 2000;
+			for (int i = 0; i < passes; i++) {
+				parser.parseResource(input);
+			}
+			ourLog.info("Streaming={} - Parsed {} passes - {} / pass - {} / second", streaming, passes, sw.formatMillisPerOperation(passes), sw.formatThroughput(passes, TimeUnit.SECONDS));
+		}
+	}
+
 	private Bundle createBigBundle() {
 		Observation obs = new Observation();
 
@@ -0,0 +1,149 @@
+package ca.uhn.fhir.rest.client;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.rest.client.apache.ApacheHttpRequest;
+import ca.uhn.fhir.rest.client.api.IClientInterceptor;
+import ca.uhn.fhir.rest.client.api.IGenericClient;
+import ca.uhn.fhir.rest.client.api.IHttpRequest;
+import ca.uhn.fhir.rest.client.api.IHttpResponse;
+import ca.uhn.fhir.rest.client.api.SearchResourceIterator;
+import ca.uhn.fhir.rest.server.FifoMemoryPagingProvider;
+import ca.uhn.fhir.rest.server.exceptions.ResourceGoneException;
+import ca.uhn.fhir.test.utilities.server.HashMapResourceProviderExtension;
+import ca.uhn.fhir.test.utilities.server.RestfulServerExtension;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SearchResourceIteratorTest {
+
+	@RegisterExtension
+	@Order(0)
+	private static RestfulServerExtension ourServer = new RestfulServerExtension(FhirContext.forR4Cached())
+		.withPagingProvider(new FifoMemoryPagingProvider(10));
+	@RegisterExtension
+	@Order(1)
+	private static HashMapResourceProviderExtension<Patient> ourPatientProvider = new HashMapResourceProviderExtension<>(ourServer, Patient.class);
+
+	private final AtomicInteger myRequestCount = new AtomicInteger();
+	private final List<IHttpRequest> myRequests = Collections.synchronizedList(new ArrayList<>());
+
+	@Test
+	public void testIterateAllPages() {
+		for (int i = 0; i < 55; i++) {
+			Patient patient = new Patient();
+			patient.setId("Patient/P" + i);
+			ourPatientProvider.store(patient);
+		}
+
+		IGenericClient client = newClient();
+		Bundle firstPage = client.search().forResource(Patient.class).count(10).returnBundle(Bundle.class).execute();
+		assertEquals(10, firstPage.getEntry().size());
+
+		Set<String> ids;
+		try (Stream<IBaseResource> resources = SearchResourceIterator.stream(client, firstPage)) {
+			ids = resources.map(t -> t.getIdElement().getIdPart()).collect(Collectors.toSet());
+		}
+
+		Set<String> expectedIds = IntStream.range(0, 55).mapToObj(t -> "P" + t).collect(Collectors.toSet());
+		assertEquals(expectedIds, ids);
+		assertEquals(6, myRequestCount.get());
+	}
+
+	@Test
+	public void testSinglePage() {
+		Bundle page = new Bundle();
+		page.addEntry().setResource(new Patient().setId("Patient/A"));
+		page.addEntry().setResource(new Patient().setId("Patient/B"));
+
+		SearchResourceIterator iterator = new SearchResourceIterator(newClient(), page);
+
+		List<String> ids = List.of(iterator.next().getIdElement().getIdPart(), iterator.next().getIdElement().getIdPart());
+		assertEquals(List.of("A", "B"), ids);
+		assertFalse(iterator.hasNext());
+		assertEquals(0, myRequestCount.get());
+	}
+
+	@Test
+	public void testNextPageFails() {
+		Bundle page = new Bundle();
+		page.addEntry().setResource(new Patient().setId("Patient/A"));
+		page.addLink().setRelation(Bundle.LINK_NEXT).setUrl(ourServer.getBaseUrl() + "?_getpages=NONEXISTENT&_getpagesoffset=10");
+
+		SearchResourceIterator iterator = new SearchResourceIterator(newClient(), page);
+
+		assertTrue(iterator.hasNext());
+		assertEquals("A", iterator.next().getIdElement().getIdPart());
+		assertThrows(ResourceGoneException.class, iterator::hasNext);
+	}
+
+	@Test
+	public void testCloseAbortsOutstandingPageRequest() throws InterruptedException {
+		CountDownLatch requestReceived = new CountDownLatch(1);
+		CountDownLatch releaseResponse = new CountDownLatch(1);
+		Object interceptor = new Object() {
+			@Hook(Pointcut.SERVER_INCOMING_REQUEST_PRE_PROCESSED)
+			public boolean incomingRequest(HttpServletRequest theRequest) throws InterruptedException {
+				requestReceived.countDown();
+				releaseResponse.await(10, TimeUnit.SECONDS);
+				return true;
+			}
+		};
+		ourServer.registerInterceptor(interceptor);
+		try {
+			Bundle page = new Bundle();
+			page.addEntry().setResource(new Patient().setId("Patient/A"));
+			page.addLink().setRelation(Bundle.LINK_NEXT).setUrl(ourServer.getBaseUrl() + "?_getpages=ABC&_getpagesoffset=10");
+
+			SearchResourceIterator iterator = new SearchResourceIterator(newClient(), page);
+			assertTrue(requestReceived.await(10, TimeUnit.SECONDS));
+
+			iterator.close();
+
+			assertEquals(1, myRequests.size());
+			assertTrue(((ApacheHttpRequest) myRequests.get(0)).getApacheRequest().isAborted());
+		} finally {
+			releaseResponse.countDown();
+			ourServer.unregisterInterceptor(interceptor);
+		}
+	}
+
+	private IGenericClient newClient() {
+		IGenericClient retVal = ourServer.getFhirContext().newRestfulGenericClient(ourServer.getBaseUrl());
+		retVal.registerInterceptor(new IClientInterceptor() {
+			@Override
+			public void interceptRequest(IHttpRequest theRequest) {
+				myRequestCount.incrementAndGet();
+				myRequests.add(theRequest);
+			}
+
+			@Override
+			public void interceptResponse(IHttpResponse theResponse) {
+				// nothing
+			}
+		});
+		return retVal;
+	}
+}
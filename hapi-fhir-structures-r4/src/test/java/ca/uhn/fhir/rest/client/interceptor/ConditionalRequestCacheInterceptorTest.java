@@ -0,0 +1,202 @@
+package ca.uhn.fhir.rest.client.interceptor;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Interceptor;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.rest.api.Constants;
+import ca.uhn.fhir.rest.client.api.IGenericClient;
+import ca.uhn.fhir.test.utilities.server.HashMapResourceProviderExtension;
+import ca.uhn.fhir.test.utilities.server.RestfulServerExtension;
+import org.hl7.fhir.instance.model.api.IIdType;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.servlet.http.HttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ConditionalRequestCacheInterceptorTest {
+
+	@RegisterExtension
+	@Order(0)
+	private static RestfulServerExtension ourServer = new RestfulServerExtension(FhirContext.forR4Cached());
+	@RegisterExtension
+	@Order(1)
+	private static HashMapResourceProviderExtension<Patient> ourPatientProvider = new HashMapResourceProviderExtension<>(ourServer, Patient.class);
+
+	private ConditionalRequestCacheInterceptor myInterceptor;
+	private CapturingInterceptor myCapturingInterceptor;
+	private IGenericClient myClient;
+
+	@BeforeEach
+	public void before() {
+		myInterceptor = new ConditionalRequestCacheInterceptor();
+		myCapturingInterceptor = new CapturingInterceptor();
+		myClient = ourServer.getFhirContext().newRestfulGenericClient(ourServer.getBaseUrl());
+		myClient.registerInterceptor(myInterceptor);
+		myClient.registerInterceptor(myCapturingInterceptor);
+	}
+
+	@Test
+	public void testRead_NotModified_ServedFromCache() {
+		IIdType id = createPatient("SIMPSON");
+
+		Patient patient = myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless()).execute();
+		assertEquals("SIMPSON", patient.getNameFirstRep().getFamily());
+		assertEquals(1, myInterceptor.size());
+		assertEquals(0, myInterceptor.getHitCount());
+
+		patient = myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless()).execute();
+		assertEquals("SIMPSON", patient.getNameFirstRep().getFamily());
+		assertEquals("1", patient.getIdElement().getVersionIdPart());
+		assertEquals(1, myInterceptor.getHitCount());
+		assertEquals("W/\"1\"", myCapturingInterceptor.getLastRequest().getAllHeaders().get(Constants.HEADER_IF_NONE_MATCH).get(0));
+		assertEquals(Constants.STATUS_HTTP_304_NOT_MODIFIED, myCapturingInterceptor.getLastResponse().getStatus());
+	}
+
+	@Test
+	public void testRead_Modified_CacheEntryReplaced() {
+		IIdType id = createPatient("SIMPSON");
+		myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless()).execute();
+
+		Patient update = new Patient();
+		update.setId(id.toUnqualifiedVersionless());
+		update.addName().setFamily("FLANDERS");
+		myClient.update().resource(update).execute();
+
+		Patient patient = myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless()).execute();
+		assertEquals("FLANDERS", patient.getNameFirstRep().getFamily());
+		assertEquals(0, myInterceptor.getHitCount());
+
+		patient = myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless()).execute();
+		assertEquals("FLANDERS", patient.getNameFirstRep().getFamily());
+		assertEquals(1, myInterceptor.getHitCount());
+	}
+
+	@Test
+	public void testRead_CallerSuppliedIfNoneMatch_NotReplaced() {
+		IIdType id = createPatient("SIMPSON");
+		myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless()).execute();
+
+		Patient patient = myClient
+			.read()
+			.resource(Patient.class)
+			.withId(id.toUnqualifiedVersionless())
+			.ifVersionMatches("1")
+			.returnNull()
+			.execute();
+
+		assertNull(patient);
+		assertEquals(0, myInterceptor.getHitCount());
+	}
+
+	@Test
+	public void testRead_DifferentAuthorization_NotShared() {
+		IIdType id = createPatient("SIMPSON");
+		myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless())
+			.withAdditionalHeader(Constants.HEADER_AUTHORIZATION, "Bearer USER-A")
+			.execute();
+
+		myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless())
+			.withAdditionalHeader(Constants.HEADER_AUTHORIZATION, "Bearer USER-B")
+			.execute();
+		assertNull(myCapturingInterceptor.getLastRequest().getAllHeaders().get(Constants.HEADER_IF_NONE_MATCH));
+		assertEquals(0, myInterceptor.getHitCount());
+		assertEquals(2, myInterceptor.size());
+
+		myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless())
+			.withAdditionalHeader(Constants.HEADER_AUTHORIZATION, "Bearer USER-A")
+			.execute();
+		assertEquals(1, myInterceptor.getHitCount());
+	}
+
+	@Test
+	public void testRead_DifferentAccept_NotShared() {
+		IIdType id = createPatient("SIMPSON");
+		myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless()).accept(Constants.CT_FHIR_JSON_NEW).execute();
+
+		Patient patient = myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless()).accept(Constants.CT_FHIR_XML_NEW).execute();
+		assertEquals("SIMPSON", patient.getNameFirstRep().getFamily());
+		assertEquals(Constants.STATUS_HTTP_200_OK, myCapturingInterceptor.getLastResponse().getStatus());
+		assertEquals(0, myInterceptor.getHitCount());
+		assertEquals(2, myInterceptor.size());
+	}
+
+	@Test
+	public void testRead_ResponseVaries_OnlyMatchingRequestsServedFromCache() {
+		VaryHeaderInterceptor varyInterceptor = new VaryHeaderInterceptor("X-Test");
+		ourServer.registerInterceptor(varyInterceptor);
+		try {
+			IIdType id = createPatient("SIMPSON");
+			myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless())
+				.withAdditionalHeader("X-Test", "A")
+				.execute();
+
+			myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless())
+				.withAdditionalHeader("X-Test", "B")
+				.execute();
+			assertNull(myCapturingInterceptor.getLastRequest().getAllHeaders().get(Constants.HEADER_IF_NONE_MATCH));
+			assertEquals(0, myInterceptor.getHitCount());
+
+			myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless())
+				.withAdditionalHeader("X-Test", "B")
+				.execute();
+			assertEquals(1, myInterceptor.getHitCount());
+		} finally {
+			ourServer.unregisterInterceptor(varyInterceptor);
+		}
+	}
+
+	@Test
+	public void testRead_ResponseVariesOnEverything_NotCached() {
+		VaryHeaderInterceptor varyInterceptor = new VaryHeaderInterceptor("*");
+		ourServer.registerInterceptor(varyInterceptor);
+		try {
+			IIdType id = createPatient("SIMPSON");
+			myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless()).execute();
+			assertEquals(0, myInterceptor.size());
+		} finally {
+			ourServer.unregisterInterceptor(varyInterceptor);
+		}
+	}
+
+	@Test
+	public void testEviction() {
+		myInterceptor.setMaximumEntries(2);
+		for (int i = 0; i < 5; i++) {
+			IIdType id = createPatient("FAMILY" + i);
+			myClient.read().resource(Patient.class).withId(id.toUnqualifiedVersionless()).execute();
+		}
+		assertEquals(2, myInterceptor.size());
+
+		myInterceptor.setMaximumTotalBytes(1);
+		assertEquals(0, myInterceptor.size());
+	}
+
+	private IIdType createPatient(String theFamily) {
+		Patient patient = new Patient();
+		patient.addName().setFamily(theFamily);
+		return myClient.create().resource(patient).execute().getId();
+	}
+
+	@Interceptor
+	public static class VaryHeaderInterceptor {
+
+		private final String myVary;
+
+		public VaryHeaderInterceptor(String theVary) {
+			myVary = theVary;
+		}
+
+		@Hook(Pointcut.SERVER_INCOMING_REQUEST_POST_PROCESSED)
+		public boolean addVaryHeader(HttpServletResponse theResponse) {
+			theResponse.addHeader(Constants.HEADER_VARY, myVary);
+			return true;
+		}
+	}
+}
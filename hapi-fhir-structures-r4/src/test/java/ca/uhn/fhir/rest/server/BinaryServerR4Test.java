@@ -9,6 +9,7 @@ import ca.uhn.fhir.rest.annotation.Update;
 import ca.uhn.fhir.rest.api.Constants;
 import ca.uhn.fhir.rest.api.MethodOutcome;
 import ca.uhn.fhir.test.utilities.JettyUtil;
+import ca.uhn.fhir.util.HapiExtensions;
 import ca.uhn.fhir.util.TestUtil;
 import com.google.common.base.Charsets;
 import org.apache.commons.io.IOUtils;
@@ -29,12 +30,16 @@ import org.hl7.fhir.r4.model.Binary;
 import org.hl7.fhir.r4.model.IdType;
 import org.hl7.fhir.r4.model.Patient;
 import org.hl7.fhir.r4.model.Reference;
+import org.hl7.fhir.r4.model.StringType;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -88,6 +93,33 @@ public class BinaryServerR4Test {
 	}
 
 
+	@Test
+	public void testGetWithContentEncoding() throws Exception {
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzipped)) {
+			gzipOutputStream.write("{\"resourceType\":\"Patient\"}\n".getBytes(StandardCharsets.UTF_8));
+		}
+
+		ourNextBinary = new Binary();
+		ourNextBinary.setId("Binary/A/_history/222");
+		ourNextBinary.setContent(gzipped.toByteArray());
+		ourNextBinary.setContentType(Constants.CT_FHIR_NDJSON);
+		ourNextBinary.getMeta().addExtension(HapiExtensions.EXT_BINARY_CONTENT_ENCODING, new StringType(Constants.ENCODING_GZIP));
+
+		HttpGet get = new HttpGet("http://localhost:" + ourPort + "/Binary/A");
+		CloseableHttpResponse status = ourClient.execute(get);
+		try {
+			assertEquals(200, status.getStatusLine().getStatusCode());
+			assertEquals(Constants.CT_FHIR_NDJSON, status.getEntity().getContentType().getValue());
+
+			// The client only decompresses the body because the server returned Content-Encoding: gzip
+			String content = IOUtils.toString(status.getEntity().getContent(), StandardCharsets.UTF_8);
+			assertEquals("{\"resourceType\":\"Patient\"}\n", content);
+		} finally {
+			IOUtils.closeQuietly(status);
+		}
+	}
+
 	@Test
 	public void testGetWithAccept() throws Exception {
 
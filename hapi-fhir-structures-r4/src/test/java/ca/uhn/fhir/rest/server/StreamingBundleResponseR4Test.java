@@ -0,0 +1,214 @@
+package ca.uhn.fhir.rest.server;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.interceptor.api.Hook;
+import ca.uhn.fhir.interceptor.api.Pointcut;
+import ca.uhn.fhir.model.api.Include;
+import ca.uhn.fhir.rest.annotation.IncludeParam;
+import ca.uhn.fhir.rest.annotation.Search;
+import ca.uhn.fhir.rest.server.method.ResponsePage;
+import ca.uhn.fhir.rest.api.server.IBundleProvider;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
+import ca.uhn.fhir.test.utilities.HttpClientExtension;
+import ca.uhn.fhir.test.utilities.server.RestfulServerExtension;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.OperationOutcome;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class StreamingBundleResponseR4Test {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private static final List<String> ourGetResourcesCalls = new ArrayList<>();
+	private static volatile boolean ourFailGetResources;
+
+	@RegisterExtension
+	private static final RestfulServerExtension ourServer = new RestfulServerExtension(ourCtx)
+		.registerProvider(new DummyPatientResourceProvider())
+		.withPagingProvider(new FifoMemoryPagingProvider(10).setDefaultPageSize(50).setMaximumPageSize(50));
+
+	@RegisterExtension
+	private final HttpClientExtension myClient = new HttpClientExtension();
+
+	@BeforeEach
+	public void before() {
+		ourGetResourcesCalls.clear();
+		ourFailGetResources = false;
+	}
+
+	@AfterEach
+	public void after() {
+		ourServer.getRestfulServer().setStreamingBundleChunkSize(0);
+		ourServer.unregisterAllInterceptors();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"true", "false"})
+	public void testStreamedResponseMatchesNonStreamedResponse(String thePretty) throws Exception {
+		String url = ourServer.getBaseUrl() + "/Patient?_count=25&_format=json&_pretty=" + thePretty;
+
+		String expected = executeSearch(url);
+		assertEquals(List.of("0-25"), ourGetResourcesCalls);
+
+		ourGetResourcesCalls.clear();
+		ourServer.getRestfulServer().setStreamingBundleChunkSize(10);
+		String actual = executeSearch(url);
+
+		// The Bundle ID, timestamp and paging ID differ between requests
+		assertEquals(expected.substring(expected.indexOf("\"entry\"")), actual.substring(actual.indexOf("\"entry\"")));
+		assertEquals(List.of("0-10", "10-20", "20-25"), ourGetResourcesCalls);
+
+		Bundle bundle = ourCtx.newJsonParser().parseResource(Bundle.class, actual);
+		assertEquals(100, bundle.getTotal());
+		assertEquals(25, bundle.getEntry().size());
+		assertNotNull(bundle.getLink(Bundle.LINK_NEXT));
+	}
+
+	@Test
+	public void testStreamedResponse_SecondPage() throws Exception {
+		ourServer.getRestfulServer().setStreamingBundleChunkSize(10);
+		Bundle firstPage = ourCtx.newJsonParser().parseResource(Bundle.class, executeSearch(ourServer.getBaseUrl() + "/Patient?_count=25&_format=json"));
+		assertEquals(25, firstPage.getEntry().size());
+		assertEquals(100, firstPage.getTotal());
+
+		ourGetResourcesCalls.clear();
+		String nextUrl = firstPage.getLink(Bundle.LINK_NEXT).getUrl();
+		String streamed = executeSearch(nextUrl);
+		assertEquals(List.of("25-35", "35-45", "45-50"), ourGetResourcesCalls);
+
+		ourServer.getRestfulServer().setStreamingBundleChunkSize(0);
+		String expected = executeSearch(nextUrl);
+		assertEquals(expected.substring(expected.indexOf("\"entry\"")), streamed.substring(streamed.indexOf("\"entry\"")));
+
+		Bundle secondPage = ourCtx.newJsonParser().parseResource(Bundle.class, streamed);
+		assertEquals("Patient/25", secondPage.getEntry().get(0).getResource().getIdElement().toUnqualifiedVersionless().getValue());
+	}
+
+	@Test
+	public void testStreamedResponse_IncludesAreNotDuplicatedAcrossChunks() throws Exception {
+		String url = ourServer.getBaseUrl() + "/Patient?_count=25&_format=json&_include=Patient:organization";
+		Set<String> expected = toEntryIds(executeSearch(url));
+		assertEquals(25 + 3, expected.size());
+
+		ourServer.getRestfulServer().setStreamingBundleChunkSize(10);
+		String streamed = executeSearch(url);
+		Bundle bundle = ourCtx.newJsonParser().parseResource(Bundle.class, streamed);
+
+		assertEquals(25 + 3, bundle.getEntry().size());
+		assertEquals(expected, toEntryIds(streamed));
+	}
+
+	@Test
+	public void testStreamedResponse_LoadingFirstChunkFails_ReturnsOperationOutcome() throws Exception {
+		ourServer.getRestfulServer().setStreamingBundleChunkSize(10);
+		ourFailGetResources = true;
+
+		try (CloseableHttpResponse resp = myClient.execute(new HttpGet(ourServer.getBaseUrl() + "/Patient?_count=25&_format=json"))) {
+			String body = IOUtils.toString(resp.getEntity().getContent(), StandardCharsets.UTF_8);
+			assertEquals(500, resp.getStatusLine().getStatusCode());
+			OperationOutcome oo = ourCtx.newJsonParser().parseResource(OperationOutcome.class, body);
+			assertThat(oo.getIssueFirstRep().getDiagnostics(), containsString("Failed to load resources"));
+		}
+		assertEquals(List.of("0-10"), ourGetResourcesCalls);
+	}
+
+	@Test
+	public void testStreamingNotUsedForXml() throws Exception {
+		ourServer.getRestfulServer().setStreamingBundleChunkSize(10);
+		String url = ourServer.getBaseUrl() + "/Patient?_count=25&_format=xml";
+		String streamedXml = executeSearch(url);
+		assertEquals(List.of("0-25"), ourGetResourcesCalls);
+
+		Bundle bundle = ourCtx.newXmlParser().parseResource(Bundle.class, streamedXml);
+		assertEquals(25, bundle.getEntry().size());
+	}
+
+	@Test
+	public void testStreamingNotUsedWhenOutgoingResponseInterceptorRegistered() throws Exception {
+		ourServer.getRestfulServer().setStreamingBundleChunkSize(10);
+		List<Integer> seenEntryCounts = new ArrayList<>();
+		ourServer.registerInterceptor(new Object() {
+			@Hook(Pointcut.SERVER_OUTGOING_RESPONSE)
+			public void outgoing(IBaseResource theResponse) {
+				seenEntryCounts.add(((Bundle) theResponse).getEntry().size());
+			}
+		});
+
+		String response = executeSearch(ourServer.getBaseUrl() + "/Patient?_count=25&_format=json");
+		assertEquals(List.of("0-25"), ourGetResourcesCalls);
+		assertEquals(List.of(25), seenEntryCounts);
+		assertEquals(25, ourCtx.newJsonParser().parseResource(Bundle.class, response).getEntry().size());
+	}
+
+	private String executeSearch(String theUrl) throws Exception {
+		try (CloseableHttpResponse resp = myClient.execute(new HttpGet(theUrl))) {
+			assertEquals(200, resp.getStatusLine().getStatusCode());
+			return IOUtils.toString(resp.getEntity().getContent(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static Set<String> toEntryIds(String theBundle) {
+		Bundle bundle = ourCtx.newJsonParser().parseResource(Bundle.class, theBundle);
+		return bundle.getEntry()
+			.stream()
+			.map(t -> t.getResource().getIdElement().toUnqualifiedVersionless().getValue())
+			.collect(Collectors.toSet());
+	}
+
+	public static class DummyPatientResourceProvider implements IResourceProvider {
+
+		@Override
+		public Class<Patient> getResourceType() {
+			return Patient.class;
+		}
+
+		@Search
+		public IBundleProvider search(@IncludeParam(allow = {"Patient:organization"}) Set<Include> theIncludes) {
+			List<IBaseResource> patients = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				Organization org = new Organization();
+				org.setId("Organization/" + (i % 3));
+				org.setName("Org " + (i % 3));
+
+				Patient patient = new Patient();
+				patient.setId("Patient/" + i);
+				patient.addName().setFamily("Family " + i);
+				patient.getManagingOrganization().setReference(org.getIdElement().getValue()).setResource(org);
+				patients.add(patient);
+			}
+			return new SimpleBundleProvider(patients) {
+				@Nonnull
+				@Override
+				public List<IBaseResource> getResources(int theFromIndex, int theToIndex, @Nonnull ResponsePage.ResponsePageBuilder theResponsePageBuilder) {
+					ourGetResourcesCalls.add(theFromIndex + "-" + theToIndex);
+					if (ourFailGetResources) {
+						throw new InternalErrorException("Failed to load resources");
+					}
+					return super.getResources(theFromIndex, theToIndex, theResponsePageBuilder);
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package ca.uhn.fhir.rest.server.method;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.model.api.Include;
+import ca.uhn.fhir.model.valueset.BundleTypeEnum;
+import ca.uhn.fhir.parser.IParser;
+import ca.uhn.fhir.rest.api.server.SystemRequestDetails;
+import ca.uhn.fhir.rest.server.RestfulServer;
+import ca.uhn.fhir.rest.server.SimpleBundleProvider;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.HumanName;
+import org.hl7.fhir.r4.model.Organization;
+import org.hl7.fhir.r4.model.Patient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StreamingBundleEntriesTest {
+
+	private static final FhirContext ourCtx = FhirContext.forR4Cached();
+	private final RestfulServer myServer = new RestfulServer(ourCtx);
+
+	@ParameterizedTest
+	@ValueSource(booleans = {true, false})
+	public void testEncode_MatchesNonStreamedEncoding(boolean thePretty) throws Exception {
+		List<IBaseResource> resources = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			resources.add(new Patient().addName(new HumanName().setFamily("Family \"entry\": [ } " + i)).setId("Patient/" + i));
+		}
+		IParser parser = ourCtx.newJsonParser().setPrettyPrint(thePretty);
+
+		String expected = encodeNonStreamed(parser, resources, Set.of());
+		String actual = encodeStreamed(parser, resources, Set.of());
+
+		assertEquals(expected, actual);
+		assertEquals(7, parser.parseResource(Bundle.class, actual).getEntry().size());
+	}
+
+	@Test
+	public void testEncode_EnvelopeElementsAfterEntryAreKeptInPlace() throws Exception {
+		List<IBaseResource> resources = List.of(new Patient().setId("Patient/0"), new Patient().setId("Patient/1"));
+		IParser parser = ourCtx.newJsonParser().setPrettyPrint(true);
+
+		String expected = encodeNonStreamed(parser, resources, Set.of());
+		String actual = encodeStreamed(parser, resources, Set.of());
+
+		assertEquals(expected, actual);
+		Bundle bundle = parser.parseResource(Bundle.class, actual);
+		assertEquals(2, bundle.getEntry().size());
+		assertEquals("\"entry\":[}", bundle.getSignature().getWho().getReference());
+		assertEquals("http://example.com/Patient?name=\"entry\"", bundle.getLink(Bundle.LINK_SELF).getUrl());
+	}
+
+	@Test
+	public void testEncode_EmptyEntries() throws Exception {
+		IParser parser = ourCtx.newJsonParser();
+
+		String actual = encodeStreamed(parser, List.of(), Set.of());
+
+		assertEquals(encodeNonStreamed(parser, List.of(), Set.of()), actual);
+		assertEquals(0, parser.parseResource(Bundle.class, actual).getEntry().size());
+	}
+
+	@Test
+	public void testEncode_MatchIsDroppedWhenEarlierChunkIncludedIt() throws Exception {
+		Organization org = new Organization();
+		org.setId("Organization/A");
+		Patient patient0 = new Patient();
+		patient0.setId("Patient/0");
+		patient0.getManagingOrganization().setReference("Organization/A").setResource(org);
+		Patient patient1 = new Patient();
+		patient1.setId("Patient/1");
+		patient1.getManagingOrganization().setReference("Organization/A").setResource(org);
+
+		// Chunk size is 1: Patient/0 (+ include), Organization/A as a duplicate match, Patient/1 (+ duplicate include)
+		List<IBaseResource> resources = List.of(patient0, org, patient1);
+		IParser parser = ourCtx.newJsonParser();
+		String actual = encodeStreamed(parser, resources, Set.of(new Include("Patient:organization")));
+
+		Bundle bundle = parser.parseResource(Bundle.class, actual);
+		List<String> entries = bundle.getEntry()
+			.stream()
+			.map(t -> t.getResource().getIdElement().toUnqualifiedVersionless().getValue() + " " + t.getSearch().getModeElement().getValueAsString())
+			.collect(Collectors.toList());
+		assertEquals(List.of("Patient/0 null", "Organization/A include", "Patient/1 null"), entries);
+	}
+
+	private String encodeStreamed(IParser theParser, List<IBaseResource> theResources, Set<Include> theIncludes) throws Exception {
+		Bundle envelope = createEnvelope();
+		StreamingBundleEntries entries = createEntries(theResources, theIncludes, 3);
+		StringWriter writer = new StringWriter();
+		entries.encode(theParser, envelope, writer);
+		return writer.toString();
+	}
+
+	private String encodeNonStreamed(IParser theParser, List<IBaseResource> theResources, Set<Include> theIncludes) {
+		Bundle envelope = createEnvelope();
+		createEntries(theResources, theIncludes, theResources.size() + 1).populate(envelope);
+		return theParser.encodeResourceToString(envelope);
+	}
+
+	private StreamingBundleEntries createEntries(List<IBaseResource> theResources, Set<Include> theIncludes, int theChunkSize) {
+		if (!theIncludes.isEmpty()) {
+			theChunkSize = 1;
+		}
+		SystemRequestDetails requestDetails = new SystemRequestDetails();
+		requestDetails.setFhirServerBase("http://example.com");
+		ResponseBundleRequest request = new ResponseBundleRequest(
+			myServer,
+			new SimpleBundleProvider(theResources),
+			requestDetails,
+			0,
+			null,
+			"http://example.com/Patient",
+			theIncludes,
+			BundleTypeEnum.SEARCHSET,
+			null);
+		return new StreamingBundleEntries(request, "http://example.com", 0, theResources.size(), theChunkSize);
+	}
+
+	private static Bundle createEnvelope() {
+		Bundle envelope = new Bundle();
+		envelope.setId("envelope");
+		envelope.setType(Bundle.BundleType.SEARCHSET);
+		envelope.setTotal(100);
+		envelope.addLink().setRelation(Bundle.LINK_SELF).setUrl("http://example.com/Patient?name=\"entry\"");
+		envelope.getSignature().getWho().setReference("\"entry\":[}");
+		return envelope;
+	}
+}
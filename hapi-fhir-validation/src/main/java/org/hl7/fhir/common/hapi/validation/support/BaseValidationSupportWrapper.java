@@ -35,6 +35,11 @@ public abstract class BaseValidationSupportWrapper extends BaseValidationSupport
 		myWrap = theWrap;
 	}
 
+	@Override
+	public long getCacheGeneration() {
+		return myWrap.getCacheGeneration();
+	}
+
 	@Override
 	public List<IBaseResource> fetchAllConformanceResources() {
 		return myWrap.fetchAllConformanceResources();
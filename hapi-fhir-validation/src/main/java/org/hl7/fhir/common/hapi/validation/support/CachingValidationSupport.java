@@ -23,6 +23,7 @@ import java.util.Optional;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -44,6 +45,7 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 	private final Cache<String, Object> myLookupCodeCache;
 	private final ThreadPoolExecutor myBackgroundExecutor;
 	private final Map<Object, Object> myNonExpiringCache;
+	private final AtomicLong myCacheGeneration = new AtomicLong();
 	private final Cache<String, Object> myExpandValueSetCache;
 	private final boolean myIsEnabledValidationForCodingsLogicalAnd;
 
@@ -302,6 +304,7 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 
 	@Override
 	public void invalidateCaches() {
+		myCacheGeneration.incrementAndGet();
 		myExpandValueSetCache.invalidateAll();
 		myLookupCodeCache.invalidateAll();
 		myCache.invalidateAll();
@@ -309,6 +312,11 @@ public class CachingValidationSupport extends BaseValidationSupportWrapper imple
 		myNonExpiringCache.clear();
 	}
 
+	@Override
+	public long getCacheGeneration() {
+		return myCacheGeneration.get() + super.getCacheGeneration();
+	}
+
 	/**
 	 * @since 5.4.0
 	 */
@@ -9,7 +9,10 @@ import ca.uhn.fhir.context.support.TranslateConceptResults;
 import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.context.support.ValueSetExpansionOptions;
 import ca.uhn.fhir.i18n.Msg;
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.time.DateUtils;
 import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.hl7.fhir.instance.model.api.IPrimitiveType;
 
@@ -18,21 +21,44 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+/**
+ * Validation support module which delegates to a chain of other modules, in order.
+ * <p>
+ * Lookups which are performed many times during validation (fetching a CodeSystem, ValueSet or
+ * StructureDefinition by URL, and determining which module supports a given code system or value set)
+ * remember which module in the chain was responsible for a given URL, so that subsequent lookups go
+ * straight to that module. Lookups which no module could satisfy are also remembered, so that
+ * repeated misses do not fall through the entire chain (including any remote or database backed
+ * modules) each time. This index is cleared by {@link #invalidateCaches()} and whenever the chain is
+ * modified, and entries expire after {@link #getLookupCacheTimeoutMillis()}.
+ * </p>
+ */
 public class ValidationSupportChain implements IValidationSupport {
 
+	public static final long DEFAULT_LOOKUP_CACHE_TIMEOUT_MILLIS = 10 * DateUtils.MILLIS_PER_MINUTE;
+	private static final long LOOKUP_CACHE_MAXIMUM_SIZE = 10000;
+	private static final Object NOT_FOUND = new Object();
+
 	private List<IValidationSupport> myChain;
+	private long myLookupCacheTimeoutMillis = DEFAULT_LOOKUP_CACHE_TIMEOUT_MILLIS;
+	private Cache<String, Object> myLookupCache;
+	private final AtomicLong myCacheGeneration = new AtomicLong();
 
 	/**
 	 * Constructor
 	 */
 	public ValidationSupportChain() {
 		myChain = new ArrayList<>();
+		myLookupCache = CacheFactory.build(myLookupCacheTimeoutMillis, LOOKUP_CACHE_MAXIMUM_SIZE);
 	}
 
 	/**
@@ -74,20 +100,58 @@ public class ValidationSupportChain implements IValidationSupport {
 
 	@Override
 	public void invalidateCaches() {
+		invalidateLookupCache();
 		for (IValidationSupport next : myChain) {
 			next.invalidateCaches();
 		}
 	}
 
 	@Override
-	public boolean isValueSetSupported(ValidationSupportContext theValidationSupportContext, String theValueSetUrl) {
+	public long getCacheGeneration() {
+		long retVal = myCacheGeneration.get();
 		for (IValidationSupport next : myChain) {
-			boolean retVal = next.isValueSetSupported(theValidationSupportContext, theValueSetUrl);
-			if (retVal) {
-				return true;
-			}
+			retVal += next.getCacheGeneration();
 		}
-		return false;
+		return retVal;
+	}
+
+	/**
+	 * Returns the number of milliseconds that the chain remembers which module is responsible for
+	 * a given URL (or that no module is) for. Defaults to {@link #DEFAULT_LOOKUP_CACHE_TIMEOUT_MILLIS}.
+	 *
+	 * @since 7.0.0
+	 */
+	public long getLookupCacheTimeoutMillis() {
+		return myLookupCacheTimeoutMillis;
+	}
+
+	/**
+	 * Sets the number of milliseconds that the chain remembers which module is responsible for
+	 * a given URL (or that no module is) for. Set to <code>0</code> to disable this index, meaning
+	 * that every lookup asks each module in the chain in turn.
+	 *
+	 * @since 7.0.0
+	 */
+	public void setLookupCacheTimeoutMillis(long theLookupCacheTimeoutMillis) {
+		Validate.isTrue(theLookupCacheTimeoutMillis >= 0, "theLookupCacheTimeoutMillis must not be negative");
+		myLookupCacheTimeoutMillis = theLookupCacheTimeoutMillis;
+		myLookupCache = theLookupCacheTimeoutMillis > 0
+				? CacheFactory.build(theLookupCacheTimeoutMillis, LOOKUP_CACHE_MAXIMUM_SIZE)
+				: null;
+	}
+
+	private void invalidateLookupCache() {
+		// Adding or removing a module can change the outcome of a lookup just like invalidating can
+		myCacheGeneration.incrementAndGet();
+		Cache<String, Object> lookupCache = myLookupCache;
+		if (lookupCache != null) {
+			lookupCache.invalidateAll();
+		}
+	}
+
+	@Override
+	public boolean isValueSetSupported(ValidationSupportContext theValidationSupportContext, String theValueSetUrl) {
+		return findValueSetSupport(theValidationSupportContext, theValueSetUrl) != null;
 	}
 
 	@Override
@@ -158,6 +222,7 @@ public class ValidationSupportChain implements IValidationSupport {
 		}
 
 		myChain.add(theIndex, theValidationSupport);
+		invalidateLookupCache();
 	}
 
 	/**
@@ -166,6 +231,7 @@ public class ValidationSupportChain implements IValidationSupport {
 	 */
 	public void removeValidationSupport(IValidationSupport theValidationSupport) {
 		myChain.remove(theValidationSupport);
+		invalidateLookupCache();
 	}
 
 	@Override
@@ -243,24 +309,12 @@ public class ValidationSupportChain implements IValidationSupport {
 
 	@Override
 	public IBaseResource fetchCodeSystem(String theSystem) {
-		for (IValidationSupport next : myChain) {
-			IBaseResource retVal = next.fetchCodeSystem(theSystem);
-			if (retVal != null) {
-				return retVal;
-			}
-		}
-		return null;
+		return fetchFromChain("fetchCodeSystem " + theSystem, t -> t.fetchCodeSystem(theSystem));
 	}
 
 	@Override
 	public IBaseResource fetchValueSet(String theUrl) {
-		for (IValidationSupport next : myChain) {
-			IBaseResource retVal = next.fetchValueSet(theUrl);
-			if (retVal != null) {
-				return retVal;
-			}
-		}
-		return null;
+		return fetchFromChain("fetchValueSet " + theUrl, t -> t.fetchValueSet(theUrl));
 	}
 
 	@Override
@@ -287,23 +341,12 @@ public class ValidationSupportChain implements IValidationSupport {
 
 	@Override
 	public IBaseResource fetchStructureDefinition(String theUrl) {
-		for (IValidationSupport next : myChain) {
-			IBaseResource retVal = next.fetchStructureDefinition(theUrl);
-			if (retVal != null) {
-				return retVal;
-			}
-		}
-		return null;
+		return fetchFromChain("fetchStructureDefinition " + theUrl, t -> t.fetchStructureDefinition(theUrl));
 	}
 
 	@Override
 	public boolean isCodeSystemSupported(ValidationSupportContext theValidationSupportContext, String theSystem) {
-		for (IValidationSupport next : myChain) {
-			if (next.isCodeSystemSupported(theValidationSupportContext, theSystem)) {
-				return true;
-			}
-		}
-		return false;
+		return findCodeSystemSupport(theValidationSupportContext, theSystem) != null;
 	}
 
 	@Override
@@ -314,8 +357,18 @@ public class ValidationSupportChain implements IValidationSupport {
 			String theCode,
 			String theDisplay,
 			String theValueSetUrl) {
-		for (IValidationSupport next : myChain) {
-			if ((isBlank(theValueSetUrl) && next.isCodeSystemSupported(theValidationSupportContext, theCodeSystem))
+		IValidationSupport first = isBlank(theValueSetUrl)
+				? findCodeSystemSupport(theValidationSupportContext, theCodeSystem)
+				: findValueSetSupport(theValidationSupportContext, theValueSetUrl);
+		if (first == null) {
+			return null;
+		}
+
+		// Modules before the first supporting one are already known not to support the system or value set
+		for (IValidationSupport next : myChain.subList(myChain.indexOf(first), myChain.size())) {
+			if (next == first
+					|| (isBlank(theValueSetUrl)
+							&& next.isCodeSystemSupported(theValidationSupportContext, theCodeSystem))
 					|| (isNotBlank(theValueSetUrl)
 							&& next.isValueSetSupported(theValidationSupportContext, theValueSetUrl))) {
 				CodeValidationResult retVal = next.validateCode(
@@ -336,9 +389,19 @@ public class ValidationSupportChain implements IValidationSupport {
 			String theCode,
 			String theDisplay,
 			@Nonnull IBaseResource theValueSet) {
-		for (IValidationSupport next : myChain) {
-			String url = CommonCodeSystemsTerminologyService.getValueSetUrl(getFhirContext(), theValueSet);
-			if (isBlank(url) || next.isValueSetSupported(theValidationSupportContext, url)) {
+		String url = CommonCodeSystemsTerminologyService.getValueSetUrl(getFhirContext(), theValueSet);
+		List<IValidationSupport> candidates = myChain;
+		IValidationSupport first = null;
+		if (isNotBlank(url)) {
+			first = findValueSetSupport(theValidationSupportContext, url);
+			if (first == null) {
+				return null;
+			}
+			candidates = myChain.subList(myChain.indexOf(first), myChain.size());
+		}
+
+		for (IValidationSupport next : candidates) {
+			if (isBlank(url) || next == first || next.isValueSetSupported(theValidationSupportContext, url)) {
 				CodeValidationResult retVal = next.validateCodeInValueSet(
 						theValidationSupportContext, theOptions, theCodeSystem, theCode, theDisplay, theValueSet);
 				if (retVal != null) {
@@ -355,11 +418,98 @@ public class ValidationSupportChain implements IValidationSupport {
 			String theSystem,
 			String theCode,
 			String theDisplayLanguage) {
+		IValidationSupport support = findCodeSystemSupport(theValidationSupportContext, theSystem);
+		if (support != null) {
+			return support.lookupCode(theValidationSupportContext, theSystem, theCode, theDisplayLanguage);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the first module in the chain which supports the given code system, or <code>null</code>
+	 */
+	@Nullable
+	private IValidationSupport findCodeSystemSupport(
+			ValidationSupportContext theValidationSupportContext, String theSystem) {
+		return findSupportingModule(
+				"isCodeSystemSupported " + theSystem,
+				t -> t.isCodeSystemSupported(theValidationSupportContext, theSystem));
+	}
+
+	/**
+	 * Returns the first module in the chain which supports the given value set, or <code>null</code>
+	 */
+	@Nullable
+	private IValidationSupport findValueSetSupport(
+			ValidationSupportContext theValidationSupportContext, String theValueSetUrl) {
+		return findSupportingModule(
+				"isValueSetSupported " + theValueSetUrl,
+				t -> t.isValueSetSupported(theValidationSupportContext, theValueSetUrl));
+	}
+
+	@Nullable
+	private IValidationSupport findSupportingModule(String theKey, Predicate<IValidationSupport> theSupports) {
+		Object cached = getFromLookupCache(theKey);
+		if (cached == NOT_FOUND) {
+			return null;
+		}
+		if (cached != null) {
+			return (IValidationSupport) cached;
+		}
+
 		for (IValidationSupport next : myChain) {
-			if (next.isCodeSystemSupported(theValidationSupportContext, theSystem)) {
-				return next.lookupCode(theValidationSupportContext, theSystem, theCode, theDisplayLanguage);
+			if (theSupports.test(next)) {
+				putInLookupCache(theKey, next);
+				return next;
 			}
 		}
+		putInLookupCache(theKey, NOT_FOUND);
 		return null;
 	}
+
+	/**
+	 * Asks the module which previously satisfied the given lookup first, falling back to asking each module
+	 * in the chain in turn if there is no such module (or it no longer returns anything)
+	 */
+	@Nullable
+	private <T> T fetchFromChain(String theKey, Function<IValidationSupport, T> theFetcher) {
+		Object cached = getFromLookupCache(theKey);
+		if (cached == NOT_FOUND) {
+			return null;
+		}
+		if (cached != null) {
+			T retVal = theFetcher.apply((IValidationSupport) cached);
+			if (retVal != null) {
+				return retVal;
+			}
+		}
+
+		for (IValidationSupport next : myChain) {
+			T retVal = theFetcher.apply(next);
+			if (retVal != null) {
+				putInLookupCache(theKey, next);
+				return retVal;
+			}
+		}
+		putInLookupCache(theKey, NOT_FOUND);
+		return null;
+	}
+
+	/*
+	 * Modules frequently call back into the chain while they are being asked, so these use
+	 * getIfPresent/put rather than a loading get, which is not reentrant
+	 */
+
+	@Nullable
+	private Object getFromLookupCache(String theKey) {
+		Cache<String, Object> lookupCache = myLookupCache;
+		return lookupCache != null ? lookupCache.getIfPresent(theKey) : null;
+	}
+
+	private void putInLookupCache(String theKey, Object theValue) {
+		Cache<String, Object> lookupCache = myLookupCache;
+		if (lookupCache != null) {
+			lookupCache.put(theKey, theValue);
+		}
+	}
 }
@@ -6,7 +6,10 @@ import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
 import ca.uhn.fhir.context.support.IValidationSupport;
 import ca.uhn.fhir.validation.IInstanceValidatorModule;
 import ca.uhn.fhir.validation.IValidationContext;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.hl7.fhir.exceptions.FHIRException;
 import org.hl7.fhir.exceptions.PathEngineException;
 import org.hl7.fhir.r5.model.Base;
@@ -19,14 +22,22 @@ import org.hl7.fhir.r5.utils.validation.IValidatorResourceFetcher;
 import org.hl7.fhir.r5.utils.validation.constants.BestPracticeWarningLevel;
 import org.hl7.fhir.utilities.validation.ValidationMessage;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
 
 @SuppressWarnings({"PackageAccessibility", "Duplicates"})
 public class FhirInstanceValidator extends BaseValidatorBridge implements IInstanceValidatorModule {
 
+	public static final int DEFAULT_CONCURRENT_BUNDLE_VALIDATION_THRESHOLD = 10;
+
 	private boolean myAnyExtensionsAllowed = true;
 	private BestPracticeWarningLevel myBestPracticeWarningLevel;
 	private IValidationSupport myValidationSupport;
@@ -39,6 +50,11 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 	private List<String> myExtensionDomains = Collections.emptyList();
 	private IValidatorResourceFetcher validatorResourceFetcher;
 	private IValidationPolicyAdvisor validatorPolicyAdvisor;
+	private ValidationResultCache myValidationResultCache;
+	private boolean myConcurrentBundleValidation;
+	private int myConcurrentBundleValidationThreshold = DEFAULT_CONCURRENT_BUNDLE_VALIDATION_THRESHOLD;
+	private int myConcurrentBundleValidationThreadCount = Runtime.getRuntime().availableProcessors();
+	private volatile ThreadPoolExecutor myBundleEntryExecutor;
 
 	/**
 	 * Constructor
@@ -221,11 +237,148 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 		return myExtensionDomains;
 	}
 
+	/**
+	 * Returns the cache of validation outcomes, or {@literal null} if outcomes are not cached
+	 * (which is the default)
+	 *
+	 * @since 7.0.0
+	 */
+	public ValidationResultCache getValidationResultCache() {
+		return myValidationResultCache;
+	}
+
+	/**
+	 * If set (default is {@literal null}), the outcome of validating a resource is cached and
+	 * reused when identical content is validated again against the same profiles. See
+	 * {@link ValidationResultCache} for details about when cached outcomes are discarded.
+	 *
+	 * @since 7.0.0
+	 */
+	public void setValidationResultCache(ValidationResultCache theValidationResultCache) {
+		myValidationResultCache = theValidationResultCache;
+	}
+
+	/**
+	 * If set to {@literal true} (default is false), the entry resources of transaction and batch
+	 * Bundles with at least {@link #getConcurrentBundleValidationThreshold() a threshold number of entries}
+	 * are validated concurrently, on a pool of {@link #getConcurrentBundleValidationThreadCount()} threads.
+	 * The Bundle itself is validated separately, with its entry resources removed.
+	 * <p>
+	 * Each entry resource is validated as it would be on its own, so checks which combine an
+	 * entry's <code>fullUrl</code> or <code>request</code> with its resource are not performed,
+	 * and the messages may differ from those of a sequential validation. Bundles which are
+	 * validated against a profile, and Bundles whose entries reference each other, are always
+	 * validated sequentially.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public boolean isConcurrentBundleValidation() {
+		return myConcurrentBundleValidation;
+	}
+
+	/**
+	 * If set to {@literal true} (default is false), the entry resources of transaction and batch
+	 * Bundles with at least {@link #getConcurrentBundleValidationThreshold() a threshold number of entries}
+	 * are validated concurrently, on a pool of {@link #getConcurrentBundleValidationThreadCount()} threads.
+	 * The Bundle itself is validated separately, with its entry resources removed.
+	 * <p>
+	 * Each entry resource is validated as it would be on its own, so checks which combine an
+	 * entry's <code>fullUrl</code> or <code>request</code> with its resource are not performed,
+	 * and the messages may differ from those of a sequential validation. Bundles which are
+	 * validated against a profile, and Bundles whose entries reference each other, are always
+	 * validated sequentially.
+	 * </p>
+	 *
+	 * @since 7.0.0
+	 */
+	public void setConcurrentBundleValidation(boolean theConcurrentBundleValidation) {
+		myConcurrentBundleValidation = theConcurrentBundleValidation;
+	}
+
+	/**
+	 * The minimum number of entries a Bundle must have for its entries to be validated
+	 * concurrently (default is {@link #DEFAULT_CONCURRENT_BUNDLE_VALIDATION_THRESHOLD})
+	 *
+	 * @see #setConcurrentBundleValidation(boolean)
+	 * @since 7.0.0
+	 */
+	public int getConcurrentBundleValidationThreshold() {
+		return myConcurrentBundleValidationThreshold;
+	}
+
+	/**
+	 * The minimum number of entries a Bundle must have for its entries to be validated
+	 * concurrently (default is {@link #DEFAULT_CONCURRENT_BUNDLE_VALIDATION_THRESHOLD})
+	 *
+	 * @see #setConcurrentBundleValidation(boolean)
+	 * @since 7.0.0
+	 */
+	public void setConcurrentBundleValidationThreshold(int theConcurrentBundleValidationThreshold) {
+		Validate.isTrue(theConcurrentBundleValidationThreshold > 0, "Threshold must be positive");
+		myConcurrentBundleValidationThreshold = theConcurrentBundleValidationThreshold;
+	}
+
+	/**
+	 * The maximum number of threads used to validate Bundle entries (default is the number
+	 * of available processors). This pool is shared by all validations performed by this validator.
+	 *
+	 * @see #setConcurrentBundleValidation(boolean)
+	 * @since 7.0.0
+	 */
+	public int getConcurrentBundleValidationThreadCount() {
+		return myConcurrentBundleValidationThreadCount;
+	}
+
+	/**
+	 * The maximum number of threads used to validate Bundle entries (default is the number
+	 * of available processors). This pool is shared by all validations performed by this validator.
+	 *
+	 * @see #setConcurrentBundleValidation(boolean)
+	 * @since 7.0.0
+	 */
+	public synchronized void setConcurrentBundleValidationThreadCount(int theConcurrentBundleValidationThreadCount) {
+		Validate.isTrue(theConcurrentBundleValidationThreadCount > 0, "Thread count must be positive");
+		myConcurrentBundleValidationThreadCount = theConcurrentBundleValidationThreadCount;
+		ThreadPoolExecutor executor = myBundleEntryExecutor;
+		if (executor != null) {
+			// The core size can never exceed the maximum, so the order matters
+			if (theConcurrentBundleValidationThreadCount > executor.getMaximumPoolSize()) {
+				executor.setMaximumPoolSize(theConcurrentBundleValidationThreadCount);
+				executor.setCorePoolSize(theConcurrentBundleValidationThreadCount);
+			} else {
+				executor.setCorePoolSize(theConcurrentBundleValidationThreadCount);
+				executor.setMaximumPoolSize(theConcurrentBundleValidationThreadCount);
+			}
+		}
+	}
+
 	@Override
 	protected List<ValidationMessage> validate(IValidationContext<?> theValidationCtx) {
+		ValidationResultCache validationResultCache = myValidationResultCache;
+		if (validationResultCache == null) {
+			return doValidate(theValidationCtx);
+		}
+
+		String key = createValidationResultCacheKey(theValidationCtx, validationResultCache.getGeneration());
+		List<ValidationMessage> retVal = validationResultCache.get(key);
+		if (retVal == null) {
+			retVal = doValidate(theValidationCtx);
+			validationResultCache.put(key, retVal);
+		}
+		return retVal;
+	}
+
+	private List<ValidationMessage> doValidate(IValidationContext<?> theValidationCtx) {
 		VersionSpecificWorkerContextWrapper wrappedWorkerContext = provideWorkerContext();
 
-		return new ValidatorWrapper()
+		ValidatorWrapper validatorWrapper = new ValidatorWrapper();
+		if (myConcurrentBundleValidation) {
+			validatorWrapper.setBundleEntryExecutor(
+					provideBundleEntryExecutor(), getConcurrentBundleValidationThreshold());
+		}
+
+		return validatorWrapper
 				.setAnyExtensionsAllowed(isAnyExtensionsAllowed())
 				.setBestPracticeWarningLevel(getBestPracticeWarningLevel())
 				.setErrorForUnknownProfiles(isErrorForUnknownProfiles())
@@ -239,6 +392,76 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 				.validate(wrappedWorkerContext, theValidationCtx);
 	}
 
+	/**
+	 * Hashes everything which can influence the outcome of a validation. Changes to the conformance
+	 * resources are covered by the generation of the cache, which advances when {@link #invalidateCaches()}
+	 * is called, and by the {@link IValidationSupport#getCacheGeneration() generation} of the validation
+	 * support, which advances when the validation support caches are invalidated directly (e.g. when
+	 * a package is installed or a ValueSet is pre-expanded).
+	 */
+	private String createValidationResultCacheKey(IValidationContext<?> theValidationCtx, long theGeneration) {
+		MessageDigest digest = DigestUtils.getSha256Digest();
+		StringBuilder settings = new StringBuilder()
+				.append(theGeneration)
+				.append('|')
+				.append(myValidationSupport.getCacheGeneration())
+				.append('|')
+				.append(System.identityHashCode(myValidationSupport))
+				.append('|')
+				.append(System.identityHashCode(validatorResourceFetcher))
+				.append('|')
+				.append(System.identityHashCode(validatorPolicyAdvisor))
+				.append('|')
+				.append(myAnyExtensionsAllowed)
+				.append(myBestPracticeWarningLevel)
+				.append(errorForUnknownProfiles)
+				.append(noTerminologyChecks)
+				.append(noExtensibleWarnings)
+				.append(noBindingMsgSuppressed)
+				.append(assumeValidRestReferences)
+				.append(myConcurrentBundleValidation)
+				.append('|')
+				.append(myExtensionDomains)
+				.append('|')
+				.append(new TreeSet<>(theValidationCtx.getOptions().getProfiles()))
+				.append('|')
+				.append(theValidationCtx.getResourceAsStringEncoding())
+				.append('|');
+		digest.update(settings.toString().getBytes(StandardCharsets.UTF_8));
+		digest.update(theValidationCtx.getResourceAsString().getBytes(StandardCharsets.UTF_8));
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	/**
+	 * Tasks which don't fit in the queue are run on the thread which is validating the Bundle,
+	 * which keeps a burst of large Bundles from piling up work
+	 */
+	private ThreadPoolExecutor provideBundleEntryExecutor() {
+		ThreadPoolExecutor retVal = myBundleEntryExecutor;
+		if (retVal == null) {
+			synchronized (this) {
+				retVal = myBundleEntryExecutor;
+				if (retVal == null) {
+					BasicThreadFactory threadFactory = new BasicThreadFactory.Builder()
+							.namingPattern("FhirInstanceValidator-bundle-%d")
+							.daemon(true)
+							.build();
+					retVal = new ThreadPoolExecutor(
+							myConcurrentBundleValidationThreadCount,
+							myConcurrentBundleValidationThreadCount,
+							1,
+							TimeUnit.MINUTES,
+							new LinkedBlockingQueue<>(1000),
+							threadFactory,
+							new ThreadPoolExecutor.CallerRunsPolicy());
+					retVal.allowCoreThreadTimeOut(true);
+					myBundleEntryExecutor = retVal;
+				}
+			}
+		}
+		return retVal;
+	}
+
 	@Nonnull
 	protected VersionSpecificWorkerContextWrapper provideWorkerContext() {
 		VersionSpecificWorkerContextWrapper wrappedWorkerContext = myWrappedWorkerContext;
@@ -283,6 +506,10 @@ public class FhirInstanceValidator extends BaseValidatorBridge implements IInsta
 		if (myWrappedWorkerContext != null) {
 			myWrappedWorkerContext.invalidateCaches();
 		}
+		// Do this last so that validations running concurrently can't store outcomes based on stale data
+		if (myValidationResultCache != null) {
+			myValidationResultCache.invalidateAll();
+		}
 	}
 
 	public static class NullEvaluationContext implements FHIRPathEngine.IEvaluationContext {
@@ -0,0 +1,149 @@
+package org.hl7.fhir.common.hapi.validation.validator;
+
+import ca.uhn.fhir.sl.cache.Cache;
+import ca.uhn.fhir.sl.cache.CacheFactory;
+import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.time.DateUtils;
+import org.hl7.fhir.utilities.validation.ValidationMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Holds the outcome of recent validations performed by {@link FhirInstanceValidator}, so that
+ * resubmitted or otherwise identical resources do not need to be validated again. Enable it
+ * using {@link FhirInstanceValidator#setValidationResultCache(ValidationResultCache)}.
+ * <p>
+ * Entries are keyed by a hash of the resource content, the profiles requested for the validation,
+ * the validator settings and two generation counters. The generation of this cache is advanced
+ * whenever {@link FhirInstanceValidator#invalidateCaches()} is called. The
+ * {@link ca.uhn.fhir.context.support.IValidationSupport#getCacheGeneration() generation of the validation support}
+ * is advanced whenever its caches are invalidated, including directly (e.g. by the JPA server when a
+ * package is installed or terminology changes). Results computed against older conformance resources
+ * are therefore never returned afterward, even if the validation was already in progress. Conformance
+ * resources which change without any caches being invalidated are picked up once entries expire, in the
+ * same way as {@link org.hl7.fhir.common.hapi.validation.support.CachingValidationSupport} does.
+ * </p>
+ * <p>
+ * Note that a cached result is also reused regardless of any changes to resources which are
+ * resolved during validation using a {@link FhirInstanceValidator#setValidatorResourceFetcher(org.hl7.fhir.r5.utils.validation.IValidatorResourceFetcher) resource fetcher},
+ * until the entry expires.
+ * </p>
+ * <p>
+ * Memory use is bounded by the maximum number of entries, and by never caching outcomes with more
+ * than {@link #MAX_MESSAGES_PER_ENTRY} messages. The resource itself is not held by the cache.
+ * Since {@link ValidationMessage} is mutable, every caller gets its own copy of the messages.
+ * </p>
+ *
+ * @since 7.0.0
+ */
+public class ValidationResultCache {
+
+	public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+	public static final long DEFAULT_EXPIRE_AFTER_WRITE_MILLIS = 10 * DateUtils.MILLIS_PER_MINUTE;
+	public static final int MAX_MESSAGES_PER_ENTRY = 100;
+
+	private final Cache<String, List<ValidationMessage>> myCache;
+	private final AtomicLong myGeneration = new AtomicLong();
+	private final AtomicLong myHitCount = new AtomicLong();
+	private final AtomicLong myMissCount = new AtomicLong();
+
+	/**
+	 * Constructor which uses a maximum of {@link #DEFAULT_MAXIMUM_SIZE} entries, expiring after
+	 * {@link #DEFAULT_EXPIRE_AFTER_WRITE_MILLIS}
+	 */
+	public ValidationResultCache() {
+		this(DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_WRITE_MILLIS);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param theMaximumSize             The maximum number of validation outcomes to hold
+	 * @param theExpireAfterWriteMillis How long an outcome may be reused for
+	 */
+	public ValidationResultCache(long theMaximumSize, long theExpireAfterWriteMillis) {
+		Validate.isTrue(theMaximumSize > 0, "theMaximumSize must be positive");
+		Validate.isTrue(theExpireAfterWriteMillis > 0, "theExpireAfterWriteMillis must be positive");
+		myCache = CacheFactory.build(theExpireAfterWriteMillis, theMaximumSize);
+	}
+
+	/**
+	 * Returns the current generation. This should be captured before a validation starts and
+	 * included in the key which the outcome is stored under.
+	 */
+	long getGeneration() {
+		return myGeneration.get();
+	}
+
+	@Nullable
+	List<ValidationMessage> get(@Nonnull String theKey) {
+		List<ValidationMessage> cached = myCache.getIfPresent(theKey);
+		if (cached == null) {
+			myMissCount.incrementAndGet();
+			return null;
+		}
+		myHitCount.incrementAndGet();
+		return copyOf(cached);
+	}
+
+	void put(@Nonnull String theKey, @Nonnull List<ValidationMessage> theMessages) {
+		if (theMessages.size() <= MAX_MESSAGES_PER_ENTRY) {
+			myCache.put(theKey, copyOf(theMessages));
+		}
+	}
+
+	/**
+	 * Copies the parts of each message which {@link BaseValidatorBridge} passes on to the caller
+	 */
+	private static List<ValidationMessage> copyOf(List<ValidationMessage> theMessages) {
+		List<ValidationMessage> retVal = new ArrayList<>(theMessages.size());
+		for (ValidationMessage next : theMessages) {
+			ValidationMessage copy = new ValidationMessage(
+					next.getSource(),
+					next.getType(),
+					next.getLine(),
+					next.getCol(),
+					next.getLocation(),
+					next.getMessage(),
+					next.getLevel());
+			copy.setMessageId(next.getMessageId());
+			copy.sliceText = next.sliceText != null ? next.sliceText.clone() : null;
+			retVal.add(copy);
+		}
+		return retVal;
+	}
+
+	/**
+	 * Discards all cached outcomes, and ensures that validations which are already in progress
+	 * will not store their outcome under a key which can be hit again
+	 */
+	public void invalidateAll() {
+		myGeneration.incrementAndGet();
+		myCache.invalidateAll();
+	}
+
+	public long getHitCount() {
+		return myHitCount.get();
+	}
+
+	public long getMissCount() {
+		return myMissCount.get();
+	}
+
+	/**
+	 * Returns the proportion of lookups which were served from the cache, between 0 and 1
+	 */
+	public double getHitRatio() {
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	public long getEstimatedSize() {
+		return myCache.estimatedSize();
+	}
+}
@@ -3,17 +3,14 @@ package org.hl7.fhir.common.hapi.validation.validator;
 import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.i18n.Msg;
 import ca.uhn.fhir.rest.api.EncodingEnum;
-import ca.uhn.fhir.util.XmlUtil;
+import ca.uhn.fhir.rest.server.exceptions.InternalErrorException;
 import ca.uhn.fhir.validation.IValidationContext;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import org.apache.commons.io.input.ReaderInputStream;
 import org.hl7.fhir.exceptions.FHIRException;
 import org.hl7.fhir.r5.context.IWorkerContext;
+import org.hl7.fhir.r5.elementmodel.Element;
 import org.hl7.fhir.r5.elementmodel.Manager;
+import org.hl7.fhir.r5.elementmodel.ParserBase;
+import org.hl7.fhir.r5.elementmodel.XmlParser;
 import org.hl7.fhir.r5.model.StructureDefinition;
 import org.hl7.fhir.r5.utils.FHIRPathEngine;
 import org.hl7.fhir.r5.utils.XVerExtensionManager;
@@ -26,15 +23,18 @@ import org.hl7.fhir.utilities.validation.ValidationMessage;
 import org.hl7.fhir.validation.instance.InstanceValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
 
-import java.io.InputStream;
-import java.io.StringReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 class ValidatorWrapper {
@@ -50,6 +50,8 @@ class ValidatorWrapper {
 	private Collection<? extends String> myExtensionDomains;
 	private IValidatorResourceFetcher myValidatorResourceFetcher;
 	private IValidationPolicyAdvisor myValidationPolicyAdvisor;
+	private Executor myBundleEntryExecutor;
+	private int myConcurrentBundleValidationThreshold;
 
 	/**
 	 * Constructor
@@ -112,29 +114,20 @@ class ValidatorWrapper {
 		return this;
 	}
 
+	/**
+	 * If set, the entries of transaction and batch Bundles with at least the given number of entries
+	 * are validated concurrently using the given executor
+	 */
+	public ValidatorWrapper setBundleEntryExecutor(
+			Executor theBundleEntryExecutor, int theConcurrentBundleValidationThreshold) {
+		myBundleEntryExecutor = theBundleEntryExecutor;
+		myConcurrentBundleValidationThreshold = theConcurrentBundleValidationThreshold;
+		return this;
+	}
+
 	public List<ValidationMessage> validate(
 			IWorkerContext theWorkerContext, IValidationContext<?> theValidationContext) {
-		InstanceValidator v;
-		FHIRPathEngine.IEvaluationContext evaluationCtx = new FhirInstanceValidator.NullEvaluationContext();
-		XVerExtensionManager xverManager = new XVerExtensionManager(theWorkerContext);
-		try {
-			v = new InstanceValidator(theWorkerContext, evaluationCtx, xverManager);
-		} catch (Exception e) {
-			throw new ConfigurationException(Msg.code(648) + e);
-		}
-
-		v.setAssumeValidRestReferences(isAssumeValidRestReferences());
-		v.setBestPracticeWarningLevel(myBestPracticeWarningLevel);
-		v.setAnyExtensionsAllowed(myAnyExtensionsAllowed);
-		v.setResourceIdRule(IdStatus.OPTIONAL);
-		v.setNoTerminologyChecks(myNoTerminologyChecks);
-		v.setErrorForUnknownProfiles(myErrorForUnknownProfiles);
-		v.getExtensionDomains().addAll(myExtensionDomains);
-		v.setFetcher(myValidatorResourceFetcher);
-		v.setPolicyAdvisor(myValidationPolicyAdvisor);
-		v.setNoExtensibleWarnings(myNoExtensibleWarnings);
-		v.setNoBindingMsgSuppressed(myNoBindingMsgSuppressed);
-		v.setAllowXsiLocation(true);
+		InstanceValidator v = newInstanceValidator(theWorkerContext);
 
 		List<ValidationMessage> messages = new ArrayList<>();
 
@@ -143,59 +136,48 @@ class ValidatorWrapper {
 			fetchAndAddProfile(theWorkerContext, profiles, nextProfileUrl, messages);
 		}
 
-		String input = theValidationContext.getResourceAsString();
 		EncodingEnum encoding = theValidationContext.getResourceAsStringEncoding();
+		Manager.FhirFormat format;
 		if (encoding == EncodingEnum.XML) {
-			Document document;
-			try {
-				document = XmlUtil.parseDocument(input);
-			} catch (Exception e2) {
-				ourLog.error("Failure to parse XML input", e2);
-				ValidationMessage m = new ValidationMessage();
-				m.setLevel(ValidationMessage.IssueSeverity.FATAL);
-				m.setMessage("Failed to parse input, it does not appear to be valid XML:" + e2.getMessage());
-				messages.add(m);
-				return messages;
-			}
-
-			// Determine if meta/profiles are present...
-			ArrayList<String> profileUrls = determineIfProfilesSpecified(document);
-			for (String nextProfileUrl : profileUrls) {
-				fetchAndAddProfile(theWorkerContext, profiles, nextProfileUrl, messages);
-			}
-
-			String resourceAsString = theValidationContext.getResourceAsString();
-			InputStream inputStream = new ReaderInputStream(new StringReader(resourceAsString), StandardCharsets.UTF_8);
-
-			Manager.FhirFormat format = Manager.FhirFormat.XML;
-			v.validate(null, messages, inputStream, format, profiles);
-
+			format = Manager.FhirFormat.XML;
 		} else if (encoding == EncodingEnum.JSON) {
+			format = Manager.FhirFormat.JSON;
+		} else {
+			throw new IllegalArgumentException(Msg.code(649) + "Unknown encoding: " + encoding);
+		}
 
-			Gson gson = new GsonBuilder().create();
-			JsonObject json = gson.fromJson(input, JsonObject.class);
-
-			JsonObject meta = json.getAsJsonObject("meta");
-			if (meta != null) {
-				JsonElement profileElement = meta.get("profile");
-				if (profileElement != null && profileElement.isJsonArray()) {
-					JsonArray profilesArray = profileElement.getAsJsonArray();
-					for (JsonElement element : profilesArray) {
-						String nextProfileUrl = element.getAsString();
-						fetchAndAddProfile(theWorkerContext, profiles, nextProfileUrl, messages);
-					}
+		/*
+		 * Parse the input exactly once, into the element model that the validator works
+		 * on, and read the declared profiles from that rather than parsing the raw input
+		 * separately just to find meta.profile
+		 */
+		List<ParserBase.NamedElement> parsed;
+		try {
+			parsed = parse(theWorkerContext, theValidationContext.getResourceAsString(), format, profiles, messages);
+		} catch (Exception e) {
+			ourLog.error("Failure to parse {} input", encoding.name(), e);
+			ValidationMessage m = new ValidationMessage();
+			m.setLevel(ValidationMessage.IssueSeverity.FATAL);
+			m.setMessage(
+					"Failed to parse input, it does not appear to be valid " + encoding.name() + ":" + e.getMessage());
+			messages.add(m);
+			return messages;
+		}
+
+		if (parsed != null) {
+			for (ParserBase.NamedElement nextParsed : parsed) {
+				for (String nextProfileUrl : determineIfProfilesSpecified(nextParsed.getElement())) {
+					fetchAndAddProfile(theWorkerContext, profiles, nextProfileUrl, messages);
+				}
+				if (isValidateBundleEntriesConcurrently(nextParsed.getElement(), profiles)) {
+					validateBundleConcurrently(
+							theWorkerContext, v, messages, nextParsed.getName(), nextParsed.getElement(), profiles);
+				} else {
+					v.validate(null, messages, nextParsed.getName(), nextParsed.getElement(), profiles);
 				}
 			}
-
-			String resourceAsString = theValidationContext.getResourceAsString();
-			InputStream inputStream = new ReaderInputStream(new StringReader(resourceAsString), StandardCharsets.UTF_8);
-
-			Manager.FhirFormat format = Manager.FhirFormat.JSON;
-			v.validate(null, messages, inputStream, format, profiles);
-
-		} else {
-			throw new IllegalArgumentException(Msg.code(649) + "Unknown encoding: " + encoding);
 		}
+
 		// TODO: are these still needed?
 		messages = messages.stream()
 				.filter(m -> m.getMessageId() == null
@@ -232,19 +214,184 @@ class ValidatorWrapper {
 		}
 	}
 
-	private ArrayList<String> determineIfProfilesSpecified(Document theDocument) {
-		ArrayList<String> profileNames = new ArrayList<>();
-		NodeList list = theDocument.getChildNodes().item(0).getChildNodes();
-		for (int i = 0; i < list.getLength(); i++) {
-			if (list.item(i).getNodeName().compareToIgnoreCase("meta") == 0) {
-				NodeList metaList = list.item(i).getChildNodes();
-				for (int j = 0; j < metaList.getLength(); j++) {
-					if (metaList.item(j).getNodeName().compareToIgnoreCase("profile") == 0) {
-						profileNames.add(
-								metaList.item(j).getAttributes().item(0).getNodeValue());
-					}
+	private InstanceValidator newInstanceValidator(IWorkerContext theWorkerContext) {
+		InstanceValidator v;
+		FHIRPathEngine.IEvaluationContext evaluationCtx = new FhirInstanceValidator.NullEvaluationContext();
+		XVerExtensionManager xverManager = new XVerExtensionManager(theWorkerContext);
+		try {
+			v = new InstanceValidator(theWorkerContext, evaluationCtx, xverManager);
+		} catch (Exception e) {
+			throw new ConfigurationException(Msg.code(648) + e);
+		}
+
+		v.setAssumeValidRestReferences(isAssumeValidRestReferences());
+		v.setBestPracticeWarningLevel(myBestPracticeWarningLevel);
+		v.setAnyExtensionsAllowed(myAnyExtensionsAllowed);
+		v.setResourceIdRule(IdStatus.OPTIONAL);
+		v.setNoTerminologyChecks(myNoTerminologyChecks);
+		v.setErrorForUnknownProfiles(myErrorForUnknownProfiles);
+		v.getExtensionDomains().addAll(myExtensionDomains);
+		v.setFetcher(myValidatorResourceFetcher);
+		v.setPolicyAdvisor(myValidationPolicyAdvisor);
+		v.setNoExtensibleWarnings(myNoExtensibleWarnings);
+		v.setNoBindingMsgSuppressed(myNoBindingMsgSuppressed);
+		v.setAllowXsiLocation(true);
+		return v;
+	}
+
+	/**
+	 * Bundles which are validated against a profile are never validated concurrently, since the profile
+	 * may constrain the entry resources, and neither are Bundles whose entries reference each other,
+	 * since these references can only be resolved within the Bundle.
+	 */
+	private boolean isValidateBundleEntriesConcurrently(Element theElement, List<StructureDefinition> theProfiles) {
+		if (myBundleEntryExecutor == null || !"Bundle".equals(theElement.fhirType()) || !theProfiles.isEmpty()) {
+			return false;
+		}
+		String type = theElement.getNamedChildValue("type");
+		if (!"transaction".equals(type) && !"batch".equals(type)) {
+			return false;
+		}
+		List<Element> entries = theElement.getChildren("entry");
+		return entries.size() >= myConcurrentBundleValidationThreshold && !hasReferencesBetweenEntries(entries);
+	}
+
+	/**
+	 * Errs on the side of caution: any <code>urn:</code> reference counts, as does any reference
+	 * matching the <code>fullUrl</code> or the <code>type/id</code> of an entry.
+	 */
+	private static boolean hasReferencesBetweenEntries(List<Element> theEntries) {
+		Set<String> targets = new HashSet<>();
+		for (Element next : theEntries) {
+			String fullUrl = next.getNamedChildValue("fullUrl");
+			if (fullUrl != null) {
+				targets.add(fullUrl);
+			}
+			Element resource = next.getNamedChild("resource");
+			if (resource != null && resource.getNamedChildValue("id") != null) {
+				targets.add(resource.fhirType() + "/" + resource.getNamedChildValue("id"));
+			}
+		}
+		for (Element next : theEntries) {
+			Element resource = next.getNamedChild("resource");
+			if (resource != null && hasReferenceTo(resource, targets)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasReferenceTo(Element theElement, Set<String> theTargets) {
+		for (Element next : theElement.getChildren()) {
+			if ("reference".equals(next.getName()) && next.hasValue()) {
+				String reference = next.getValue();
+				int historyIdx = reference.indexOf("/_history/");
+				if (historyIdx != -1) {
+					reference = reference.substring(0, historyIdx);
+				}
+				if (reference.startsWith("urn:") || theTargets.contains(reference)) {
+					return true;
+				}
+			}
+			if (hasReferenceTo(next, theTargets)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Validates each entry resource using its own {@link InstanceValidator} on the bundle entry executor,
+	 * while the Bundle itself (with the entry resources detached) is validated on the calling thread.
+	 * The detached resources keep their path within the Bundle and their position in the input, so the
+	 * messages carry the same locations as they would if the whole Bundle was validated at once.
+	 * <p>
+	 * Each entry resource is validated as it would be on its own, so checks which combine an entry's
+	 * <code>fullUrl</code> or <code>request</code> with its resource are not performed, and the messages
+	 * are not guaranteed to be identical to those of a sequential validation.
+	 * </p>
+	 *
+	 * @see #isValidateBundleEntriesConcurrently(Element, List)
+	 */
+	private void validateBundleConcurrently(
+			IWorkerContext theWorkerContext,
+			InstanceValidator theValidator,
+			List<ValidationMessage> theMessages,
+			String theName,
+			Element theBundle,
+			List<StructureDefinition> theProfiles) {
+		List<CompletableFuture<List<ValidationMessage>>> entryFutures = new ArrayList<>();
+		List<Element> entries = theBundle.getChildren("entry");
+		for (int i = 0; i < entries.size(); i++) {
+			Element entry = entries.get(i);
+			Element resource = entry.getNamedChild("resource");
+			if (resource == null) {
+				continue;
+			}
+			entry.removeChild("resource");
+			// Same path format as InstanceValidator uses for resources contained in a Bundle entry
+			resource.setPath("Bundle.entry[" + i + "].resource/*" + resource.fhirType() + "/"
+					+ resource.getNamedChildValue("id") + "*/");
+			entryFutures.add(CompletableFuture.supplyAsync(
+					() -> validateBundleEntry(theWorkerContext, resource), myBundleEntryExecutor));
+		}
+
+		theValidator.validate(null, theMessages, theName, theBundle, theProfiles);
+
+		for (CompletableFuture<List<ValidationMessage>> next : entryFutures) {
+			try {
+				theMessages.addAll(next.join());
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new InternalErrorException(Msg.code(2452) + "Failed to validate Bundle entry", e.getCause());
+			}
+		}
+	}
+
+	private List<ValidationMessage> validateBundleEntry(IWorkerContext theWorkerContext, Element theResource) {
+		List<ValidationMessage> retVal = new ArrayList<>();
+		newInstanceValidator(theWorkerContext).validate(null, retVal, null, theResource, new ArrayList<>());
+		return retVal;
+	}
+
+	/**
+	 * Parses the input the same way {@link InstanceValidator} does when it is given a stream,
+	 * so that parse errors are reported as validation messages
+	 */
+	private List<ParserBase.NamedElement> parse(
+			IWorkerContext theWorkerContext,
+			String theInput,
+			Manager.FhirFormat theFormat,
+			List<StructureDefinition> theProfiles,
+			List<ValidationMessage> theMessages)
+			throws IOException {
+		ParserBase parser = Manager.makeParser(theWorkerContext, theFormat);
+		theProfiles.stream()
+				.filter(t -> t.getKind() == StructureDefinition.StructureDefinitionKind.LOGICAL)
+				.findFirst()
+				.ifPresent(parser::setLogical);
+		if (parser instanceof XmlParser) {
+			((XmlParser) parser).setAllowXsiLocation(true);
+		}
+		parser.setupValidation(ParserBase.ValidationPolicy.EVERYTHING, theMessages);
+		List<ParserBase.NamedElement> retVal =
+				parser.parse(new ByteArrayInputStream(theInput.getBytes(StandardCharsets.UTF_8)));
+		if (parser.getImpliedProfile() != null) {
+			fetchAndAddProfile(theWorkerContext, theProfiles, parser.getImpliedProfile(), theMessages);
+		}
+		return retVal;
+	}
+
+	private List<String> determineIfProfilesSpecified(Element theElement) {
+		List<String> profileNames = new ArrayList<>();
+		Element meta = theElement.getNamedChild("meta");
+		if (meta != null) {
+			for (Element nextProfile : meta.getChildrenByName("profile")) {
+				if (nextProfile.hasValue()) {
+					profileNames.add(nextProfile.getValue());
 				}
-				break;
 			}
 		}
 		return profileNames;
@@ -3,15 +3,25 @@ package org.hl7.fhir.common.hapi.validation.support;
 import ca.uhn.fhir.context.ConfigurationException;
 import ca.uhn.fhir.context.FhirContext;
 import ca.uhn.fhir.context.FhirVersionEnum;
+import ca.uhn.fhir.context.support.ConceptValidationOptions;
 import ca.uhn.fhir.context.support.DefaultProfileValidationSupport;
 import ca.uhn.fhir.context.support.IValidationSupport;
+import ca.uhn.fhir.context.support.ValidationSupportContext;
 import ca.uhn.fhir.i18n.Msg;
 import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
+import org.hl7.fhir.r4.model.CodeSystem;
+import org.hl7.fhir.r4.model.StructureDefinition;
 import org.junit.jupiter.api.Test;
 
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ValidationSupportChainTest {
@@ -63,6 +73,80 @@ public class ValidationSupportChainTest {
 	}
 
 
+	@Test
+	public void fetchStructureDefinition_repeatedLookups_askResponsibleModuleOnly() {
+		StructureDefinition sd = new StructureDefinition();
+		IValidationSupport validationSupport1 = createMockValidationSupport();
+		IValidationSupport validationSupport2 = createMockValidationSupport();
+		when(validationSupport2.fetchStructureDefinition("http://foo")).thenReturn(sd);
+		ValidationSupportChain validationSupportChain = new ValidationSupportChain(validationSupport1, validationSupport2);
+
+		for (int i = 0; i < 3; i++) {
+			assertSame(sd, validationSupportChain.fetchStructureDefinition("http://foo"));
+			assertNull(validationSupportChain.fetchStructureDefinition("http://bar"));
+		}
+
+		verify(validationSupport1, times(1)).fetchStructureDefinition("http://foo");
+		verify(validationSupport2, times(3)).fetchStructureDefinition("http://foo");
+		verify(validationSupport1, times(1)).fetchStructureDefinition("http://bar");
+		verify(validationSupport2, times(1)).fetchStructureDefinition("http://bar");
+
+		// The index is discarded when caches are invalidated
+		validationSupportChain.invalidateCaches();
+		assertNull(validationSupportChain.fetchStructureDefinition("http://bar"));
+		verify(validationSupport1, times(2)).fetchStructureDefinition("http://bar");
+		verify(validationSupport2, times(2)).fetchStructureDefinition("http://bar");
+	}
+
+	@Test
+	public void fetchCodeSystem_responsibleModuleNoLongerHasResource_fallsBackToChain() {
+		CodeSystem cs = new CodeSystem();
+		IValidationSupport validationSupport1 = createMockValidationSupport();
+		IValidationSupport validationSupport2 = createMockValidationSupport();
+		when(validationSupport1.fetchCodeSystem("http://foo")).thenReturn(cs, (CodeSystem) null);
+		when(validationSupport2.fetchCodeSystem("http://foo")).thenReturn(cs);
+		ValidationSupportChain validationSupportChain = new ValidationSupportChain(validationSupport1, validationSupport2);
+
+		assertSame(cs, validationSupportChain.fetchCodeSystem("http://foo"));
+		assertSame(cs, validationSupportChain.fetchCodeSystem("http://foo"));
+		assertSame(cs, validationSupportChain.fetchCodeSystem("http://foo"));
+
+		verify(validationSupport1, times(3)).fetchCodeSystem("http://foo");
+		verify(validationSupport2, times(2)).fetchCodeSystem("http://foo");
+	}
+
+	@Test
+	public void validateCode_unsupportedCodeSystem_doesNotAskChainAgain() {
+		IValidationSupport validationSupport1 = createMockValidationSupport();
+		IValidationSupport validationSupport2 = createMockValidationSupport();
+		ValidationSupportChain validationSupportChain = new ValidationSupportChain(validationSupport1, validationSupport2);
+		ValidationSupportContext ctx = new ValidationSupportContext(validationSupportChain);
+
+		for (int i = 0; i < 3; i++) {
+			assertNull(validationSupportChain.validateCode(ctx, new ConceptValidationOptions(), "http://foo", "code", null, null));
+			assertFalse(validationSupportChain.isCodeSystemSupported(ctx, "http://foo"));
+		}
+
+		verify(validationSupport1, times(1)).isCodeSystemSupported(any(), eq("http://foo"));
+		verify(validationSupport2, times(1)).isCodeSystemSupported(any(), eq("http://foo"));
+		verify(validationSupport1, never()).validateCode(any(), any(), anyString(), anyString(), any(), any());
+	}
+
+	@Test
+	public void fetchValueSet_lookupCacheDisabled_asksEveryModule() {
+		IValidationSupport validationSupport1 = createMockValidationSupport();
+		IValidationSupport validationSupport2 = createMockValidationSupport();
+		ValidationSupportChain validationSupportChain = new ValidationSupportChain(validationSupport1, validationSupport2);
+		validationSupportChain.setLookupCacheTimeoutMillis(0);
+
+		assertNull(validationSupportChain.fetchValueSet("http://foo"));
+		assertNull(validationSupportChain.fetchValueSet("http://foo"));
+
+		verify(validationSupport1, times(2)).fetchValueSet("http://foo");
+		verify(validationSupport2, times(2)).fetchValueSet("http://foo");
+	}
+
+
 	private static IValidationSupport createMockValidationSupport() {
 		IValidationSupport validationSupport;
 		validationSupport = mock(IValidationSupport.class);
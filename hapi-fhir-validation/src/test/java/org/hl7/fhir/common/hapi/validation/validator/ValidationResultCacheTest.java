@@ -0,0 +1,47 @@
+package org.hl7.fhir.common.hapi.validation.validator;
+
+import org.hl7.fhir.utilities.validation.ValidationMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+public class ValidationResultCacheTest {
+
+	@Test
+	public void testCallersGetTheirOwnCopies() {
+		ValidationResultCache cache = new ValidationResultCache();
+
+		List<ValidationMessage> messages = new ArrayList<>();
+		messages.add(new ValidationMessage(
+				ValidationMessage.Source.InstanceValidator,
+				ValidationMessage.IssueType.STRUCTURE,
+				1,
+				2,
+				"Patient.name",
+				"Message",
+				ValidationMessage.IssueSeverity.WARNING));
+		messages.get(0).setMessageId("MESSAGE_ID");
+		cache.put("KEY", messages);
+
+		// Changes made by the caller that computed the outcome don't reach the cache
+		messages.get(0).setLevel(ValidationMessage.IssueSeverity.ERROR);
+
+		List<ValidationMessage> first = cache.get("KEY");
+		assertEquals(1, first.size());
+		assertEquals(ValidationMessage.IssueSeverity.WARNING, first.get(0).getLevel());
+		first.get(0).setMessage("Changed");
+
+		// ..and neither do changes made by callers served from the cache
+		List<ValidationMessage> second = cache.get("KEY");
+		assertNotSame(first.get(0), second.get(0));
+		assertEquals("Message", second.get(0).getMessage());
+		assertEquals("MESSAGE_ID", second.get(0).getMessageId());
+		assertEquals("Patient.name", second.get(0).getLocation());
+		assertEquals(1, second.get(0).getLine());
+		assertEquals(2, second.get(0).getCol());
+	}
+}
@@ -15,6 +15,7 @@ import ca.uhn.fhir.util.TestUtil;
 import ca.uhn.fhir.validation.FhirValidator;
 import ca.uhn.fhir.validation.ResultSeverityEnum;
 import ca.uhn.fhir.validation.SingleValidationMessage;
+import ca.uhn.fhir.validation.ValidationOptions;
 import ca.uhn.fhir.validation.ValidationResult;
 import ca.uhn.hapi.converters.canonical.VersionCanonicalizer;
 import com.google.common.base.Charsets;
@@ -28,6 +29,7 @@ import org.hl7.fhir.common.hapi.validation.support.PrePopulatedValidationSupport
 import org.hl7.fhir.common.hapi.validation.support.SnapshotGeneratingValidationSupport;
 import org.hl7.fhir.common.hapi.validation.support.ValidationSupportChain;
 import org.hl7.fhir.common.hapi.validation.validator.FhirInstanceValidator;
+import org.hl7.fhir.common.hapi.validation.validator.ValidationResultCache;
 import org.hl7.fhir.common.hapi.validation.validator.VersionSpecificWorkerContextWrapper;
 import org.hl7.fhir.exceptions.FHIRException;
 import org.hl7.fhir.instance.model.api.IBaseResource;
@@ -45,6 +47,7 @@ import org.hl7.fhir.r4.model.CodeType;
 import org.hl7.fhir.r4.model.Consent;
 import org.hl7.fhir.r4.model.ContactPoint;
 import org.hl7.fhir.r4.model.DateTimeType;
+import org.hl7.fhir.r4.model.Enumerations;
 import org.hl7.fhir.r4.model.Extension;
 import org.hl7.fhir.r4.model.IntegerType;
 import org.hl7.fhir.r4.model.Media;
@@ -93,6 +96,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -101,6 +105,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
@@ -695,6 +700,158 @@ public class FhirInstanceValidatorR4Test extends BaseTest {
 		assertTrue(myInstanceVal.isNoTerminologyChecks());
 	}
 
+	@Test
+	public void testValidateTransactionBundleConcurrently() {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+		for (int i = 0; i < 12; i++) {
+			Patient patient = new Patient();
+			patient.addName().setFamily("Family " + i);
+			patient.setGender(Enumerations.AdministrativeGender.MALE);
+			bundle.addEntry()
+					.setFullUrl("urn:uuid:" + UUID.randomUUID())
+					.setResource(patient)
+					.getRequest()
+					.setMethod(Bundle.HTTPVerb.POST)
+					.setUrl("Patient");
+		}
+		String input = ourCtx.newJsonParser().encodeResourceToString(bundle);
+		// Make the gender of the last entry invalid
+		input = new StringBuilder(input)
+				.replace(input.lastIndexOf("\"male\""), input.lastIndexOf("\"male\"") + 6, "\"foo\"")
+				.toString();
+
+		List<String> sequential = toLocationsAndMessages(myFhirValidator.validateWithResult(input));
+
+		myInstanceVal.setConcurrentBundleValidation(true);
+		myInstanceVal.setConcurrentBundleValidationThreadCount(4);
+		List<String> concurrent = toLocationsAndMessages(myFhirValidator.validateWithResult(input));
+
+		ourLog.info("Sequential: {}", sequential);
+		ourLog.info("Concurrent: {}", concurrent);
+		assertThat(concurrent, hasItem(startsWith("Bundle.entry[11].resource/*Patient/null*/.gender ")));
+		assertEquals(new TreeSet<>(sequential), new TreeSet<>(concurrent));
+	}
+
+	@Test
+	public void testValidateTransactionBundleConcurrently_ProfiledOrReferencingBundleIsValidatedSequentially() {
+		Bundle bundle = new Bundle();
+		bundle.setType(Bundle.BundleType.TRANSACTION);
+		for (int i = 0; i < 6; i++) {
+			String patientFullUrl = "urn:uuid:" + UUID.randomUUID();
+			Patient patient = new Patient();
+			patient.setGender(Enumerations.AdministrativeGender.MALE);
+			bundle.addEntry()
+					.setFullUrl(patientFullUrl)
+					.setResource(patient)
+					.getRequest()
+					.setMethod(Bundle.HTTPVerb.POST)
+					.setUrl("Patient");
+
+			Observation observation = new Observation();
+			observation.setStatus(ObservationStatus.FINAL);
+			observation.getCode().setText("Code " + i);
+			observation.setSubject(new Reference(patientFullUrl));
+			bundle.addEntry()
+					.setFullUrl("urn:uuid:" + UUID.randomUUID())
+					.setResource(observation)
+					.getRequest()
+					.setMethod(Bundle.HTTPVerb.POST)
+					.setUrl("Observation");
+		}
+		// Point the last subject at an entry of a type which isn't allowed, which is only detected within the Bundle
+		((Observation) bundle.getEntry().get(11).getResource())
+				.setSubject(new Reference(bundle.getEntry().get(9).getFullUrl()));
+		String referencing = ourCtx.newJsonParser().encodeResourceToString(bundle);
+
+		bundle.getMeta().addProfile("http://hl7.org/fhir/StructureDefinition/Bundle");
+		for (BundleEntryComponent next : bundle.getEntry()) {
+			if (next.getResource() instanceof Observation) {
+				((Observation) next.getResource()).setSubject(null);
+			}
+		}
+		String profiled = ourCtx.newJsonParser().encodeResourceToString(bundle);
+
+		List<String> referencingSequential = toLocationsAndMessages(myFhirValidator.validateWithResult(referencing));
+		List<String> profiledSequential = toLocationsAndMessages(myFhirValidator.validateWithResult(profiled));
+
+		myInstanceVal.setConcurrentBundleValidation(true);
+		myInstanceVal.setConcurrentBundleValidationThreshold(2);
+		List<String> referencingConcurrent = toLocationsAndMessages(myFhirValidator.validateWithResult(referencing));
+		List<String> profiledConcurrent = toLocationsAndMessages(myFhirValidator.validateWithResult(profiled));
+
+		ourLog.info("Referencing: {}", referencingConcurrent);
+		ourLog.info("Profiled: {}", profiledConcurrent);
+		assertEquals(referencingSequential, referencingConcurrent);
+		assertEquals(profiledSequential, profiledConcurrent);
+	}
+
+	private static List<String> toLocationsAndMessages(ValidationResult theResult) {
+		return theResult.getMessages().stream()
+				.filter(t -> t.getSeverity() != ResultSeverityEnum.INFORMATION)
+				.map(t -> t.getLocationString() + " " + t.getLocationLine() + ":" + t.getLocationCol() + " "
+						+ t.getMessage())
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void testValidationResultCache() {
+		ValidationResultCache cache = new ValidationResultCache();
+		myInstanceVal.setValidationResultCache(cache);
+
+		Patient patient = new Patient();
+		patient.addName().setFamily("Smith");
+		patient.setGender(Enumerations.AdministrativeGender.FEMALE);
+
+		ValidationResult first = myFhirValidator.validateWithResult(patient);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		// Identical content is served from the cache
+		ValidationResult second = myFhirValidator.validateWithResult(patient.copy());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(first.getMessages().toString(), second.getMessages().toString());
+
+		// Different content, profiles or settings are not
+		patient.setActive(true);
+		myFhirValidator.validateWithResult(patient);
+		myFhirValidator.validateWithResult(
+				patient, new ValidationOptions().addProfile("http://hl7.org/fhir/StructureDefinition/Patient"));
+		myInstanceVal.setNoTerminologyChecks(true);
+		myFhirValidator.validateWithResult(patient);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(4, cache.getMissCount());
+
+		myFhirValidator.validateWithResult(patient);
+		assertEquals(2, cache.getHitCount());
+
+		// Invalidating the validator's caches invalidates the outcomes too
+		myInstanceVal.invalidateCaches();
+		myFhirValidator.validateWithResult(patient);
+		assertEquals(2, cache.getHitCount());
+		assertEquals(5, cache.getMissCount());
+		assertEquals(2.0 / 7.0, cache.getHitRatio(), 0.0001);
+	}
+
+	@Test
+	public void testValidationResultCache_InvalidatedWithValidationSupport() {
+		ValidationResultCache cache = new ValidationResultCache();
+		myInstanceVal.setValidationResultCache(cache);
+
+		Patient patient = new Patient();
+		patient.addName().setFamily("Smith");
+		myFhirValidator.validateWithResult(patient);
+		myFhirValidator.validateWithResult(patient);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		// The JPA server invalidates the validation support directly, e.g. when a package is installed
+		myValidationSupport.invalidateCaches();
+		myFhirValidator.validateWithResult(patient);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
 	@Test
 	public void testLargeBase64() throws IOException {
 		String input = IOUtils.toString(FhirInstanceValidatorR4Test.class.getResourceAsStream("/r4/diagnosticreport-example-gingival-mass.json"), Constants.CHARSET_UTF8);